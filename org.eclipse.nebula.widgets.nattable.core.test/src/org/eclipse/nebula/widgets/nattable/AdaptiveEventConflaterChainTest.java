@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.nebula.widgets.nattable.conflation.AbstractEventConflater;
+import org.eclipse.nebula.widgets.nattable.conflation.AdaptiveEventConflaterChain;
+import org.eclipse.nebula.widgets.nattable.test.fixture.LayerEventFixture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdaptiveEventConflaterChainTest {
+
+    private DeferringConflaterChain conflaterChain;
+    private CountingConflater conflater;
+
+    @Before
+    public void setup() {
+        this.conflaterChain = new DeferringConflaterChain(10, 200);
+        this.conflater = new CountingConflater();
+        this.conflaterChain.add(this.conflater);
+        this.conflaterChain.start();
+    }
+
+    @After
+    public void teardown() {
+        this.conflaterChain.stop();
+    }
+
+    @Test
+    public void shouldRunConflaterTasksAfterEventsAdded() throws Exception {
+        this.conflaterChain.addEvent(new LayerEventFixture());
+        this.conflaterChain.addEvent(new LayerEventFixture());
+        assertTrue(this.conflaterChain.isScheduled());
+
+        Thread.sleep(100);
+
+        assertEquals(0, this.conflater.getCount());
+        assertEquals(1, this.conflater.runs.get());
+        assertFalse(this.conflaterChain.isScheduled());
+        assertTrue(this.conflaterChain.getLastLatency() > 0);
+    }
+
+    @Test
+    public void shouldNotRunConflaterTasksIfIdle() throws Exception {
+        Thread.sleep(100);
+
+        assertEquals(0, this.conflater.runs.get());
+        assertFalse(this.conflaterChain.isScheduled());
+    }
+
+    @Test
+    public void shouldAdaptIntervalToProcessingTime() {
+        assertEquals(10, this.conflaterChain.getCurrentInterval());
+
+        // 30 ms processing time results in a 60 ms interval
+        this.conflaterChain.reportProcessingTime(30000000L);
+        assertEquals(60, this.conflaterChain.getCurrentInterval());
+
+        // the interval is bounded by the maximum
+        for (int i = 0; i < 20; i++) {
+            this.conflaterChain.reportProcessingTime(1000000000L);
+        }
+        assertEquals(200, this.conflaterChain.getCurrentInterval());
+
+        // and decreases again if processing gets faster
+        for (int i = 0; i < 50; i++) {
+            this.conflaterChain.reportProcessingTime(1000000L);
+        }
+        assertEquals(10, this.conflaterChain.getCurrentInterval());
+    }
+
+    @Test
+    public void shouldPostponeRunsWhileProcessingIsPending() throws Exception {
+        this.conflaterChain.deferCompletion = true;
+        this.conflaterChain.addEvent(new LayerEventFixture());
+        this.conflaterChain.addEvent(new LayerEventFixture());
+        Thread.sleep(100);
+
+        assertEquals(1, this.conflater.runs.get());
+        assertEquals(2, this.conflaterChain.getLastQueueDepth());
+        assertEquals(1, this.conflaterChain.getPendingRunCount());
+
+        // the previous run is not done, so further events are conflated
+        // until the maximum interval is reached
+        this.conflaterChain.addEvent(new LayerEventFixture());
+        Thread.sleep(100);
+        assertEquals(1, this.conflater.runs.get());
+        assertEquals(1, this.conflater.getCount());
+
+        Thread.sleep(250);
+        assertEquals(2, this.conflater.runs.get());
+        assertEquals(2, this.conflaterChain.getPendingRunCount());
+        assertEquals(2, this.conflaterChain.getMaxQueueDepth());
+    }
+
+    @Test
+    public void shouldNotPostponeRunsAfterRunCompleted() throws Exception {
+        this.conflaterChain.deferCompletion = true;
+        this.conflaterChain.addEvent(new LayerEventFixture());
+        Thread.sleep(100);
+        assertEquals(1, this.conflaterChain.getPendingRunCount());
+
+        // a reported processing time does not mark the run as done
+        this.conflaterChain.reportProcessingTime(1000000L);
+        assertEquals(1, this.conflaterChain.getPendingRunCount());
+
+        this.conflaterChain.completeRuns();
+        assertEquals(0, this.conflaterChain.getPendingRunCount());
+
+        this.conflaterChain.addEvent(new LayerEventFixture());
+        Thread.sleep(100);
+        assertEquals(2, this.conflater.runs.get());
+    }
+
+    @Test
+    public void shouldCompleteRunsWithoutProcessingReported() throws Exception {
+        this.conflaterChain.addEvent(new LayerEventFixture());
+        Thread.sleep(100);
+        assertEquals(1, this.conflater.runs.get());
+        assertEquals(0, this.conflaterChain.getPendingRunCount());
+
+        this.conflaterChain.addEvent(new LayerEventFixture());
+        Thread.sleep(100);
+        assertEquals(2, this.conflater.runs.get());
+    }
+
+    @Test
+    public void shouldNotRunConflaterTasksAfterStop() throws Exception {
+        this.conflaterChain.reportProcessingTime(25000000L);
+        this.conflaterChain.addEvent(new LayerEventFixture());
+        this.conflaterChain.stop();
+
+        Thread.sleep(100);
+
+        assertEquals(0, this.conflater.runs.get());
+        assertEquals(1, this.conflater.getCount());
+    }
+
+    private static class DeferringConflaterChain extends AdaptiveEventConflaterChain {
+
+        volatile boolean deferCompletion;
+        final List<Runnable> completions = new ArrayList<>();
+
+        DeferringConflaterChain(int minInterval, int maxInterval) {
+            super(minInterval, maxInterval);
+        }
+
+        @Override
+        protected void runCompleted(Runnable completion) {
+            // no display thread in the tests, so either complete the run
+            // directly or keep the completion until the test runs it
+            if (this.deferCompletion) {
+                synchronized (this.completions) {
+                    this.completions.add(completion);
+                }
+            } else {
+                completion.run();
+            }
+        }
+
+        void completeRuns() {
+            synchronized (this.completions) {
+                for (Runnable completion : this.completions) {
+                    completion.run();
+                }
+                this.completions.clear();
+            }
+        }
+    }
+
+    private static class CountingConflater extends AbstractEventConflater {
+
+        final AtomicInteger runs = new AtomicInteger();
+
+        @Override
+        public Runnable getConflaterTask() {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    CountingConflater.this.runs.incrementAndGet();
+                    clearQueue();
+                }
+            };
+        }
+    }
+}
@@ -11,11 +11,21 @@
 package org.eclipse.nebula.widgets.nattable;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.eclipse.nebula.widgets.nattable.conflation.EventConflaterChain;
 import org.eclipse.nebula.widgets.nattable.conflation.VisualChangeEventConflater;
+import org.eclipse.nebula.widgets.nattable.edit.event.DataUpdateEvent;
+import org.eclipse.nebula.widgets.nattable.selection.SelectionLayer;
+import org.eclipse.nebula.widgets.nattable.selection.event.CellSelectionEvent;
 import org.eclipse.nebula.widgets.nattable.test.fixture.LayerEventFixture;
 import org.eclipse.nebula.widgets.nattable.test.fixture.NatTableFixture;
+import org.eclipse.nebula.widgets.nattable.test.fixture.layer.DataLayerFixture;
+import org.eclipse.swt.graphics.Rectangle;
 import org.junit.Test;
 
 public class VisualChangeEventConflaterTest {
@@ -37,4 +47,106 @@ public void shouldAccumulateEvents() throws Exception {
 
         assertEquals(0, conflater.getCount());
     }
+
+    @Test
+    public void shouldRepaintDamagedRegionsOfDataUpdates() {
+        RepaintRecordingNatTable natTable = new RepaintRecordingNatTable();
+        natTable.setDamageTrackingThreshold(10);
+        VisualChangeEventConflater conflater = new VisualChangeEventConflater(natTable);
+
+        conflater.addEvent(new DataUpdateEvent(natTable, 2, 3, "old", "new"));
+        conflater.getConflaterTask().run();
+        natTable.processEvents();
+
+        assertEquals(Arrays.asList(new Rectangle(2, 3, 1, 1)), natTable.repaintedRegions);
+    }
+
+    @Test
+    public void shouldRefreshOnSelectionChange() {
+        RepaintRecordingNatTable natTable = new RepaintRecordingNatTable();
+        natTable.setDamageTrackingThreshold(10);
+        VisualChangeEventConflater conflater = new VisualChangeEventConflater(natTable);
+        SelectionLayer selectionLayer = new SelectionLayer(new DataLayerFixture());
+
+        // the previous selection is cleared without an event, so only
+        // repainting the newly selected cell would leave it painted as
+        // selected
+        conflater.addEvent(new CellSelectionEvent(selectionLayer, 2, 3, false, false));
+        conflater.getConflaterTask().run();
+        natTable.processEvents();
+
+        assertTrue(natTable.repaintedRegions.isEmpty());
+        assertTrue(natTable.refreshed);
+    }
+
+    @Test
+    public void shouldCoalesceDamagedRegions() {
+        assertEquals(
+                Arrays.asList(new Rectangle(2, 1, 3, 2)),
+                VisualChangeEventConflater.coalesce(Arrays.asList(
+                        new Rectangle(2, 1, 1, 1),
+                        new Rectangle(3, 1, 2, 1),
+                        new Rectangle(2, 2, 3, 1),
+                        new Rectangle(3, 2, 1, 1)), 10, 10));
+
+        assertEquals(
+                Arrays.asList(
+                        new Rectangle(0, 0, 10, 1),
+                        new Rectangle(1, 3, 1, 2),
+                        new Rectangle(5, 3, 1, 2),
+                        new Rectangle(1, 5, 1, 1)),
+                VisualChangeEventConflater.coalesce(Arrays.asList(
+                        new Rectangle(0, 0, 10, 1),
+                        new Rectangle(1, 3, 1, 3),
+                        new Rectangle(5, 3, 1, 2)), 10, 10));
+    }
+
+    @Test
+    public void shouldClipDamagedRegions() {
+        assertEquals(
+                Arrays.asList(new Rectangle(8, 8, 2, 2)),
+                VisualChangeEventConflater.coalesce(Arrays.asList(
+                        new Rectangle(8, 8, 5, 5)), 10, 10));
+
+        assertTrue(VisualChangeEventConflater.coalesce(Arrays.asList(
+                new Rectangle(10, 0, 1, 1),
+                new Rectangle(-2, 0, 1, 1)), 10, 10).isEmpty());
+    }
+
+    /**
+     * Records the partial repaints and full refreshes instead of performing
+     * them.
+     */
+    private static class RepaintRecordingNatTable extends NatTableFixture {
+
+        final List<Rectangle> repaintedRegions = new ArrayList<Rectangle>();
+        boolean refreshed = false;
+        private boolean recording = false;
+
+        RepaintRecordingNatTable() {
+            this.recording = true;
+        }
+
+        @Override
+        public void repaintCells(Rectangle positionRectangle) {
+            if (this.recording) {
+                this.repaintedRegions.add(positionRectangle);
+            }
+        }
+
+        @Override
+        public void updateResize() {
+            if (this.recording) {
+                this.refreshed = true;
+            } else {
+                super.updateResize();
+            }
+        }
+
+        void processEvents() {
+            while (getDisplay().readAndDispatch()) {
+                // process the runnables of the conflater task
+            }
+        }
+    }
 }
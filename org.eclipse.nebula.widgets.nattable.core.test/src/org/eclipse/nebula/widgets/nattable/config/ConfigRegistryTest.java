@@ -11,6 +11,11 @@
 package org.eclipse.nebula.widgets.nattable.config;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.eclipse.nebula.widgets.nattable.config.ConfigRegistry;
 import org.eclipse.nebula.widgets.nattable.style.ConfigAttribute;
@@ -169,4 +174,94 @@ public void registerWithDisplayModeAndMultipleConfigLabels()
                 DisplayMode.NORMAL, "testLabel_1", "testLabel");
         assertEquals("testValueNormalLabel_1", actual);
     }
+
+    @Test
+    public void shouldInvalidateLookupCacheOnRegistration() throws Exception {
+        this.configRegistry.registerConfigAttribute(this.testAttribute, "testValue");
+
+        assertEquals("testValue", this.configRegistry.getConfigAttribute(this.testAttribute,
+                DisplayMode.NORMAL, "testLabel"));
+        assertEquals("testValue", this.configRegistry.getConfigAttribute(this.testAttribute,
+                DisplayMode.NORMAL, "testLabel"));
+        assertEquals(1, this.configRegistry.getLookupCacheMisses());
+        assertEquals(1, this.configRegistry.getLookupCacheHits());
+        assertEquals(0.5d, this.configRegistry.getLookupCacheHitRate(), 0.001d);
+
+        this.configRegistry.registerConfigAttribute(this.testAttribute,
+                "testValueLabel", DisplayMode.NORMAL, "testLabel");
+        assertEquals("testValueLabel", this.configRegistry.getConfigAttribute(this.testAttribute,
+                DisplayMode.NORMAL, "testLabel"));
+        assertEquals(2, this.configRegistry.getLookupCacheMisses());
+
+        this.configRegistry.unregisterConfigAttribute(this.testAttribute,
+                DisplayMode.NORMAL, "testLabel");
+        assertEquals("testValue", this.configRegistry.getConfigAttribute(this.testAttribute,
+                DisplayMode.NORMAL, "testLabel"));
+
+        this.configRegistry.unregisterConfigAttribute(this.testAttribute);
+        assertNull(this.configRegistry.getConfigAttribute(this.testAttribute,
+                DisplayMode.NORMAL, "testLabel"));
+
+        this.configRegistry.resetLookupCacheStatistics();
+        assertEquals(0, this.configRegistry.getLookupCacheHits());
+        assertEquals(0, this.configRegistry.getLookupCacheMisses());
+    }
+
+    @Test
+    public void shouldNotBeAffectedByModifiedLabelList() throws Exception {
+        this.configRegistry.registerConfigAttribute(this.testAttribute, "testValue");
+        this.configRegistry.registerConfigAttribute(this.testAttribute,
+                "testValueLabel", DisplayMode.NORMAL, "testLabel");
+
+        List<String> labels = new ArrayList<String>();
+        labels.add("otherLabel");
+        assertEquals("testValue", this.configRegistry.getConfigAttribute(this.testAttribute,
+                DisplayMode.NORMAL, labels));
+
+        labels.add(0, "testLabel");
+        assertEquals("testValueLabel", this.configRegistry.getConfigAttribute(this.testAttribute,
+                DisplayMode.NORMAL, labels));
+
+        labels.remove(0);
+        assertEquals("testValue", this.configRegistry.getConfigAttribute(this.testAttribute,
+                DisplayMode.NORMAL, labels));
+        assertEquals(1, this.configRegistry.getLookupCacheHits());
+
+        assertEquals(Arrays.asList("testValueLabel", "testValue"),
+                this.configRegistry.getConfigAttributes(this.testAttribute,
+                        DisplayMode.SELECT, Arrays.asList("testLabel")));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedLookups() throws Exception {
+        this.configRegistry.registerConfigAttribute(this.testAttribute, "testValue");
+
+        for (int i = 0; i < ConfigRegistry.MAX_CACHED_LOOKUPS; i++) {
+            this.configRegistry.getConfigAttribute(this.testAttribute,
+                    DisplayMode.NORMAL, "label" + i);
+        }
+        assertEquals(ConfigRegistry.MAX_CACHED_LOOKUPS, this.configRegistry.getCachedLookupCount());
+
+        // accessing the first lookup makes the second one the eldest
+        this.configRegistry.getConfigAttribute(this.testAttribute,
+                DisplayMode.NORMAL, "label0");
+        assertEquals(1, this.configRegistry.getLookupCacheHits());
+
+        // exceeding the bound only evicts the eldest lookup
+        this.configRegistry.getConfigAttribute(this.testAttribute,
+                DisplayMode.NORMAL, "newLabel");
+        assertEquals(ConfigRegistry.MAX_CACHED_LOOKUPS, this.configRegistry.getCachedLookupCount());
+        this.configRegistry.resetLookupCacheStatistics();
+
+        this.configRegistry.getConfigAttribute(this.testAttribute,
+                DisplayMode.NORMAL, "label0");
+        this.configRegistry.getConfigAttribute(this.testAttribute,
+                DisplayMode.NORMAL, "label2");
+        assertEquals(2, this.configRegistry.getLookupCacheHits());
+        assertEquals(0, this.configRegistry.getLookupCacheMisses());
+
+        this.configRegistry.getConfigAttribute(this.testAttribute,
+                DisplayMode.NORMAL, "label1");
+        assertEquals(1, this.configRegistry.getLookupCacheMisses());
+    }
 }
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.coordinate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.eclipse.nebula.widgets.nattable.persistence.PersistenceHelper;
+import org.junit.Test;
+
+public class RangeSetTest {
+
+    @Test
+    public void shouldMergeAdjacentRanges() {
+        RangeSet set = new RangeSet();
+        set.addRange(0, 5);
+        set.addRange(10, 15);
+        assertEquals(2, set.getRangeCount());
+        assertEquals(10, set.size());
+
+        set.addRange(5, 10);
+        assertEquals(1, set.getRangeCount());
+        assertEquals(15, set.size());
+        assertEquals(Arrays.asList(new Range(0, 15)), set.getRanges());
+
+        assertFalse(set.addRange(3, 7));
+        assertFalse(set.add(14));
+        assertTrue(set.add(15));
+        assertEquals(Arrays.asList(new Range(0, 16)), set.getRanges());
+    }
+
+    @Test
+    public void shouldSplitOnRemove() {
+        RangeSet set = new RangeSet(new Range(0, 100));
+        assertTrue(set.removeRange(10, 20));
+        assertTrue(set.remove(50));
+        assertFalse(set.remove(50));
+        assertFalse(set.removeRange(100, 200));
+
+        assertEquals(Arrays.asList(new Range(0, 10), new Range(20, 50), new Range(51, 100)), set.getRanges());
+        assertEquals(89, set.size());
+        assertTrue(set.contains(9));
+        assertFalse(set.contains(10));
+        assertFalse(set.contains(Integer.valueOf(50)));
+        assertTrue(set.contains(Integer.valueOf(51)));
+    }
+
+    @Test
+    public void shouldInsertAndDelete() {
+        RangeSet set = new RangeSet(new Range(2, 5), new Range(8, 10));
+
+        // insert inside of a range splits it
+        set.insert(3, 2);
+        assertEquals(Arrays.asList(new Range(2, 3), new Range(5, 7), new Range(10, 12)), set.getRanges());
+
+        // deleting the gap merges the ranges
+        set.delete(3, 5);
+        assertEquals(Arrays.asList(new Range(2, 5), new Range(8, 10)), set.getRanges());
+
+        set.delete(4, 9);
+        assertEquals(Arrays.asList(new Range(2, 5)), set.getRanges());
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    public void shouldIterateAndRemove() {
+        RangeSet set = new RangeSet(new Range(0, 3), new Range(5, 7));
+        List<Integer> values = new ArrayList<Integer>(set);
+        assertEquals(Arrays.asList(0, 1, 2, 5, 6), values);
+
+        for (Iterator<Integer> it = set.iterator(); it.hasNext();) {
+            int value = it.next();
+            if (value % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(Arrays.asList(1, 5), new ArrayList<Integer>(set));
+    }
+
+    @Test
+    public void shouldBehaveLikeTreeSet() {
+        Random random = new Random(42);
+        RangeSet set = new RangeSet();
+        TreeSet<Integer> reference = new TreeSet<Integer>();
+        for (int i = 0; i < 5000; i++) {
+            int start = random.nextInt(1000);
+            int end = start + random.nextInt(20);
+            if (random.nextInt(3) == 0) {
+                set.removeRange(start, end);
+                for (int value = start; value < end; value++) {
+                    reference.remove(value);
+                }
+            } else {
+                set.addRange(start, end);
+                for (int value = start; value < end; value++) {
+                    reference.add(value);
+                }
+            }
+            assertEquals(reference.size(), set.size());
+        }
+        assertEquals(new ArrayList<Integer>(reference), new ArrayList<Integer>(set));
+        assertEquals(reference, set);
+        assertEquals(PositionUtil.getRanges(new ArrayList<Integer>(reference)), PositionUtil.getRanges(set));
+    }
+
+    @Test
+    public void shouldPersistCompact() {
+        RangeSet set = new RangeSet(new Range(0, 1000), new Range(2000, 2002), new Range(3000, 3001));
+        String persisted = PersistenceHelper.rangesToString(set);
+        assertEquals("0-999,2000,2001,3000,", persisted);
+
+        RangeSet loaded = new RangeSet();
+        PersistenceHelper.stringToRanges(persisted, loaded);
+        assertEquals(set, loaded);
+
+        // old format with single values
+        loaded.clear();
+        PersistenceHelper.stringToRanges("1,2,3,7,", loaded);
+        assertEquals(Arrays.asList(new Range(1, 4), new Range(7, 8)), loaded.getRanges());
+    }
+}
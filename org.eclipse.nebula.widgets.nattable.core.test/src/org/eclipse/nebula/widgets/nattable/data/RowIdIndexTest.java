@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.data;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.dataset.person.Person;
+import org.eclipse.nebula.widgets.nattable.dataset.person.Person.Gender;
+import org.eclipse.nebula.widgets.nattable.dataset.person.PersonService;
+import org.eclipse.nebula.widgets.nattable.layer.DataLayer;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowDeleteEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowInsertEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowStructuralRefreshEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RowIdIndexTest {
+
+    private List<Person> dataModel;
+    private DataLayer dataLayer;
+    private ListDataProvider<Person> dataProvider;
+    private RowIdIndex<Person> rowIdIndex;
+
+    @Before
+    public void setup() {
+        this.dataModel = PersonService.getFixedPersons();
+        this.dataProvider = new ListDataProvider<>(
+                this.dataModel,
+                new ReflectiveColumnPropertyAccessor<Person>(new String[] { "firstName", "lastName" }));
+        this.dataLayer = new DataLayer(this.dataProvider);
+
+        this.rowIdIndex = new RowIdIndex<>(this.dataModel, new IRowIdAccessor<Person>() {
+
+            @Override
+            public Serializable getRowId(Person rowObject) {
+                return rowObject.getId();
+            }
+        });
+        this.dataProvider.setRowIdIndex(this.rowIdIndex);
+        this.dataLayer.addLayerListener(this.rowIdIndex);
+    }
+
+    @Test
+    public void shouldResolveIndexById() {
+        for (int i = 0; i < this.dataModel.size(); i++) {
+            assertEquals(i, this.dataProvider.indexOfRowObject(this.dataModel.get(i)));
+        }
+        assertEquals(-1, this.rowIdIndex.indexOfRowId(42));
+        assertEquals(-1, this.dataProvider.indexOfRowObject(null));
+    }
+
+    @Test
+    public void shouldResolveEqualIdOfOtherInstance() {
+        Person person = this.dataModel.get(5);
+        Person copy = new Person(person.getId(), "Copy", "Copy", Gender.MALE, false, null);
+
+        assertEquals(5, this.dataProvider.indexOfRowObject(copy));
+    }
+
+    @Test
+    public void shouldUpdateOnInsert() {
+        Person person = this.dataModel.get(5);
+        assertEquals(5, this.dataProvider.indexOfRowObject(person));
+
+        Person ralph = new Person(42, "Ralph", "Wiggum", Gender.MALE, false, null);
+        this.dataModel.add(2, ralph);
+        this.dataLayer.fireLayerEvent(new RowInsertEvent(this.dataLayer, 2));
+
+        assertEquals(2, this.dataProvider.indexOfRowObject(ralph));
+        assertEquals(6, this.dataProvider.indexOfRowObject(person));
+        assertEquals(0, this.dataProvider.indexOfRowObject(this.dataModel.get(0)));
+    }
+
+    @Test
+    public void shouldUpdateOnDelete() {
+        Person removed = this.dataModel.get(3);
+        Person person = this.dataModel.get(5);
+        assertEquals(5, this.dataProvider.indexOfRowObject(person));
+
+        this.dataModel.remove(3);
+        this.dataLayer.fireLayerEvent(new RowDeleteEvent(this.dataLayer, new Range(3, 4)));
+
+        assertEquals(-1, this.dataProvider.indexOfRowObject(removed));
+        assertEquals(4, this.dataProvider.indexOfRowObject(person));
+    }
+
+    @Test
+    public void shouldShiftIndexesWithoutReadingFollowingRows() {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            persons.add(new Person(i, "First" + i, "Last" + i, Gender.MALE, false, null));
+        }
+        final AtomicInteger reads = new AtomicInteger();
+        RowIdIndex<Person> index = new RowIdIndex<>(persons, new IRowIdAccessor<Person>() {
+
+            @Override
+            public Serializable getRowId(Person rowObject) {
+                reads.incrementAndGet();
+                return rowObject.getId();
+            }
+        });
+        assertEquals(999, index.indexOfRowObject(persons.get(999)));
+
+        reads.set(0);
+        Person ralph = new Person(1000, "Ralph", "Wiggum", Gender.MALE, false, null);
+        persons.add(1, ralph);
+        index.rowsInserted(1, 1);
+        persons.remove(0);
+        index.rowsDeleted(0, 1);
+
+        assertEquals(999, index.indexOfRowId(999));
+        assertEquals(0, index.indexOfRowId(1000));
+        assertEquals(1, index.indexOfRowId(1));
+        assertEquals(-1, index.indexOfRowId(0));
+        // the id of the inserted row and the verification of the found indexes
+        assertEquals(4, reads.get());
+    }
+
+    @Test
+    public void shouldUpdateOnManyInsertsAndDeletes() {
+        for (int i = 0; i < 50; i++) {
+            Person person = new Person(100 + i, "Ralph", "Wiggum", Gender.MALE, false, null);
+            int insertIndex = (i * 7) % this.dataModel.size();
+            this.dataModel.add(insertIndex, person);
+            this.dataLayer.fireLayerEvent(new RowInsertEvent(this.dataLayer, insertIndex));
+
+            if (i % 3 == 0) {
+                int deleteIndex = (i * 5) % this.dataModel.size();
+                this.dataModel.remove(deleteIndex);
+                this.dataLayer.fireLayerEvent(new RowDeleteEvent(this.dataLayer, deleteIndex));
+            }
+
+            for (int row = 0; row < this.dataModel.size(); row++) {
+                assertEquals(row, this.dataProvider.indexOfRowObject(this.dataModel.get(row)));
+            }
+        }
+    }
+
+    @Test
+    public void shouldUpdateOnMultipleDiffs() {
+        Person first = this.dataModel.get(0);
+        Person person = this.dataModel.get(5);
+        Person last = this.dataModel.get(this.dataModel.size() - 1);
+        assertEquals(5, this.dataProvider.indexOfRowObject(person));
+
+        this.dataModel.remove(6);
+        this.dataModel.remove(1);
+        this.dataLayer.fireLayerEvent(new RowDeleteEvent(this.dataLayer, new Range(1, 2), new Range(6, 7)));
+
+        Person ralph = new Person(42, "Ralph", "Wiggum", Gender.MALE, false, null);
+        Person nelson = new Person(43, "Nelson", "Muntz", Gender.MALE, false, null);
+        this.dataModel.add(0, ralph);
+        this.dataModel.add(6, nelson);
+        this.dataLayer.fireLayerEvent(new RowInsertEvent(this.dataLayer, new Range(0, 1), new Range(6, 7)));
+
+        for (int row = 0; row < this.dataModel.size(); row++) {
+            assertEquals(row, this.dataProvider.indexOfRowObject(this.dataModel.get(row)));
+        }
+        assertEquals(1, this.dataProvider.indexOfRowObject(first));
+        assertEquals(5, this.dataProvider.indexOfRowObject(person));
+        assertEquals(this.dataModel.size() - 1, this.dataProvider.indexOfRowObject(last));
+    }
+
+    @Test
+    public void shouldResolveFirstIndexOfDuplicateIds() {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            persons.add(new Person(i % 5, "First" + i, "Last" + i, Gender.MALE, false, null));
+        }
+        RowIdIndex<Person> index = new RowIdIndex<>(persons, new IRowIdAccessor<Person>() {
+
+            @Override
+            public Serializable getRowId(Person rowObject) {
+                return rowObject.getId();
+            }
+        });
+        assertEquals(3, index.indexOfRowId(3));
+
+        persons.remove(3);
+        index.rowsDeleted(3, 1);
+        assertEquals(7, index.indexOfRowId(3));
+
+        persons.add(0, new Person(3, "Ralph", "Wiggum", Gender.MALE, false, null));
+        index.rowsInserted(0, 1);
+        assertEquals(0, index.indexOfRowId(3));
+        assertEquals(2, index.indexOfRowId(1));
+    }
+
+    @Test
+    public void shouldRebuildOnStructuralRefresh() {
+        Person person = this.dataModel.get(0);
+        assertEquals(0, this.dataProvider.indexOfRowObject(person));
+
+        Collections.reverse(this.dataModel);
+        this.dataLayer.fireLayerEvent(new RowStructuralRefreshEvent(this.dataLayer));
+
+        assertEquals(this.dataModel.size() - 1, this.dataProvider.indexOfRowObject(person));
+    }
+
+    @Test
+    public void shouldDetectChangesWithoutEvent() {
+        Person removed = this.dataModel.get(3);
+        Person person = this.dataModel.get(5);
+        assertEquals(5, this.dataProvider.indexOfRowObject(person));
+
+        // sort without event
+        Collections.sort(this.dataModel, new Comparator<Person>() {
+
+            @Override
+            public int compare(Person o1, Person o2) {
+                return o2.getId() - o1.getId();
+            }
+        });
+        assertEquals(this.dataModel.indexOf(person), this.dataProvider.indexOfRowObject(person));
+
+        // delete without event
+        this.dataModel.remove(removed);
+        assertEquals(-1, this.dataProvider.indexOfRowObject(removed));
+        assertEquals(this.dataModel.indexOf(person), this.dataProvider.indexOfRowObject(person));
+
+        // insert without event
+        Person ralph = new Person(42, "Ralph", "Wiggum", Gender.MALE, false, null);
+        this.dataModel.add(1, ralph);
+        assertEquals(1, this.dataProvider.indexOfRowObject(ralph));
+    }
+}
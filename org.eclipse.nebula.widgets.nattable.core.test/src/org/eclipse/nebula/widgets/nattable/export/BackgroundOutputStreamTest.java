@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.export;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class BackgroundOutputStreamTest {
+
+    @Test
+    public void shouldWriteChunksInOrder() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ClosableByteArrayOutputStream target = new ClosableByteArrayOutputStream();
+        BackgroundOutputStream out = new BackgroundOutputStream(target, 10, 2);
+
+        for (int i = 0; i < 1000; i++) {
+            byte[] row = ("row " + i + ";value\n").getBytes();
+            out.write(row);
+            expected.write(row);
+            out.write(i % 128);
+            expected.write(i % 128);
+        }
+        out.close();
+
+        assertTrue(target.closed);
+        assertTrue(Arrays.equals(expected.toByteArray(), target.toByteArray()));
+    }
+
+    @Test
+    public void shouldWriteAllBytesOnFlush() throws IOException {
+        ClosableByteArrayOutputStream target = new ClosableByteArrayOutputStream();
+        BackgroundOutputStream out = new BackgroundOutputStream(target, 100, 2);
+
+        out.write("abc".getBytes());
+        out.flush();
+        assertEquals("abc", target.toString());
+
+        out.write("def".getBytes());
+        out.close();
+        assertEquals("abcdef", target.toString());
+    }
+
+    @Test
+    public void shouldRethrowWriteFailure() throws IOException {
+        OutputStream target = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+        BackgroundOutputStream out = new BackgroundOutputStream(target, 4, 1);
+
+        try {
+            for (int i = 0; i < 100; i++) {
+                out.write("data".getBytes());
+            }
+            out.flush();
+            fail("Expected the write failure to be reported");
+        } catch (IOException e) {
+            // expected
+        }
+
+        try {
+            out.close();
+            fail("Expected the write failure to be reported on close");
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldNotBlockOnCloseIfWriterStopped() throws Exception {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch stop = new CountDownLatch(1);
+        ClosableByteArrayOutputStream target = new ClosableByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                writing.countDown();
+                try {
+                    stop.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                // kills the writer thread
+                throw new AssertionError("writer stopped");
+            }
+        };
+        BackgroundOutputStream out = new BackgroundOutputStream(target, 4, 1);
+
+        // the first chunk blocks the writer thread, the next two chunks fill
+        // the queue
+        for (int i = 0; i < 4; i++) {
+            out.write("data".getBytes());
+        }
+        writing.await();
+        stop.countDown();
+
+        try {
+            out.close();
+            fail("Expected the stopped writer thread to be reported on close");
+        } catch (IOException e) {
+            // expected
+        }
+        assertTrue(target.closed);
+    }
+
+    private static class ClosableByteArrayOutputStream extends ByteArrayOutputStream {
+
+        boolean closed = false;
+
+        @Override
+        public void close() throws IOException {
+            this.closed = true;
+            super.close();
+        }
+    }
+}
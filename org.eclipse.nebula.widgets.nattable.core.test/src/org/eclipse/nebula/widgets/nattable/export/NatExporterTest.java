@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.export;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.nebula.widgets.nattable.NatTable;
+import org.eclipse.nebula.widgets.nattable.config.ConfigRegistry;
+import org.eclipse.nebula.widgets.nattable.config.IConfigRegistry;
+import org.eclipse.nebula.widgets.nattable.grid.data.DummyBodyDataProvider;
+import org.eclipse.nebula.widgets.nattable.layer.DataLayer;
+import org.eclipse.nebula.widgets.nattable.layer.ILayer;
+import org.eclipse.nebula.widgets.nattable.layer.cell.ILayerCell;
+import org.eclipse.nebula.widgets.nattable.test.fixture.NatTableFixture;
+import org.eclipse.swt.widgets.ProgressBar;
+import org.eclipse.swt.widgets.Shell;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NatExporterTest {
+
+    private final List<Exception> handledExceptions = new ArrayList<>();
+    private NatExporter natExporter;
+
+    @Before
+    public void setup() {
+        this.natExporter = new NatExporter(null, true) {
+            @Override
+            protected void handleExportException(Exception e) {
+                NatExporterTest.this.handledExceptions.add(e);
+            }
+        };
+        this.natExporter.setOpenResult(false);
+        this.natExporter.disablePreRendering();
+    }
+
+    @Test
+    public void shouldSucceedIfClosed() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        this.natExporter.exportSingleTable(
+                new TableExporterFixture(out),
+                new DataLayer(new DummyBodyDataProvider(2, 2)),
+                new ConfigRegistry());
+
+        assertTrue(this.natExporter.exportSucceeded);
+        assertTrue(this.handledExceptions.isEmpty());
+        assertEquals(1, out.size());
+    }
+
+    @Test
+    public void shouldFailIfCloseFails() {
+        // a background output stream reports write errors on close
+        OutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() throws IOException {
+                throw new IOException("write failed"); //$NON-NLS-1$
+            }
+        };
+        this.natExporter.exportSingleTable(
+                new TableExporterFixture(out),
+                new DataLayer(new DummyBodyDataProvider(2, 2)),
+                new ConfigRegistry());
+
+        assertFalse(this.natExporter.exportSucceeded);
+        assertEquals(1, this.handledExceptions.size());
+        assertEquals("write failed", this.handledExceptions.get(0).getMessage()); //$NON-NLS-1$
+    }
+
+    @Test
+    public void shouldExportEveryTableWithItsConfigRegistry() {
+        NatTableFixture table1 = new NatTableFixture(new DataLayer(new DummyBodyDataProvider(2, 2)));
+        NatTableFixture table2 = new NatTableFixture(new DataLayer(new DummyBodyDataProvider(2, 2)));
+        Map<String, NatTable> tables = new LinkedHashMap<String, NatTable>();
+        tables.put("table1", table1); //$NON-NLS-1$
+        tables.put("table2", table2); //$NON-NLS-1$
+
+        // exporters that cache per label combination, like the
+        // PoiExcelExporter, need to take the registry into account as the
+        // tables share the same labels
+        for (boolean sameSheet : new boolean[] { false, true }) {
+            LayerExporterFixture exporter = new LayerExporterFixture();
+            this.natExporter.exportMultipleNatTables(exporter, tables, sameSheet, "sheet"); //$NON-NLS-1$
+
+            assertTrue(this.handledExceptions.isEmpty());
+            assertEquals(8, exporter.exportedCells.size());
+            for (int i = 0; i < 8; i++) {
+                IConfigRegistry expected = (i < 4) ? table1.getConfigRegistry() : table2.getConfigRegistry();
+                assertSame(expected, exporter.registries.get(i));
+                assertEquals(
+                        exporter.exportedCells.get(i % 4).getConfigLabels().getLabels(),
+                        exporter.exportedCells.get(i).getConfigLabels().getLabels());
+            }
+        }
+        table1.dispose();
+        table2.dispose();
+    }
+
+    /**
+     * Records the exported cells and the registries they are exported with.
+     */
+    private static class LayerExporterFixture implements ILayerExporter {
+
+        final List<ILayerCell> exportedCells = new ArrayList<>();
+        final List<IConfigRegistry> registries = new ArrayList<>();
+
+        @Override
+        public OutputStream getOutputStream(Shell shell) {
+            return new ByteArrayOutputStream();
+        }
+
+        @Override
+        public void exportBegin(OutputStream outputStream) throws IOException {}
+
+        @Override
+        public void exportEnd(OutputStream outputStream) throws IOException {}
+
+        @Override
+        public void exportLayerBegin(OutputStream outputStream, String layerName) throws IOException {}
+
+        @Override
+        public void exportLayerEnd(OutputStream outputStream, String layerName) throws IOException {}
+
+        @Override
+        public void exportRowBegin(OutputStream outputStream, int rowPosition) throws IOException {}
+
+        @Override
+        public void exportRowEnd(OutputStream outputStream, int rowPosition) throws IOException {}
+
+        @Override
+        public void exportCell(OutputStream outputStream, Object exportDisplayValue,
+                ILayerCell cell, IConfigRegistry configRegistry) throws IOException {
+            this.exportedCells.add(cell);
+            this.registries.add(configRegistry);
+        }
+
+        @Override
+        public Object getResult() {
+            return null;
+        }
+    }
+
+    private static class TableExporterFixture implements ITableExporter {
+
+        private final OutputStream out;
+
+        TableExporterFixture(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void exportTable(Shell shell, ProgressBar progressBar, OutputStream outputStream,
+                ILayer layer, IConfigRegistry configRegistry) throws IOException {
+            outputStream.write(1);
+        }
+
+        @Override
+        public OutputStream getOutputStream(Shell shell) {
+            return this.out;
+        }
+
+        @Override
+        public Object getResult() {
+            return null;
+        }
+    }
+}
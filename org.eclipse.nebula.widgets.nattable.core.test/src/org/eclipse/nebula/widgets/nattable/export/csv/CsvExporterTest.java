@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.export.csv;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.eclipse.nebula.widgets.nattable.config.ConfigRegistry;
+import org.eclipse.nebula.widgets.nattable.test.fixture.layer.CellFixture;
+import org.junit.Test;
+
+public class CsvExporterTest {
+
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private void export(CsvExporter exporter, OutputStream out, String[][] rows) throws IOException {
+        ConfigRegistry configRegistry = new ConfigRegistry();
+        exporter.exportBegin(out);
+        exporter.exportLayerBegin(out, "test");
+        for (int row = 0; row < rows.length; row++) {
+            exporter.exportRowBegin(out, row);
+            for (String value : rows[row]) {
+                exporter.exportCell(out, value, new CellFixture(value), configRegistry);
+            }
+            exporter.exportRowEnd(out, row);
+        }
+        exporter.exportLayerEnd(out, "test");
+        exporter.exportEnd(out);
+    }
+
+    private byte[] expected(String[][] rows, String charset) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (String[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    builder.append(";");
+                }
+                builder.append(row[i]);
+            }
+            builder.append(LINE_SEPARATOR);
+        }
+        return builder.toString().getBytes(charset);
+    }
+
+    private String[][] createRows(int count, String value) {
+        String[][] rows = new String[count][];
+        for (int i = 0; i < count; i++) {
+            rows[i] = new String[] { String.valueOf(i), value, "" };
+        }
+        return rows;
+    }
+
+    @Test
+    public void shouldWriteRowsToStream() throws IOException {
+        String[][] rows = createRows(10000, "some value äöü € 中");
+        CsvExporter exporter = new CsvExporter();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        export(exporter, out, rows);
+
+        assertTrue(Arrays.equals(expected(rows, "windows-1252"), out.toByteArray()));
+    }
+
+    @Test
+    public void shouldWriteRowsLargerThanBuffer() throws IOException {
+        char[] large = new char[200000];
+        Arrays.fill(large, 'ä');
+        String[][] rows = createRows(3, new String(large));
+        CsvExporter exporter = new CsvExporter();
+        exporter.setCharset("UTF-8");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        export(exporter, out, rows);
+
+        assertTrue(Arrays.equals(expected(rows, "UTF-8"), out.toByteArray()));
+    }
+
+    @Test
+    public void shouldWriteRowsToFileChannel() throws IOException {
+        String[][] rows = createRows(20000, "file value äöü");
+        CsvExporter exporter = new CsvExporter();
+        exporter.setCharset("UTF-8");
+        File file = File.createTempFile("nattable", ".csv");
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                export(exporter, out, rows);
+            } finally {
+                out.close();
+            }
+
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            FileInputStream in = new FileInputStream(file);
+            try {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    content.write(buffer, 0, read);
+                }
+            } finally {
+                in.close();
+            }
+            assertTrue(Arrays.equals(expected(rows, "UTF-8"), content.toByteArray()));
+        } finally {
+            file.delete();
+        }
+    }
+}
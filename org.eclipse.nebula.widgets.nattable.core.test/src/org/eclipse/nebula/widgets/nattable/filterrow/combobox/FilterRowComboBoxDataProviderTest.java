@@ -0,0 +1,453 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.filterrow.combobox;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.data.ListDataProvider;
+import org.eclipse.nebula.widgets.nattable.data.ReflectiveColumnPropertyAccessor;
+import org.eclipse.nebula.widgets.nattable.dataset.person.Person;
+import org.eclipse.nebula.widgets.nattable.dataset.person.Person.Gender;
+import org.eclipse.nebula.widgets.nattable.dataset.person.PersonService;
+import org.eclipse.nebula.widgets.nattable.layer.DataLayer;
+import org.eclipse.nebula.widgets.nattable.layer.event.CellVisualChangeEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowDeleteEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowInsertEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowStructuralRefreshEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FilterRowComboBoxDataProviderTest {
+
+    private List<Person> dataModel;
+    private DataLayer dataLayer;
+    private FilterRowComboBoxDataProvider<Person> comboBoxDataProvider;
+    private List<FilterRowComboUpdateEvent> events = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        this.dataModel = PersonService.getFixedPersons();
+        ReflectiveColumnPropertyAccessor<Person> columnAccessor = new ReflectiveColumnPropertyAccessor<>(new String[] {
+                "firstName",
+                "lastName",
+                "gender",
+                "married",
+                "birthday" });
+        this.dataLayer = new DataLayer(new ListDataProvider<>(this.dataModel, columnAccessor));
+        this.comboBoxDataProvider = new FilterRowComboBoxDataProvider<>(this.dataLayer, this.dataModel, columnAccessor);
+        this.comboBoxDataProvider.addCacheUpdateListener(new IFilterRowComboUpdateListener() {
+
+            @Override
+            public void handleEvent(FilterRowComboUpdateEvent event) {
+                FilterRowComboBoxDataProviderTest.this.events.add(event);
+            }
+        });
+    }
+
+    @Test
+    public void shouldBuildCacheLazily() {
+        assertTrue(this.comboBoxDataProvider.getCachedColumnIndexes().isEmpty());
+
+        assertEquals(Arrays.asList("Flanders", "Simpson"), this.comboBoxDataProvider.getValues(1, 0));
+
+        assertEquals(1, this.comboBoxDataProvider.getCachedColumnIndexes().size());
+        assertEquals(1, this.events.size());
+    }
+
+    @Test
+    public void shouldBuildCacheEagerly() {
+        ReflectiveColumnPropertyAccessor<Person> columnAccessor = new ReflectiveColumnPropertyAccessor<>(new String[] {
+                "firstName",
+                "lastName",
+                "gender",
+                "married",
+                "birthday" });
+        FilterRowComboBoxDataProvider<Person> provider =
+                new FilterRowComboBoxDataProvider<>(this.dataLayer, this.dataModel, columnAccessor, false);
+
+        assertEquals(5, provider.getCachedColumnIndexes().size());
+        assertEquals(Arrays.asList("Flanders", "Simpson"), provider.getValues(1, 0));
+        assertEquals(Arrays.asList(Gender.MALE, Gender.FEMALE), provider.getValues(2, 0));
+    }
+
+    @Test
+    public void shouldBuildCacheEagerlyInCallingThreadByDefault() {
+        final Set<Thread> threads = new HashSet<>();
+        ReflectiveColumnPropertyAccessor<Person> columnAccessor = new ReflectiveColumnPropertyAccessor<Person>(new String[] {
+                "firstName",
+                "lastName",
+                "gender",
+                "married",
+                "birthday" }) {
+
+            @Override
+            public Object getDataValue(Person rowObj, int columnIndex) {
+                synchronized (threads) {
+                    threads.add(Thread.currentThread());
+                }
+                return super.getDataValue(rowObj, columnIndex);
+            }
+        };
+        FilterRowComboBoxDataProvider<Person> provider =
+                new FilterRowComboBoxDataProvider<>(this.dataLayer, this.dataModel, columnAccessor, false);
+
+        assertEquals(5, provider.getCachedColumnIndexes().size());
+        assertEquals(Collections.singleton(Thread.currentThread()), threads);
+    }
+
+    @Test
+    public void shouldBuildCacheEagerlyInParallel() {
+        ReflectiveColumnPropertyAccessor<Person> columnAccessor = new ReflectiveColumnPropertyAccessor<>(new String[] {
+                "firstName",
+                "lastName",
+                "gender",
+                "married",
+                "birthday" });
+        FilterRowComboBoxDataProvider<Person> provider =
+                new FilterRowComboBoxDataProvider<>(this.dataLayer, this.dataModel, columnAccessor, false, true);
+
+        assertEquals(5, provider.getCachedColumnIndexes().size());
+        assertEquals(Arrays.asList("Flanders", "Simpson"), provider.getValues(1, 0));
+        assertEquals(Arrays.asList(Gender.MALE, Gender.FEMALE), provider.getValues(2, 0));
+    }
+
+    @Test
+    public void shouldUpdateOnInsert() {
+        this.comboBoxDataProvider.getValues(1, 0);
+        this.events.clear();
+
+        this.dataModel.add(2, new Person(42, "Ralph", "Wiggum", Gender.MALE, false, null));
+        this.dataModel.add(3, new Person(43, "Clancy", "Wiggum", Gender.MALE, true, null));
+        this.dataLayer.fireLayerEvent(new RowInsertEvent(this.dataLayer, new Range(2, 4)));
+
+        assertEquals(Arrays.asList("Flanders", "Simpson", "Wiggum"), this.comboBoxDataProvider.getValues(1, 0));
+        assertEquals(1, this.events.size());
+        assertEquals(Arrays.asList("Wiggum"), new ArrayList<>(this.events.get(0).getAddedItems()));
+        assertTrue(this.events.get(0).getRemovedItems().isEmpty());
+    }
+
+    @Test
+    public void shouldUpdateOnDelete() {
+        this.comboBoxDataProvider.getValues(1, 0);
+        this.events.clear();
+
+        // remove one Simpson, no change in the values
+        this.dataModel.remove(0);
+        this.dataLayer.fireLayerEvent(new RowDeleteEvent(this.dataLayer, 0));
+
+        assertEquals(Arrays.asList("Flanders", "Simpson"), this.comboBoxDataProvider.getValues(1, 0));
+        assertTrue(this.events.isEmpty());
+
+        // remove all Flanders
+        List<Range> ranges = new ArrayList<>();
+        for (int i = this.dataModel.size() - 1; i >= 0; i--) {
+            if ("Flanders".equals(this.dataModel.get(i).getLastName())) {
+                this.dataModel.remove(i);
+                ranges.add(new Range(i, i + 1));
+            }
+        }
+        this.dataLayer.fireLayerEvent(new RowDeleteEvent(this.dataLayer, ranges));
+
+        assertEquals(Arrays.asList("Simpson"), this.comboBoxDataProvider.getValues(1, 0));
+        assertEquals(1, this.events.size());
+        assertEquals(Arrays.asList("Flanders"), new ArrayList<>(this.events.get(0).getRemovedItems()));
+    }
+
+    @Test
+    public void shouldUpdateOnCellChange() {
+        this.comboBoxDataProvider.getValues(1, 0);
+        this.events.clear();
+
+        this.dataModel.get(0).setLastName("Lovejoy");
+        this.dataLayer.fireLayerEvent(new CellVisualChangeEvent(this.dataLayer, 1, 0));
+
+        assertEquals(Arrays.asList("Flanders", "Lovejoy", "Simpson"), this.comboBoxDataProvider.getValues(1, 0));
+        assertEquals(1, this.events.size());
+        assertEquals(Arrays.asList("Lovejoy"), new ArrayList<>(this.events.get(0).getAddedItems()));
+    }
+
+    @Test
+    public void shouldUpdateOnDeleteWithRowValueTracking() {
+        final int[] reads = new int[1];
+        ReflectiveColumnPropertyAccessor<Person> columnAccessor = new ReflectiveColumnPropertyAccessor<Person>(new String[] {
+                "firstName",
+                "lastName" }) {
+
+            @Override
+            public Object getDataValue(Person rowObj, int columnIndex) {
+                reads[0]++;
+                return super.getDataValue(rowObj, columnIndex);
+            }
+        };
+        FilterRowComboBoxDataProvider<Person> provider =
+                new FilterRowComboBoxDataProvider<>(this.dataLayer, this.dataModel, columnAccessor);
+        provider.setRowValueTrackingEnabled(true);
+        assertTrue(provider.isRowValueTrackingEnabled());
+        provider.getValues(1, 0);
+        reads[0] = 0;
+
+        // remove all Flanders, the values of the deleted rows are tracked so
+        // the base collection is not read again
+        List<Range> ranges = new ArrayList<>();
+        for (int i = this.dataModel.size() - 1; i >= 0; i--) {
+            if ("Flanders".equals(this.dataModel.get(i).getLastName())) {
+                this.dataModel.remove(i);
+                ranges.add(new Range(i, i + 1));
+            }
+        }
+        this.dataLayer.fireLayerEvent(new RowDeleteEvent(this.dataLayer, ranges));
+
+        assertEquals(Arrays.asList("Simpson"), provider.getValues(1, 0));
+        assertEquals(0, reads[0]);
+    }
+
+    @Test
+    public void shouldKeepChangesOfValueCache() {
+        this.comboBoxDataProvider.getValues(1, 0);
+        this.comboBoxDataProvider.getValueCache().put(1, Arrays.asList("Simpson"));
+
+        assertEquals(Arrays.asList("Simpson"), this.comboBoxDataProvider.getValues(1, 0));
+
+        // the cache is updated once the values of the column change
+        this.dataModel.get(0).setLastName("Lovejoy");
+        this.dataLayer.fireLayerEvent(new CellVisualChangeEvent(this.dataLayer, 1, 0));
+
+        assertEquals(Arrays.asList("Flanders", "Lovejoy", "Simpson"), this.comboBoxDataProvider.getValues(1, 0));
+    }
+
+    @Test
+    public void shouldCollectValuesOfSubclass() {
+        ReflectiveColumnPropertyAccessor<Person> columnAccessor = new ReflectiveColumnPropertyAccessor<>(new String[] {
+                "firstName",
+                "lastName" });
+        FilterRowComboBoxDataProvider<Person> provider =
+                new FilterRowComboBoxDataProvider<Person>(this.dataLayer, this.dataModel, columnAccessor) {
+
+                    @Override
+                    protected List<?> collectValues(int columnIndex) {
+                        List<Object> values = new ArrayList<Object>(super.collectValues(columnIndex));
+                        values.add("*");
+                        return values;
+                    }
+                };
+        final List<FilterRowComboUpdateEvent> updates = new ArrayList<>();
+        provider.addCacheUpdateListener(new IFilterRowComboUpdateListener() {
+
+            @Override
+            public void handleEvent(FilterRowComboUpdateEvent event) {
+                updates.add(event);
+            }
+        });
+
+        assertEquals(Arrays.asList("Flanders", "Simpson", "*"), provider.getValues(1, 0));
+        updates.clear();
+
+        this.dataModel.get(0).setLastName("Lovejoy");
+        this.dataLayer.fireLayerEvent(new CellVisualChangeEvent(this.dataLayer, 1, 0));
+
+        assertEquals(Arrays.asList("Flanders", "Lovejoy", "Simpson", "*"), provider.getValues(1, 0));
+        assertEquals(1, updates.size());
+        assertEquals(Arrays.asList("Lovejoy"), new ArrayList<>(updates.get(0).getAddedItems()));
+    }
+
+    @Test
+    public void shouldRecountOnCellChangeInFilteredBody() {
+        // the body only shows the last row of the base collection
+        Person person = this.dataModel.get(this.dataModel.size() - 1);
+        List<Person> bodyList = new ArrayList<>(Arrays.asList(person));
+        ReflectiveColumnPropertyAccessor<Person> columnAccessor = new ReflectiveColumnPropertyAccessor<>(new String[] {
+                "firstName",
+                "lastName" });
+        DataLayer bodyLayer = new DataLayer(new ListDataProvider<>(bodyList, columnAccessor));
+        FilterRowComboBoxDataProvider<Person> provider =
+                new FilterRowComboBoxDataProvider<>(bodyLayer, this.dataModel, columnAccessor);
+        assertEquals(Arrays.asList("Flanders", "Simpson"), provider.getValues(1, 0));
+
+        // change all Flanders, the body row position 0 is not the index of
+        // the row in the base collection
+        for (Person p : this.dataModel) {
+            if ("Flanders".equals(p.getLastName())) {
+                p.setLastName("Lovejoy");
+            }
+        }
+        bodyLayer.fireLayerEvent(new CellVisualChangeEvent(bodyLayer, 1, 0));
+
+        assertEquals(Arrays.asList("Lovejoy", "Simpson"), provider.getValues(1, 0));
+    }
+
+    @Test
+    public void shouldRecountOnDeleteInFilteredBody() {
+        // the body only shows the Flanders, which are at the end of the base
+        // collection
+        List<Person> bodyList = new ArrayList<>();
+        for (Person person : this.dataModel) {
+            if ("Flanders".equals(person.getLastName())) {
+                bodyList.add(person);
+            }
+        }
+        ReflectiveColumnPropertyAccessor<Person> columnAccessor = new ReflectiveColumnPropertyAccessor<>(new String[] {
+                "firstName",
+                "lastName" });
+        DataLayer bodyLayer = new DataLayer(new ListDataProvider<>(bodyList, columnAccessor));
+        FilterRowComboBoxDataProvider<Person> provider =
+                new FilterRowComboBoxDataProvider<>(bodyLayer, this.dataModel, columnAccessor);
+        assertEquals(Arrays.asList("Flanders", "Simpson"), provider.getValues(1, 0));
+
+        // remove all Flanders from the base collection and the body, the body
+        // row positions are not the indexes in the base collection
+        int count = bodyList.size();
+        this.dataModel.removeAll(bodyList);
+        bodyList.clear();
+        bodyLayer.fireLayerEvent(new RowDeleteEvent(bodyLayer, new Range(0, count)));
+
+        assertEquals(Arrays.asList("Simpson"), provider.getValues(1, 0));
+    }
+
+    @Test
+    public void shouldRecountOnStructuralRefresh() {
+        this.comboBoxDataProvider.getValues(1, 0);
+        this.events.clear();
+
+        for (Person person : this.dataModel) {
+            if ("Flanders".equals(person.getLastName())) {
+                person.setLastName(null);
+            }
+        }
+        this.dataLayer.fireLayerEvent(new RowStructuralRefreshEvent(this.dataLayer));
+
+        assertEquals(Arrays.asList(null, "Simpson"), this.comboBoxDataProvider.getValues(1, 0));
+        assertEquals(1, this.events.size());
+        assertEquals(Arrays.asList((Object) null), new ArrayList<>(this.events.get(0).getAddedItems()));
+        assertEquals(Arrays.asList("Flanders"), new ArrayList<>(this.events.get(0).getRemovedItems()));
+    }
+
+    @Test
+    public void shouldLoadValuesInBackground() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<List<?>> result = new ArrayList<>();
+        this.comboBoxDataProvider.loadValues(1, new IFilterRowComboValuesCallback() {
+
+            @Override
+            public void valuesCollected(int columnIndex, List<?> values) {
+                result.add(values);
+                latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("Flanders", "Simpson"), result.get(0));
+        // the collected values are cached
+        assertTrue(this.comboBoxDataProvider.getCachedColumnIndexes().contains(1));
+
+        // the update event is not fired in the background thread
+        assertTrue(this.events.isEmpty());
+        this.comboBoxDataProvider.firePendingUpdateEvents();
+        assertEquals(1, this.events.size());
+        assertEquals(1, this.events.get(0).getColumnIndex());
+        assertEquals(2, this.events.get(0).getAddedItems().size());
+
+        // and only once
+        this.comboBoxDataProvider.firePendingUpdateEvents();
+        this.comboBoxDataProvider.getValues(1, 0);
+        assertEquals(1, this.events.size());
+    }
+
+    @Test
+    public void shouldFirePendingUpdateEventBeforeCacheUpdates() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        this.comboBoxDataProvider.loadValues(1, new IFilterRowComboValuesCallback() {
+
+            @Override
+            public void valuesCollected(int columnIndex, List<?> values) {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        this.dataModel.get(0).setLastName("Lovejoy");
+        this.dataLayer.fireLayerEvent(new CellVisualChangeEvent(this.dataLayer, 1, 0));
+
+        assertEquals(2, this.events.size());
+        assertEquals(2, this.events.get(0).getAddedItems().size());
+        assertEquals(Arrays.asList("Lovejoy"), new ArrayList<>(this.events.get(1).getAddedItems()));
+    }
+
+    @Test
+    public void shouldLoadCachedValuesDirectly() {
+        this.comboBoxDataProvider.getValues(1, 0);
+
+        final List<List<?>> result = new ArrayList<>();
+        this.comboBoxDataProvider.loadValues(1, new IFilterRowComboValuesCallback() {
+
+            @Override
+            public void valuesCollected(int columnIndex, List<?> values) {
+                result.add(values);
+            }
+        });
+
+        assertEquals(1, result.size());
+        assertEquals(Arrays.asList("Flanders", "Simpson"), result.get(0));
+    }
+
+    @Test
+    public void shouldNotTakeSnapshotWhileLocked() throws Exception {
+        ReflectiveColumnPropertyAccessor<Person> columnAccessor = new ReflectiveColumnPropertyAccessor<>(new String[] {
+                "firstName",
+                "lastName" });
+        final List<Boolean> lockedSnapshots = new ArrayList<>();
+        FilterRowComboBoxDataProvider<Person> provider =
+                new FilterRowComboBoxDataProvider<Person>(this.dataLayer, this.dataModel, columnAccessor) {
+
+                    @Override
+                    protected List<Person> getRowSnapshot() {
+                        // a subclass might acquire the lock of the base
+                        // collection here
+                        synchronized (lockedSnapshots) {
+                            lockedSnapshots.add(Thread.holdsLock(this));
+                        }
+                        return super.getRowSnapshot();
+                    }
+                };
+
+        provider.getValues(1, 0);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        provider.loadValues(0, new IFilterRowComboValuesCallback() {
+
+            @Override
+            public void valuesCollected(int columnIndex, List<?> values) {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        this.dataModel.get(0).setLastName("Lovejoy");
+        this.dataLayer.fireLayerEvent(new RowStructuralRefreshEvent(this.dataLayer));
+
+        assertEquals(Arrays.asList("Flanders", "Lovejoy", "Simpson"), provider.getValues(1, 0));
+        synchronized (lockedSnapshots) {
+            assertTrue(lockedSnapshots.size() >= 3);
+            assertFalse(lockedSnapshots.contains(Boolean.TRUE));
+        }
+    }
+}
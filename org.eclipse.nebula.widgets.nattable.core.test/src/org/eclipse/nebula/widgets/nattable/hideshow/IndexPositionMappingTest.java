@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.hideshow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class IndexPositionMappingTest {
+
+    private IndexPositionMapping build(int[] indexes, Set<Integer> hidden) {
+        IndexPositionMapping.Builder builder = new IndexPositionMapping.Builder(indexes.length);
+        for (int index : indexes) {
+            builder.add(index, hidden.contains(index));
+        }
+        return builder.build();
+    }
+
+    private void assertMapping(int[] indexes, Set<Integer> hidden, IndexPositionMapping mapping) {
+        int position = 0;
+        for (int index : indexes) {
+            if (hidden.contains(index)) {
+                assertEquals(-1, mapping.getPositionByIndex(index));
+                assertEquals(position, mapping.getHiddenPosition(index));
+            } else {
+                assertEquals(position, mapping.getPositionByIndex(index));
+                assertEquals(index, mapping.getIndexByPosition(position));
+                assertEquals(-1, mapping.getHiddenPosition(index));
+                position++;
+            }
+        }
+        assertEquals(position, mapping.getPositionCount());
+    }
+
+    @Test
+    public void shouldMapVisibleAndHiddenIndexes() {
+        int[] indexes = new int[] { 4, 3, 2, 1, 0 };
+        Set<Integer> hidden = new HashSet<Integer>(Arrays.asList(3, 0));
+        IndexPositionMapping mapping = build(indexes, hidden);
+
+        assertEquals(3, mapping.getPositionCount());
+        assertEquals(4, mapping.getIndexByPosition(0));
+        assertEquals(2, mapping.getIndexByPosition(1));
+        assertEquals(1, mapping.getIndexByPosition(2));
+        assertEquals(-1, mapping.getIndexByPosition(3));
+        assertEquals(-1, mapping.getIndexByPosition(-1));
+
+        assertEquals(1, mapping.getHiddenPosition(3));
+        assertEquals(3, mapping.getHiddenPosition(0));
+        assertEquals(-1, mapping.getPositionByIndex(42));
+        assertEquals(-1, mapping.getHiddenPosition(42));
+        assertEquals(-1, mapping.getPositionByIndex(-1));
+    }
+
+    @Test
+    public void shouldMapSparseIndexes() {
+        int[] indexes = new int[] { 1000000, 5, 700000, 12 };
+        Set<Integer> hidden = new HashSet<Integer>(Arrays.asList(5));
+        IndexPositionMapping mapping = build(indexes, hidden);
+
+        assertMapping(indexes, hidden, mapping);
+        assertEquals(-1, mapping.getPositionByIndex(6));
+    }
+
+    @Test
+    public void shouldHideContiguousPositions() {
+        int[] indexes = new int[10];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
+        }
+        Set<Integer> hidden = new HashSet<Integer>(Arrays.asList(1));
+        IndexPositionMapping mapping = build(indexes, hidden);
+
+        // positions 3-5 are the indexes 4-6
+        IndexPositionMapping updated = mapping.hidePositions(Arrays.asList(5, 3, 4, 4, 42, -1));
+        hidden.addAll(Arrays.asList(4, 5, 6));
+
+        assertMapping(indexes, hidden, updated);
+        assertEquals(6, updated.getPositionCount());
+        // the original mapping is not modified
+        assertEquals(9, mapping.getPositionCount());
+    }
+
+    @Test
+    public void shouldReturnSameMappingIfNothingToHide() {
+        IndexPositionMapping mapping = build(new int[] { 0, 1 }, Collections.<Integer> emptySet());
+        assertSame(mapping, mapping.hidePositions(Arrays.asList(2, -1)));
+    }
+
+    @Test
+    public void shouldHideSameAsRebuild() {
+        Random random = new Random(42);
+        List<Integer> order = new ArrayList<Integer>();
+        for (int i = 0; i < 500; i++) {
+            order.add(i * (random.nextBoolean() ? 1 : 5000));
+        }
+        Collections.shuffle(order, random);
+        int[] indexes = new int[order.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = order.get(i);
+        }
+
+        Set<Integer> hidden = new HashSet<Integer>();
+        IndexPositionMapping mapping = build(indexes, hidden);
+        for (int run = 0; run < 20; run++) {
+            List<Integer> toHide = new ArrayList<Integer>();
+            int start = random.nextInt(mapping.getPositionCount());
+            int length = random.nextInt(10);
+            for (int position = start; position < start + length; position++) {
+                toHide.add(position);
+                toHide.add(random.nextInt(mapping.getPositionCount()));
+            }
+            for (Integer position : toHide) {
+                int index = mapping.getIndexByPosition(position);
+                if (index >= 0) {
+                    hidden.add(index);
+                }
+            }
+
+            mapping = mapping.hidePositions(toHide);
+            assertMapping(indexes, hidden, mapping);
+        }
+    }
+}
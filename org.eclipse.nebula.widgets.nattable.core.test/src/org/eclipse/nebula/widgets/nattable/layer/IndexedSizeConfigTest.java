@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.layer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Properties;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class IndexedSizeConfigTest {
+
+    private static final int DEFAULT_SIZE = 20;
+    private IndexedSizeConfig sizeConfig;
+
+    @Before
+    public void setup() {
+        this.sizeConfig = new IndexedSizeConfig(DEFAULT_SIZE);
+    }
+
+    @Test
+    public void getAggregateSize() {
+        assertEquals(200, this.sizeConfig.getAggregateSize(10));
+        assertEquals(40000000, this.sizeConfig.getAggregateSize(2000000));
+    }
+
+    @Test
+    public void getAggregateSizeWithSizeOverrides() {
+        this.sizeConfig.setSize(5, 120);
+        this.sizeConfig.setSize(0, 10);
+
+        assertEquals(10, this.sizeConfig.getAggregateSize(1));
+        assertEquals(90, this.sizeConfig.getAggregateSize(5));
+        assertEquals(290, this.sizeConfig.getAggregateSize(10));
+
+        // incremental update of an already indexed position
+        this.sizeConfig.setSize(5, 20);
+        assertEquals(190, this.sizeConfig.getAggregateSize(10));
+    }
+
+    @Test
+    public void getAggregateSizeWithPositionDefaults() {
+        this.sizeConfig.setDefaultSize(2, 40);
+        this.sizeConfig.setSize(2, 50);
+        this.sizeConfig.setDefaultSize(4, 10);
+
+        assertEquals(90, this.sizeConfig.getAggregateSize(3));
+        assertEquals(120, this.sizeConfig.getAggregateSize(5));
+
+        this.sizeConfig.resetConfiguredSize(2);
+        assertEquals(110, this.sizeConfig.getAggregateSize(5));
+    }
+
+    @Test
+    public void getAggregateSizeGrowing() {
+        this.sizeConfig.setSize(1, 30);
+        assertEquals(50, this.sizeConfig.getAggregateSize(2));
+
+        this.sizeConfig.setSize(1000000, 40);
+        assertEquals(20000050, this.sizeConfig.getAggregateSize(1000001));
+        assertEquals(20000070, this.sizeConfig.getAggregateSize(1000002));
+    }
+
+    @Test
+    public void getPositionByPixel() {
+        this.sizeConfig.setSize(1, 30);
+        this.sizeConfig.setSize(2, 0);
+        this.sizeConfig.setSize(3, 40);
+
+        assertEquals(-1, this.sizeConfig.getPositionByPixel(-1));
+        assertEquals(0, this.sizeConfig.getPositionByPixel(0));
+        assertEquals(0, this.sizeConfig.getPositionByPixel(19));
+        assertEquals(1, this.sizeConfig.getPositionByPixel(20));
+        assertEquals(1, this.sizeConfig.getPositionByPixel(49));
+        // position 2 has no height and is skipped
+        assertEquals(3, this.sizeConfig.getPositionByPixel(50));
+        assertEquals(3, this.sizeConfig.getPositionByPixel(89));
+        assertEquals(4, this.sizeConfig.getPositionByPixel(90));
+        assertEquals(5, this.sizeConfig.getPositionByPixel(110));
+        assertEquals(100, this.sizeConfig.getPositionByPixel(2010));
+    }
+
+    @Test
+    public void getPositionByPixelWithoutCustomSizes() {
+        assertEquals(0, this.sizeConfig.getPositionByPixel(10));
+        assertEquals(50000, this.sizeConfig.getPositionByPixel(1000005));
+    }
+
+    @Test
+    public void sameResultsAsSizeConfig() {
+        SizeConfig reference = new SizeConfig(DEFAULT_SIZE);
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            int position = random.nextInt(500);
+            int size = random.nextInt(50);
+            if (i % 100 == 0) {
+                this.sizeConfig.setDefaultSize(position, size);
+                reference.setDefaultSize(position, size);
+            } else if (i % 37 == 0) {
+                this.sizeConfig.resetConfiguredSize(position);
+                reference.resetConfiguredSize(position);
+            } else {
+                this.sizeConfig.setSize(position, size);
+                reference.setSize(position, size);
+            }
+
+            int check = random.nextInt(600);
+            assertEquals(reference.getAggregateSize(check), this.sizeConfig.getAggregateSize(check));
+        }
+
+        for (int position = 0; position < 600; position++) {
+            int aggregate = reference.getAggregateSize(position);
+            if (reference.getSize(position) > 0) {
+                assertEquals(position, this.sizeConfig.getPositionByPixel(aggregate));
+                assertEquals(position, this.sizeConfig.getPositionByPixel(aggregate + reference.getSize(position) - 1));
+            }
+        }
+    }
+
+    @Test
+    public void percentageSizing() {
+        this.sizeConfig.setPercentageSizing(true);
+        this.sizeConfig.setPercentage(0, 25);
+        this.sizeConfig.setPercentage(1, 25);
+        this.sizeConfig.calculatePercentages(1000, 3);
+
+        assertEquals(250, this.sizeConfig.getAggregateSize(1));
+        assertEquals(500, this.sizeConfig.getAggregateSize(2));
+        assertEquals(1000, this.sizeConfig.getAggregateSize(3));
+        assertEquals(2, this.sizeConfig.getPositionByPixel(500));
+
+        this.sizeConfig.setSize(0, 100);
+        assertEquals(this.sizeConfig.getSize(0), this.sizeConfig.getAggregateSize(1));
+        assertEquals(1000, this.sizeConfig.getAggregateSize(3));
+    }
+
+    @Test
+    public void loadState() {
+        this.sizeConfig.setSize(3, 100);
+        assertEquals(160, this.sizeConfig.getAggregateSize(4));
+
+        Properties properties = new Properties();
+        this.sizeConfig.saveState("prefix", properties);
+
+        IndexedSizeConfig loaded = new IndexedSizeConfig(DEFAULT_SIZE);
+        loaded.loadState("prefix", properties);
+        assertEquals(160, loaded.getAggregateSize(4));
+
+        this.sizeConfig.setSize(3, 10);
+        assertEquals(70, this.sizeConfig.getAggregateSize(4));
+        this.sizeConfig.loadState("prefix", properties);
+        assertEquals(160, this.sizeConfig.getAggregateSize(4));
+    }
+
+    @Test
+    public void reset() {
+        this.sizeConfig.setSize(3, 100);
+        assertEquals(160, this.sizeConfig.getAggregateSize(4));
+
+        this.sizeConfig.reset();
+        assertEquals(80, this.sizeConfig.getAggregateSize(4));
+    }
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.layer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class LabelStackTest {
+
+    @Test
+    public void shouldAddLabelsOnlyOnce() {
+        LabelStack labelStack = new LabelStack("a", null, "b");
+        labelStack.addLabel("c");
+        labelStack.addLabel("a");
+        labelStack.addLabelOnTop("top");
+        labelStack.addLabelOnTop("c");
+
+        assertEquals(Arrays.asList("top", "a", "b", "c"), labelStack.getLabels());
+        assertTrue(labelStack.hasLabel(new String("b")));
+        assertFalse(labelStack.hasLabel("x"));
+
+        assertTrue(labelStack.removeLabel("a"));
+        assertFalse(labelStack.removeLabel("a"));
+        assertEquals(Arrays.asList("top", "b", "c"), labelStack.getLabels());
+    }
+
+    @Test
+    public void shouldUpdateHashCodeOnModification() {
+        LabelStack labelStack = new LabelStack("a", "b");
+        int hashCode = labelStack.hashCode();
+        assertEquals(Arrays.asList("a", "b").hashCode(), hashCode);
+
+        labelStack.getLabels().addAll(Arrays.asList("c", "d"));
+        assertEquals(Arrays.asList("a", "b", "c", "d").hashCode(), labelStack.hashCode());
+        assertEquals(Arrays.asList("a", "b", "c", "d"), labelStack.getLabels());
+
+        labelStack.getLabels().set(0, "x");
+        labelStack.removeLabel("d");
+        assertEquals(Arrays.asList("x", "b", "c").hashCode(), labelStack.hashCode());
+        assertEquals(new LabelStack("x", "b", "c"), labelStack);
+    }
+
+    @Test
+    public void shouldReturnCanonicalLabels() {
+        LabelStack labelStack = new LabelStack("a", "b");
+        List<String> canonical = labelStack.getCanonicalLabels();
+
+        assertSame(canonical, new LabelStack("a", "b").getCanonicalLabels());
+        assertSame(canonical, LabelStack.getCanonicalLabels(Arrays.asList("a", "b")));
+        assertSame(canonical, LabelStack.getCanonicalLabels(canonical));
+        assertEquals(labelStack.getLabels(), canonical);
+
+        // the canonical instance is a snapshot
+        labelStack.addLabel("c");
+        assertEquals(Arrays.asList("a", "b"), canonical);
+        assertNotSame(canonical, labelStack.getCanonicalLabels());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotModifyCanonicalLabels() {
+        new LabelStack("a").getCanonicalLabels().add("b");
+    }
+}
@@ -0,0 +1,337 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.layer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.data.IDataProvider;
+import org.eclipse.nebula.widgets.nattable.grid.command.ClientAreaResizeCommand;
+import org.eclipse.nebula.widgets.nattable.grid.data.DummyBodyDataProvider;
+import org.eclipse.nebula.widgets.nattable.hideshow.ColumnHideShowLayer;
+import org.eclipse.nebula.widgets.nattable.hideshow.RowHideShowLayer;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowDeleteEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowInsertEvent;
+import org.eclipse.nebula.widgets.nattable.reorder.ColumnReorderLayer;
+import org.eclipse.nebula.widgets.nattable.reorder.RowReorderLayer;
+import org.eclipse.nebula.widgets.nattable.resize.command.RowResizeCommand;
+import org.eclipse.nebula.widgets.nattable.test.fixture.layer.DataLayerFixture;
+import org.eclipse.swt.graphics.Rectangle;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PositionOffsetsTest {
+
+    // column widths 150,100,35,100,80
+    // row heights 40,70,25,40,50,40,100
+    private DataLayerFixture dataLayer;
+    private PositionOffsets columnOffsets;
+    private PositionOffsets rowOffsets;
+
+    @Before
+    public void setup() {
+        this.dataLayer = new DataLayerFixture();
+        this.columnOffsets = new PositionOffsets(this.dataLayer, true);
+        this.rowOffsets = new PositionOffsets(this.dataLayer, false);
+    }
+
+    @Test
+    public void getStartPixel() {
+        assertEquals(5, this.columnOffsets.getPositionCount());
+        assertEquals(465, this.columnOffsets.getTotalSize());
+
+        assertEquals(-1, this.columnOffsets.getStartPixel(-1));
+        assertEquals(0, this.columnOffsets.getStartPixel(0));
+        assertEquals(150, this.columnOffsets.getStartPixel(1));
+        assertEquals(285, this.columnOffsets.getStartPixel(3));
+        assertEquals(465, this.columnOffsets.getStartPixel(5));
+        assertEquals(465, this.columnOffsets.getStartPixel(6));
+
+        assertEquals(35, this.columnOffsets.getSize(2));
+        assertEquals(0, this.columnOffsets.getSize(5));
+    }
+
+    @Test
+    public void getPositionByPixel() {
+        assertEquals(-1, this.rowOffsets.getPositionByPixel(-1));
+        assertEquals(0, this.rowOffsets.getPositionByPixel(0));
+        assertEquals(0, this.rowOffsets.getPositionByPixel(39));
+        assertEquals(1, this.rowOffsets.getPositionByPixel(40));
+        assertEquals(2, this.rowOffsets.getPositionByPixel(110));
+        assertEquals(6, this.rowOffsets.getPositionByPixel(364));
+        assertEquals(-1, this.rowOffsets.getPositionByPixel(365));
+    }
+
+    @Test
+    public void getPositionByPixelSkipsZeroSize() {
+        this.dataLayer.setRowHeightByPosition(1, 0);
+        this.rowOffsets.invalidate();
+
+        assertEquals(0, this.rowOffsets.getPositionByPixel(39));
+        assertEquals(2, this.rowOffsets.getPositionByPixel(40));
+        assertEquals(40, this.rowOffsets.getStartPixel(1));
+        assertEquals(40, this.rowOffsets.getStartPixel(2));
+    }
+
+    @Test
+    public void updateSizes() {
+        assertEquals(365, this.rowOffsets.getTotalSize());
+        assertTrue(this.rowOffsets.isValid());
+
+        this.dataLayer.setRowHeightByPosition(1, 20);
+        this.dataLayer.setRowHeightByPosition(4, 10);
+        this.rowOffsets.updateSizes(Arrays.asList(new Range(4, 5), new Range(1, 2)));
+
+        assertTrue(this.rowOffsets.isValid());
+        assertEquals(275, this.rowOffsets.getTotalSize());
+        assertEquals(60, this.rowOffsets.getStartPixel(2));
+        assertEquals(125, this.rowOffsets.getStartPixel(4));
+        assertEquals(135, this.rowOffsets.getStartPixel(5));
+        assertEquals(4, this.rowOffsets.getPositionByPixel(130));
+    }
+
+    @Test
+    public void invalidate() {
+        assertEquals(465, this.columnOffsets.getTotalSize());
+
+        this.dataLayer.setColumnWidthByPosition(0, 50);
+        // not updated until invalidated
+        assertEquals(465, this.columnOffsets.getTotalSize());
+
+        this.columnOffsets.invalidate();
+        assertFalse(this.columnOffsets.isValid());
+        assertEquals(365, this.columnOffsets.getTotalSize());
+        assertEquals(50, this.columnOffsets.getStartPixel(1));
+    }
+
+    @Test
+    public void invalidateFrom() {
+        assertEquals(465, this.columnOffsets.getTotalSize());
+
+        this.dataLayer.setColumnWidthByPosition(3, 50);
+        this.columnOffsets.invalidateFrom(3);
+        assertFalse(this.columnOffsets.isValid());
+        assertEquals(415, this.columnOffsets.getTotalSize());
+        assertEquals(285, this.columnOffsets.getStartPixel(3));
+        assertEquals(335, this.columnOffsets.getStartPixel(4));
+
+        // subsequent invalidations keep the smallest valid part
+        this.dataLayer.setColumnWidthByPosition(1, 50);
+        this.dataLayer.setColumnWidthByPosition(4, 30);
+        this.columnOffsets.invalidateFrom(4);
+        this.columnOffsets.invalidateFrom(1);
+        assertEquals(315, this.columnOffsets.getTotalSize());
+        assertEquals(200, this.columnOffsets.getStartPixel(2));
+    }
+
+    @Test
+    public void hideShowLayerOnlyRequestsChangedSizes() {
+        final AtomicInteger sizeRequests = new AtomicInteger();
+        DataLayer countingDataLayer = new DataLayer(new DummyBodyDataProvider(2, 10), 100, 20) {
+            @Override
+            public int getRowHeightByPosition(int rowPosition) {
+                sizeRequests.incrementAndGet();
+                return super.getRowHeightByPosition(rowPosition);
+            }
+        };
+        countingDataLayer.setRowHeightByPosition(8, 50);
+        RowHideShowLayer hideShowLayer = new RowHideShowLayer(countingDataLayer);
+        assertEquals(230, hideShowLayer.getHeight());
+
+        sizeRequests.set(0);
+        hideShowLayer.hideRowPositions(Arrays.asList(7));
+
+        // only the rows starting at the hidden row are requested again
+        assertEquals(190, hideShowLayer.getStartYOfRowPosition(8));
+        assertEquals(2, sizeRequests.get());
+        assertEquals(210, hideShowLayer.getHeight());
+        assertEquals(140, hideShowLayer.getStartYOfRowPosition(7));
+        assertEquals(190, hideShowLayer.getStartYOfRowPosition(8));
+
+        sizeRequests.set(0);
+        hideShowLayer.showAllRows();
+
+        assertEquals(210, hideShowLayer.getStartYOfRowPosition(9));
+        assertEquals(3, sizeRequests.get());
+        assertEquals(230, hideShowLayer.getHeight());
+        assertOffsets(hideShowLayer);
+    }
+
+    @Test
+    public void hideShowLayerUpdatedOnResize() {
+        RowHideShowLayer hideShowLayer = new RowHideShowLayer(this.dataLayer);
+        hideShowLayer.hideRowPositions(Arrays.asList(1));
+
+        assertEquals(6, hideShowLayer.getRowCount());
+        assertEquals(40, hideShowLayer.getStartYOfRowPosition(1));
+        assertEquals(1, hideShowLayer.getRowPositionByY(40));
+        assertEquals(5, hideShowLayer.getRowPositionByY(200));
+
+        hideShowLayer.doCommand(new RowResizeCommand(hideShowLayer, 1, 75));
+
+        assertEquals(40, hideShowLayer.getStartYOfRowPosition(1));
+        assertEquals(115, hideShowLayer.getStartYOfRowPosition(2));
+        assertEquals(1, hideShowLayer.getRowPositionByY(114));
+        assertEquals(2, hideShowLayer.getRowPositionByY(115));
+        assertEquals(345, hideShowLayer.getHeight());
+        assertEquals(-1, hideShowLayer.getRowPositionByY(345));
+    }
+
+    @Test
+    public void hideShowLayerWithoutColumns() {
+        ColumnHideShowLayer hideShowLayer = new ColumnHideShowLayer(this.dataLayer);
+        hideShowLayer.hideColumnPositions(Arrays.asList(0, 1, 2, 3, 4));
+
+        assertEquals(0, hideShowLayer.getColumnCount());
+        // same results as the iterating lookup before
+        assertEquals(0, hideShowLayer.getColumnPositionByX(0));
+        assertEquals(-1, hideShowLayer.getColumnPositionByX(-1));
+        assertEquals(-1, hideShowLayer.getStartXOfColumnPosition(0));
+    }
+
+    @Test
+    public void reorderLayerOutOfRangePositions() {
+        ColumnReorderLayer reorderLayer = new ColumnReorderLayer(this.dataLayer);
+
+        assertEquals(-1, reorderLayer.getStartXOfColumnPosition(-1));
+        assertEquals(465, reorderLayer.getStartXOfColumnPosition(5));
+        assertEquals(4, reorderLayer.getColumnPositionByX(464));
+        assertEquals(-1, reorderLayer.getColumnPositionByX(465));
+    }
+
+    @Test
+    public void reorderLayerUpdatedOnPercentageResize() {
+        DataLayer percentageDataLayer = new DataLayer(new DummyBodyDataProvider(4, 10), 100, 20);
+        percentageDataLayer.setColumnPercentageSizing(true);
+        ColumnReorderLayer reorderLayer = new ColumnReorderLayer(percentageDataLayer);
+
+        ClientAreaResizeCommand cmd = new ClientAreaResizeCommand(null);
+        cmd.setCalcArea(new Rectangle(0, 0, 400, 100));
+        reorderLayer.doCommand(cmd);
+
+        assertEquals(400, reorderLayer.getWidth());
+        assertEquals(3, reorderLayer.getColumnPositionByX(350));
+
+        // the other columns share the remaining space
+        percentageDataLayer.setColumnWidthPercentageByPosition(0, 40);
+
+        assertEquals(400, reorderLayer.getWidth());
+        assertEquals(160, reorderLayer.getStartXOfColumnPosition(1));
+        assertEquals(320, reorderLayer.getStartXOfColumnPosition(3));
+        assertEquals(3, reorderLayer.getColumnPositionByX(350));
+    }
+
+    @Test
+    public void hideShowLayerUpdatedOnInsertAndDelete() {
+        final int[] rowCount = new int[] { 10 };
+        IDataProvider dataProvider = new DummyBodyDataProvider(2, 10) {
+            @Override
+            public int getRowCount() {
+                return rowCount[0];
+            }
+        };
+        final AtomicInteger sizeRequests = new AtomicInteger();
+        DataLayer uniformDataLayer = new DataLayer(dataProvider, 100, 20) {
+            @Override
+            public int getRowHeightByPosition(int rowPosition) {
+                sizeRequests.incrementAndGet();
+                return super.getRowHeightByPosition(rowPosition);
+            }
+        };
+        RowHideShowLayer hideShowLayer = new RowHideShowLayer(uniformDataLayer);
+        hideShowLayer.hideRowPositions(Arrays.asList(1));
+
+        assertEquals(9, hideShowLayer.getRowCount());
+        assertEquals(180, hideShowLayer.getHeight());
+
+        sizeRequests.set(0);
+        rowCount[0] = 12;
+        uniformDataLayer.fireLayerEvent(new RowInsertEvent(uniformDataLayer, new Range(3, 5)));
+
+        // only the sizes of the inserted rows are requested
+        assertEquals(2, sizeRequests.get());
+        assertEquals(11, hideShowLayer.getRowCount());
+        assertEquals(220, hideShowLayer.getHeight());
+        assertEquals(200, hideShowLayer.getStartYOfRowPosition(10));
+        assertEquals(10, hideShowLayer.getRowPositionByY(219));
+
+        sizeRequests.set(0);
+        rowCount[0] = 9;
+        uniformDataLayer.fireLayerEvent(new RowDeleteEvent(uniformDataLayer, new Range(5, 8)));
+
+        assertEquals(0, sizeRequests.get());
+
+        assertEquals(8, hideShowLayer.getRowCount());
+        assertEquals(160, hideShowLayer.getHeight());
+        assertEquals(7, hideShowLayer.getRowPositionByY(159));
+        assertEquals(-1, hideShowLayer.getRowPositionByY(160));
+    }
+
+    @Test
+    public void layersUpdatedOnInsertAndDeleteWithCustomSizes() {
+        final int[] rowCount = new int[] { 10 };
+        IDataProvider dataProvider = new DummyBodyDataProvider(2, 10) {
+            @Override
+            public int getRowCount() {
+                return rowCount[0];
+            }
+        };
+        DataLayer customDataLayer = new DataLayer(dataProvider, 100, 20);
+        // the custom height is bound to the position and does not move with
+        // inserted or deleted rows
+        customDataLayer.setRowHeightByPosition(5, 50);
+        RowReorderLayer reorderLayer = new RowReorderLayer(customDataLayer);
+        RowHideShowLayer hideShowLayer = new RowHideShowLayer(reorderLayer);
+        hideShowLayer.hideRowPositions(Arrays.asList(8));
+
+        assertEquals(9, hideShowLayer.getRowCount());
+        assertEquals(150, reorderLayer.getStartYOfRowPosition(6));
+        assertOffsets(reorderLayer);
+        assertOffsets(hideShowLayer);
+
+        rowCount[0] = 11;
+        customDataLayer.fireLayerEvent(new RowInsertEvent(customDataLayer, new Range(0, 1)));
+
+        assertEquals(10, hideShowLayer.getRowCount());
+        assertEquals(150, reorderLayer.getStartYOfRowPosition(6));
+        assertEquals(150, hideShowLayer.getStartYOfRowPosition(6));
+        assertOffsets(reorderLayer);
+        assertOffsets(hideShowLayer);
+
+        rowCount[0] = 9;
+        customDataLayer.fireLayerEvent(new RowDeleteEvent(customDataLayer, new Range(0, 2)));
+
+        assertEquals(8, hideShowLayer.getRowCount());
+        assertEquals(150, reorderLayer.getStartYOfRowPosition(6));
+        assertOffsets(reorderLayer);
+        assertOffsets(hideShowLayer);
+    }
+
+    /**
+     * Compares the row offsets of the given layer with offsets that are
+     * collected from scratch.
+     */
+    private void assertOffsets(ILayer layer) {
+        PositionOffsets expected = new PositionOffsets(layer, false);
+        assertEquals(expected.getPositionCount(), layer.getRowCount());
+        for (int position = 0; position < layer.getRowCount(); position++) {
+            assertEquals(expected.getStartPixel(position), layer.getStartYOfRowPosition(position));
+        }
+        int last = layer.getRowCount() - 1;
+        assertEquals(expected.getTotalSize(),
+                layer.getStartYOfRowPosition(last) + layer.getRowHeightByPosition(last));
+    }
+}
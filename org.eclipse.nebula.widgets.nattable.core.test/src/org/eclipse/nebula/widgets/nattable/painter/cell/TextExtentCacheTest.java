@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.painter.cell;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.widgets.Display;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TextExtentCacheTest {
+
+    // texts with non ASCII characters are never calculated from the monospace
+    // width, so they are cached for every font
+    private static final String NON_ASCII = "\u00e4\u00f6\u00fc"; //$NON-NLS-1$
+
+    private GC gc;
+    private Font font;
+
+    @Before
+    public void setUp() {
+        this.gc = new GC(Display.getDefault());
+        TextExtentCache.clear();
+        TextExtentCache.resetStatistics();
+    }
+
+    @After
+    public void tearDown() {
+        this.gc.dispose();
+        if (this.font != null) {
+            this.font.dispose();
+        }
+        TextExtentCache.clear();
+        TextExtentCache.resetStatistics();
+    }
+
+    @Test
+    public void shouldCountHitsAndMisses() {
+        String text = NON_ASCII + "abc";
+        int width = this.gc.textExtent(text).x;
+
+        assertEquals(width, TextExtentCache.getTextWidth(this.gc, text));
+        assertEquals(0, TextExtentCache.getHits());
+        assertEquals(1, TextExtentCache.getMisses());
+
+        assertEquals(width, TextExtentCache.getTextWidth(this.gc, text));
+        assertEquals(1, TextExtentCache.getHits());
+        assertEquals(1, TextExtentCache.getMisses());
+
+        TextExtentCache.resetStatistics();
+        assertEquals(0, TextExtentCache.getHits());
+        assertEquals(0, TextExtentCache.getMisses());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedTexts() {
+        for (int i = 0; i < TextExtentCache.MAX_TEXTS_PER_FONT; i++) {
+            TextExtentCache.getTextWidth(this.gc, NON_ASCII + i);
+        }
+        assertEquals(TextExtentCache.MAX_TEXTS_PER_FONT, TextExtentCache.getMisses());
+
+        // accessing the first text makes the second one the eldest
+        TextExtentCache.getTextWidth(this.gc, NON_ASCII + 0);
+        assertEquals(1, TextExtentCache.getHits());
+
+        // exceeding the bound evicts the eldest text
+        TextExtentCache.getTextWidth(this.gc, NON_ASCII + "new");
+        TextExtentCache.resetStatistics();
+
+        TextExtentCache.getTextWidth(this.gc, NON_ASCII + 0);
+        assertEquals(1, TextExtentCache.getHits());
+        assertEquals(0, TextExtentCache.getMisses());
+
+        TextExtentCache.getTextWidth(this.gc, NON_ASCII + 1);
+        assertEquals(1, TextExtentCache.getHits());
+        assertEquals(1, TextExtentCache.getMisses());
+    }
+
+    @Test
+    public void shouldCalculateWidthsOfMonospacedFont() {
+        this.font = new Font(Display.getDefault(), "Courier", 10, SWT.NORMAL); //$NON-NLS-1$
+        this.gc.setFont(this.font);
+        assumeTrue(isMonospaced());
+
+        int charWidth = this.gc.textExtent("M").x; //$NON-NLS-1$
+        for (char c = 0x20; c <= 0x7E; c++) {
+            assertEquals(charWidth, TextExtentCache.getTextWidth(this.gc, String.valueOf(c)));
+        }
+        // short texts are calculated without measuring
+        assertEquals(0, TextExtentCache.getMisses());
+
+        // the first long text is measured once to verify the width
+        String longText = "The quick brown fox jumps"; //$NON-NLS-1$
+        assertEquals(this.gc.textExtent(longText).x, TextExtentCache.getTextWidth(this.gc, longText));
+        assertEquals(1, TextExtentCache.getMisses());
+
+        String otherLongText = "over the lazy dog 0123456789"; //$NON-NLS-1$
+        assertEquals(otherLongText.length() * charWidth, TextExtentCache.getTextWidth(this.gc, otherLongText));
+        assertEquals(1, TextExtentCache.getMisses());
+
+        // tabs and non ASCII characters are always measured
+        TextExtentCache.getTextWidth(this.gc, "a\tb"); //$NON-NLS-1$
+        TextExtentCache.getTextWidth(this.gc, NON_ASCII);
+        assertEquals(3, TextExtentCache.getMisses());
+    }
+
+    @Test
+    public void shouldMeasureTextsOfProportionalFont() {
+        this.font = new Font(Display.getDefault(), "Arial", 10, SWT.NORMAL); //$NON-NLS-1$
+        this.gc.setFont(this.font);
+        assumeTrue(!isMonospaced());
+
+        // a font is only treated as monospaced if all printable ASCII
+        // characters have the same width, so the texts are measured
+        String text = "Wil"; //$NON-NLS-1$
+        assertEquals(this.gc.textExtent(text).x, TextExtentCache.getTextWidth(this.gc, text));
+        assertEquals(1, TextExtentCache.getMisses());
+
+        assertEquals(this.gc.textExtent(text).x, TextExtentCache.getTextWidth(this.gc, text));
+        assertEquals(1, TextExtentCache.getHits());
+        assertEquals(1, TextExtentCache.getMisses());
+    }
+
+    /**
+     * @return <code>true</code> if all printable ASCII characters have the
+     *         same width in the current font of the GC, alone and together.
+     */
+    private boolean isMonospaced() {
+        int width = this.gc.textExtent(" ").x; //$NON-NLS-1$
+        StringBuilder all = new StringBuilder();
+        for (char c = 0x20; c <= 0x7E; c++) {
+            if (this.gc.textExtent(String.valueOf(c)).x != width) {
+                return false;
+            }
+            all.append(c);
+        }
+        return this.gc.textExtent(all.toString()).x == all.length() * width;
+    }
+}
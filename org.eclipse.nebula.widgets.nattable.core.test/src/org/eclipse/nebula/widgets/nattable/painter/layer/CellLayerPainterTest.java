@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.painter.layer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.eclipse.nebula.widgets.nattable.config.IConfigRegistry;
+import org.eclipse.nebula.widgets.nattable.grid.data.DummyBodyDataProvider;
+import org.eclipse.nebula.widgets.nattable.grid.data.DummySpanningBodyDataProvider;
+import org.eclipse.nebula.widgets.nattable.layer.DataLayer;
+import org.eclipse.nebula.widgets.nattable.layer.SpanningDataLayer;
+import org.eclipse.nebula.widgets.nattable.layer.cell.ILayerCell;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Rectangle;
+import org.junit.Test;
+
+public class CellLayerPainterTest {
+
+    @Test
+    public void shouldBatchClippingIfPaintCellIsNotOverridden() {
+        assertTrue(new CellLayerPainter().isBatchClipping());
+        assertTrue(new CellLayerPainter(true, true).isBatchClipping());
+
+        CellLayerPainter painter = new CellLayerPainter() {
+            @Override
+            protected boolean isClipLeft(int position) {
+                return position > 0;
+            }
+        };
+        assertTrue(painter.isBatchClipping());
+    }
+
+    @Test
+    public void shouldNotBatchClippingIfPaintCellIsOverridden() {
+        assertFalse(new RecordingCellLayerPainter().isBatchClipping());
+
+        // also detected if overridden in a superclass of the painter
+        CellLayerPainter painter = new RecordingCellLayerPainter() {
+            @Override
+            protected boolean isClipTop(int position) {
+                return true;
+            }
+        };
+        assertFalse(painter.isBatchClipping());
+    }
+
+    @Test
+    public void shouldPaintColumnByColumn() {
+        DataLayer layer = new DataLayer(new DummyBodyDataProvider(4, 3));
+        RecordingCellLayerPainter painter = new RecordingCellLayerPainter();
+
+        // the recording painter does not paint, so no GC is needed
+        painter.paintLayer(layer, null, 0, 0, new Rectangle(0, 0, 400, 60), null);
+
+        List<String> expected = new ArrayList<>();
+        for (int column = 0; column < 4; column++) {
+            for (int row = 0; row < 3; row++) {
+                expected.add(column + "/" + row);
+            }
+        }
+        assertEquals(expected, painter.paintedCells);
+    }
+
+    @Test
+    public void shouldPaintVisiblePartOnly() {
+        DataLayer layer = new DataLayer(new DummyBodyDataProvider(10, 10));
+        RecordingCellLayerPainter painter = new RecordingCellLayerPainter();
+
+        painter.paintLayer(layer, null, 0, 0, new Rectangle(150, 30, 200, 20), null);
+
+        List<String> expected = new ArrayList<>();
+        expected.add("1/1");
+        expected.add("1/2");
+        expected.add("2/1");
+        expected.add("2/2");
+        expected.add("3/1");
+        expected.add("3/2");
+        assertEquals(expected, painter.paintedCells);
+    }
+
+    @Test
+    public void shouldPaintSpannedCellsOnce() {
+        // spanned cells of 2x2 at 0/0 and 4/4
+        SpanningDataLayer layer = new SpanningDataLayer(new DummySpanningBodyDataProvider(8, 8));
+        RecordingCellLayerPainter painter = new RecordingCellLayerPainter();
+
+        // starts within the spanned cell at 0/0 and ends within column and
+        // row 6, so the columns and rows 1 to 6 are visible
+        painter.paintLayer(layer, null, 0, 0, new Rectangle(150, 30, 500, 100), null);
+
+        // 36 visible positions, of which 1 is covered by the cell at 0/0 and
+        // 4 by the cell at 4/4
+        assertEquals(33, painter.paintedCells.size());
+        assertEquals(33, new HashSet<>(painter.paintedCells).size());
+
+        // the spanned cells are painted after the other cells
+        assertEquals("0/0", painter.paintedCells.get(31));
+        assertEquals("4/4", painter.paintedCells.get(32));
+        assertEquals("1/2", painter.paintedCells.get(0));
+    }
+
+    @Test
+    public void shouldPaintSpannedCellOnceIfStartingOutsideOfVisibleArea() {
+        SpanningDataLayer layer = new SpanningDataLayer(new DummySpanningBodyDataProvider(8, 8));
+        RecordingCellLayerPainter painter = new RecordingCellLayerPainter();
+
+        // only the second row and column of the spanned cell at 4/4 are
+        // visible
+        painter.paintLayer(layer, null, 0, 0, new Rectangle(500, 100, 200, 40), null);
+
+        List<String> expected = new ArrayList<>();
+        expected.add("5/6");
+        expected.add("6/5");
+        expected.add("6/6");
+        expected.add("4/4");
+        assertEquals(expected, painter.paintedCells);
+    }
+
+    /**
+     * Records the origin of the painted cells instead of painting them.
+     */
+    private static class RecordingCellLayerPainter extends CellLayerPainter {
+
+        final List<String> paintedCells = new ArrayList<>();
+
+        @Override
+        protected void paintCell(ILayerCell cell, GC gc, IConfigRegistry configRegistry) {
+            this.paintedCells.add(cell.getOriginColumnPosition() + "/" + cell.getOriginRowPosition());
+        }
+    }
+}
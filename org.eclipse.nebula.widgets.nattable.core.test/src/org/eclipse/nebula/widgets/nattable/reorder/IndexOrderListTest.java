@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.reorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IndexOrderListTest {
+
+    private IndexOrderList create(int size) {
+        IndexOrderList order = new IndexOrderList();
+        for (int i = 0; i < size; i++) {
+            order.add(i);
+        }
+        return order;
+    }
+
+    private void assertConsistent(List<Integer> expected, IndexOrderList order) {
+        assertEquals(expected, order);
+        for (int position = 0; position < expected.size(); position++) {
+            int index = expected.get(position);
+            assertEquals(index, order.getIndex(position));
+            assertEquals(position, order.getPosition(index));
+            assertEquals(Integer.valueOf(position), order.getPositionMapping().get(index));
+        }
+        assertEquals(expected.size(), order.getPositionMapping().size());
+    }
+
+    @Test
+    public void shouldMoveBlocks() {
+        IndexOrderList order = create(10);
+
+        order.move(2, 3, 8);
+        assertConsistent(Arrays.asList(0, 1, 5, 6, 7, 2, 3, 4, 8, 9), order);
+
+        order.move(5, 3, 0);
+        assertConsistent(Arrays.asList(2, 3, 4, 0, 1, 5, 6, 7, 8, 9), order);
+
+        order.move(8, 2, 10);
+        assertConsistent(Arrays.asList(2, 3, 4, 0, 1, 5, 6, 7, 8, 9), order);
+
+        order.move(0, 1, 10);
+        assertConsistent(Arrays.asList(3, 4, 0, 1, 5, 6, 7, 8, 9, 2), order);
+    }
+
+    @Test
+    public void shouldMoveMultiplePositions() {
+        IndexOrderList order = create(10);
+
+        assertTrue(order.move(Arrays.asList(1, 2, 5, 9), 7));
+        assertConsistent(Arrays.asList(0, 3, 4, 6, 1, 2, 5, 9, 7, 8), order);
+
+        assertTrue(order.move(Arrays.asList(6, 8), 2));
+        assertConsistent(Arrays.asList(0, 3, 5, 7, 4, 6, 1, 2, 9, 8), order);
+
+        assertFalse(order.move(Arrays.asList(5, 3), 0));
+        assertFalse(order.move(Arrays.asList(3, 3), 0));
+        assertConsistent(Arrays.asList(0, 3, 5, 7, 4, 6, 1, 2, 9, 8), order);
+    }
+
+    @Test
+    public void shouldHandleStructuralChanges() {
+        IndexOrderList order = create(5);
+        order.add(2, 7);
+        order.remove(0);
+        order.set(1, 9);
+        assertConsistent(Arrays.asList(1, 9, 2, 3, 4), order);
+        assertEquals(-1, order.getPosition(0));
+        assertEquals(-1, order.getPosition(7));
+        assertEquals(-1, order.getPosition(100));
+        assertEquals(-1, order.getIndex(5));
+
+        Map<Integer, Integer> mapping = order.getPositionMapping();
+        assertTrue(mapping.containsKey(9));
+        assertFalse(mapping.containsKey(7));
+        assertNull(mapping.get(7));
+
+        assertTrue(order.removeAll(Arrays.asList(9, 4)));
+        assertFalse(order.removeAll(Arrays.asList(42)));
+        assertConsistent(Arrays.asList(1, 2, 3), order);
+
+        order.clear();
+        assertTrue(order.isEmpty());
+        assertEquals(-1, order.getPosition(1));
+    }
+
+    @Test
+    public void shouldShiftIndexesViaSet() {
+        // shifting all indexes like the StructuralChangeEventHelper does
+        // results in temporary duplicates
+        IndexOrderList order = create(5);
+        Collections.reverse(order);
+        for (int position = 0; position < order.size(); position++) {
+            order.set(position, order.get(position) + 1);
+        }
+        assertConsistent(Arrays.asList(5, 4, 3, 2, 1), order);
+        assertEquals(-1, order.getPosition(0));
+    }
+
+    @Test
+    public void shouldBehaveLikeArrayList() {
+        Random random = new Random(42);
+        List<Integer> reference = new ArrayList<Integer>();
+        IndexOrderList order = new IndexOrderList();
+        for (int i = 0; i < 200; i++) {
+            reference.add(i);
+            order.add(i);
+        }
+
+        int nextIndex = 200;
+        for (int run = 0; run < 2000; run++) {
+            int size = reference.size();
+            switch (random.nextInt(4)) {
+                case 0:
+                    int addPosition = random.nextInt(size + 1);
+                    reference.add(addPosition, nextIndex);
+                    order.add(addPosition, nextIndex);
+                    nextIndex++;
+                    break;
+                case 1:
+                    int removePosition = random.nextInt(size);
+                    assertEquals(reference.remove(removePosition), order.remove(removePosition));
+                    break;
+                default:
+                    int from = random.nextInt(size);
+                    int length = random.nextInt(Math.min(10, size - from) + 1);
+                    int to = random.nextInt(size + 1);
+                    if (to < from || to > from + length) {
+                        List<Integer> block = new ArrayList<Integer>(reference.subList(from, from + length));
+                        reference.subList(from, from + length).clear();
+                        reference.addAll(to > from ? to - length : to, block);
+                    }
+                    order.move(from, length, to);
+                    break;
+            }
+        }
+        assertConsistent(reference, order);
+    }
+}
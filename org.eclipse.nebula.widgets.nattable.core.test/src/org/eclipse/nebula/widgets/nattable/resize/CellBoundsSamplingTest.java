@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.resize;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.nebula.widgets.nattable.data.IDataProvider;
+import org.eclipse.nebula.widgets.nattable.test.fixture.layer.DataLayerFixture;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CellBoundsSamplingTest {
+
+    private DataLayerFixture dataLayer;
+
+    @Before
+    public void setup() {
+        this.dataLayer = new DataLayerFixture(2, 1000, 10, 10);
+        IDataProvider dataProvider = this.dataLayer.getDataProvider();
+        for (int row = 0; row < 1000; row++) {
+            dataProvider.setDataValue(0, row, "x");
+            dataProvider.setDataValue(1, row, "x");
+        }
+        dataProvider.setDataValue(0, 500, "the longest text");
+        dataProvider.setDataValue(0, 20, "longer text");
+        dataProvider.setDataValue(0, 999, "long text");
+    }
+
+    @Test
+    public void shouldReturnAllPositionsBelowThreshold() {
+        CellBoundsSampling sampling = new CellBoundsSampling(1000, 3, 10);
+        int[] positions = sampling.getSamplePositions(this.dataLayer, 0, true);
+
+        assertEquals(1000, positions.length);
+        for (int i = 0; i < positions.length; i++) {
+            assertEquals(i, positions[i]);
+        }
+    }
+
+    @Test
+    public void shouldSampleLongestFirstAndRandomPositions() {
+        CellBoundsSampling sampling = new CellBoundsSampling(100, 3, 50);
+        int[] positions = sampling.getSamplePositions(this.dataLayer, 0, true);
+
+        assertEquals(53, positions.length);
+        assertEquals(500, positions[0]);
+        assertEquals(20, positions[1]);
+        assertEquals(999, positions[2]);
+
+        Set<Integer> unique = new HashSet<Integer>();
+        for (int i = 0; i < positions.length; i++) {
+            assertTrue(positions[i] >= 0 && positions[i] < 1000);
+            assertTrue(unique.add(Integer.valueOf(positions[i])));
+            if (i > 3) {
+                assertTrue(positions[i] > positions[i - 1]);
+            }
+        }
+
+        // the sample is stable for unchanged data
+        assertArrayEquals(positions, sampling.getSamplePositions(this.dataLayer, 0, true));
+    }
+
+    @Test
+    public void shouldSampleColumnsOfRow() {
+        CellBoundsSampling sampling = new CellBoundsSampling(1, 1, 0);
+        this.dataLayer.getDataProvider().setDataValue(1, 7, "longer");
+
+        assertArrayEquals(new int[] { 1 }, sampling.getSamplePositions(this.dataLayer, 7, false));
+    }
+}
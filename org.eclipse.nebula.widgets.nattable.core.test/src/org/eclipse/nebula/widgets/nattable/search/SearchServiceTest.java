@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.PatternSyntaxException;
+
+import org.eclipse.nebula.widgets.nattable.config.CellConfigAttributes;
+import org.eclipse.nebula.widgets.nattable.config.ConfigRegistry;
+import org.eclipse.nebula.widgets.nattable.coordinate.PositionCoordinate;
+import org.eclipse.nebula.widgets.nattable.data.IDataProvider;
+import org.eclipse.nebula.widgets.nattable.data.convert.DefaultDisplayConverter;
+import org.eclipse.nebula.widgets.nattable.hideshow.ColumnHideShowLayer;
+import org.eclipse.nebula.widgets.nattable.hideshow.command.ColumnHideCommand;
+import org.eclipse.nebula.widgets.nattable.layer.DataLayer;
+import org.eclipse.nebula.widgets.nattable.reorder.ColumnReorderLayer;
+import org.eclipse.nebula.widgets.nattable.selection.SelectionLayer;
+import org.eclipse.nebula.widgets.nattable.util.CalculationService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SearchServiceTest {
+
+    private SelectionLayer selectionLayer;
+    private CalculationService calculationService;
+    private SearchService searchService;
+    private final Set<Thread> dataAccessThreads = Collections.synchronizedSet(new HashSet<Thread>());
+
+    @Before
+    public void setUp() {
+        IDataProvider dataProvider = new IDataProvider() {
+
+            @Override
+            public int getColumnCount() {
+                return 10;
+            }
+
+            @Override
+            public int getRowCount() {
+                return 5000;
+            }
+
+            @Override
+            public Object getDataValue(int columnIndex, int rowIndex) {
+                SearchServiceTest.this.dataAccessThreads.add(Thread.currentThread());
+                return "Row" + rowIndex + " Col" + columnIndex; //$NON-NLS-1$ //$NON-NLS-2$
+            }
+
+            @Override
+            public void setDataValue(int columnIndex, int rowIndex, Object newValue) {}
+        };
+        this.selectionLayer = new SelectionLayer(
+                new ColumnHideShowLayer(new ColumnReorderLayer(new DataLayer(dataProvider))));
+
+        ConfigRegistry configRegistry = new ConfigRegistry();
+        configRegistry.registerConfigAttribute(
+                CellConfigAttributes.DISPLAY_CONVERTER,
+                new DefaultDisplayConverter());
+
+        this.calculationService = new CalculationService("SearchServiceTest", 4, 100); //$NON-NLS-1$
+        this.searchService = new SearchService(this.selectionLayer, configRegistry, null, this.calculationService);
+        this.searchService.setBandSize(100);
+    }
+
+    @After
+    public void tearDown() {
+        this.searchService.dispose();
+        this.calculationService.shutdownNow();
+    }
+
+    @Test
+    public void shouldFindAllMatches() throws Exception {
+        CollectingListener listener = new CollectingListener();
+        this.searchService.search("99 col3", new CellValueAsStringComparator<String>(), false, false, false, listener); //$NON-NLS-1$
+        assertTrue(listener.finished.await(10, TimeUnit.SECONDS));
+
+        assertFalse(listener.cancelled);
+        // Row99, Row199, ..., Row4999
+        assertEquals(50, listener.matchCount);
+        assertEquals(50, listener.matches.size());
+
+        Set<Integer> rows = new HashSet<Integer>();
+        for (PositionCoordinate match : listener.matches) {
+            assertEquals(3, match.columnPosition);
+            assertTrue(rows.add(match.rowPosition));
+        }
+        assertTrue(rows.contains(99));
+        assertTrue(rows.contains(4999));
+    }
+
+    @Test
+    public void shouldReadDataInCallingThread() throws Exception {
+        CollectingListener listener = new CollectingListener();
+        this.searchService.search("Row", new CellValueAsStringComparator<String>(), false, false, false, listener); //$NON-NLS-1$
+        assertTrue(listener.finished.await(10, TimeUnit.SECONDS));
+
+        assertEquals(50000, listener.matchCount);
+        assertEquals(Collections.singleton(Thread.currentThread()), this.dataAccessThreads);
+    }
+
+    @Test
+    public void shouldFindWholeWordMatches() throws Exception {
+        CollectingListener listener = new CollectingListener();
+        this.searchService.search("Row4999", new CellValueAsStringComparator<String>(), true, true, false, listener); //$NON-NLS-1$
+        assertTrue(listener.finished.await(10, TimeUnit.SECONDS));
+
+        assertEquals(10, listener.matchCount);
+    }
+
+    @Test
+    public void shouldCancelPreviousSearch() throws Exception {
+        CollectingListener first = new CollectingListener();
+        this.searchService.search("Row", new CellValueAsStringComparator<String>(), false, false, false, first); //$NON-NLS-1$
+        CollectingListener second = new CollectingListener();
+        this.searchService.search("Row1 ", new CellValueAsStringComparator<String>(), false, false, false, second); //$NON-NLS-1$
+
+        assertTrue(first.finished.await(10, TimeUnit.SECONDS));
+        assertTrue(second.finished.await(10, TimeUnit.SECONDS));
+
+        assertTrue(first.cancelled);
+        assertFalse(second.cancelled);
+        assertEquals(10, second.matchCount);
+        assertFalse(this.searchService.isSearching());
+    }
+
+    @Test
+    public void shouldCancelOnStructuralChange() throws Exception {
+        // block the workers until the structure changed
+        final CountDownLatch blocker = new CountDownLatch(1);
+        for (int i = 0; i < 4; i++) {
+            this.calculationService.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        blocker.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+
+        CollectingListener listener = new CollectingListener();
+        this.searchService.search("Row", new CellValueAsStringComparator<String>(), false, false, false, listener); //$NON-NLS-1$
+        assertTrue(this.searchService.isSearching());
+
+        this.selectionLayer.doCommand(new ColumnHideCommand(this.selectionLayer, 0));
+        blocker.countDown();
+
+        assertTrue(listener.finished.await(10, TimeUnit.SECONDS));
+        assertTrue(listener.cancelled);
+        assertEquals(0, listener.matchCount);
+        assertFalse(this.searchService.isSearching());
+    }
+
+    @Test(expected = PatternSyntaxException.class)
+    public void shouldFailOnInvalidRegex() {
+        this.searchService.search("Row(", new CellValueAsStringComparator<String>(), false, false, true, new CollectingListener()); //$NON-NLS-1$
+    }
+
+    private static class CollectingListener implements ISearchResultListener {
+
+        final List<PositionCoordinate> matches = Collections.synchronizedList(new ArrayList<PositionCoordinate>());
+        final CountDownLatch finished = new CountDownLatch(1);
+        volatile int matchCount;
+        volatile boolean cancelled;
+
+        @Override
+        public void matchesFound(List<PositionCoordinate> matches) {
+            this.matches.addAll(matches);
+        }
+
+        @Override
+        public void searchFinished(int matchCount, boolean cancelled) {
+            this.matchCount = matchCount;
+            this.cancelled = cancelled;
+            this.finished.countDown();
+        }
+    }
+}
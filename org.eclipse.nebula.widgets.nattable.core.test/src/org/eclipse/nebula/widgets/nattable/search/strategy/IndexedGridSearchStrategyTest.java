@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.search.strategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.eclipse.nebula.widgets.nattable.config.CellConfigAttributes;
+import org.eclipse.nebula.widgets.nattable.config.ConfigRegistry;
+import org.eclipse.nebula.widgets.nattable.coordinate.PositionCoordinate;
+import org.eclipse.nebula.widgets.nattable.data.IDataProvider;
+import org.eclipse.nebula.widgets.nattable.data.convert.DefaultDisplayConverter;
+import org.eclipse.nebula.widgets.nattable.edit.command.UpdateDataCommand;
+import org.eclipse.nebula.widgets.nattable.grid.layer.DefaultGridLayer;
+import org.eclipse.nebula.widgets.nattable.hideshow.command.ColumnHideCommand;
+import org.eclipse.nebula.widgets.nattable.search.CellValueAsStringComparator;
+import org.eclipse.nebula.widgets.nattable.search.ISearchDirection;
+import org.eclipse.nebula.widgets.nattable.selection.SelectionLayer;
+import org.eclipse.nebula.widgets.nattable.selection.command.SelectCellCommand;
+import org.eclipse.nebula.widgets.nattable.test.fixture.layer.GridLayerFixture;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IndexedGridSearchStrategyTest {
+
+    private static final String[] WORDS = { "alpha", "Beta", "gamma", "delta", "Alphabet", "epsilon" };
+
+    private String[][] data;
+    private SelectionLayer selectionLayer;
+    private ConfigRegistry configRegistry;
+    private IndexedGridSearchStrategy indexedStrategy;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(42);
+        this.data = new String[8][60];
+        for (int column = 0; column < this.data.length; column++) {
+            for (int row = 0; row < this.data[column].length; row++) {
+                this.data[column][row] = WORDS[random.nextInt(WORDS.length)]
+                        + " " + WORDS[random.nextInt(WORDS.length)];
+            }
+        }
+
+        DefaultGridLayer gridLayer = new DefaultGridLayer(new IDataProvider() {
+
+            @Override
+            public int getColumnCount() {
+                return IndexedGridSearchStrategyTest.this.data.length;
+            }
+
+            @Override
+            public int getRowCount() {
+                return IndexedGridSearchStrategyTest.this.data[0].length;
+            }
+
+            @Override
+            public Object getDataValue(int columnIndex, int rowIndex) {
+                return IndexedGridSearchStrategyTest.this.data[columnIndex][rowIndex];
+            }
+
+            @Override
+            public void setDataValue(int columnIndex, int rowIndex, Object newValue) {
+                IndexedGridSearchStrategyTest.this.data[columnIndex][rowIndex] = (String) newValue;
+            }
+        }, GridLayerFixture.colHeaderDataProvider);
+        this.selectionLayer = gridLayer.getBodyLayer().getSelectionLayer();
+
+        this.configRegistry = new ConfigRegistry();
+        this.configRegistry.registerConfigAttribute(
+                CellConfigAttributes.DISPLAY_CONVERTER,
+                new DefaultDisplayConverter());
+
+        this.indexedStrategy = new IndexedGridSearchStrategy(this.configRegistry, true, false);
+        this.indexedStrategy.setContextLayer(this.selectionLayer);
+        this.indexedStrategy.setComparator(new CellValueAsStringComparator<String>());
+        this.indexedStrategy.buildIndex();
+    }
+
+    private PositionCoordinate search(AbstractSearchStrategy strategy, String text,
+            boolean wrap, String direction, boolean caseSensitive, boolean wholeWord, boolean columnFirst) {
+        strategy.setContextLayer(this.selectionLayer);
+        strategy.setComparator(new CellValueAsStringComparator<String>());
+        strategy.setWrapSearch(wrap);
+        strategy.setSearchDirection(direction);
+        strategy.setCaseSensitive(caseSensitive);
+        strategy.setWholeWord(wholeWord);
+        strategy.setColumnFirst(columnFirst);
+        return strategy.executeSearch(text);
+    }
+
+    private void assertSameResult(PositionCoordinate expected, PositionCoordinate actual) {
+        if (expected == null) {
+            assertNull(actual);
+        } else {
+            assertNotNull(actual);
+            assertEquals(expected.columnPosition, actual.columnPosition);
+            assertEquals(expected.rowPosition, actual.rowPosition);
+        }
+    }
+
+    @Test
+    public void shouldFindSameCellsAsGridSearch() {
+        assertTrue(this.indexedStrategy.isIndexComplete());
+
+        GridSearchStrategy gridStrategy = new GridSearchStrategy(this.configRegistry, true, false);
+        String[] texts = { "alp", "Beta", "ha bet", "gamma delta", "silo", "xyz" };
+        int[][] anchors = { { 0, 0 }, { 3, 17 }, { 7, 59 }, { 5, 30 } };
+        Random random = new Random(7);
+
+        for (String text : texts) {
+            for (int[] anchor : anchors) {
+                for (int i = 0; i < 8; i++) {
+                    boolean wrap = random.nextBoolean();
+                    String direction = random.nextBoolean()
+                            ? ISearchDirection.SEARCH_FORWARD
+                            : ISearchDirection.SEARCH_BACKWARDS;
+                    boolean caseSensitive = random.nextBoolean();
+                    boolean wholeWord = random.nextBoolean();
+                    boolean columnFirst = random.nextBoolean();
+
+                    this.selectionLayer.doCommand(
+                            new SelectCellCommand(this.selectionLayer, anchor[0], anchor[1], false, false));
+                    PositionCoordinate expected = search(gridStrategy, text, wrap, direction, caseSensitive, wholeWord, columnFirst);
+
+                    this.selectionLayer.doCommand(
+                            new SelectCellCommand(this.selectionLayer, anchor[0], anchor[1], false, false));
+                    PositionCoordinate actual = search(this.indexedStrategy, text, wrap, direction, caseSensitive, wholeWord, columnFirst);
+
+                    assertSameResult(expected, actual);
+                }
+            }
+        }
+        assertTrue(this.indexedStrategy.isIndexComplete());
+    }
+
+    @Test
+    public void shouldFindUpdatedValue() {
+        assertNull(search(this.indexedStrategy, "omega", true, ISearchDirection.SEARCH_FORWARD, false, false, false));
+
+        this.selectionLayer.doCommand(new UpdateDataCommand(this.selectionLayer, 4, 25, "omega"));
+
+        assertTrue(this.indexedStrategy.isIndexComplete());
+        assertEquals(1, this.indexedStrategy.getIndex().getDirtyCount());
+        PositionCoordinate result = search(this.indexedStrategy, "omega", true, ISearchDirection.SEARCH_FORWARD, false, false, false);
+        assertNotNull(result);
+        assertEquals(4, result.columnPosition);
+        assertEquals(25, result.rowPosition);
+    }
+
+    @Test
+    public void shouldInvalidateIndexOnStructuralChange() {
+        this.selectionLayer.doCommand(new ColumnHideCommand(this.selectionLayer, 0));
+        assertFalse(this.indexedStrategy.isIndexComplete());
+
+        this.indexedStrategy.buildIndex();
+        assertTrue(this.indexedStrategy.isIndexComplete());
+
+        this.indexedStrategy.dispose();
+        assertFalse(this.indexedStrategy.isIndexComplete());
+    }
+}
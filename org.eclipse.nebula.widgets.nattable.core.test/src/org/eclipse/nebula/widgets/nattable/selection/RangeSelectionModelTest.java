@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.selection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.test.fixture.layer.DataLayerFixture;
+import org.eclipse.swt.graphics.Rectangle;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RangeSelectionModelTest {
+
+    private SelectionLayer selectionLayer;
+    private RangeSelectionModel model;
+
+    @Before
+    public void setup() {
+        this.selectionLayer = new SelectionLayer(new DataLayerFixture(100, 100, 100, 40), false);
+        this.model = new RangeSelectionModel(this.selectionLayer);
+    }
+
+    @Test
+    public void shouldMergeAdjacentSelections() {
+        assertTrue(this.model.isEmpty());
+
+        this.model.addSelection(new Rectangle(2, 0, 3, 5));
+        this.model.addSelection(new Rectangle(5, 0, 2, 5));
+        this.model.addSelection(new Rectangle(2, 5, 5, 1));
+
+        assertFalse(this.model.isEmpty());
+        assertEquals(Arrays.asList(new Rectangle(2, 0, 5, 6)), this.model.getSelections());
+        assertTrue(this.model.isCellPositionSelected(6, 5));
+        assertFalse(this.model.isCellPositionSelected(7, 5));
+        assertFalse(this.model.isCellPositionSelected(1, 0));
+        assertFalse(this.model.isCellPositionSelected(2, 6));
+    }
+
+    @Test
+    public void shouldSplitOnClear() {
+        this.model.addSelection(new Rectangle(0, 0, 10, 10));
+        this.model.clearSelection(new Rectangle(3, 3, 2, 2));
+
+        assertFalse(this.model.isCellPositionSelected(3, 3));
+        assertFalse(this.model.isCellPositionSelected(4, 4));
+        assertTrue(this.model.isCellPositionSelected(5, 4));
+        assertTrue(this.model.isCellPositionSelected(3, 5));
+        assertEquals(4, this.model.getSelections().size());
+
+        this.model.clearSelection(new Rectangle(0, 0, 10, 10));
+        assertTrue(this.model.isEmpty());
+        assertTrue(this.model.getSelections().isEmpty());
+    }
+
+    @Test
+    public void shouldOnlySelectSingleCell() {
+        this.model.setMultipleSelectionAllowed(false);
+        this.model.addSelection(new Rectangle(0, 0, 10, 10));
+        this.model.addSelection(new Rectangle(4, 5, 10, 10));
+
+        assertEquals(Arrays.asList(new Rectangle(4, 5, 1, 1)), this.model.getSelections());
+    }
+
+    @Test
+    public void shouldDetectFullySelected() {
+        this.model.addSelection(new Rectangle(0, 0, 10, 10));
+        this.model.addSelection(new Rectangle(5, 10, 10, 10));
+
+        assertTrue(this.model.isColumnPositionFullySelected(5, 20));
+        assertFalse(this.model.isColumnPositionFullySelected(4, 20));
+        assertTrue(this.model.isRowPositionFullySelected(5, 10));
+        assertTrue(this.model.isRowPositionFullySelected(10, 10));
+        assertFalse(this.model.isRowPositionFullySelected(10, 11));
+
+        this.model.clearSelection(2, 3);
+        assertFalse(this.model.isRowPositionFullySelected(3, 5));
+        assertArrayEquals(new int[] { 5, 6, 7, 8, 9 }, this.model.getFullySelectedColumnPositions(20));
+    }
+
+    @Test
+    public void shouldHandleManyDisjointSelections() {
+        for (int row = 0; row < 100; row += 2) {
+            this.model.addSelection(new Rectangle(0, row, 100, 1));
+        }
+
+        assertEquals(50, this.model.getSelectedRowCount());
+        assertEquals(50, this.model.getSelectedRowPositions().size());
+        assertEquals(50, this.model.getSelections().size());
+        assertTrue(this.model.isRowPositionSelected(98));
+        assertFalse(this.model.isRowPositionSelected(99));
+        assertEquals(50, this.model.getFullySelectedRowPositions(100).length);
+    }
+
+    @Test
+    public void shouldBehaveLikeSelectionModel() {
+        SelectionModel reference = new SelectionModel(this.selectionLayer);
+        Random random = new Random(42);
+
+        for (int run = 0; run < 300; run++) {
+            Rectangle rectangle = new Rectangle(
+                    random.nextInt(30),
+                    random.nextInt(30),
+                    1 + random.nextInt(8),
+                    1 + random.nextInt(8));
+            if (random.nextInt(3) == 0) {
+                reference.clearSelection(rectangle);
+                this.model.clearSelection(rectangle);
+            } else {
+                reference.addSelection(rectangle);
+                this.model.addSelection(new Rectangle(rectangle.x, rectangle.y, rectangle.width, rectangle.height));
+            }
+
+            for (int column = 0; column < 40; column++) {
+                for (int row = 0; row < 40; row++) {
+                    assertEquals(reference.isCellPositionSelected(column, row), this.model.isCellPositionSelected(column, row));
+                }
+                assertEquals(reference.isColumnPositionSelected(column), this.model.isColumnPositionSelected(column));
+            }
+            assertArrayEquals(reference.getSelectedColumnPositions(), this.model.getSelectedColumnPositions());
+            assertEquals(reference.getSelectedRowCount(), this.model.getSelectedRowCount());
+            assertEquals(new HashSet<Range>(reference.getSelectedRowPositions()), this.model.getSelectedRowPositions());
+            int[] fullySelectedRows = new int[40];
+            int fullySelectedRowCount = 0;
+            for (int row = 0; row < 40; row++) {
+                assertEquals(reference.isRowPositionSelected(row), this.model.isRowPositionSelected(row));
+                boolean fullySelected = isFullySelected(reference, row, 5);
+                assertEquals(fullySelected, this.model.isRowPositionFullySelected(row, 5));
+                if (fullySelected) {
+                    fullySelectedRows[fullySelectedRowCount++] = row;
+                }
+            }
+            assertArrayEquals(Arrays.copyOf(fullySelectedRows, fullySelectedRowCount), this.model.getFullySelectedRowPositions(5));
+        }
+    }
+
+    /**
+     * The SelectionModel only compares neighbour rectangles and therefore
+     * does not detect all contiguous selections, so the cells are checked.
+     */
+    private boolean isFullySelected(ISelectionModel reference, int row, int width) {
+        int selected = 0;
+        int runs = 0;
+        for (int column = 0; column < 40; column++) {
+            if (reference.isCellPositionSelected(column, row)) {
+                if (column == 0 || !reference.isCellPositionSelected(column - 1, row)) {
+                    runs++;
+                }
+                selected++;
+            }
+        }
+        return runs == 1 && selected >= width;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2018 Jonas Hugo, Markus Wahl.
+ * Copyright (c) 2014, 2019 Jonas Hugo, Markus Wahl.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,9 +14,12 @@
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.HashSet;
 
 import org.eclipse.nebula.widgets.nattable.selection.preserve.Selections.CellPosition;
@@ -168,4 +171,86 @@ public void getColumns() {
         assertEquals(expectedColumns, actualColumns);
     }
 
+    @Test
+    public void Selecting_Rows_In_Same_Range_Shares_Columns() {
+        this.testee.select(this.rowA, this.rowObjectA, 0, 5);
+        this.testee.select(this.rowB, this.rowObjectB, 0, 5);
+
+        assertSame(this.testee.getSelectedColumns(this.rowA).getColumns(),
+                this.testee.getSelectedColumns(this.rowB).getColumns());
+        assertTrue(this.testee.isSelected(this.rowA, 4));
+        assertFalse(this.testee.isSelected(this.rowA, 5));
+        assertEquals(2, this.testee.getSelectedRowCount(0));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), this.testee.getColumnPositions());
+        assertTrue(this.testee.getSelectedColumns(this.rowA).isFullySelected(5));
+    }
+
+    @Test
+    public void Deselecting_A_Cell_Of_Shared_Row_Does_Not_Affect_Other_Rows() {
+        this.testee.select(this.rowA, this.rowObjectA, 0, 5);
+        this.testee.select(this.rowB, this.rowObjectB, 0, 5);
+        this.testee.deselect(this.rowA, 2);
+
+        assertNotSame(this.testee.getSelectedColumns(this.rowA).getColumns(),
+                this.testee.getSelectedColumns(this.rowB).getColumns());
+        assertFalse(this.testee.isSelected(this.rowA, 2));
+        assertTrue(this.testee.isSelected(this.rowB, 2));
+        assertEquals(1, this.testee.getSelectedRowCount(2));
+        assertFalse(this.testee.getSelectedColumns(this.rowA).isFullySelected(4));
+    }
+
+    @Test
+    public void Deselecting_A_Range_Removes_Row() {
+        this.testee.select(this.rowA, this.rowObjectA, 1, 3);
+        this.testee.deselect(this.rowA, 0, 2);
+
+        assertFalse(this.testee.isSelected(this.rowA, 1));
+        assertTrue(this.testee.isSelected(this.rowA, 2));
+
+        this.testee.deselect(this.rowA, 0, 5);
+        assertFalse(this.testee.isRowSelected(this.rowA));
+        assertTrue(this.testee.getColumnPositions().isEmpty());
+    }
+
+    @Test
+    public void Deselecting_Column_Updates_All_Rows() {
+        this.testee.select(this.rowA, this.rowObjectA, 0, 3);
+        this.testee.select(this.rowB, this.rowObjectB, this.columnPosition1);
+        this.testee.deselectColumn(this.columnPosition1);
+
+        assertFalse(this.testee.isSelected(this.rowA, this.columnPosition1));
+        assertTrue(this.testee.isSelected(this.rowA, this.columnPosition2));
+        assertFalse(this.testee.isRowSelected(this.rowB));
+        assertEquals(0, this.testee.getSelectedRowCount(this.columnPosition1));
+    }
+
+    @Test
+    public void Removing_And_Adding_Columns_Moves_Selections() {
+        this.testee.select(this.rowA, this.rowObjectA, this.columnPosition1);
+        this.testee.select(this.rowA, this.rowObjectA, this.columnPosition3);
+
+        this.testee.updateColumnsForRemoval(this.columnPosition2);
+        assertEquals(Arrays.asList(1, 2), this.testee.getColumnPositions());
+        assertTrue(this.testee.isSelected(this.rowA, 2));
+
+        this.testee.updateColumnsForAddition(0);
+        assertEquals(Arrays.asList(2, 3), this.testee.getColumnPositions());
+        assertTrue(this.testee.isSelected(this.rowA, 2));
+        assertTrue(this.testee.isSelected(this.rowA, 3));
+    }
+
+    @Test
+    public void Reordering_Columns_Moves_Selections() {
+        this.testee.select(this.rowA, this.rowObjectA, 0, 2);
+        this.testee.select(this.rowB, this.rowObjectB, 4);
+
+        // move column 4 to the left edge
+        this.testee.updateColumnsForReorder(Arrays.asList(4), Arrays.asList(0));
+
+        assertEquals(Arrays.asList(0, 1, 2), this.testee.getColumnPositions());
+        assertTrue(this.testee.isSelected(this.rowB, 0));
+        assertTrue(this.testee.isSelected(this.rowA, 1));
+        assertTrue(this.testee.isSelected(this.rowA, 2));
+        assertFalse(this.testee.isSelected(this.rowA, 0));
+    }
 }
@@ -62,4 +62,39 @@ public void proxyShouldRetreiveConfigAttributeUsingTheDisplayModeOrdering()
 
         Assert.assertEquals(HorizontalAlignmentEnum.CENTER, alignmentFromProxy);
     }
+
+    @Test
+    public void proxyShouldRespectOverriddenLookupOfConfigRegistry()
+            throws Exception {
+        final Style overridingStyle = new Style();
+        overridingStyle.setAttributeValue(
+                CellStyleAttributes.HORIZONTAL_ALIGNMENT,
+                HorizontalAlignmentEnum.LEFT);
+
+        ConfigRegistry configRegistry = new ConfigRegistry() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public <T> T getSpecificConfigAttribute(ConfigAttribute<T> configAttribute,
+                    String displayMode, String configLabel) {
+                if (TEST_CONFIG_LABEL1.equals(configLabel)) {
+                    return (T) overridingStyle;
+                }
+                return super.getSpecificConfigAttribute(configAttribute, displayMode, configLabel);
+            }
+        };
+        Assert.assertFalse(configRegistry.isDefaultLookup());
+        Assert.assertTrue(new ConfigRegistry().isDefaultLookup());
+
+        Style testCellStyle = new Style();
+        testCellStyle.setAttributeValue(
+                CellStyleAttributes.HORIZONTAL_ALIGNMENT,
+                HorizontalAlignmentEnum.RIGHT);
+        configRegistry.registerConfigAttribute(CellConfigAttributes.CELL_STYLE,
+                testCellStyle, DisplayMode.NORMAL, TEST_CONFIG_LABEL1);
+
+        StyleProxy cellStyleProxy = new CellStyleProxy(configRegistry,
+                DisplayMode.NORMAL, Arrays.asList(TEST_CONFIG_LABEL1));
+        Assert.assertEquals(HorizontalAlignmentEnum.LEFT, cellStyleProxy
+                .getAttributeValue(CellStyleAttributes.HORIZONTAL_ALIGNMENT));
+    }
 }
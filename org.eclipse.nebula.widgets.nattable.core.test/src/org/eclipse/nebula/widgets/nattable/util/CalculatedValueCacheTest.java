@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013 Dirk Fauth and others.
+ * Copyright (c) 2013, 2019 Dirk Fauth and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,11 @@
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.nebula.widgets.nattable.grid.data.DummyBodyDataProvider;
 import org.eclipse.nebula.widgets.nattable.layer.DataLayer;
@@ -193,6 +198,227 @@ public void testIllegalState() {
         this.valueCache.getCalculatedValue(0, 0, false, this.calculator);
     }
 
+    @Test
+    public void shouldNotCalculateSameKeyTwiceInParallel() throws Exception {
+        final AtomicInteger calculations = new AtomicInteger();
+        ICalculator countingCalculator = new ICalculator() {
+
+            @Override
+            public Object executeCalculation() {
+                calculations.incrementAndGet();
+                return CalculatedValueCacheTest.this.calculator.executeCalculation();
+            }
+        };
+        this.valueCache = new CalculatedValueCache(new DataLayer(
+                new DummyBodyDataProvider(10, 10)), true, false);
+
+        for (int i = 0; i < 10; i++) {
+            assertNull(this.valueCache.getCalculatedValue(0, i, true, countingCalculator));
+        }
+        assertEquals(1, ((CalculatedValueCache) this.valueCache).getPendingCalculationCount());
+
+        Thread.sleep(250);
+        assertEquals(Integer.valueOf(42), this.valueCache.getCalculatedValue(0, 0, true, countingCalculator));
+        assertEquals(1, calculations.get());
+        assertEquals(0, ((CalculatedValueCache) this.valueCache).getPendingCalculationCount());
+    }
+
+    @Test
+    public void shouldRecalculateObsoleteCalculationOnNextRequest() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        final AtomicInteger value = new AtomicInteger(1);
+        final AtomicInteger calculations = new AtomicInteger();
+        ICalculator blockingCalculator = new ICalculator() {
+
+            @Override
+            public Object executeCalculation() {
+                int result = value.get();
+                calculations.incrementAndGet();
+                started.countDown();
+                try {
+                    proceed.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {}
+                return Integer.valueOf(result);
+            }
+        };
+        this.valueCache = new CalculatedValueCache(new DataLayer(
+                new DummyBodyDataProvider(10, 10)), true, true);
+
+        assertNull(this.valueCache.getCalculatedValue(0, 0, true, blockingCalculator));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        // the data changes while calculating
+        value.set(2);
+        this.valueCache.clearCache();
+        proceed.countDown();
+        Thread.sleep(100);
+
+        // the obsolete result is only used for smooth updates and not
+        // recalculated without another request
+        assertEquals(1, calculations.get());
+        assertEquals(0, ((CalculatedValueCache) this.valueCache).getPendingCalculationCount());
+        assertEquals(Integer.valueOf(1), this.valueCache.getCalculatedValue(0, 0, true, blockingCalculator));
+        Thread.sleep(100);
+
+        assertEquals(2, calculations.get());
+        assertEquals(Integer.valueOf(2), this.valueCache.getCalculatedValue(0, 0, true, blockingCalculator));
+        assertEquals(2, calculations.get());
+    }
+
+    @Test
+    public void shouldUpdateValuesWhileClearedContinuously() throws Exception {
+        final AtomicInteger value = new AtomicInteger();
+        ICalculator slowCalculator = new ICalculator() {
+
+            @Override
+            public Object executeCalculation() {
+                int result = value.get();
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {}
+                return Integer.valueOf(result);
+            }
+        };
+        this.valueCache = new CalculatedValueCache(new DataLayer(
+                new DummyBodyDataProvider(10, 10)), true, true);
+
+        // the cache is cleared more often than a calculation takes
+        Object lastValue = null;
+        int updates = 0;
+        for (int i = 1; i <= 50; i++) {
+            value.set(i);
+            this.valueCache.clearCache();
+            Object current = this.valueCache.getCalculatedValue(0, 0, true, slowCalculator);
+            if (current != null && !current.equals(lastValue)) {
+                updates++;
+            }
+            lastValue = current;
+            Thread.sleep(5);
+        }
+        assertTrue("values are not updated", updates > 0);
+
+        // converges to the final value on further requests
+        Object current = null;
+        for (int i = 0; i < 20 && !Integer.valueOf(50).equals(current); i++) {
+            Thread.sleep(50);
+            current = this.valueCache.getCalculatedValue(0, 0, true, slowCalculator);
+        }
+        assertEquals(Integer.valueOf(50), current);
+    }
+
+    @Test
+    public void shouldCancelQueuedCalculationsOnClear() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        final AtomicInteger calculations = new AtomicInteger();
+        ICalculator blockingCalculator = new ICalculator() {
+
+            @Override
+            public Object executeCalculation() {
+                calculations.incrementAndGet();
+                started.countDown();
+                try {
+                    proceed.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {}
+                return Integer.valueOf(1);
+            }
+        };
+        CalculationService service = new CalculationService("Test", 1, 10); //$NON-NLS-1$
+        try {
+            this.valueCache = new CalculatedValueCache(new DataLayer(
+                    new DummyBodyDataProvider(10, 10)), true, true, true, service);
+
+            // one calculation is running, two are queued
+            this.valueCache.getCalculatedValue(0, 0, true, blockingCalculator);
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+            this.valueCache.getCalculatedValue(1, 0, true, blockingCalculator);
+            this.valueCache.getCalculatedValue(2, 0, true, blockingCalculator);
+            assertEquals(3, ((CalculatedValueCache) this.valueCache).getPendingCalculationCount());
+
+            this.valueCache.clearCache();
+
+            // only the running calculation is left
+            assertEquals(1, ((CalculatedValueCache) this.valueCache).getPendingCalculationCount());
+            assertEquals(0, service.getQueueSize());
+
+            proceed.countDown();
+            Thread.sleep(100);
+            assertEquals(1, calculations.get());
+            assertEquals(0, ((CalculatedValueCache) this.valueCache).getPendingCalculationCount());
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldDiscardObsoleteCalculationOnKill() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        ICalculator blockingCalculator = new ICalculator() {
+
+            @Override
+            public Object executeCalculation() {
+                started.countDown();
+                try {
+                    proceed.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {}
+                return Integer.valueOf(1);
+            }
+        };
+        this.valueCache = new CalculatedValueCache(new DataLayer(
+                new DummyBodyDataProvider(10, 10)), true, true);
+
+        assertNull(this.valueCache.getCalculatedValue(0, 0, true, blockingCalculator));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        this.valueCache.killCache();
+        proceed.countDown();
+        Thread.sleep(100);
+
+        // the result of the obsolete calculation is neither cached nor
+        // recalculated
+        assertEquals(0, ((CalculatedValueCache) this.valueCache).getPendingCalculationCount());
+        assertEquals(Integer.valueOf(2), this.valueCache.getCalculatedValue(0, 0, false, new ICalculator() {
+
+            @Override
+            public Object executeCalculation() {
+                return Integer.valueOf(2);
+            }
+        }));
+        assertEquals(Integer.valueOf(2), this.valueCache.getCalculatedValue(0, 0, true, blockingCalculator));
+    }
+
+    @Test
+    public void shouldRejectCalculationsIfQueueIsFull() throws Exception {
+        CalculationService service = new CalculationService("Test", 1, 1); //$NON-NLS-1$
+        try {
+            this.valueCache = new CalculatedValueCache(new DataLayer(
+                    new DummyBodyDataProvider(10, 10)), true, true, true, service);
+
+            // one calculation is running, one is queued, the third is rejected
+            this.valueCache.getCalculatedValue(0, 0, true, this.calculator);
+            Thread.sleep(50);
+            this.valueCache.getCalculatedValue(1, 0, true, this.calculator);
+            this.valueCache.getCalculatedValue(2, 0, true, this.calculator);
+
+            assertEquals(1, service.getRejectedCount());
+            assertEquals(1, service.getQueueSize());
+            assertEquals(2, ((CalculatedValueCache) this.valueCache).getPendingCalculationCount());
+
+            Thread.sleep(500);
+            assertEquals(2, service.getCompletedCount());
+            assertTrue(service.getAverageLatency() >= 200);
+            assertTrue(service.getMaxLatency() >= 300);
+
+            // the rejected calculation is retried on the next request
+            assertNull(this.valueCache.getCalculatedValue(2, 0, true, this.calculator));
+            assertEquals(1, ((CalculatedValueCache) this.valueCache).getPendingCalculationCount());
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
     @After
     public void tearDown() {
         this.valueCache.dispose();
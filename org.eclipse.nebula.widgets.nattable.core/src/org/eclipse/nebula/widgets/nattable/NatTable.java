@@ -134,6 +134,12 @@ public class NatTable extends Canvas implements ILayer, PaintListener, IClientAr
 
     private final boolean autoconfigure;
 
+    /**
+     * The maximum number of regions that are repainted instead of the whole
+     * table on visual changes. A negative value disables damage tracking.
+     */
+    private volatile int damageTrackingThreshold = -1;
+
     /**
      * Listener that is added because of Bug 415459.<br/>
      * It is added to the parent composite and will close an active cell editor
@@ -499,8 +505,10 @@ public void removeOverlayPainter(IOverlayPainter overlayPainter) {
 
     @Override
     public void paintControl(final PaintEvent event) {
+        long start = System.nanoTime();
         paintNatTable(event);
         this.initialPaintComplete = true;
+        this.conflaterChain.reportProcessingTime(System.nanoTime() - start);
     }
 
     private void paintNatTable(final PaintEvent event) {
@@ -565,6 +573,60 @@ public void repaintCell(int columnPosition, int rowPosition) {
                 getRowHeightByPosition(rowPosition), true);
     }
 
+    /**
+     * Repaint only the cells in the given position rectangle. Positions that
+     * are not visible are ignored.
+     *
+     * @param positionRectangle
+     *            The rectangle of column and row positions to repaint.
+     * @since 1.6
+     */
+    public void repaintCells(Rectangle positionRectangle) {
+        int lastColumn = Math.min(positionRectangle.x + positionRectangle.width, getColumnCount()) - 1;
+        int lastRow = Math.min(positionRectangle.y + positionRectangle.height, getRowCount()) - 1;
+        int xOffset = getStartXOfColumnPosition(positionRectangle.x);
+        int yOffset = getStartYOfRowPosition(positionRectangle.y);
+        if (xOffset < 0 || yOffset < 0 || lastColumn < positionRectangle.x || lastRow < positionRectangle.y) {
+            return;
+        }
+        int endX = getStartXOfColumnPosition(lastColumn) + getColumnWidthByPosition(lastColumn);
+        int endY = getStartYOfRowPosition(lastRow) + getRowHeightByPosition(lastRow);
+
+        redraw(xOffset, yOffset, endX - xOffset, endY - yOffset, true);
+    }
+
+    /**
+     * Enables damage tracking for visual changes. If enabled, the data and
+     * visual updates of cells, rows and columns that happen between two
+     * refreshes are coalesced into regions and only those regions are
+     * repainted, as long as there are not more regions than the given
+     * threshold. Otherwise and on other changes, e.g. structural or selection
+     * changes, the whole table is refreshed.
+     * <p>
+     * Useful for tables with frequent updates of single cells, e.g. tick
+     * updates.
+     * </p>
+     *
+     * @param threshold
+     *            The maximum number of regions that are repainted instead of
+     *            the whole table. A negative value disables damage tracking,
+     *            which is the default.
+     * @since 1.6
+     */
+    public void setDamageTrackingThreshold(int threshold) {
+        this.damageTrackingThreshold = threshold;
+    }
+
+    /**
+     * @return The maximum number of regions that are repainted instead of the
+     *         whole table, a negative value if damage tracking is disabled.
+     * @see #setDamageTrackingThreshold(int)
+     * @since 1.6
+     */
+    public int getDamageTrackingThreshold() {
+        return this.damageTrackingThreshold;
+    }
+
     /**
      * Repaint the area to the right of the last column in case there is more
      * space available than columns to paint.
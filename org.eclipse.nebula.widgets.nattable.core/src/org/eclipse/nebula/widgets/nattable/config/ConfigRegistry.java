@@ -10,11 +10,16 @@
  ******************************************************************************/
 package org.eclipse.nebula.widgets.nattable.config;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.eclipse.nebula.widgets.nattable.layer.LabelStack;
 import org.eclipse.nebula.widgets.nattable.style.ConfigAttribute;
 import org.eclipse.nebula.widgets.nattable.style.DefaultDisplayModeOrdering;
 import org.eclipse.nebula.widgets.nattable.style.DisplayMode;
@@ -25,6 +30,46 @@ public class ConfigRegistry implements IConfigRegistry {
     // Map<configAttributeType, Map<displayMode, Map<configLabel, value>>>
     Map<ConfigAttribute<?>, Map<String, Map<String, ?>>> configRegistry = new HashMap<ConfigAttribute<?>, Map<String, Map<String, ?>>>();
 
+    /**
+     * The maximum number of resolved lookups that are kept in the lookup cache.
+     * Every combination of attribute, target display mode and labels counts as
+     * one lookup, so the number of label combinations that can be cached is
+     * this limit divided by the number of attributes and display modes that
+     * are requested per label combination, e.g. about 300 label combinations
+     * if every cell is painted with 15 style attributes in 2 display modes. If
+     * the limit is exceeded the least recently used lookup is evicted.
+     */
+    static final int MAX_CACHED_LOOKUPS = 10000;
+
+    /**
+     * The resolved lookups in access order, guarded by itself.
+     */
+    private final Map<LookupKey, List<?>> lookupCache = new LinkedHashMap<LookupKey, List<?>>(256, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LookupKey, List<?>> eldest) {
+            return size() > MAX_CACHED_LOOKUPS;
+        }
+    };
+
+    /**
+     * Incremented whenever the lookup cache is cleared, so lookups that were
+     * resolved before are not added to the cache. Guarded by
+     * {@link #lookupCache}.
+     */
+    private int lookupCacheGeneration;
+
+    /**
+     * Whether {@link #getSpecificConfigAttribute(ConfigAttribute, String, String)}
+     * and {@link #getDisplayModeOrdering()} are not overridden, see
+     * {@link #isDefaultLookup()}.
+     */
+    private final boolean defaultLookup = !isLookupOverridden(getClass());
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
     @Override
     public <T> T getConfigAttribute(ConfigAttribute<T> configAttribute,
             String targetDisplayMode, String... configLabels) {
@@ -33,10 +78,78 @@ public <T> T getConfigAttribute(ConfigAttribute<T> configAttribute,
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T> T getConfigAttribute(ConfigAttribute<T> configAttribute,
             String targetDisplayMode, List<String> configLabels) {
-        T attributeValue = null;
+        List<T> attributeValues = getConfigAttributes(configAttribute,
+                targetDisplayMode, configLabels);
+        return attributeValues.isEmpty() ? null : attributeValues.get(0);
+    }
+
+    /**
+     * Returns all values that are registered for the given attribute, display
+     * mode and labels in the order they are inspected by
+     * {@link #getConfigAttribute(ConfigAttribute, String, List)}. That is for
+     * every display mode in the display mode ordering the values registered
+     * for the labels followed by the default value.
+     * <p>
+     * The result is cached per attribute, display mode and label combination
+     * until the registry is modified, so repeated lookups for the same label
+     * combination, like they are performed for every painted cell, do not need
+     * to walk the registry again.
+     * </p>
+     * <p>
+     * The values are resolved from the registered values directly, so
+     * overrides of {@link #getSpecificConfigAttribute(ConfigAttribute, String, String)}
+     * or {@link #getDisplayModeOrdering()} are not considered, see
+     * {@link #isDefaultLookup()}.
+     * </p>
+     *
+     * @param configAttribute
+     *            The attribute whose values are requested.
+     * @param targetDisplayMode
+     *            The display mode to resolve the values for.
+     * @param configLabels
+     *            The labels to resolve the values for, ordered by priority.
+     * @return The unmodifiable list of registered values ordered by priority.
+     *         Never <code>null</code>.
+     * @since 1.6
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getConfigAttributes(ConfigAttribute<T> configAttribute,
+            String targetDisplayMode, List<String> configLabels) {
+        if (targetDisplayMode == null || configLabels == null) {
+            return resolveConfigAttributes(configAttribute, targetDisplayMode, configLabels);
+        }
+
+        List<T> attributeValues;
+        int generation;
+        synchronized (this.lookupCache) {
+            attributeValues = (List<T>) this.lookupCache.get(
+                    new LookupKey(configAttribute, targetDisplayMode, configLabels));
+            generation = this.lookupCacheGeneration;
+        }
+        if (attributeValues != null) {
+            this.cacheHits.incrementAndGet();
+            return attributeValues;
+        }
+
+        this.cacheMisses.incrementAndGet();
+        attributeValues = resolveConfigAttributes(configAttribute, targetDisplayMode, configLabels);
+        // the given label list might be modified later by the caller, so the
+        // shared canonical snapshot is used as key
+        LookupKey key = new LookupKey(configAttribute, targetDisplayMode, LabelStack.getCanonicalLabels(configLabels));
+        synchronized (this.lookupCache) {
+            if (generation == this.lookupCacheGeneration) {
+                this.lookupCache.put(key, attributeValues);
+            }
+        }
+        return attributeValues;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> resolveConfigAttributes(ConfigAttribute<T> configAttribute,
+            String targetDisplayMode, List<String> configLabels) {
+        List<T> attributeValues = new ArrayList<T>();
 
         Map<String, Map<String, ?>> displayModeConfigAttributeMap = this.configRegistry
                 .get(configAttribute);
@@ -46,23 +159,125 @@ public <T> T getConfigAttribute(ConfigAttribute<T> configAttribute,
                 Map<String, T> configAttributeMap = (Map<String, T>) displayModeConfigAttributeMap
                         .get(displayMode);
                 if (configAttributeMap != null) {
-                    for (String configLabel : configLabels) {
-                        attributeValue = configAttributeMap.get(configLabel);
-                        if (attributeValue != null) {
-                            return attributeValue;
+                    if (configLabels != null) {
+                        for (String configLabel : configLabels) {
+                            T attributeValue = configAttributeMap.get(configLabel);
+                            if (attributeValue != null) {
+                                attributeValues.add(attributeValue);
+                            }
                         }
                     }
 
                     // default config type
-                    attributeValue = configAttributeMap.get(null);
+                    T attributeValue = configAttributeMap.get(null);
                     if (attributeValue != null) {
-                        return attributeValue;
+                        attributeValues.add(attributeValue);
                     }
                 }
             }
         }
 
-        return attributeValue;
+        if (attributeValues.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(attributeValues);
+    }
+
+    /**
+     * Clears the cache of resolved lookups. Needs to be called if the values
+     * of this registry are modified without using the registry methods, e.g.
+     * if the {@link IDisplayModeOrdering} is changed internally.
+     *
+     * @since 1.6
+     */
+    public void clearLookupCache() {
+        synchronized (this.lookupCache) {
+            this.lookupCache.clear();
+            this.lookupCacheGeneration++;
+        }
+    }
+
+    /**
+     * @return The number of lookups that are currently cached.
+     * @since 1.6
+     */
+    public int getCachedLookupCount() {
+        synchronized (this.lookupCache) {
+            return this.lookupCache.size();
+        }
+    }
+
+    /**
+     * Checks if the values returned by
+     * {@link #getConfigAttributes(ConfigAttribute, String, List)} are the ones
+     * that are found by inspecting the registry via
+     * {@link #getSpecificConfigAttribute(ConfigAttribute, String, String)} for
+     * every display mode of {@link #getDisplayModeOrdering()}. This is not the
+     * case if a subclass overrides one of these methods, so callers that
+     * inspect the registry via these methods should only use the cached
+     * lookups if this method returns <code>true</code>.
+     *
+     * @return <code>true</code> if the lookup methods are not overridden.
+     * @since 1.6
+     */
+    public boolean isDefaultLookup() {
+        return this.defaultLookup;
+    }
+
+    private static boolean isLookupOverridden(Class<?> type) {
+        for (Class<?> current = type; current != ConfigRegistry.class; current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod("getSpecificConfigAttribute", ConfigAttribute.class, String.class, String.class); //$NON-NLS-1$
+                return true;
+            } catch (NoSuchMethodException e) {
+                // not overridden in this class
+            }
+            try {
+                current.getDeclaredMethod("getDisplayModeOrdering"); //$NON-NLS-1$
+                return true;
+            } catch (NoSuchMethodException e) {
+                // not overridden in this class
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of lookups that could be answered by the lookup
+     *         cache.
+     * @since 1.6
+     */
+    public long getLookupCacheHits() {
+        return this.cacheHits.get();
+    }
+
+    /**
+     * @return The number of lookups that needed to walk the registry.
+     * @since 1.6
+     */
+    public long getLookupCacheMisses() {
+        return this.cacheMisses.get();
+    }
+
+    /**
+     * @return The ratio of lookups that could be answered by the lookup cache,
+     *         0 if no lookup was performed yet.
+     * @since 1.6
+     */
+    public double getLookupCacheHitRate() {
+        long hits = this.cacheHits.get();
+        long total = hits + this.cacheMisses.get();
+        return (total > 0) ? (double) hits / total : 0;
+    }
+
+    /**
+     * Resets the lookup cache hit and miss counters.
+     *
+     * @since 1.6
+     */
+    public void resetLookupCacheStatistics() {
+        this.cacheHits.set(0);
+        this.cacheMisses.set(0);
     }
 
     @Override
@@ -120,6 +335,7 @@ public <T> void registerConfigAttribute(ConfigAttribute<T> configAttribute,
         }
 
         configAttributeMap.put(configLabel, attributeValue);
+        clearLookupCache();
     };
 
     @Override
@@ -146,6 +362,7 @@ public <T> void unregisterConfigAttribute(
                     .get(displayMode);
             if (configAttributeMap != null) {
                 configAttributeMap.remove(configLabel);
+                clearLookupCache();
             }
         }
     }
@@ -161,6 +378,48 @@ public IDisplayModeOrdering getDisplayModeOrdering() {
 
     public void setDisplayModeOrdering(IDisplayModeOrdering displayModeOrdering) {
         this.displayModeOrdering = displayModeOrdering;
+        clearLookupCache();
+    }
+
+    /**
+     * Key of a cached lookup.
+     */
+    private static final class LookupKey {
+
+        private final ConfigAttribute<?> configAttribute;
+        private final String targetDisplayMode;
+        private final List<String> configLabels;
+        private final int hash;
+
+        LookupKey(ConfigAttribute<?> configAttribute, String targetDisplayMode, List<String> configLabels) {
+            this.configAttribute = configAttribute;
+            this.targetDisplayMode = targetDisplayMode;
+            this.configLabels = configLabels;
+            int result = configAttribute.hashCode();
+            result = 31 * result + targetDisplayMode.hashCode();
+            result = 31 * result + configLabels.hashCode();
+            this.hash = result;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof LookupKey)) {
+                return false;
+            }
+            LookupKey other = (LookupKey) obj;
+            return this.hash == other.hash
+                    && this.configAttribute.equals(other.configAttribute)
+                    && this.targetDisplayMode.equals(other.targetDisplayMode)
+                    && this.configLabels.equals(other.configLabels);
+        }
     }
 
 }
@@ -0,0 +1,308 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.conflation;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.nebula.widgets.nattable.layer.event.ILayerEvent;
+import org.eclipse.nebula.widgets.nattable.util.Scheduler;
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * {@link EventConflaterChain} that adapts its refresh interval to the time
+ * needed to process the conflated events, e.g. the time needed to paint the
+ * table as reported via {@link #reportProcessingTime(long)}.
+ * <p>
+ * The conflater tasks are only scheduled if events were added, so an idle
+ * chain does not wake up at all. If events arrive, the tasks are run after an
+ * interval that is twice the average processing time, bounded by the
+ * configured minimum and maximum interval. This way a table that is expensive
+ * to paint is refreshed less often instead of queuing more work than the
+ * display thread is able to handle.
+ * </p>
+ * <p>
+ * Additionally the number of runs that are not done yet is used as
+ * back-pressure signal. A run is done once the display thread processed the
+ * work the conflater tasks passed to it via
+ * {@link Display#asyncExec(Runnable)}, see {@link #runCompleted(Runnable)}.
+ * As long as the previous run is not done, the next run is postponed until
+ * the maximum interval since the first pending event is reached, so the
+ * events are conflated until the display thread caught up. This does not
+ * depend on the table being painted, so a hidden table is not slowed down.
+ * </p>
+ *
+ * @since 1.6
+ */
+public class AdaptiveEventConflaterChain extends EventConflaterChain {
+
+    public static final int DEFAULT_MIN_INTERVAL = 10;
+    public static final int DEFAULT_MAX_INTERVAL = 500;
+
+    private static final Scheduler scheduler = new Scheduler("AdaptiveEventConflaterChain"); //$NON-NLS-1$
+    private static int startedChains = 0;
+
+    private final long minInterval;
+    private final long maxInterval;
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean started;
+    private volatile ScheduledFuture<?> future;
+
+    /**
+     * The exponential moving average of the reported processing times.
+     */
+    private volatile long averageProcessingNanos;
+    /**
+     * The time the first event was added since the last run, 0 if there are
+     * no pending events.
+     */
+    private final AtomicLong firstEventNanos = new AtomicLong();
+    private volatile long lastLatencyNanos;
+    private volatile long maxLatencyNanos;
+
+    /**
+     * The thread that started the chain, used to find the {@link Display} the
+     * conflater tasks pass their work to.
+     */
+    private volatile Thread displayThread;
+
+    /**
+     * The number of runs with events that are not done yet.
+     */
+    private final AtomicInteger pendingRuns = new AtomicInteger();
+
+    private final Runnable completion = new Runnable() {
+        @Override
+        public void run() {
+            AdaptiveEventConflaterChain.this.pendingRuns.decrementAndGet();
+        }
+    };
+
+    private volatile int lastQueueDepth;
+    private volatile int maxQueueDepth;
+
+    private final Runnable task = new Runnable() {
+        @Override
+        public void run() {
+            AdaptiveEventConflaterChain chain = AdaptiveEventConflaterChain.this;
+            chain.scheduled.set(false);
+
+            long first = chain.firstEventNanos.get();
+            if (first != 0
+                    && chain.pendingRuns.get() > 0
+                    && System.nanoTime() - first < TimeUnit.MILLISECONDS.toNanos(chain.maxInterval)) {
+                // the results of the previous run are not processed yet, so
+                // the events are conflated further
+                scheduleTask();
+                return;
+            }
+
+            first = chain.firstEventNanos.getAndSet(0);
+            if (first != 0) {
+                long latency = System.nanoTime() - first;
+                chain.lastLatencyNanos = latency;
+                if (latency > chain.maxLatencyNanos) {
+                    chain.maxLatencyNanos = latency;
+                }
+            }
+
+            int depth = getCount();
+            chain.lastQueueDepth = depth;
+            if (depth > chain.maxQueueDepth) {
+                chain.maxQueueDepth = depth;
+            }
+            if (depth > 0) {
+                chain.pendingRuns.incrementAndGet();
+                try {
+                    getChainTask().run();
+                } finally {
+                    runCompleted(chain.completion);
+                }
+            } else {
+                getChainTask().run();
+            }
+        }
+    };
+
+    public AdaptiveEventConflaterChain() {
+        this(DEFAULT_MIN_INTERVAL, DEFAULT_MAX_INTERVAL);
+    }
+
+    /**
+     * @param minInterval
+     *            The minimum time in milliseconds between the first added
+     *            event and the run of the conflater tasks.
+     * @param maxInterval
+     *            The maximum time in milliseconds between the first added
+     *            event and the run of the conflater tasks.
+     */
+    public AdaptiveEventConflaterChain(int minInterval, int maxInterval) {
+        super(minInterval, minInterval);
+        this.minInterval = minInterval;
+        this.maxInterval = Math.max(minInterval, maxInterval);
+    }
+
+    @Override
+    public void start() {
+        synchronized (AdaptiveEventConflaterChain.class) {
+            if (!this.started) {
+                this.started = true;
+                this.displayThread = Thread.currentThread();
+                startedChains++;
+            }
+        }
+        if (getCount() > 0) {
+            this.firstEventNanos.compareAndSet(0, System.nanoTime());
+            scheduleTask();
+        }
+    }
+
+    @Override
+    public void stop() {
+        synchronized (AdaptiveEventConflaterChain.class) {
+            if (this.started) {
+                this.started = false;
+                ScheduledFuture<?> pending = this.future;
+                if (pending != null) {
+                    pending.cancel(false);
+                }
+                this.scheduled.set(false);
+                if (--startedChains <= 0) {
+                    scheduler.shutdownNow();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void addEvent(ILayerEvent event) {
+        super.addEvent(event);
+        this.firstEventNanos.compareAndSet(0, System.nanoTime());
+        scheduleTask();
+    }
+
+    private void scheduleTask() {
+        if (this.started && this.scheduled.compareAndSet(false, true)) {
+            this.future = scheduler.schedule(this.task, getCurrentInterval());
+        }
+    }
+
+    /**
+     * Called after the conflater tasks processed events. Runs the given
+     * completion that marks the run as done once the display thread processed
+     * the runnables that were passed to {@link Display#asyncExec(Runnable)}
+     * before. If the chain was not started in a display thread, the run is
+     * marked as done immediately.
+     *
+     * @param completion
+     *            The runnable that marks the run as done.
+     */
+    protected void runCompleted(Runnable completion) {
+        Thread thread = this.displayThread;
+        Display display = (thread != null) ? Display.findDisplay(thread) : null;
+        if (display != null && !display.isDisposed()) {
+            try {
+                display.asyncExec(completion);
+                return;
+            } catch (SWTException e) {
+                // the display was disposed in the meantime
+            }
+        }
+        completion.run();
+    }
+
+    @Override
+    public void reportProcessingTime(long durationNanos) {
+        long average = this.averageProcessingNanos;
+        this.averageProcessingNanos = (average == 0)
+                ? durationNanos
+                : (average * 3 + durationNanos) / 4;
+    }
+
+    @Override
+    public Runnable getConflaterTask() {
+        return this.task;
+    }
+
+    private Runnable getChainTask() {
+        return super.getConflaterTask();
+    }
+
+    /**
+     * @return The interval in milliseconds that is currently used to delay
+     *         the run of the conflater tasks after an event was added.
+     */
+    public long getCurrentInterval() {
+        long interval = TimeUnit.NANOSECONDS.toMillis(this.averageProcessingNanos * 2);
+        return Math.min(this.maxInterval, Math.max(this.minInterval, interval));
+    }
+
+    /**
+     * @return The average processing time in milliseconds reported via
+     *         {@link #reportProcessingTime(long)}.
+     */
+    public double getAverageProcessingTime() {
+        return this.averageProcessingNanos / 1000000d;
+    }
+
+    /**
+     * @return The time in milliseconds between the first event added and the
+     *         start of the last run of the conflater tasks.
+     */
+    public double getLastLatency() {
+        return this.lastLatencyNanos / 1000000d;
+    }
+
+    /**
+     * @return The maximum time in milliseconds between the first event added
+     *         and the start of a run of the conflater tasks.
+     */
+    public double getMaxLatency() {
+        return this.maxLatencyNanos / 1000000d;
+    }
+
+    /**
+     * @return The number of events that were conflated by the last run of the
+     *         conflater tasks.
+     */
+    public int getLastQueueDepth() {
+        return this.lastQueueDepth;
+    }
+
+    /**
+     * @return The maximum number of events that were conflated by a run of
+     *         the conflater tasks.
+     */
+    public int getMaxQueueDepth() {
+        return this.maxQueueDepth;
+    }
+
+    /**
+     * @return The number of runs of the conflater tasks that processed events
+     *         and are not done yet, see {@link #runCompleted(Runnable)}.
+     */
+    public int getPendingRunCount() {
+        return this.pendingRuns.get();
+    }
+
+    /**
+     * @return <code>true</code> if a run of the conflater tasks is scheduled,
+     *         <code>false</code> if the chain is idle.
+     */
+    public boolean isScheduled() {
+        return this.scheduled.get();
+    }
+}
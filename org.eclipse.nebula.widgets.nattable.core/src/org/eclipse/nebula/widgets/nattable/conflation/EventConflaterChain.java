@@ -85,6 +85,20 @@ public int getCount() {
         return count;
     }
 
+    /**
+     * Informs the chain about the time that was needed to process the results
+     * of the conflated events, e.g. the time needed to paint the table. Can be
+     * used by implementations to adapt the refresh interval to the actual
+     * processing costs. The default implementation does nothing.
+     *
+     * @param durationNanos
+     *            The processing time in nanoseconds.
+     * @since 1.6
+     */
+    public void reportProcessingTime(long durationNanos) {
+        // fixed refresh interval
+    }
+
     @Override
     public Runnable getConflaterTask() {
         return new Runnable() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2014 Original authors and others.
+ * Copyright (c) 2012, 2019 Original authors and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,18 +11,45 @@
  ******************************************************************************/
 package org.eclipse.nebula.widgets.nattable.conflation;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import org.eclipse.nebula.widgets.nattable.NatTable;
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.coordinate.RangeSet;
+import org.eclipse.nebula.widgets.nattable.edit.event.DataUpdateEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.CellVisualUpdateEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.ColumnVisualUpdateEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.ILayerEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.IStructuralChangeEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.IVisualChangeEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowUpdateEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowVisualUpdateEvent;
+import org.eclipse.swt.graphics.Rectangle;
 
 /**
  * Gathers all the VisualChangeEvents. When it's run, it refreshes/repaints the
  * table.
+ * <p>
+ * If damage tracking is enabled via
+ * {@link NatTable#setDamageTrackingThreshold(int)}, the changed position
+ * rectangles of data and visual update events are accumulated and only the
+ * coalesced regions are repainted. Structural changes, other visual changes
+ * like selection changes or more regions than the configured threshold result
+ * in a full refresh.
+ * </p>
  */
 public class VisualChangeEventConflater extends AbstractEventConflater {
 
     private final NatTable natTable;
 
+    /**
+     * The changed position rectangles since the last run, <code>null</code>
+     * if a full refresh is needed.
+     */
+    private List<Rectangle> damagedRegions = new ArrayList<Rectangle>();
+
     public VisualChangeEventConflater(NatTable ownerLayer) {
         this.natTable = ownerLayer;
     }
@@ -30,28 +57,155 @@ public VisualChangeEventConflater(NatTable ownerLayer) {
     @Override
     public void addEvent(ILayerEvent event) {
         if (event instanceof IVisualChangeEvent) {
-            super.addEvent(event);
+            int threshold = this.natTable.getDamageTrackingThreshold();
+            // queue the event and record its region atomically, so a
+            // concurrent run can not take the event without its region
+            synchronized (this) {
+                super.addEvent(event);
+                if (this.damagedRegions != null) {
+                    if (threshold >= 0 && isDamageTrackable(event)) {
+                        this.damagedRegions.addAll(((IVisualChangeEvent) event).getChangedPositionRectangles());
+                        // the raw rectangles are coalesced later, so allow
+                        // more of them before giving up
+                        if (this.damagedRegions.size() > Math.max(threshold, 1) * 10) {
+                            this.damagedRegions = null;
+                        }
+                    } else {
+                        this.damagedRegions = null;
+                    }
+                }
+            }
         }
     }
 
+    /**
+     * Only data and visual updates can be repainted partially, as they only
+     * affect the cells they describe. Other visual changes like selection,
+     * sort or rename events also affect cells that are not part of the event,
+     * e.g. a selection is cleared without firing an event for the previously
+     * selected cells. Structural changes could change the positions until the
+     * repaint is performed.
+     */
+    private boolean isDamageTrackable(ILayerEvent event) {
+        return !(event instanceof IStructuralChangeEvent)
+                && (event instanceof DataUpdateEvent
+                        || event instanceof CellVisualUpdateEvent
+                        || event instanceof RowUpdateEvent
+                        || event instanceof RowVisualUpdateEvent
+                        || event instanceof ColumnVisualUpdateEvent);
+    }
+
+    @Override
+    public synchronized void clearQueue() {
+        super.clearQueue();
+        this.damagedRegions = new ArrayList<Rectangle>();
+    }
+
+    @Override
+    public synchronized int getCount() {
+        return super.getCount();
+    }
+
     @Override
     public Runnable getConflaterTask() {
         return new Runnable() {
 
             @Override
             public void run() {
-                if (VisualChangeEventConflater.this.queue.size() > 0) {
+                final List<Rectangle> damaged;
+                synchronized (VisualChangeEventConflater.this) {
+                    if (VisualChangeEventConflater.this.queue.isEmpty()) {
+                        return;
+                    }
+                    damaged = VisualChangeEventConflater.this.damagedRegions;
                     clearQueue();
+                }
 
-                    VisualChangeEventConflater.this.natTable.getDisplay().asyncExec(new Runnable() {
-                        @Override
-                        public void run() {
-                            VisualChangeEventConflater.this.natTable.updateResize();
+                VisualChangeEventConflater.this.natTable.getDisplay().asyncExec(new Runnable() {
+                    @Override
+                    public void run() {
+                        NatTable table = VisualChangeEventConflater.this.natTable;
+                        if (damaged != null && !table.isDisposed()) {
+                            Collection<Rectangle> regions = coalesce(damaged,
+                                    table.getColumnCount(), table.getRowCount());
+                            if (regions.size() <= table.getDamageTrackingThreshold()) {
+                                for (Rectangle region : regions) {
+                                    table.repaintCells(region);
+                                }
+                                return;
+                            }
                         }
-                    });
-                }
+                        table.updateResize();
+                    }
+                });
             }
         };
     }
 
+    /**
+     * Coalesces the given position rectangles into a set of non overlapping
+     * rectangles. Adjacent and overlapping column ranges in a row are merged
+     * and consecutive rows with the same column ranges are combined.
+     *
+     * @param rectangles
+     *            The changed position rectangles.
+     * @param columnCount
+     *            The number of columns the rectangles are clipped to.
+     * @param rowCount
+     *            The number of rows the rectangles are clipped to.
+     * @return The coalesced position rectangles, ordered by row.
+     * @since 1.6
+     */
+    public static List<Rectangle> coalesce(Collection<Rectangle> rectangles, int columnCount, int rowCount) {
+        List<Rectangle> result = new ArrayList<Rectangle>();
+        if (rectangles.isEmpty() || columnCount <= 0 || rowCount <= 0) {
+            return result;
+        }
+
+        // collect the changed column ranges per row
+        RangeSet[] rows = new RangeSet[rowCount];
+        int firstRow = rowCount;
+        int lastRow = -1;
+        for (Rectangle rectangle : rectangles) {
+            int startColumn = Math.max(rectangle.x, 0);
+            int endColumn = Math.min(rectangle.x + rectangle.width, columnCount);
+            int startRow = Math.max(rectangle.y, 0);
+            int endRow = Math.min(rectangle.y + rectangle.height, rowCount);
+            if (startColumn >= endColumn || startRow >= endRow) {
+                continue;
+            }
+            for (int row = startRow; row < endRow; row++) {
+                if (rows[row] == null) {
+                    rows[row] = new RangeSet();
+                }
+                rows[row].addRange(startColumn, endColumn);
+            }
+            firstRow = Math.min(firstRow, startRow);
+            lastRow = Math.max(lastRow, endRow - 1);
+        }
+
+        // extend the rectangles of the previous row if the column ranges are
+        // the same, otherwise start new rectangles
+        List<Rectangle> open = new ArrayList<Rectangle>();
+        RangeSet previous = null;
+        for (int row = firstRow; row <= lastRow + 1; row++) {
+            RangeSet current = (row <= lastRow) ? rows[row] : null;
+            if (current != null && current.equals(previous)) {
+                for (Rectangle rectangle : open) {
+                    rectangle.height++;
+                }
+            } else {
+                result.addAll(open);
+                open.clear();
+                if (current != null) {
+                    for (Range range : current.getRanges()) {
+                        open.add(new Rectangle(range.start, row, range.end - range.start, 1));
+                    }
+                }
+            }
+            previous = current;
+        }
+        return result;
+    }
+
 }
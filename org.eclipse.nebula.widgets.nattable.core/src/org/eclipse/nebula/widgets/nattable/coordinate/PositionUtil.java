@@ -65,6 +65,11 @@ public static List<List<Integer>> getGroupedByContiguous(Collection<Integer> num
      * @return List of Ranges for the given Collection of numbers.
      */
     public static List<Range> getRanges(Collection<Integer> numbers) {
+        if (numbers instanceof RangeSet) {
+            // the ranges are already available
+            return ((RangeSet) numbers).getRanges();
+        }
+
         List<Range> ranges = null;
 
         if (isNotEmpty(numbers)) {
@@ -0,0 +1,586 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.coordinate;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of int values that is stored as sorted, non-overlapping and
+ * non-adjacent runs of contiguous values in primitive int arrays. Intended to
+ * be used for big sets of indexes or positions that mostly consist of blocks,
+ * e.g. the hidden row indexes of a table where thousands of rows are hidden
+ * at once.
+ * <p>
+ * The memory consumption depends on the number of runs instead of the number
+ * of values. Lookups are performed via binary search over the runs, adding or
+ * removing a range of values is done in a single operation. The set
+ * implements the {@link java.util.Set} interface for {@link Integer} values,
+ * so it can be used as a replacement for a <code>TreeSet&lt;Integer&gt;</code>.
+ * Iteration is performed in ascending order.
+ * </p>
+ * <p>
+ * This implementation is not thread safe.
+ * </p>
+ *
+ * @since 1.6
+ */
+public class RangeSet extends AbstractSet<Integer> {
+
+    /**
+     * The start values of the runs, inclusive.
+     */
+    private int[] starts;
+    /**
+     * The end values of the runs, exclusive.
+     */
+    private int[] ends;
+    /**
+     * The number of runs.
+     */
+    private int runCount;
+    /**
+     * The number of values contained in the runs.
+     */
+    private int size;
+    /**
+     * Counter for structural modifications to detect concurrent modifications
+     * while iterating.
+     */
+    private int modCount;
+
+    /**
+     * Creates an empty {@link RangeSet}.
+     */
+    public RangeSet() {
+        this.starts = new int[4];
+        this.ends = new int[4];
+    }
+
+    /**
+     * Creates a {@link RangeSet} that contains the given values.
+     *
+     * @param values
+     *            The values to add.
+     */
+    public RangeSet(Collection<Integer> values) {
+        this();
+        addAll(values);
+    }
+
+    /**
+     * Creates a {@link RangeSet} that contains the values of the given ranges.
+     *
+     * @param ranges
+     *            The ranges whose values should be added.
+     */
+    public RangeSet(Range... ranges) {
+        this();
+        for (Range range : ranges) {
+            addRange(range.start, range.end);
+        }
+    }
+
+    /**
+     * Creates a copy of the given {@link RangeSet}.
+     *
+     * @param other
+     *            The {@link RangeSet} to copy.
+     */
+    public RangeSet(RangeSet other) {
+        this.starts = Arrays.copyOf(other.starts, Math.max(4, other.runCount));
+        this.ends = Arrays.copyOf(other.ends, Math.max(4, other.runCount));
+        this.runCount = other.runCount;
+        this.size = other.size;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public void clear() {
+        if (this.runCount > 0) {
+            this.runCount = 0;
+            this.size = 0;
+            this.modCount++;
+        }
+    }
+
+    /**
+     * @return The number of runs of contiguous values.
+     */
+    public int getRangeCount() {
+        return this.runCount;
+    }
+
+    /**
+     * @return The runs of contiguous values in ascending order.
+     */
+    public List<Range> getRanges() {
+        List<Range> ranges = new ArrayList<Range>(this.runCount);
+        for (int i = 0; i < this.runCount; i++) {
+            ranges.add(new Range(this.starts[i], this.ends[i]));
+        }
+        return ranges;
+    }
+
+    /**
+     * @param value
+     *            The value to check.
+     * @return <code>true</code> if the value is contained in this set.
+     */
+    public boolean contains(int value) {
+        int run = findRun(value);
+        return run >= 0 && value < this.ends[run];
+    }
+
+    /**
+     * @param start
+     *            The first value of the range to check, inclusive.
+     * @param end
+     *            The end of the range to check, exclusive.
+     * @return <code>true</code> if at least one value of the given range is
+     *         contained in this set.
+     */
+    public boolean intersects(int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        int run = findRun(end - 1);
+        return run >= 0 && this.ends[run] > start;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return (o instanceof Integer) && contains(((Integer) o).intValue());
+    }
+
+    /**
+     * @param value
+     *            The value to add.
+     * @return <code>true</code> if the set did not contain the value before.
+     */
+    public boolean add(int value) {
+        return addRange(value, value + 1);
+    }
+
+    @Override
+    public boolean add(Integer e) {
+        return add(e.intValue());
+    }
+
+    /**
+     * Adds all values of the given range.
+     *
+     * @param start
+     *            The first value to add, inclusive.
+     * @param end
+     *            The end of the range to add, exclusive.
+     * @return <code>true</code> if the set changed.
+     */
+    public boolean addRange(int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+
+        // first run that ends at or after the start, adjacent runs are merged
+        int first = findRun(start);
+        if (first < 0 || this.ends[first] < start) {
+            first++;
+        }
+        // last run that starts at or before the end
+        int last = findRun(end);
+
+        if (first <= last && this.starts[first] <= start && this.ends[first] >= end) {
+            // already contained
+            return false;
+        }
+
+        int newStart = start;
+        int newEnd = end;
+        int removedValues = 0;
+        if (first <= last) {
+            newStart = Math.min(start, this.starts[first]);
+            newEnd = Math.max(end, this.ends[last]);
+            for (int i = first; i <= last; i++) {
+                removedValues += this.ends[i] - this.starts[i];
+            }
+        }
+
+        replaceRuns(first, last - first + 1, newStart, newEnd);
+        this.size += (newEnd - newStart) - removedValues;
+        return true;
+    }
+
+    /**
+     * @param value
+     *            The value to remove.
+     * @return <code>true</code> if the set contained the value.
+     */
+    public boolean remove(int value) {
+        return removeRange(value, value + 1);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return (o instanceof Integer) && remove(((Integer) o).intValue());
+    }
+
+    /**
+     * Removes all values of the given range.
+     *
+     * @param start
+     *            The first value to remove, inclusive.
+     * @param end
+     *            The end of the range to remove, exclusive.
+     * @return <code>true</code> if the set changed.
+     */
+    public boolean removeRange(int start, int end) {
+        if (start >= end || this.runCount == 0) {
+            return false;
+        }
+
+        // first run that ends after the start
+        int first = findRun(start);
+        if (first < 0 || this.ends[first] <= start) {
+            first++;
+        }
+        // last run that starts before the end
+        int last = findRun(end - 1);
+        if (first > last) {
+            return false;
+        }
+
+        int removedValues = 0;
+        for (int i = first; i <= last; i++) {
+            removedValues += Math.min(end, this.ends[i]) - Math.max(start, this.starts[i]);
+        }
+
+        boolean keepHead = this.starts[first] < start;
+        boolean keepTail = this.ends[last] > end;
+        int headStart = this.starts[first];
+        int tailEnd = this.ends[last];
+
+        int replaced = last - first + 1;
+        if (keepHead && keepTail) {
+            replaceRuns(first, replaced, headStart, start);
+            insertRun(first + 1, end, tailEnd);
+        } else if (keepHead) {
+            replaceRuns(first, replaced, headStart, start);
+        } else if (keepTail) {
+            replaceRuns(first, replaced, end, tailEnd);
+        } else {
+            removeRuns(first, replaced);
+        }
+        this.size -= removedValues;
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Integer> c) {
+        if (c instanceof RangeSet) {
+            RangeSet other = (RangeSet) c;
+            boolean changed = false;
+            for (int i = 0; i < other.runCount; i++) {
+                changed |= addRange(other.starts[i], other.ends[i]);
+            }
+            return changed;
+        }
+
+        int[] values = toSortedArray(c);
+        boolean changed = false;
+        int i = 0;
+        while (i < values.length) {
+            int start = values[i];
+            int end = start + 1;
+            i++;
+            while (i < values.length && values[i] <= end) {
+                end = Math.max(end, values[i] + 1);
+                i++;
+            }
+            changed |= addRange(start, end);
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (c instanceof RangeSet) {
+            RangeSet other = (RangeSet) c;
+            boolean changed = false;
+            for (int i = 0; i < other.runCount; i++) {
+                changed |= removeRange(other.starts[i], other.ends[i]);
+            }
+            return changed;
+        }
+
+        boolean changed = false;
+        for (Object o : c) {
+            changed |= remove(o);
+        }
+        return changed;
+    }
+
+    /**
+     * Inserts the given number of values at the given value. All values that
+     * are greater or equal to the given value are increased by the given
+     * count. A run that contains the given value is split, the inserted values
+     * are not contained in this set.
+     *
+     * @param value
+     *            The value at which values are inserted.
+     * @param count
+     *            The number of inserted values.
+     */
+    public void insert(int value, int count) {
+        if (count <= 0 || this.runCount == 0) {
+            return;
+        }
+
+        int run = findRun(value);
+        if (run >= 0 && this.starts[run] < value && this.ends[run] > value) {
+            // split the run that contains the insert point
+            int tailEnd = this.ends[run];
+            this.ends[run] = value;
+            insertRun(run + 1, value, tailEnd);
+            run++;
+        } else if (run < 0 || this.starts[run] < value) {
+            run++;
+        }
+
+        for (int i = run; i < this.runCount; i++) {
+            this.starts[i] += count;
+            this.ends[i] += count;
+        }
+        this.modCount++;
+    }
+
+    /**
+     * Deletes the values of the given range. The values are removed and all
+     * values that are greater or equal to the end of the range are decreased
+     * by the size of the range.
+     *
+     * @param start
+     *            The first value to delete, inclusive.
+     * @param end
+     *            The end of the range to delete, exclusive.
+     */
+    public void delete(int start, int end) {
+        if (start >= end) {
+            return;
+        }
+        removeRange(start, end);
+
+        int count = end - start;
+        int run = findRun(end);
+        if (run < 0 || this.ends[run] <= end && this.starts[run] < end) {
+            run++;
+        }
+        for (int i = run; i < this.runCount; i++) {
+            this.starts[i] -= count;
+            this.ends[i] -= count;
+        }
+
+        // runs at both sides of the deleted range might be adjacent now
+        if (run > 0 && run < this.runCount && this.ends[run - 1] == this.starts[run]) {
+            int mergedStart = this.starts[run - 1];
+            int mergedEnd = this.ends[run];
+            replaceRuns(run - 1, 2, mergedStart, mergedEnd);
+        }
+        this.modCount++;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof RangeSet) {
+            RangeSet other = (RangeSet) o;
+            if (this.runCount != other.runCount || this.size != other.size) {
+                return false;
+            }
+            for (int i = 0; i < this.runCount; i++) {
+                if (this.starts[i] != other.starts[i] || this.ends[i] != other.ends[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        // same as AbstractSet, the sum of the contained values
+        int hash = 0;
+        for (int i = 0; i < this.runCount; i++) {
+            long count = this.ends[i] - this.starts[i];
+            hash += (int) ((this.starts[i] + (long) this.ends[i] - 1) * count / 2);
+        }
+        return hash;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+
+            private int run = 0;
+            private int next = (RangeSet.this.runCount > 0) ? RangeSet.this.starts[0] : 0;
+            private int lastReturned;
+            private boolean canRemove = false;
+            private int expectedModCount = RangeSet.this.modCount;
+
+            @Override
+            public boolean hasNext() {
+                return this.run < RangeSet.this.runCount;
+            }
+
+            @Override
+            public Integer next() {
+                checkForComodification();
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                this.lastReturned = this.next;
+                this.canRemove = true;
+                moveTo(this.next + 1);
+                return this.lastReturned;
+            }
+
+            @Override
+            public void remove() {
+                if (!this.canRemove) {
+                    throw new IllegalStateException();
+                }
+                checkForComodification();
+                this.canRemove = false;
+                RangeSet.this.remove(this.lastReturned);
+                this.expectedModCount = RangeSet.this.modCount;
+                moveTo(this.lastReturned + 1);
+            }
+
+            /**
+             * Moves the iterator to the smallest contained value that is
+             * greater or equal to the given value.
+             */
+            private void moveTo(int value) {
+                int found = findRun(value);
+                if (found >= 0 && RangeSet.this.ends[found] > value) {
+                    this.run = found;
+                    this.next = value;
+                } else {
+                    this.run = found + 1;
+                    if (this.run < RangeSet.this.runCount) {
+                        this.next = RangeSet.this.starts[this.run];
+                    }
+                }
+            }
+
+            private void checkForComodification() {
+                if (RangeSet.this.modCount != this.expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        };
+    }
+
+    /**
+     * @param value
+     *            The value to search for.
+     * @return The index of the last run that starts at or before the given
+     *         value, or -1 if there is no such run.
+     */
+    private int findRun(int value) {
+        int low = 0;
+        int high = this.runCount - 1;
+        int result = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (this.starts[mid] <= value) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the given number of runs starting at the given run index with a
+     * single run.
+     */
+    private void replaceRuns(int from, int count, int start, int end) {
+        if (count == 0) {
+            insertRun(from, start, end);
+            return;
+        }
+        this.starts[from] = start;
+        this.ends[from] = end;
+        if (count > 1) {
+            removeRuns(from + 1, count - 1);
+        }
+        this.modCount++;
+    }
+
+    private void insertRun(int at, int start, int end) {
+        if (this.runCount == this.starts.length) {
+            int capacity = Math.max(4, this.runCount * 2);
+            this.starts = Arrays.copyOf(this.starts, capacity);
+            this.ends = Arrays.copyOf(this.ends, capacity);
+        }
+        int moved = this.runCount - at;
+        if (moved > 0) {
+            System.arraycopy(this.starts, at, this.starts, at + 1, moved);
+            System.arraycopy(this.ends, at, this.ends, at + 1, moved);
+        }
+        this.starts[at] = start;
+        this.ends[at] = end;
+        this.runCount++;
+        this.modCount++;
+    }
+
+    private void removeRuns(int from, int count) {
+        int moved = this.runCount - from - count;
+        if (moved > 0) {
+            System.arraycopy(this.starts, from + count, this.starts, from, moved);
+            System.arraycopy(this.ends, from + count, this.ends, from, moved);
+        }
+        this.runCount -= count;
+        this.modCount++;
+    }
+
+    private static int[] toSortedArray(Collection<?> c) {
+        int[] values = new int[c.size()];
+        int count = 0;
+        for (Object o : c) {
+            if (o instanceof Integer) {
+                values[count++] = (Integer) o;
+            }
+        }
+        if (count != values.length) {
+            values = Arrays.copyOf(values, count);
+        }
+        Arrays.sort(values);
+        return values;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012 Original authors and others.
+ * Copyright (c) 2012, 2019 Original authors and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,6 +30,11 @@
     protected List<T> list;
     protected IColumnAccessor<T> columnAccessor;
 
+    /**
+     * Optional index to resolve the index of a row object via its row id.
+     */
+    protected RowIdIndex<T> rowIdIndex;
+
     public ListDataProvider(List<T> list, IColumnAccessor<T> columnAccessor) {
         this.list = list;
         this.columnAccessor = columnAccessor;
@@ -64,9 +69,44 @@ public T getRowObject(int rowIndex) {
 
     @Override
     public int indexOfRowObject(T rowObject) {
+        if (this.rowIdIndex != null) {
+            return this.rowIdIndex.indexOfRowObject(rowObject);
+        }
         return this.list.indexOf(rowObject);
     }
 
+    /**
+     * @return The {@link RowIdIndex} that is used to resolve the index of a
+     *         row object, or <code>null</code> if the index is resolved by
+     *         searching the list.
+     * @since 1.6
+     */
+    public RowIdIndex<T> getRowIdIndex() {
+        return this.rowIdIndex;
+    }
+
+    /**
+     * Set a {@link RowIdIndex} that should be used to resolve the index of a
+     * row object in {@link #indexOfRowObject(Object)}. This avoids searching
+     * the list, e.g. if a RowSelectionModel maps a lot of selected row objects
+     * back to rows after sorting. With an index set, row objects are
+     * identified by their row id instead of
+     * {@link Object#equals(Object)}.
+     * <p>
+     * <b>Note:</b> The index needs to be informed about changes of the list,
+     * e.g. by registering it as listener to the DataLayer.
+     * </p>
+     *
+     * @param rowIdIndex
+     *            The {@link RowIdIndex} for the list of this
+     *            {@link ListDataProvider}, or <code>null</code> to search the
+     *            list.
+     * @since 1.6
+     */
+    public void setRowIdIndex(RowIdIndex<T> rowIdIndex) {
+        this.rowIdIndex = rowIdIndex;
+    }
+
     public List<T> getList() {
         return this.list;
     }
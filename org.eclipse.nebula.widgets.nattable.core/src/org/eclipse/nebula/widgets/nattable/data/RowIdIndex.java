@@ -0,0 +1,399 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.layer.ILayerListener;
+import org.eclipse.nebula.widgets.nattable.layer.event.ILayerEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.IStructuralChangeEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.ResizeStructuralRefreshEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.StructuralDiff;
+import org.eclipse.nebula.widgets.nattable.layer.event.StructuralDiff.DiffTypeEnum;
+import org.eclipse.nebula.widgets.nattable.resize.event.RowResizeEvent;
+
+/**
+ * Index that maps the row ids of the objects in a {@link List} to their index
+ * in that list. It is used to resolve the index of a row object in constant
+ * time instead of searching the list via {@link List#indexOf(Object)}, e.g.
+ * for a {@link ListDataProvider} to map the selected row objects back to rows
+ * after sorting.
+ * <p>
+ * The index is built lazily in one pass on the first lookup. It needs to be
+ * informed about changes of the list:
+ * </p>
+ * <ul>
+ * <li>registered as {@link ILayerListener} to the
+ * {@link org.eclipse.nebula.widgets.nattable.layer.DataLayer} it is updated
+ * on row structural changes. For insert and delete diffs the indexes of the
+ * following rows are shifted and only the ids of the inserted rows are read,
+ * for structural refreshes without diffs the whole index is rebuilt.</li>
+ * <li>alternatively {@link #rowsInserted(int, int)},
+ * {@link #rowsDeleted(int, int)}, {@link #invalidate()} and
+ * {@link #invalidate(int)} can be called directly.</li>
+ * </ul>
+ * <p>
+ * The shifts are applied lazily to the stored indexes on lookup, so inserting
+ * or deleting rows near the top of a huge list does not touch the indexes of
+ * all following rows. If the list contains duplicate row ids, the rows after
+ * the first change are indexed again instead, as the first index of an id
+ * might change.
+ * </p>
+ * <p>
+ * A found index is verified against the list, so changes that were not
+ * reported lead to a rebuild instead of wrong results. The row ids are
+ * expected to be stable, changing the id of an object in place requires an
+ * invalidation.
+ * </p>
+ *
+ * @param <T>
+ *            The type of the objects in the list.
+ * @see ListDataProvider#setRowIdIndex(RowIdIndex)
+ * @since 1.6
+ */
+public class RowIdIndex<T> implements ILayerListener {
+
+    /**
+     * The number of shifts that are collected before they are applied to all
+     * stored indexes.
+     */
+    private static final int MAX_PENDING_SHIFTS = 32;
+
+    protected final List<T> list;
+    protected final IRowIdAccessor<T> rowIdAccessor;
+
+    /**
+     * The row id to the first index of an object with that id.
+     */
+    private final Map<Serializable, Entry> indexes = new HashMap<Serializable, Entry>();
+
+    /**
+     * The row ids of the indexed rows in list order. Rows from
+     * <code>indexedIds.size()</code> on are not indexed yet.
+     */
+    private final List<Serializable> indexedIds = new ArrayList<Serializable>();
+
+    /**
+     * Flag to indicate that the index was invalidated starting at a known
+     * index, so a different size of the list is expected.
+     */
+    private boolean patched = false;
+
+    /**
+     * The shifts caused by inserted and deleted rows that are not applied to
+     * all stored indexes yet, as pairs of the first changed index and the
+     * number of inserted (positive) or deleted (negative) rows.
+     */
+    private final int[] shifts = new int[2 * MAX_PENDING_SHIFTS];
+    private int shiftCount = 0;
+
+    /**
+     * Flag to indicate that the indexed rows contain duplicate row ids.
+     */
+    private boolean duplicates = false;
+
+    /**
+     * @param list
+     *            The list whose objects should be indexed.
+     * @param rowIdAccessor
+     *            The {@link IRowIdAccessor} to retrieve the row ids.
+     */
+    public RowIdIndex(List<T> list, IRowIdAccessor<T> rowIdAccessor) {
+        this.list = list;
+        this.rowIdAccessor = rowIdAccessor;
+    }
+
+    /**
+     * @param rowId
+     *            The row id to search for.
+     * @return The index of the first object in the list with the given row id,
+     *         or -1 if no object with that id is contained.
+     */
+    public synchronized int indexOfRowId(Serializable rowId) {
+        int index = lookup(rowId);
+        if (index >= 0 && !isValid(index, rowId)) {
+            // the list was changed without notification
+            invalidate();
+            index = lookup(rowId);
+        }
+        return index;
+    }
+
+    /**
+     * @param rowObject
+     *            The row object to search for.
+     * @return The index of the first object in the list with the same row id
+     *         as the given object, or -1 if no such object is contained.
+     */
+    public int indexOfRowObject(T rowObject) {
+        if (rowObject == null) {
+            return -1;
+        }
+        return indexOfRowId(this.rowIdAccessor.getRowId(rowObject));
+    }
+
+    /**
+     * Invalidates the whole index. It is rebuilt on the next lookup.
+     */
+    public synchronized void invalidate() {
+        this.indexes.clear();
+        this.indexedIds.clear();
+        this.patched = false;
+        this.shiftCount = 0;
+        this.duplicates = false;
+    }
+
+    /**
+     * Invalidates the index starting at the given index, e.g. because rows
+     * were inserted or deleted at that index. Only the rows from that index on
+     * are indexed again on the next lookup.
+     *
+     * @param fromIndex
+     *            The index of the first changed row.
+     */
+    public synchronized void invalidate(int fromIndex) {
+        int start = Math.max(0, fromIndex);
+        for (int i = this.indexedIds.size() - 1; i >= start; i--) {
+            Serializable rowId = this.indexedIds.remove(i);
+            Entry entry = this.indexes.get(rowId);
+            if (entry != null && resolve(entry) == i) {
+                this.indexes.remove(rowId);
+            }
+        }
+        this.patched = true;
+    }
+
+    /**
+     * Updates the index for rows that were inserted into the list. The indexes
+     * of the following rows are shifted and the ids of the inserted rows are
+     * read from the list. Multiple changes need to be reported in the order
+     * they were applied to the list.
+     *
+     * @param index
+     *            The index of the first inserted row.
+     * @param count
+     *            The number of inserted rows.
+     */
+    public synchronized void rowsInserted(int index, int count) {
+        if (index < 0 || count <= 0 || index > this.indexedIds.size()) {
+            // the rows after the indexed ones are indexed on the next lookup
+            return;
+        }
+        if (this.duplicates || index + count > this.list.size()) {
+            invalidate(index);
+            return;
+        }
+
+        List<Serializable> insertedIds = new ArrayList<Serializable>(count);
+        Set<Serializable> insertedIdSet = new HashSet<Serializable>();
+        for (int i = index; i < index + count; i++) {
+            Serializable rowId = this.rowIdAccessor.getRowId(this.list.get(i));
+            if (this.indexes.containsKey(rowId) || !insertedIdSet.add(rowId)) {
+                // the first index of the id might change
+                this.duplicates = true;
+                invalidate(index);
+                return;
+            }
+            insertedIds.add(rowId);
+        }
+
+        addShift(index, count);
+        this.indexedIds.addAll(index, insertedIds);
+        for (int i = 0; i < count; i++) {
+            this.indexes.put(insertedIds.get(i), new Entry(index + i, this.shiftCount));
+        }
+        this.patched = true;
+    }
+
+    /**
+     * Updates the index for rows that were deleted from the list. The indexes
+     * of the following rows are shifted. Multiple changes need to be reported
+     * in the order they were applied to the list.
+     *
+     * @param index
+     *            The index of the first deleted row.
+     * @param count
+     *            The number of deleted rows.
+     */
+    public synchronized void rowsDeleted(int index, int count) {
+        int end = Math.min(index + count, this.indexedIds.size());
+        if (index < 0 || index >= end) {
+            // the deleted rows were not indexed yet
+            return;
+        }
+        if (this.duplicates) {
+            invalidate(index);
+            return;
+        }
+
+        for (int i = index; i < end; i++) {
+            Serializable rowId = this.indexedIds.get(i);
+            Entry entry = this.indexes.get(rowId);
+            if (entry != null && resolve(entry) == i) {
+                this.indexes.remove(rowId);
+            }
+        }
+        this.indexedIds.subList(index, end).clear();
+        addShift(index, index - end);
+        this.patched = true;
+    }
+
+    @Override
+    public void handleLayerEvent(ILayerEvent event) {
+        if (event instanceof IStructuralChangeEvent
+                && ((IStructuralChangeEvent) event).isVerticalStructureChanged()
+                && !(event instanceof RowResizeEvent)
+                && !(event instanceof ResizeStructuralRefreshEvent)) {
+            Collection<StructuralDiff> rowDiffs = ((IStructuralChangeEvent) event).getRowDiffs();
+            if (rowDiffs == null) {
+                invalidate();
+            } else {
+                List<Range> deleted = new ArrayList<Range>();
+                List<Range> added = new ArrayList<Range>();
+                for (StructuralDiff diff : rowDiffs) {
+                    if (diff.getDiffType() == DiffTypeEnum.DELETE) {
+                        deleted.add(diff.getBeforePositionRange());
+                    } else if (diff.getDiffType() == DiffTypeEnum.ADD) {
+                        added.add(diff.getAfterPositionRange());
+                    }
+                }
+                applyDiffs(deleted, added);
+            }
+        }
+    }
+
+    /**
+     * Applies the given deleted ranges, which are positions before the change,
+     * in descending order and the added ranges, which are positions after the
+     * change, in ascending order, so they can be applied one after the other.
+     */
+    private synchronized void applyDiffs(List<Range> deleted, List<Range> added) {
+        Collections.sort(deleted, RANGE_COMPARATOR);
+        for (int i = deleted.size() - 1; i >= 0; i--) {
+            Range range = deleted.get(i);
+            rowsDeleted(range.start, range.size());
+        }
+        Collections.sort(added, RANGE_COMPARATOR);
+        for (Range range : added) {
+            rowsInserted(range.start, range.size());
+        }
+    }
+
+    /**
+     * Ensures that all rows are indexed and returns the index for the given
+     * row id.
+     */
+    private int lookup(Serializable rowId) {
+        int size = this.list.size();
+        if (!this.patched && this.indexedIds.size() != size) {
+            // the list was changed without notification
+            invalidate();
+        }
+        this.patched = false;
+
+        for (int i = this.indexedIds.size(); i < size; i++) {
+            Serializable id = this.rowIdAccessor.getRowId(this.list.get(i));
+            this.indexedIds.add(id);
+            if (!this.indexes.containsKey(id)) {
+                this.indexes.put(id, new Entry(i, this.shiftCount));
+            } else {
+                this.duplicates = true;
+            }
+        }
+
+        Entry entry = this.indexes.get(rowId);
+        if (entry == null) {
+            return -1;
+        }
+        int index = resolve(entry);
+        if (index < 0) {
+            this.indexes.remove(rowId);
+        }
+        return index;
+    }
+
+    /**
+     * Applies the pending shifts to the given entry.
+     *
+     * @return The current index of the entry, or -1 if the row was deleted.
+     */
+    private int resolve(Entry entry) {
+        for (int i = entry.shiftCount; i < this.shiftCount && entry.index >= 0; i++) {
+            int start = this.shifts[2 * i];
+            int delta = this.shifts[2 * i + 1];
+            if (delta > 0) {
+                if (entry.index >= start) {
+                    entry.index += delta;
+                }
+            } else if (entry.index >= start - delta) {
+                entry.index += delta;
+            } else if (entry.index >= start) {
+                entry.index = -1;
+            }
+        }
+        entry.shiftCount = this.shiftCount;
+        return entry.index;
+    }
+
+    private void addShift(int start, int delta) {
+        if (this.shiftCount == MAX_PENDING_SHIFTS) {
+            // apply the pending shifts to all entries to start over
+            for (Entry entry : this.indexes.values()) {
+                resolve(entry);
+                entry.shiftCount = 0;
+            }
+            this.shiftCount = 0;
+        }
+        this.shifts[2 * this.shiftCount] = start;
+        this.shifts[2 * this.shiftCount + 1] = delta;
+        this.shiftCount++;
+    }
+
+    private boolean isValid(int index, Serializable rowId) {
+        if (index >= this.list.size()) {
+            return false;
+        }
+        Serializable id = this.rowIdAccessor.getRowId(this.list.get(index));
+        return rowId == null ? id == null : rowId.equals(id);
+    }
+
+    private static final Comparator<Range> RANGE_COMPARATOR = new Comparator<Range>() {
+        @Override
+        public int compare(Range range1, Range range2) {
+            return range1.start - range2.start;
+        }
+    };
+
+    /**
+     * The stored index of a row id, together with the number of pending
+     * shifts that were applied to it.
+     */
+    private static final class Entry {
+
+        int index;
+        int shiftCount;
+
+        Entry(int index, int shiftCount) {
+            this.index = index;
+            this.shiftCount = shiftCount;
+        }
+    }
+}
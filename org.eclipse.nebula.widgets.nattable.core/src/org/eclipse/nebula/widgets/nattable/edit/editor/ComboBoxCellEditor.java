@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2018 Original authors and others.
+ * Copyright (c) 2012, 2019 Original authors and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -383,15 +383,30 @@ public void setCanonicalValue(Object canonicalValue) {
      * of this {@link ComboBoxCellEditor}. As the combo is only able to handle
      * Strings in the combo itself, and this editor works directly on the
      * canonical values, the values are converted in here too.
+     *
+     * @since 1.6
      */
-    private void fillCombo() {
-        List<String> displayValues = new ArrayList<String>();
-
+    protected void fillCombo() {
         if (this.dataProvider != null) {
-            this.currentCanonicalValues = this.dataProvider.getValues(getColumnIndex(), getRowIndex());
+            fillCombo(this.dataProvider.getValues(getColumnIndex(), getRowIndex()));
         } else {
-            this.currentCanonicalValues = this.canonicalValues;
+            fillCombo(this.canonicalValues);
         }
+    }
+
+    /**
+     * Sets the given canonical values as the items selectable in the combo.
+     * The values are converted to display values, as the combo is only able
+     * to handle Strings.
+     *
+     * @param values
+     *            The canonical values to set.
+     * @since 1.6
+     */
+    protected void fillCombo(List<?> values) {
+        List<String> displayValues = new ArrayList<String>();
+
+        this.currentCanonicalValues = values;
 
         for (Object canonicalValue : this.currentCanonicalValues) {
             Object displayValue = this.displayConverter.canonicalToDisplayValue(
@@ -402,6 +417,16 @@ private void fillCombo() {
         this.combo.setItems(displayValues.toArray(ArrayUtil.STRING_TYPE_ARRAY));
     }
 
+    /**
+     * @return The {@link IComboBoxDataProvider} that is used to populate the
+     *         items of the combo, or <code>null</code> if the editor was
+     *         created with a static list of values.
+     * @since 1.6
+     */
+    protected IComboBoxDataProvider getDataProvider() {
+        return this.dataProvider;
+    }
+
     @Override
     public void close() {
         super.close();
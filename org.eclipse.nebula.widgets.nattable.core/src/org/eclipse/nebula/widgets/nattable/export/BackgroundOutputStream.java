@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.export;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.nebula.widgets.nattable.util.ObjectUtils;
+
+/**
+ * {@link OutputStream} that collects the written bytes in chunks and writes
+ * the chunks to the wrapped {@link OutputStream} in a background thread. This
+ * way the thread that resolves and formats the cells to export, which is
+ * typically the UI thread, does not wait for the file system.
+ * <p>
+ * The chunks are passed to the writer thread via a bounded queue in the order
+ * they were filled. If the writer thread can not keep up, writing blocks
+ * until a chunk was written, so the memory consumption is limited to the
+ * configured number of chunks. Written chunks are reused for subsequent
+ * writes.
+ * </p>
+ * <p>
+ * An {@link IOException} that occurs in the writer thread is rethrown on the
+ * next call to {@link #write(int)}, {@link #flush()} or {@link #close()}.
+ * If the writer thread stops unexpectedly, e.g. because it was interrupted,
+ * this is reported the same way instead of blocking the writing thread.
+ * </p>
+ *
+ * @since 1.6
+ */
+public class BackgroundOutputStream extends OutputStream {
+
+    /**
+     * The default size of a chunk in bytes.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * The default number of chunks that can be queued for writing.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    /**
+     * Marker that tells the writer thread to stop.
+     */
+    private static final byte[] END = new byte[0];
+
+    /**
+     * The number of milliseconds to wait for the writer thread before
+     * checking if it is still alive.
+     */
+    private static final long WRITER_CHECK_INTERVAL = 100;
+
+    private final OutputStream out;
+    private final int chunkSize;
+
+    private final BlockingQueue<byte[]> queue;
+    private final BlockingQueue<byte[]> free;
+    private final Thread writer;
+
+    private byte[] buffer;
+    private int count;
+    private boolean closed;
+
+    private final Object lock = new Object();
+    private long enqueued;
+    private long processed;
+    private volatile IOException failure;
+
+    /**
+     * Creates a {@link BackgroundOutputStream} with the default chunk size and
+     * queue capacity.
+     *
+     * @param out
+     *            The {@link OutputStream} the bytes should be written to.
+     */
+    public BackgroundOutputStream(OutputStream out) {
+        this(out, DEFAULT_CHUNK_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param out
+     *            The {@link OutputStream} the bytes should be written to.
+     * @param chunkSize
+     *            The number of bytes that are collected before they are passed
+     *            to the writer thread.
+     * @param queueCapacity
+     *            The number of chunks that can be queued for writing.
+     */
+    public BackgroundOutputStream(OutputStream out, int chunkSize, int queueCapacity) {
+        this.out = out;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.queue = new ArrayBlockingQueue<byte[]>(Math.max(1, queueCapacity) + 1);
+        this.free = new ArrayBlockingQueue<byte[]>(Math.max(1, queueCapacity) + 1);
+        this.buffer = new byte[this.chunkSize];
+
+        this.writer = new Thread(ObjectUtils.getNatTableThreadGroup(), new Runnable() {
+            @Override
+            public void run() {
+                writeChunks();
+            }
+        }, "BackgroundOutputStream"); //$NON-NLS-1$
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        checkState();
+        if (this.count == this.buffer.length) {
+            enqueueBuffer();
+        }
+        this.buffer[this.count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        checkState();
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            if (this.count == this.buffer.length) {
+                enqueueBuffer();
+            }
+            int length = Math.min(len, this.buffer.length - this.count);
+            System.arraycopy(b, off, this.buffer, this.count, length);
+            this.count += length;
+            off += length;
+            len -= length;
+        }
+    }
+
+    /**
+     * Passes the collected bytes to the writer thread, waits until all queued
+     * chunks are written and flushes the wrapped {@link OutputStream}.
+     */
+    @Override
+    public void flush() throws IOException {
+        checkState();
+        enqueueBuffer();
+        awaitWritten();
+        checkState();
+        this.out.flush();
+    }
+
+    /**
+     * Writes all collected bytes, stops the writer thread and closes the
+     * wrapped {@link OutputStream}.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            if (this.failure == null) {
+                enqueueBuffer();
+            }
+            // the writer thread is not waiting for the end marker anymore if
+            // it stopped unexpectedly
+            if (enqueue(END)) {
+                this.writer.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (IOException e) {
+            // the failure of the writer thread is rethrown below
+        } finally {
+            this.out.close();
+        }
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    /**
+     * Hands the current buffer to the writer thread and continues with a free
+     * buffer.
+     */
+    private void enqueueBuffer() throws IOException {
+        if (this.count == 0) {
+            return;
+        }
+        byte[] chunk = (this.count == this.buffer.length)
+                ? this.buffer
+                : Arrays.copyOf(this.buffer, this.count);
+        try {
+            if (!enqueue(chunk)) {
+                checkState();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+
+        if (chunk == this.buffer) {
+            byte[] next = this.free.poll();
+            this.buffer = (next != null) ? next : new byte[this.chunkSize];
+        }
+        this.count = 0;
+    }
+
+    /**
+     * Passes the given chunk to the writer thread. Waits as long as the queue
+     * is full and the writer thread is alive.
+     *
+     * @param chunk
+     *            The chunk to pass to the writer thread.
+     * @return <code>true</code> if the chunk was queued, <code>false</code>
+     *         if the writer thread stopped.
+     * @throws InterruptedException
+     *             If the current thread was interrupted while waiting.
+     */
+    private boolean enqueue(byte[] chunk) throws InterruptedException {
+        if (chunk != END) {
+            synchronized (this.lock) {
+                this.enqueued++;
+            }
+        }
+        while (this.writer.isAlive()) {
+            if (this.queue.offer(chunk, WRITER_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void awaitWritten() throws IOException {
+        synchronized (this.lock) {
+            while (this.processed < this.enqueued && this.writer.isAlive()) {
+                try {
+                    this.lock.wait(WRITER_CHECK_INTERVAL);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+    }
+
+    private void checkState() throws IOException {
+        if (this.closed) {
+            throw new IOException("Stream closed"); //$NON-NLS-1$
+        }
+        IOException e = this.failure;
+        if (e != null) {
+            throw new IOException("Error on writing in background", e); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Writes the queued chunks in order until the end marker is received.
+     */
+    private void writeChunks() {
+        boolean completed = false;
+        try {
+            while (true) {
+                byte[] chunk = this.queue.take();
+                if (chunk == END) {
+                    completed = true;
+                    return;
+                }
+                if (this.failure == null) {
+                    try {
+                        this.out.write(chunk);
+                    } catch (IOException e) {
+                        this.failure = e;
+                    } catch (RuntimeException e) {
+                        this.failure = new IOException("Error on writing in background", e); //$NON-NLS-1$
+                    }
+                }
+                if (chunk.length == this.chunkSize) {
+                    this.free.offer(chunk);
+                }
+                synchronized (this.lock) {
+                    this.processed++;
+                    this.lock.notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            if (this.failure == null) {
+                this.failure = new InterruptedIOException("Writer thread interrupted"); //$NON-NLS-1$
+            }
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!completed && this.failure == null) {
+                this.failure = new IOException("Writer thread stopped unexpectedly"); //$NON-NLS-1$
+            }
+            // wake up a thread that waits for the written chunks
+            synchronized (this.lock) {
+                this.lock.notifyAll();
+            }
+        }
+    }
+}
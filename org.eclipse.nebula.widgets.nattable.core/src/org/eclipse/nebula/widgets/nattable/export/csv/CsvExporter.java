@@ -10,9 +10,16 @@
  ******************************************************************************/
 package org.eclipse.nebula.widgets.nattable.export.csv;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 
 import org.eclipse.nebula.widgets.nattable.config.IConfigRegistry;
 import org.eclipse.nebula.widgets.nattable.export.FileOutputStreamProvider;
@@ -20,10 +27,17 @@
 import org.eclipse.nebula.widgets.nattable.export.ILayerExporter;
 import org.eclipse.nebula.widgets.nattable.export.IOutputStreamProvider;
 import org.eclipse.nebula.widgets.nattable.layer.cell.ILayerCell;
+import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.widgets.Shell;
 
 /**
  * Simple CSV-Exporter ignoring cell spans.
+ * <p>
+ * The rows are encoded into a reusable buffer that is written to the
+ * {@link OutputStream} once it is full and at the end of the export. If the
+ * {@link OutputStream} is a {@link FileOutputStream}, the buffer is written
+ * directly to its {@link FileChannel}.
+ * </p>
  *
  * @since 1.5
  */
@@ -36,10 +50,22 @@ public class CsvExporter implements ILayerExporter {
     private String charset = "windows-1252"; //$NON-NLS-1$
     private String delimiter = ";"; //$NON-NLS-1$
 
+    /**
+     * The size of the buffer the encoded rows are collected in before they are
+     * written to the output.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     /* used during export runtime. */
     private final StringBuilder currentRow = new StringBuilder(2048);
     private boolean rowCellInserted;
     private Charset usedCharset;
+    private CharsetEncoder encoder;
+    private String lineSeparator;
+    private char[] rowChars = new char[2048];
+    private CharBuffer rowBuffer = CharBuffer.wrap(this.rowChars);
+    private ByteBuffer outputBuffer;
+    private FileChannel outputChannel;
 
     /**
      * Creates a CsvExporter using the given stream provider which defines the
@@ -95,11 +121,27 @@ public Object getResult() {
     @Override
     public void exportBegin(final OutputStream outputStream) throws IOException {
         this.usedCharset = Charset.forName(this.charset);
+        // replace characters that can not be encoded, like String#getBytes()
+        this.encoder = this.usedCharset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.lineSeparator = System.getProperty("line.separator"); //$NON-NLS-1$
+
+        if (outputStream instanceof FileOutputStream) {
+            this.outputChannel = ((FileOutputStream) outputStream).getChannel();
+            this.outputBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        } else {
+            this.outputChannel = null;
+            this.outputBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        }
     }
 
     @Override
     public void exportEnd(final OutputStream outputStream) throws IOException {
-        // do noting
+        writeBuffer(outputStream);
+        this.outputBuffer = null;
+        this.outputChannel = null;
+        this.encoder = null;
     }
 
     @Override
@@ -120,8 +162,55 @@ public void exportRowBegin(final OutputStream outputStream, final int rowPositio
 
     @Override
     public void exportRowEnd(final OutputStream outputStream, final int rowPosition) throws IOException {
-        this.currentRow.append(System.getProperty("line.separator")); //$NON-NLS-1$
-        outputStream.write(this.currentRow.toString().getBytes(this.usedCharset));
+        this.currentRow.append(this.lineSeparator);
+
+        int length = this.currentRow.length();
+        if (length > this.rowChars.length) {
+            this.rowChars = new char[Math.max(length, this.rowChars.length * 2)];
+            this.rowBuffer = CharBuffer.wrap(this.rowChars);
+        }
+        this.currentRow.getChars(0, length, this.rowChars, 0);
+        this.rowBuffer.clear();
+        this.rowBuffer.limit(length);
+
+        // every row is encoded as a whole, like it was done via
+        // String#getBytes() before
+        this.encoder.reset();
+        CoderResult result = this.encoder.encode(this.rowBuffer, this.outputBuffer, true);
+        while (result.isOverflow()) {
+            writeBuffer(outputStream);
+            result = this.encoder.encode(this.rowBuffer, this.outputBuffer, true);
+        }
+        result = this.encoder.flush(this.outputBuffer);
+        while (result.isOverflow()) {
+            writeBuffer(outputStream);
+            result = this.encoder.flush(this.outputBuffer);
+        }
+    }
+
+    /**
+     * Writes the encoded bytes collected in the output buffer to the output
+     * and clears the buffer.
+     *
+     * @param outputStream
+     *            The {@link OutputStream} to write to if the output is not a
+     *            file.
+     * @throws IOException
+     *             If writing fails.
+     */
+    private void writeBuffer(final OutputStream outputStream) throws IOException {
+        this.outputBuffer.flip();
+        if (this.outputChannel != null) {
+            while (this.outputBuffer.hasRemaining()) {
+                this.outputChannel.write(this.outputBuffer);
+            }
+        } else if (this.outputBuffer.hasRemaining()) {
+            outputStream.write(
+                    this.outputBuffer.array(),
+                    this.outputBuffer.arrayOffset() + this.outputBuffer.position(),
+                    this.outputBuffer.remaining());
+        }
+        this.outputBuffer.clear();
     }
 
     @Override
@@ -131,7 +220,8 @@ public void exportCell(
             final ILayerCell cell,
             final IConfigRegistry configRegistry) throws IOException {
 
-        if (cell.getBounds().width == 0 || cell.getBounds().height == 0) {
+        Rectangle bounds = cell.getBounds();
+        if (bounds.width == 0 || bounds.height == 0) {
             // if the cell is not visible to the user, it should not be exported
             return;
         }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2018 Dirk Fauth and others.
+ * Copyright (c) 2013, 2019 Dirk Fauth and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,8 +12,11 @@
 package org.eclipse.nebula.widgets.nattable.filterrow.combobox;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.jface.viewers.CheckStateChangedEvent;
 import org.eclipse.jface.viewers.CheckboxTableViewer;
@@ -24,6 +27,7 @@
 import org.eclipse.jface.viewers.IStructuredContentProvider;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.nebula.widgets.nattable.Messages;
+import org.eclipse.nebula.widgets.nattable.edit.EditConstants;
 import org.eclipse.nebula.widgets.nattable.style.CellStyleAttributes;
 import org.eclipse.nebula.widgets.nattable.style.HorizontalAlignmentEnum;
 import org.eclipse.nebula.widgets.nattable.style.IStyle;
@@ -41,6 +45,7 @@
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
 import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.swt.widgets.Text;
@@ -54,6 +59,11 @@
  * Usually this combo will be created with the SWT.CHECK style bit. This way the
  * selected items are visualized by showing checked checkboxes. Also adds a
  * <i>Select All</i> item for convenience that de-/selects all items on click.
+ * <p>
+ * If created with the SWT.VIRTUAL style bit, the items of the dropdown are
+ * only created once they become visible, which is necessary for huge numbers
+ * of items. Via {@link #setLoading(boolean)} the combo can be set to a loading
+ * state while the items are collected in the background.
  */
 public class FilterNatCombo extends NatCombo {
 
@@ -75,6 +85,11 @@ public class FilterNatCombo extends NatCombo {
      */
     private List<ICheckStateListener> checkStateListener = new ArrayList<ICheckStateListener>();
 
+    /**
+     * Flag to indicate that the items are currently loading.
+     */
+    private boolean loading;
+
     /**
      * Creates a new FilterNatCombo using the given IStyle for rendering,
      * showing the default number of items at once in the dropdown.
@@ -252,11 +267,30 @@ protected void calculateColumnWidth() {
                 this.dropdownTable.getColumn(0).getWidth());
     }
 
+    @Override
+    protected void createTextControl(int style) {
+        super.createTextControl(style & ~SWT.VIRTUAL);
+    }
+
     @Override
     protected void createDropdownControl(int style) {
-        super.createDropdownControl(style);
+        // the number of items is unknown while loading, so ensure that the
+        // dropdown is able to scroll
+        super.createDropdownControl(this.loading ? (style | SWT.V_SCROLL) : style);
+
+        if (isVirtual()) {
+            // set the check state of the items once they are populated by the
+            // viewer
+            this.dropdownTable.addListener(SWT.SetData, new Listener() {
+                @Override
+                public void handleEvent(Event event) {
+                    TableItem item = (TableItem) event.item;
+                    item.setChecked(isSelected(item.getText()));
+                }
+            });
+        }
 
-        int dropdownListStyle = style | SWT.NO_SCROLL
+        int dropdownListStyle = (style & ~SWT.VIRTUAL) | SWT.NO_SCROLL
                 | HorizontalAlignmentEnum.getSWTStyle(this.cellStyle)
                 | SWT.FULL_SELECTION;
         this.selectAllItemViewer =
@@ -331,10 +365,6 @@ public Image getImage(Object element) {
             }
         });
 
-        final String selectAllLabel = Messages.getString("FilterNatCombo.selectAll"); //$NON-NLS-1$
-        List<String> input = new ArrayList<String>();
-        input.add(selectAllLabel);
-        this.selectAllItemViewer.setInput(input);
 
         this.selectAllItemViewer.getTable().setBackground(
                 this.cellStyle.getAttributeValue(CellStyleAttributes.BACKGROUND_COLOR));
@@ -364,11 +394,12 @@ public void checkStateChanged(CheckStateChangedEvent event) {
                 }
 
                 // after selection is performed we need to ensure that
-                // selection and checkboxes are in sync
+                // selection and checkboxes are in sync, virtual items that
+                // are not populated yet get their state on population
                 for (TableItem tableItem : FilterNatCombo.this.dropdownTable.getItems()) {
-                    tableItem.setChecked(
-                            FilterNatCombo.this.dropdownTable.isSelected(
-                                    FilterNatCombo.this.itemList.indexOf(tableItem.getText())));
+                    if (!isVirtual() || tableItem.getData() != null) {
+                        tableItem.setChecked(event.getChecked());
+                    }
                 }
 
                 // sync the selectionStateMap based on the state of the select
@@ -408,15 +439,87 @@ public void widgetSelected(SelectionEvent e) {
                 FilterNatCombo.this.selectAllItemViewer.refresh();
             }
         });
+
+        updateLoadingState();
     }
 
     @Override
     protected void setDropdownSelection(String[] selection) {
-        super.setDropdownSelection(selection);
+        if (!isVirtual()) {
+            super.setDropdownSelection(selection);
+        } else if (this.itemList != null && this.selectionStateMap != null) {
+            // update the state of all items without populating the virtual
+            // table items
+            Set<String> selectionSet = new HashSet<String>(Arrays.asList(selection));
+            boolean selectAll = selectionSet.contains(EditConstants.SELECT_ALL_ITEMS_VALUE);
+            for (String item : this.itemList) {
+                this.selectionStateMap.put(item, selectAll || selectionSet.contains(item));
+            }
+
+            Table table = getDropdownTable();
+            for (TableItem item : table.getItems()) {
+                if (item.getData() != null) {
+                    item.setChecked(isSelected(item.getText()));
+                }
+            }
+            table.deselectAll();
+        }
         if (this.selectAllItemViewer != null)
             this.selectAllItemViewer.refresh();
     }
 
+    /**
+     * @return <code>true</code> if the items of the dropdown are created
+     *         lazily because this combo was created with the SWT.VIRTUAL
+     *         style bit.
+     * @since 1.6
+     */
+    public boolean isVirtual() {
+        return (this.style & SWT.VIRTUAL) != 0;
+    }
+
+    private boolean isSelected(String item) {
+        return this.selectionStateMap != null && Boolean.TRUE.equals(this.selectionStateMap.get(item));
+    }
+
+    /**
+     * Set the loading state of this combo. While loading, the dropdown shows a
+     * loading label instead of the <i>Select All</i> item and is disabled.
+     *
+     * @param loading
+     *            <code>true</code> if the items are currently loading,
+     *            <code>false</code> if the items are set.
+     * @since 1.6
+     */
+    public void setLoading(boolean loading) {
+        this.loading = loading;
+        if (this.selectAllItemViewer != null && !this.selectAllItemViewer.getTable().isDisposed()) {
+            updateLoadingState();
+            if (!loading && this.dropdownShell.isVisible()) {
+                calculateBounds();
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the items of this combo are currently
+     *         loading.
+     * @since 1.6
+     */
+    public boolean isLoading() {
+        return this.loading;
+    }
+
+    private void updateLoadingState() {
+        List<String> input = new ArrayList<String>();
+        input.add(this.loading
+                ? Messages.getString("FilterNatCombo.loading") //$NON-NLS-1$
+                : Messages.getString("FilterNatCombo.selectAll")); //$NON-NLS-1$
+        this.selectAllItemViewer.setInput(input);
+        this.selectAllItemViewer.getTable().setEnabled(!this.loading);
+        this.dropdownTable.setEnabled(!this.loading);
+    }
+
     /**
      * Add an ICheckStateListener to the viewer of the dropdown that contains
      * the select all item. Needed so the editor is able to commit after the
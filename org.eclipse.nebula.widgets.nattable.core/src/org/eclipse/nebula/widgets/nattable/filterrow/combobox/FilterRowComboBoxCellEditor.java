@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2016 Dirk Fauth and others.
+ * Copyright (c) 2013, 2019 Dirk Fauth and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,8 @@
  *******************************************************************************/
 package org.eclipse.nebula.widgets.nattable.filterrow.combobox;
 
+import java.util.List;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.eclipse.jface.viewers.CheckStateChangedEvent;
@@ -31,6 +33,14 @@
  * Specialisation of ComboBoxCellEditor that can only be created using an
  * IComboBoxDataProvider. Will show a multiselect combobox with checkboxes and
  * uses the FilterNatCombo as underlying control.
+ * <p>
+ * If the {@link IComboBoxDataProvider} is a
+ * {@link FilterRowComboBoxDataProvider}, the values can be collected in the
+ * background via {@link #setLoadValuesInBackground(boolean)}. The dropdown
+ * then shows a loading state until the values are available and creates its
+ * items lazily, so opening the editor does not block the UI for columns with a
+ * lot of distinct values.
+ * </p>
  *
  * @see FilterRowComboBoxDataProvider
  */
@@ -49,6 +59,24 @@ public class FilterRowComboBoxCellEditor extends ComboBoxCellEditor {
      */
     private Object currentCanonicalValue = null;
 
+    /**
+     * Flag to configure whether the values of a
+     * {@link FilterRowComboBoxDataProvider} should be collected in the
+     * background.
+     */
+    private boolean loadValuesInBackground = false;
+
+    /**
+     * The token of the currently running value request. Used to ignore the
+     * results of requests that were started for a previous activation.
+     */
+    private Object valueRequest;
+
+    /**
+     * The column index for which the current value request was started.
+     */
+    private int valueRequestColumn = -1;
+
     /**
      * Create a new {@link FilterRowComboBoxCellEditor} based on the given
      * {@link IComboBoxDataProvider}, showing the default number of items in the
@@ -82,6 +110,9 @@ public FilterRowComboBoxCellEditor(IComboBoxDataProvider dataProvider, int maxVi
     @Override
     public NatCombo createEditorControl(Composite parent) {
         int style = SWT.READ_ONLY | SWT.MULTI | SWT.CHECK;
+        if (isLoadingInBackground()) {
+            style |= SWT.VIRTUAL;
+        }
         final FilterNatCombo combo = this.iconImage == null
                 ? new FilterNatCombo(parent, this.cellStyle, this.maxVisibleItems, style, this.showDropdownFilter)
                 : new FilterNatCombo(parent, this.cellStyle, this.maxVisibleItems, style, this.iconImage, this.showDropdownFilter);
@@ -111,6 +142,120 @@ public void checkStateChanged(CheckStateChangedEvent event) {
         return combo;
     }
 
+    /**
+     * Collects the values via
+     * {@link FilterRowComboBoxDataProvider#loadValues(int, IFilterRowComboValuesCallback)}
+     * if loading in background is enabled. The combo shows a loading state
+     * until the values are set. The update event for a value cache that was
+     * created in the background is fired in the UI thread before.
+     */
+    @Override
+    protected void fillCombo() {
+        if (!isLoadingInBackground()) {
+            super.fillCombo();
+            return;
+        }
+
+        final FilterNatCombo combo = (FilterNatCombo) getEditorControl();
+        final Display display = combo.getDisplay();
+        final Object request = new Object();
+        this.valueRequest = request;
+        this.valueRequestColumn = getColumnIndex();
+
+        final FilterRowComboBoxDataProvider<?> dataProvider = (FilterRowComboBoxDataProvider<?>) getDataProvider();
+        combo.setLoading(true);
+        dataProvider.loadValues(
+                this.valueRequestColumn,
+                new IFilterRowComboValuesCallback() {
+
+                    @Override
+                    public void valuesCollected(int columnIndex, final List<?> values) {
+                        if (Display.getCurrent() == display) {
+                            dataProvider.firePendingUpdateEvents();
+                            applyValues(request, values);
+                        } else if (!display.isDisposed()) {
+                            display.asyncExec(new Runnable() {
+
+                                @Override
+                                public void run() {
+                                    dataProvider.firePendingUpdateEvents();
+                                    applyValues(request, values);
+                                }
+                            });
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Sets the collected values to the combo and restores the current
+     * selection. Called in the UI thread.
+     *
+     * @param request
+     *            The token of the request that collected the values.
+     * @param values
+     *            The collected values.
+     */
+    private void applyValues(Object request, List<?> values) {
+        NatCombo combo = getEditorControl();
+        if (request != this.valueRequest
+                || isClosed()
+                || combo == null
+                || combo.isDisposed()) {
+            return;
+        }
+        this.valueRequest = null;
+
+        fillCombo(values);
+        setCanonicalValue(this.currentCanonicalValue);
+        ((FilterNatCombo) combo).setLoading(false);
+    }
+
+    /**
+     * @return <code>true</code> if the values are collected in the background,
+     *         which is the case if it is enabled and the
+     *         {@link IComboBoxDataProvider} is a
+     *         {@link FilterRowComboBoxDataProvider}.
+     */
+    private boolean isLoadingInBackground() {
+        return this.loadValuesInBackground
+                && getDataProvider() instanceof FilterRowComboBoxDataProvider;
+    }
+
+    /**
+     * @return <code>true</code> if the values of a
+     *         {@link FilterRowComboBoxDataProvider} are collected in the
+     *         background, <code>false</code> if they are collected in the UI
+     *         thread on activation.
+     * @since 1.6
+     */
+    public boolean isLoadValuesInBackground() {
+        return this.loadValuesInBackground;
+    }
+
+    /**
+     * Configure whether the values of a {@link FilterRowComboBoxDataProvider}
+     * should be collected in the background. Default is <code>false</code>.
+     *
+     * @param loadValuesInBackground
+     *            <code>true</code> if the values should be collected in the
+     *            background, <code>false</code> if they should be collected in
+     *            the UI thread on activation.
+     * @since 1.6
+     */
+    public void setLoadValuesInBackground(boolean loadValuesInBackground) {
+        this.loadValuesInBackground = loadValuesInBackground;
+    }
+
+    @Override
+    public void close() {
+        if (this.valueRequest != null) {
+            this.valueRequest = null;
+            ((FilterRowComboBoxDataProvider<?>) getDataProvider()).cancelLoadValues(this.valueRequestColumn);
+        }
+        super.close();
+    }
+
     @Override
     public void setCanonicalValue(Object canonicalValue) {
         this.currentCanonicalValue = canonicalValue;
@@ -128,6 +273,14 @@ public boolean commit(MoveDirectionEnum direction, boolean closeAfterCommit) {
         // which will lead to exceptions because the states are not synchronous
         // anymore.
         if (!isClosed()) {
+            if (this.valueRequest != null) {
+                // the values are not loaded yet, so there is nothing that
+                // could have been changed by the user
+                if (closeAfterCommit) {
+                    close();
+                }
+                return true;
+            }
             try {
                 // always do the conversion
                 Object canonicalValue = getCanonicalValue();
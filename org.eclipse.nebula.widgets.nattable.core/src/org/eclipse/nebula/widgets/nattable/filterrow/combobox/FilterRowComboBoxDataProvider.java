@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2018 Dirk Fauth and others.
+ * Copyright (c) 2013, 2019 Dirk Fauth and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,21 +12,32 @@
 package org.eclipse.nebula.widgets.nattable.filterrow.combobox;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
 import org.eclipse.nebula.widgets.nattable.data.IColumnAccessor;
+import org.eclipse.nebula.widgets.nattable.data.IDataProvider;
+import org.eclipse.nebula.widgets.nattable.data.ListDataProvider;
 import org.eclipse.nebula.widgets.nattable.edit.editor.IComboBoxDataProvider;
+import org.eclipse.nebula.widgets.nattable.layer.DataLayer;
 import org.eclipse.nebula.widgets.nattable.layer.ILayer;
 import org.eclipse.nebula.widgets.nattable.layer.ILayerListener;
 import org.eclipse.nebula.widgets.nattable.layer.event.CellVisualChangeEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.ILayerEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.IStructuralChangeEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.StructuralDiff;
+import org.eclipse.nebula.widgets.nattable.layer.event.StructuralDiff.DiffTypeEnum;
+import org.eclipse.nebula.widgets.nattable.util.CalculationService;
 
 /**
  * IComboBoxDataProvider that provides items for a combobox in the filter row.
@@ -41,6 +52,24 @@
  * As the values are cached in here, this IComboBoxDataProvider registers itself
  * as ILayerListener to the body DataLayer. If values are updated or rows get
  * added/deleted, it will update the cache accordingly.
+ * <p>
+ * The cache keeps a reference counted index of the distinct values per column.
+ * If the events are fired by a {@link DataLayer} whose {@link ListDataProvider}
+ * wraps the base collection, the row positions of the events are the indexes
+ * in the base collection and inserted rows are processed incrementally. As the
+ * index does not know the values of deleted or updated rows, the affected
+ * columns are recounted from the base collection in that case, unless the
+ * value of every row is tracked via {@link #setRowValueTrackingEnabled(boolean)}.
+ * If the body is sorted or filtered, the index of the changed column or of all
+ * cached columns is recounted from the base collection.
+ * <p>
+ * If a subclass overrides {@link #collectValues(int)}, no index is kept and
+ * the values of the changed columns are collected again by that method.
+ * <p>
+ * If the value cache is pre-built, the columns are processed one after the
+ * other by default. They can be processed in parallel via
+ * {@link #FilterRowComboBoxDataProvider(ILayer, Collection, IColumnAccessor, boolean, boolean)},
+ * which requires an {@link IColumnAccessor} that supports concurrent reads.
  *
  * @param <T>
  *            The type of the objects shown within the NatTable. Needed to
@@ -48,6 +77,13 @@
  */
 public class FilterRowComboBoxDataProvider<T> implements IComboBoxDataProvider, ILayerListener {
 
+    /**
+     * The number of snapshots that are taken to collect the values of a column
+     * before the values are returned without caching them, in case the base
+     * collection changes while the values are collected.
+     */
+    private static final int MAX_SNAPSHOT_ATTEMPTS = 3;
+
     /**
      * The base collection used to collect the unique values from. This need to
      * be a collection that is not filtered, otherwise after modifications the
@@ -68,6 +104,44 @@
      * is currently used for filtering.
      */
     private final Map<Integer, List<?>> valueCache = new HashMap<Integer, List<?>>();
+    /**
+     * The distinct value index per column the value cache is created from.
+     */
+    private final Map<Integer, ColumnValueIndex> valueIndexes = new HashMap<Integer, ColumnValueIndex>();
+    /**
+     * The requests started via
+     * {@link #loadValues(int, IFilterRowComboValuesCallback)} that are not
+     * finished yet.
+     */
+    private final Map<Integer, ValueRequest> valueRequests = new HashMap<Integer, ValueRequest>();
+    /**
+     * The update events for the value caches that were created by a
+     * {@link ValueRequest} and are not fired yet, see
+     * {@link #firePendingUpdateEvents()}.
+     */
+    private final Map<Integer, FilterRowComboUpdateEvent> pendingUpdateEvents = new HashMap<Integer, FilterRowComboUpdateEvent>();
+    /**
+     * Counter that is increased on every change of the base collection, to
+     * detect that the snapshot of a {@link ValueRequest} is outdated.
+     */
+    private int modificationCount;
+    /**
+     * The columns whose value index could not be updated incrementally and
+     * needs to be recounted from a new snapshot of the base collection.
+     */
+    private final Set<Integer> resetColumns = new HashSet<Integer>();
+    /**
+     * Flag to indicate whether a subclass overrides
+     * {@link #collectValues(int)}. In that case the value cache is filled by
+     * that method instead of the distinct value index.
+     */
+    private final boolean collectValuesOverridden;
+    /**
+     * Flag to indicate whether the distinct value index keeps the value of
+     * every row, to update the index incrementally for deleted and updated
+     * rows.
+     */
+    private boolean rowValueTrackingEnabled = false;
     /**
      * List of listeners that get informed if the value cache gets updated.
      */
@@ -79,6 +153,14 @@
      */
     protected final boolean lazyLoading;
 
+    /**
+     * Flag to indicate whether the columns should be processed in parallel on
+     * pre-building the value cache.
+     *
+     * @since 1.6
+     */
+    protected final boolean parallelCacheBuild;
+
     /**
      * Flag for enabling/disabling caching of filter combo box values.
      *
@@ -140,9 +222,46 @@ public FilterRowComboBoxDataProvider(
             Collection<T> baseCollection,
             IColumnAccessor<T> columnAccessor,
             boolean lazy) {
+        this(bodyLayer, baseCollection, columnAccessor, lazy, false);
+    }
+
+    /**
+     * @param bodyLayer
+     *            A layer in the body region. Usually the DataLayer or a layer
+     *            that is responsible for list event handling. Needed to
+     *            register ourself as listener for data changes.
+     * @param baseCollection
+     *            The base collection used to collect the unique values from.
+     *            This need to be a collection that is not filtered, otherwise
+     *            after modifications the content of the filter row combo boxes
+     *            will only contain the current visible (not filtered) elements.
+     * @param columnAccessor
+     *            The IColumnAccessor to be able to read the values out of the
+     *            base collection objects.
+     * @param lazy
+     *            <code>true</code> to configure this
+     *            {@link FilterRowComboBoxDataProvider} should load the combobox
+     *            values lazily, <code>false</code> to pre-build the value
+     *            cache.
+     * @param parallel
+     *            <code>true</code> if the columns should be processed in
+     *            parallel on pre-building the value cache,
+     *            <code>false</code> if they should be processed one after
+     *            the other. Only set to <code>true</code> if the given
+     *            {@link IColumnAccessor} supports concurrent reads.
+     * @since 1.6
+     */
+    public FilterRowComboBoxDataProvider(
+            ILayer bodyLayer,
+            Collection<T> baseCollection,
+            IColumnAccessor<T> columnAccessor,
+            boolean lazy,
+            boolean parallel) {
         this.baseCollection = baseCollection;
         this.columnAccessor = columnAccessor;
         this.lazyLoading = lazy;
+        this.parallelCacheBuild = parallel;
+        this.collectValuesOverridden = isCollectValuesOverridden();
 
         if (!this.lazyLoading) {
             // build the cache
@@ -155,13 +274,48 @@ public FilterRowComboBoxDataProvider(
     @Override
     public List<?> getValues(int columnIndex, int rowIndex) {
         if (this.cachingEnabled) {
-            List<?> result = this.valueCache.get(columnIndex);
-            if (result == null) {
-                result = collectValues(columnIndex);
-                this.valueCache.put(columnIndex, result);
-                if (isUpdateEventsEnabled()) {
-                    fireCacheUpdateEvent(buildUpdateEvent(columnIndex, null, result));
+            applyPendingReset();
+            firePendingUpdateEvents();
+
+            if (this.collectValuesOverridden) {
+                return getCollectedValues(columnIndex);
+            }
+
+            List<?> result = null;
+            boolean created = false;
+            for (int attempt = 1; result == null; attempt++) {
+                int snapshotModificationCount;
+                synchronized (this) {
+                    result = getCachedValues(columnIndex);
+                    if (result != null) {
+                        break;
+                    }
+                    snapshotModificationCount = this.modificationCount;
                 }
+
+                // the snapshot is taken without holding the lock of this
+                // provider, as it might acquire the lock of the base collection
+                ColumnValueIndex index = createValueIndex(columnIndex, getRowSnapshot());
+                synchronized (this) {
+                    if (this.valueIndexes.containsKey(columnIndex)) {
+                        // created concurrently
+                        continue;
+                    }
+                    if (snapshotModificationCount == this.modificationCount) {
+                        this.valueIndexes.put(columnIndex, index);
+                        result = index.getValues();
+                        this.valueCache.put(columnIndex, result);
+                        index.pollValuesChanged();
+                        created = true;
+                    } else if (attempt >= MAX_SNAPSHOT_ATTEMPTS) {
+                        // the base collection is changing constantly, so
+                        // return the collected values without caching them
+                        result = index.getValues();
+                    }
+                }
+            }
+            if (created && isUpdateEventsEnabled()) {
+                fireCacheUpdateEvent(buildUpdateEvent(columnIndex, null, result));
             }
             return result;
         } else {
@@ -170,11 +324,246 @@ public List<?> getValues(int columnIndex, int rowIndex) {
     }
 
     /**
-     * Builds the local value cache for all columns.
+     * Returns the cached values of the given column. The value cache is only
+     * updated from the distinct value index if the values changed, so changes
+     * applied via {@link #getValueCache()} are kept until the values of the
+     * column change. Needs to be called while holding the lock of this
+     * provider.
+     *
+     * @return The cached values or <code>null</code> if the values of the
+     *         given column are not cached.
+     */
+    private List<?> getCachedValues(int columnIndex) {
+        ColumnValueIndex index = this.valueIndexes.get(columnIndex);
+        if (index != null
+                && (index.pollValuesChanged() || !this.valueCache.containsKey(columnIndex))) {
+            this.valueCache.put(columnIndex, index.getValues());
+        }
+        return this.valueCache.get(columnIndex);
+    }
+
+    /**
+     * Returns the cached values of the given column, or collects them via
+     * {@link #collectValues(int)} if they are not cached yet. Used if a
+     * subclass overrides {@link #collectValues(int)}.
+     */
+    private List<?> getCollectedValues(int columnIndex) {
+        List<?> result;
+        synchronized (this) {
+            result = this.valueCache.get(columnIndex);
+        }
+        if (result == null) {
+            result = collectValues(columnIndex);
+            synchronized (this) {
+                this.valueCache.put(columnIndex, result);
+            }
+            if (isUpdateEventsEnabled()) {
+                fireCacheUpdateEvent(buildUpdateEvent(columnIndex, null, result));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Collects the values for the given column in a background thread. The
+     * values are collected from a snapshot of the base collection that is
+     * taken in the calling thread. If the base collection changes before the
+     * values are collected, e.g. because it is a filtered collection whose
+     * filter changed, the request is cancelled and restarted with a new
+     * snapshot. Starting a new request for the same column cancels the
+     * previous one.
+     * <p>
+     * If caching is enabled and the values of the column are already cached,
+     * the callback is called directly.
+     * </p>
+     *
+     * @param columnIndex
+     *            The index of the column whose values should be collected.
+     * @param callback
+     *            The callback that should be called with the collected values.
+     * @since 1.6
+     */
+    public void loadValues(int columnIndex, IFilterRowComboValuesCallback callback) {
+        if (this.cachingEnabled) {
+            applyPendingReset();
+            firePendingUpdateEvents();
+        }
+
+        List<?> cachedValues = null;
+        int snapshotModificationCount;
+        synchronized (this) {
+            cancelLoadValues(columnIndex);
+
+            if (this.cachingEnabled) {
+                cachedValues = getCachedValues(columnIndex);
+            }
+            snapshotModificationCount = this.modificationCount;
+        }
+
+        if (cachedValues != null) {
+            callback.valuesCollected(columnIndex, cachedValues);
+            return;
+        }
+
+        ValueRequest request = null;
+        List<T> rows = null;
+        for (int attempt = 1; request == null; attempt++) {
+            // the snapshot is taken without holding the lock of this provider,
+            // as it might acquire the lock of the base collection
+            rows = getRowSnapshot();
+            synchronized (this) {
+                if (snapshotModificationCount == this.modificationCount) {
+                    // registered with the matching modification count, so
+                    // later changes restart the request
+                    request = new ValueRequest(columnIndex, callback, snapshotModificationCount, true);
+                } else if (attempt >= MAX_SNAPSHOT_ATTEMPTS) {
+                    // the base collection is changing constantly, so collect
+                    // the values without caching them
+                    request = new ValueRequest(columnIndex, callback, this.modificationCount, false);
+                } else {
+                    snapshotModificationCount = this.modificationCount;
+                    continue;
+                }
+                cancelLoadValues(columnIndex);
+                this.valueRequests.put(columnIndex, request);
+            }
+        }
+        request.start(rows);
+    }
+
+    /**
+     * Cancels the request for collecting the values of the given column that
+     * was started via
+     * {@link #loadValues(int, IFilterRowComboValuesCallback)}. The callback of
+     * a cancelled request is not called.
+     *
+     * @param columnIndex
+     *            The index of the column whose request should be cancelled.
+     * @since 1.6
+     */
+    public synchronized void cancelLoadValues(int columnIndex) {
+        ValueRequest request = this.valueRequests.remove(columnIndex);
+        if (request != null) {
+            request.cancel();
+        }
+    }
+
+    /**
+     * Increases the modification count. Needs to be called on every change of
+     * the base collection while holding the lock of this provider. The
+     * pending value requests are restarted by
+     * {@link #restartValueRequests()} after the lock is released.
+     */
+    private void baseCollectionChanged() {
+        this.modificationCount++;
+    }
+
+    /**
+     * Restarts the pending value requests whose snapshot is outdated with a
+     * new snapshot of the base collection. Must not be called while holding
+     * the lock of this provider, as taking the snapshot might acquire the
+     * lock of the base collection. If the base collection changes again in
+     * the meantime, the requests are restarted by the thread that performed
+     * that change.
+     */
+    private void restartValueRequests() {
+        int snapshotModificationCount;
+        synchronized (this) {
+            if (!hasOutdatedValueRequests()) {
+                return;
+            }
+            snapshotModificationCount = this.modificationCount;
+        }
+
+        List<T> rows = getRowSnapshot();
+        List<ValueRequest> requests = new ArrayList<ValueRequest>();
+        synchronized (this) {
+            if (snapshotModificationCount != this.modificationCount) {
+                return;
+            }
+            for (ValueRequest request : new ArrayList<ValueRequest>(this.valueRequests.values())) {
+                if (request.snapshotModificationCount != snapshotModificationCount) {
+                    request.cancel();
+                    ValueRequest restarted = new ValueRequest(
+                            request.columnIndex, request.callback, snapshotModificationCount, true);
+                    this.valueRequests.put(request.columnIndex, restarted);
+                    requests.add(restarted);
+                }
+            }
+        }
+        for (ValueRequest request : requests) {
+            request.start(rows);
+        }
+    }
+
+    private boolean hasOutdatedValueRequests() {
+        for (ValueRequest request : this.valueRequests.values()) {
+            if (request.snapshotModificationCount != this.modificationCount) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the local value cache for all columns. If
+     * {@link #parallelCacheBuild} is set, the columns are processed in
+     * parallel by the shared {@link CalculationService}, therefore the
+     * {@link IColumnAccessor} needs to support concurrent reads in that case.
      */
     protected void buildValueCache() {
-        for (int i = 0; i < this.columnAccessor.getColumnCount(); i++) {
-            this.valueCache.put(i, collectValues(i));
+        if (this.collectValuesOverridden) {
+            for (int i = 0; i < this.columnAccessor.getColumnCount(); i++) {
+                List<?> values = collectValues(i);
+                synchronized (this) {
+                    this.valueCache.put(i, values);
+                }
+            }
+            return;
+        }
+
+        final List<T> rows = getRowSnapshot();
+        int columnCount = this.columnAccessor.getColumnCount();
+        final ColumnValueIndex[] indexes = new ColumnValueIndex[columnCount];
+
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < columnCount; i++) {
+            final int columnIndex = i;
+            Runnable calculation = new Runnable() {
+                @Override
+                public void run() {
+                    indexes[columnIndex] = createValueIndex(columnIndex, rows);
+                    indexes[columnIndex].getValues();
+                }
+            };
+            // the first column is processed in the calling thread to
+            // initialize lazy lookups of the column accessor
+            Future<?> future = (i > 0 && this.parallelCacheBuild)
+                    ? CalculationService.getSharedInstance().execute(calculation)
+                    : null;
+            if (future != null) {
+                futures.add(future);
+            } else {
+                calculation.run();
+            }
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while collecting the filter row combo box values", e); //$NON-NLS-1$
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error while collecting the filter row combo box values", e.getCause()); //$NON-NLS-1$
+        }
+
+        synchronized (this) {
+            for (int i = 0; i < columnCount; i++) {
+                this.valueIndexes.put(i, indexes[i]);
+                this.valueCache.put(i, indexes[i].getValues());
+            }
         }
     }
 
@@ -191,16 +580,23 @@ public Collection<Integer> getCachedColumnIndexes() {
 
     /**
      * Iterates over all rows of the local body IDataProvider and collects the
-     * unique values for the given column index.
+     * unique values for the given column index. Used if caching is disabled.
+     * <p>
+     * If a subclass overrides this method, it is also used to fill the value
+     * cache, and the values of a column are collected again on every change of
+     * that column instead of updating a distinct value index. In that case the
+     * method is called in a background thread by
+     * {@link #loadValues(int, IFilterRowComboValuesCallback)}, so the base
+     * collection needs to support reads from that thread.
+     * </p>
      *
      * @param columnIndex
      *            The column index for which the values should be collected
      * @return List of all unique values that are contained in the body
      *         IDataProvider for the given column.
      */
-    @SuppressWarnings({ "rawtypes", "unchecked" })
     protected List<?> collectValues(int columnIndex) {
-        Set uniqueValues = new HashSet();
+        Set<Object> uniqueValues = new HashSet<Object>();
 
         boolean nullFound = false;
         for (T rowObject : this.baseCollection) {
@@ -212,6 +608,16 @@ protected List<?> collectValues(int columnIndex) {
             }
         }
 
+        return toSortedList(uniqueValues, nullFound);
+    }
+
+    /**
+     * Creates the sorted list of combo box values. The values are only sorted
+     * if they are {@link Comparable}, a <code>null</code> value is always
+     * added as first value.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static List<?> toSortedList(Collection<?> uniqueValues, boolean nullFound) {
         List result = new ArrayList(uniqueValues);
         if (!result.isEmpty() && result.get(0) instanceof Comparable) {
             Collections.sort(result);
@@ -224,6 +630,48 @@ protected List<?> collectValues(int columnIndex) {
         return result;
     }
 
+    /**
+     * Creates a copy of the base collection that can be accessed by index and
+     * is not modified while the values are collected. Subclasses can override
+     * this method to acquire a lock of the base collection while copying. It
+     * is never called while holding the lock of this provider, so acquiring
+     * the lock of the base collection can not deadlock with a thread that
+     * changes the base collection and updates this provider.
+     *
+     * @return A copy of the base collection.
+     * @since 1.6
+     */
+    protected List<T> getRowSnapshot() {
+        return new ArrayList<T>(this.baseCollection);
+    }
+
+    /**
+     * Creates the distinct value index for the given column.
+     */
+    private ColumnValueIndex createValueIndex(int columnIndex, List<T> rows) {
+        ColumnValueIndex index = new ColumnValueIndex();
+        index.reset(readColumnValues(columnIndex, rows), this.rowValueTrackingEnabled);
+        index.pollChanges(columnIndex);
+        index.pollValuesChanged();
+        return index;
+    }
+
+    /**
+     * Checks if a subclass overrides {@link #collectValues(int)}, which is
+     * not used to build the distinct value index.
+     */
+    private boolean isCollectValuesOverridden() {
+        for (Class<?> type = getClass(); type != FilterRowComboBoxDataProvider.class; type = type.getSuperclass()) {
+            try {
+                type.getDeclaredMethod("collectValues", int.class); //$NON-NLS-1$
+                return true;
+            } catch (NoSuchMethodException e) {
+                // not overridden in this class
+            }
+        }
+        return false;
+    }
+
     @Override
     public void handleLayerEvent(ILayerEvent event) {
         // we only need to perform event handling if caching is enabled
@@ -231,35 +679,443 @@ public void handleLayerEvent(ILayerEvent event) {
             if (event instanceof CellVisualChangeEvent) {
                 // usually this is fired for data updates
                 // so we need to update the value cache for the updated column
-                int column = ((CellVisualChangeEvent) event).getColumnPosition();
-
-                List<?> cacheBefore = this.valueCache.get(column);
-
-                this.valueCache.put(column, collectValues(column));
-
-                if (isUpdateEventsEnabled()) {
-                    // get the diff and fire the event
-                    fireCacheUpdateEvent(buildUpdateEvent(column, cacheBefore, this.valueCache.get(column)));
+                CellVisualChangeEvent changeEvent = (CellVisualChangeEvent) event;
+                int column = changeEvent.getColumnPosition();
+                if (!getCachedColumnIndexes().contains(column)) {
+                    // create the index and inform about the values
+                    getValues(column, 0);
+                } else if (isBaseCollectionLayer(changeEvent.getLayer())) {
+                    updateRows(column, changeEvent.getRowPosition(), 1);
+                } else {
+                    recountColumn(column);
                 }
             } else if (event instanceof IStructuralChangeEvent
                     && ((IStructuralChangeEvent) event).isVerticalStructureChanged()) {
                 // a new row was added or a row was deleted
+                IStructuralChangeEvent structuralEvent = (IStructuralChangeEvent) event;
+                handleRowDiffs(isBaseCollectionLayer(structuralEvent.getLayer())
+                        ? structuralEvent.getRowDiffs()
+                        : null);
+            }
+        } else if (event instanceof CellVisualChangeEvent
+                || (event instanceof IStructuralChangeEvent
+                        && ((IStructuralChangeEvent) event).isVerticalStructureChanged())) {
+            synchronized (this) {
+                baseCollectionChanged();
+            }
+            restartValueRequests();
+        }
+    }
+
+    /**
+     * Checks if the row positions of the events fired by the given layer are
+     * the indexes of the rows in the base collection. This is the case for a
+     * {@link DataLayer} with a {@link ListDataProvider} that wraps the base
+     * collection. Positions of other layers, e.g. of a sorted or filtered
+     * collection, can not be used to update the value index incrementally.
+     *
+     * @param layer
+     *            The layer that fired the event.
+     * @return <code>true</code> if the row positions of the given layer are
+     *         the indexes in the base collection.
+     * @since 1.6
+     */
+    protected boolean isBaseCollectionLayer(ILayer layer) {
+        if (layer instanceof DataLayer) {
+            IDataProvider dataProvider = ((DataLayer) layer).getDataProvider();
+            return dataProvider instanceof ListDataProvider
+                    && ((ListDataProvider<?>) dataProvider).getList() == this.baseCollection;
+        }
+        return false;
+    }
+
+    /**
+     * Updates the value index of the cached columns for the given row diffs
+     * and fires the resulting {@link FilterRowComboUpdateEvent}s. If the diffs
+     * can not be applied, the value index is recounted.
+     *
+     * @param rowDiffs
+     *            The row diffs of a structural change whose positions are the
+     *            indexes in the base collection, can be <code>null</code> if
+     *            the structure changed completely or the positions can not be
+     *            mapped to the base collection.
+     * @since 1.6
+     */
+    protected void handleRowDiffs(Collection<StructuralDiff> rowDiffs) {
+        synchronized (this) {
+            baseCollectionChanged();
+            if (!applyRowDiffs(rowDiffs)) {
+                resetValueIndexes();
+            }
+        }
+        fireValueCacheUpdates();
+    }
+
+    private boolean applyRowDiffs(Collection<StructuralDiff> rowDiffs) {
+        if (rowDiffs == null || !(this.baseCollection instanceof List) || this.valueIndexes.isEmpty()) {
+            return false;
+        }
+
+        List<StructuralDiff> deletes = new ArrayList<StructuralDiff>();
+        List<StructuralDiff> adds = new ArrayList<StructuralDiff>();
+        for (StructuralDiff diff : rowDiffs) {
+            if (diff.getDiffType() == DiffTypeEnum.DELETE) {
+                deletes.add(diff);
+            } else if (diff.getDiffType() == DiffTypeEnum.ADD) {
+                adds.add(diff);
+            } else {
+                Range range = diff.getAfterPositionRange();
+                updateRowsInternal(range.start, range.end - range.start);
+            }
+        }
+        if (!deletes.isEmpty() && !adds.isEmpty()) {
+            return false;
+        }
+
+        // the delete ranges are based on the positions before the change,
+        // the add ranges on the positions after the change
+        Collections.sort(deletes, DIFF_COMPARATOR);
+        for (int i = deletes.size() - 1; i >= 0; i--) {
+            Range range = deletes.get(i).getBeforePositionRange();
+            for (ColumnValueIndex index : this.valueIndexes.values()) {
+                if (!index.remove(range.start, range.end - range.start)) {
+                    return false;
+                }
+            }
+        }
+        Collections.sort(adds, DIFF_COMPARATOR);
+        for (StructuralDiff diff : adds) {
+            Range range = diff.getAfterPositionRange();
+            if (!insertRowsInternal(range.start, range.end - range.start)) {
+                return false;
+            }
+        }
+
+        for (ColumnValueIndex index : this.valueIndexes.values()) {
+            if (index.size() != this.baseCollection.size()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Updates the value index of the cached columns for inserted rows. Only
+     * supported if the base collection is a {@link List}, otherwise the values
+     * are recounted. Call {@link #fireValueCacheUpdates()} afterwards to
+     * update the value cache and inform the listeners.
+     *
+     * @param rowIndex
+     *            The index of the first inserted row in the base collection.
+     * @param count
+     *            The number of inserted rows.
+     * @since 1.6
+     */
+    protected synchronized void rowsInserted(int rowIndex, int count) {
+        baseCollectionChanged();
+        if (this.collectValuesOverridden || !insertRowsInternal(rowIndex, count)) {
+            resetValueIndexes();
+        }
+    }
+
+    /**
+     * Updates the value index of the cached columns for deleted rows. Call
+     * {@link #fireValueCacheUpdates()} afterwards to update the value cache
+     * and inform the listeners.
+     *
+     * @param rowIndex
+     *            The index of the first deleted row in the base collection
+     *            before the deletion.
+     * @param count
+     *            The number of deleted rows.
+     * @since 1.6
+     */
+    protected synchronized void rowsDeleted(int rowIndex, int count) {
+        baseCollectionChanged();
+        if (this.collectValuesOverridden) {
+            resetValueIndexes();
+        }
+        for (ColumnValueIndex index : this.valueIndexes.values()) {
+            if (!index.remove(rowIndex, count)) {
+                resetValueIndexes();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Updates the value index of the cached columns for updated rows. Only
+     * supported if the base collection is a {@link List}, otherwise the values
+     * are recounted. Call {@link #fireValueCacheUpdates()} afterwards to
+     * update the value cache and inform the listeners.
+     *
+     * @param rowIndex
+     *            The index of the first updated row in the base collection.
+     * @param count
+     *            The number of updated rows.
+     * @since 1.6
+     */
+    protected synchronized void rowsUpdated(int rowIndex, int count) {
+        baseCollectionChanged();
+        if (this.collectValuesOverridden) {
+            resetValueIndexes();
+        }
+        updateRowsInternal(rowIndex, count);
+    }
+
+    /**
+     * Recounts the values of the cached columns from the base collection, e.g.
+     * if the order of the rows changed. Call {@link #fireValueCacheUpdates()}
+     * afterwards to update the value cache and inform the listeners.
+     *
+     * @since 1.6
+     */
+    protected synchronized void recountValues() {
+        baseCollectionChanged();
+        resetValueIndexes();
+    }
+
+    /**
+     * Recounts the value index of the given column from the base collection
+     * and fires the resulting {@link FilterRowComboUpdateEvent}s, e.g. if a
+     * value of the column was updated at a row whose index in the base
+     * collection is not known.
+     *
+     * @param columnIndex
+     *            The index of the column whose values were updated.
+     * @since 1.6
+     */
+    protected void recountColumn(int columnIndex) {
+        synchronized (this) {
+            baseCollectionChanged();
+            if (this.valueCache.containsKey(columnIndex) || this.valueIndexes.containsKey(columnIndex)) {
+                this.resetColumns.add(columnIndex);
+            }
+        }
+        fireValueCacheUpdates();
+    }
+
+    /**
+     * Updates the value index of the given column for updated rows and fires
+     * the resulting {@link FilterRowComboUpdateEvent}s.
+     *
+     * @param columnIndex
+     *            The index of the column whose values were updated.
+     * @param rowIndex
+     *            The index of the first updated row in the base collection.
+     * @param count
+     *            The number of updated rows.
+     * @since 1.6
+     */
+    protected void updateRows(int columnIndex, int rowIndex, int count) {
+        synchronized (this) {
+            baseCollectionChanged();
+            ColumnValueIndex index = this.valueIndexes.get(columnIndex);
+            if (index != null && !updateRowsInternal(columnIndex, index, rowIndex, count)) {
+                resetValueIndexes();
+            } else if (this.collectValuesOverridden && this.valueCache.containsKey(columnIndex)) {
+                this.resetColumns.add(columnIndex);
+            }
+        }
+        fireValueCacheUpdates();
+    }
+
+    private boolean insertRowsInternal(int rowIndex, int count) {
+        if (!(this.baseCollection instanceof List)) {
+            return false;
+        }
+        List<T> rows = (List<T>) this.baseCollection;
+        if (rowIndex < 0 || rowIndex + count > rows.size()) {
+            return false;
+        }
+        for (Map.Entry<Integer, ColumnValueIndex> entry : this.valueIndexes.entrySet()) {
+            Object[] values = new Object[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = this.columnAccessor.getDataValue(rows.get(rowIndex + i), entry.getKey());
+            }
+            if (!entry.getValue().insert(rowIndex, values)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void updateRowsInternal(int rowIndex, int count) {
+        for (Map.Entry<Integer, ColumnValueIndex> entry : this.valueIndexes.entrySet()) {
+            if (!updateRowsInternal(entry.getKey(), entry.getValue(), rowIndex, count)) {
+                resetValueIndexes();
+                return;
+            }
+        }
+    }
+
+    private boolean updateRowsInternal(int columnIndex, ColumnValueIndex index, int rowIndex, int count) {
+        if (!(this.baseCollection instanceof List)) {
+            return false;
+        }
+        List<T> rows = (List<T>) this.baseCollection;
+        if (rowIndex < 0 || rowIndex + count > rows.size() || rowIndex + count > index.size()) {
+            return false;
+        }
+        if (!index.isRowValueTracking()) {
+            // the previous values are not known, so the column is recounted
+            this.resetColumns.add(columnIndex);
+            return true;
+        }
+        for (int i = rowIndex; i < rowIndex + count; i++) {
+            index.set(i, this.columnAccessor.getDataValue(rows.get(i), columnIndex));
+        }
+        return true;
+    }
+
+    /**
+     * Marks the value index of all cached columns to be recounted from the
+     * base collection. Called while holding the lock of this provider, the
+     * recount is performed by {@link #applyPendingReset()} after the lock is
+     * released.
+     */
+    private void resetValueIndexes() {
+        this.resetColumns.addAll(this.collectValuesOverridden ? this.valueCache.keySet() : this.valueIndexes.keySet());
+    }
+
+    /**
+     * Recounts the value index of the columns that are marked for a reset
+     * from a new snapshot of the base collection. Must not be called while
+     * holding the lock of this provider, as taking the snapshot might acquire
+     * the lock of the base collection. If the base collection changes while
+     * the values are collected, the result is discarded and the recount is
+     * left to the thread that performed that change.
+     */
+    private void applyPendingReset() {
+        int snapshotModificationCount;
+        List<Integer> columns;
+        synchronized (this) {
+            if (this.resetColumns.isEmpty()) {
+                return;
+            }
+            snapshotModificationCount = this.modificationCount;
+            columns = new ArrayList<Integer>(this.resetColumns);
+        }
+
+        if (this.collectValuesOverridden) {
+            applyPendingCollect(snapshotModificationCount, columns);
+            return;
+        }
 
-                // remember the cache before updating
-                Map<Integer, List<?>> cacheBefore = new HashMap<Integer, List<?>>(this.valueCache);
+        List<T> rows = getRowSnapshot();
+        Map<Integer, Object[]> columnValues = new HashMap<Integer, Object[]>();
+        for (Integer column : columns) {
+            columnValues.put(column, readColumnValues(column, rows));
+        }
 
-                // perform a refresh of the whole cache
-                this.valueCache.clear();
-                if (!this.lazyLoading) {
-                    buildValueCache();
+        synchronized (this) {
+            if (snapshotModificationCount == this.modificationCount) {
+                for (Integer column : this.resetColumns) {
+                    ColumnValueIndex index = this.valueIndexes.get(column);
+                    if (index != null) {
+                        Object[] values = columnValues.get(column);
+                        index.reset(values != null ? values : readColumnValues(column, rows), this.rowValueTrackingEnabled);
+                    }
                 }
+                this.resetColumns.clear();
+            }
+        }
+    }
 
-                if (isUpdateEventsEnabled()) {
-                    // fire events for every column
-                    for (Map.Entry<Integer, List<?>> entry : cacheBefore.entrySet()) {
-                        fireCacheUpdateEvent(buildUpdateEvent(entry.getKey(), entry.getValue(), this.valueCache.get(entry.getKey())));
+    /**
+     * Collects the values of the given columns again via
+     * {@link #collectValues(int)} and registers the resulting
+     * {@link FilterRowComboUpdateEvent}s to be fired by
+     * {@link #firePendingUpdateEvents()}. Used instead of recounting the
+     * distinct value index if a subclass overrides
+     * {@link #collectValues(int)}.
+     */
+    private void applyPendingCollect(int snapshotModificationCount, List<Integer> columns) {
+        Map<Integer, List<?>> columnValues = new HashMap<Integer, List<?>>();
+        for (Integer column : columns) {
+            columnValues.put(column, collectValues(column));
+        }
+
+        synchronized (this) {
+            if (snapshotModificationCount == this.modificationCount) {
+                for (Map.Entry<Integer, List<?>> entry : columnValues.entrySet()) {
+                    List<?> cacheBefore = this.valueCache.put(entry.getKey(), entry.getValue());
+                    if (isUpdateEventsEnabled()) {
+                        addPendingUpdateEvent(buildUpdateEvent(entry.getKey(), cacheBefore, entry.getValue()));
                     }
                 }
+                this.resetColumns.removeAll(columnValues.keySet());
+            }
+        }
+    }
+
+    /**
+     * Registers the given event to be fired by
+     * {@link #firePendingUpdateEvents()}. If an event for the same column is
+     * already pending, both events are combined.
+     */
+    private void addPendingUpdateEvent(FilterRowComboUpdateEvent event) {
+        if (event == null) {
+            return;
+        }
+        FilterRowComboUpdateEvent pending = this.pendingUpdateEvents.get(event.getColumnIndex());
+        if (pending != null) {
+            Set<Object> addedValues = new HashSet<Object>(pending.getAddedItems());
+            Set<Object> removedValues = new HashSet<Object>(pending.getRemovedItems());
+            for (Object value : event.getAddedItems()) {
+                if (!removedValues.remove(value)) {
+                    addedValues.add(value);
+                }
+            }
+            for (Object value : event.getRemovedItems()) {
+                if (!addedValues.remove(value)) {
+                    removedValues.add(value);
+                }
+            }
+            event = new FilterRowComboUpdateEvent(event.getColumnIndex(), addedValues, removedValues);
+        }
+        this.pendingUpdateEvents.put(event.getColumnIndex(), event);
+    }
+
+    private Object[] readColumnValues(int columnIndex, List<T> rows) {
+        Object[] values = new Object[rows.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = this.columnAccessor.getDataValue(rows.get(i), columnIndex);
+        }
+        return values;
+    }
+
+    /**
+     * Updates the value cache for all columns whose distinct values changed
+     * since the last call and fires the corresponding
+     * {@link FilterRowComboUpdateEvent}s. Pending recounts and restarts of
+     * value requests caused by changes of the base collection are performed
+     * before. Must not be called while holding the lock of this provider.
+     *
+     * @since 1.6
+     */
+    protected void fireValueCacheUpdates() {
+        applyPendingReset();
+        restartValueRequests();
+        // the events of caches created in the background need to be fired
+        // before the changes of these caches
+        firePendingUpdateEvents();
+
+        List<FilterRowComboUpdateEvent> events = new ArrayList<FilterRowComboUpdateEvent>();
+        synchronized (this) {
+            for (Map.Entry<Integer, ColumnValueIndex> entry : this.valueIndexes.entrySet()) {
+                if (entry.getValue().pollValuesChanged()) {
+                    this.valueCache.put(entry.getKey(), entry.getValue().getValues());
+                }
+                FilterRowComboUpdateEvent event = entry.getValue().pollChanges(entry.getKey());
+                if (event != null) {
+                    events.add(event);
+                }
+            }
+        }
+        if (isUpdateEventsEnabled()) {
+            for (FilterRowComboUpdateEvent event : events) {
+                fireCacheUpdateEvent(event);
             }
         }
     }
@@ -327,6 +1183,32 @@ protected void fireCacheUpdateEvent(FilterRowComboUpdateEvent event) {
         }
     }
 
+    /**
+     * Fires the {@link FilterRowComboUpdateEvent}s for the value caches that
+     * were created in a background thread by
+     * {@link #loadValues(int, IFilterRowComboValuesCallback)}. The events are
+     * not fired in the background thread, as the listeners usually update
+     * state that is used in the UI thread, e.g. the filter collection of the
+     * ComboBoxFilterRowHeaderComposite. Should therefore be called in the UI
+     * thread once the values are collected. Is also called on accessing the
+     * values and on updating the value cache.
+     *
+     * @since 1.6
+     */
+    public void firePendingUpdateEvents() {
+        List<FilterRowComboUpdateEvent> events;
+        synchronized (this) {
+            if (this.pendingUpdateEvents.isEmpty()) {
+                return;
+            }
+            events = new ArrayList<FilterRowComboUpdateEvent>(this.pendingUpdateEvents.values());
+            this.pendingUpdateEvents.clear();
+        }
+        for (FilterRowComboUpdateEvent event : events) {
+            fireCacheUpdateEvent(event);
+        }
+    }
+
     /**
      * Adds the given listener to the list of listeners for value cache updates.
      *
@@ -348,13 +1230,22 @@ public void removeCacheUdpateListener(IFilterRowComboUpdateListener listener) {
         this.cacheUpdateListener.remove(listener);
     }
 
+    /**
+     * @return The base collection used to collect the unique values from.
+     * @since 1.6
+     */
+    protected Collection<T> getBaseCollection() {
+        return this.baseCollection;
+    }
+
     /**
      * @return The local cache for the values to show in the filter row
      *         combobox. This is needed because otherwise the calculation of the
      *         necessary values would happen everytime the combobox is opened
      *         and if a filter is applied using GlazedLists for example, the
      *         combobox would only contain the value which is currently used for
-     *         filtering.
+     *         filtering. Changes applied to the returned map are kept until
+     *         the values of the changed column change.
      */
     protected Map<Integer, List<?>> getValueCache() {
         return this.valueCache;
@@ -391,13 +1282,65 @@ public void setCachingEnabled(boolean cachingEnabled) {
         this.cachingEnabled = cachingEnabled;
     }
 
+    /**
+     *
+     * @return <code>true</code> if the value of every row is tracked to update
+     *         the value cache incrementally for deleted and updated rows,
+     *         <code>false</code> if the affected columns are recounted.
+     * @since 1.6
+     */
+    public synchronized boolean isRowValueTrackingEnabled() {
+        return this.rowValueTrackingEnabled;
+    }
+
+    /**
+     * Enable/disable tracking the value of every row. By default the tracking
+     * is disabled.
+     * <p>
+     * The value cache is updated incrementally for inserted rows. For deleted
+     * and updated rows the previous values are needed to update the reference
+     * counts of the distinct values, so without tracking the affected columns
+     * are recounted from the base collection. With tracking enabled, one
+     * reference per row is kept for every cached column, e.g. 48 million
+     * references for 800,000 rows and 60 columns, so it should only be enabled
+     * if rows are deleted or updated frequently in a table whose memory
+     * consumption is not an issue. The cached columns are recounted once on
+     * changing this setting.
+     * </p>
+     * <p>
+     * Has no effect if a subclass overrides {@link #collectValues(int)}.
+     * </p>
+     *
+     * @param rowValueTrackingEnabled
+     *            <code>true</code> to track the value of every row,
+     *            <code>false</code> to recount the affected columns on
+     *            deleting and updating rows.
+     * @since 1.6
+     */
+    public void setRowValueTrackingEnabled(boolean rowValueTrackingEnabled) {
+        synchronized (this) {
+            if (this.rowValueTrackingEnabled == rowValueTrackingEnabled) {
+                return;
+            }
+            this.rowValueTrackingEnabled = rowValueTrackingEnabled;
+            baseCollectionChanged();
+            resetValueIndexes();
+        }
+        fireValueCacheUpdates();
+    }
+
     /**
      * Cleanup acquired resources.
      *
      * @since 1.5
      */
     public void dispose() {
-        // nothing to do here
+        synchronized (this) {
+            for (ValueRequest request : this.valueRequests.values()) {
+                request.cancel();
+            }
+            this.valueRequests.clear();
+        }
     }
 
     /**
@@ -452,4 +1395,275 @@ public void enableUpdateEvents() {
     public void disableUpdateEvents() {
         this.updateEventsEnabled = false;
     }
+
+    /**
+     * Request for collecting the values of a column in a background thread.
+     */
+    private class ValueRequest implements Runnable {
+
+        final int columnIndex;
+        final IFilterRowComboValuesCallback callback;
+
+        final int snapshotModificationCount;
+        final boolean cacheable;
+
+        private List<T> rows;
+        private Future<?> future;
+        private volatile boolean cancelled;
+
+        ValueRequest(int columnIndex, IFilterRowComboValuesCallback callback,
+                int snapshotModificationCount, boolean cacheable) {
+            this.columnIndex = columnIndex;
+            this.callback = callback;
+            this.snapshotModificationCount = snapshotModificationCount;
+            this.cacheable = cacheable;
+        }
+
+        void start(List<T> rows) {
+            this.rows = rows;
+            this.future = CalculationService.getSharedInstance().execute(this);
+            if (this.future == null) {
+                // rejected, so collect the values in the calling thread
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            if (this.cancelled) {
+                return;
+            }
+            FilterRowComboBoxDataProvider<T> provider = FilterRowComboBoxDataProvider.this;
+            ColumnValueIndex index = null;
+            List<?> values;
+            if (provider.collectValuesOverridden) {
+                values = collectValues(this.columnIndex);
+            } else {
+                index = createValueIndex(this.columnIndex, this.rows);
+                values = index.getValues();
+            }
+            this.rows = null;
+
+            synchronized (provider) {
+                if (this.cancelled) {
+                    return;
+                }
+                if (this.snapshotModificationCount != provider.modificationCount) {
+                    // the snapshot is outdated, the request is restarted by
+                    // the thread that changed the base collection
+                    return;
+                }
+                if (provider.valueRequests.get(this.columnIndex) == this) {
+                    provider.valueRequests.remove(this.columnIndex);
+                }
+                if (this.cacheable
+                        && provider.cachingEnabled
+                        && !provider.valueCache.containsKey(this.columnIndex)
+                        && !provider.valueIndexes.containsKey(this.columnIndex)) {
+                    if (index != null) {
+                        provider.valueIndexes.put(this.columnIndex, index);
+                    }
+                    provider.valueCache.put(this.columnIndex, values);
+                    if (isUpdateEventsEnabled()) {
+                        // fired in the UI thread via firePendingUpdateEvents()
+                        addPendingUpdateEvent(buildUpdateEvent(this.columnIndex, null, values));
+                    }
+                }
+            }
+
+            this.callback.valuesCollected(this.columnIndex, values);
+        }
+
+        void cancel() {
+            this.cancelled = true;
+            if (this.future != null) {
+                this.future.cancel(false);
+            }
+        }
+    }
+
+    private static final Comparator<StructuralDiff> DIFF_COMPARATOR = new Comparator<StructuralDiff>() {
+        @Override
+        public int compare(StructuralDiff diff1, StructuralDiff diff2) {
+            Range range1 = diff1.getDiffType() == DiffTypeEnum.DELETE
+                    ? diff1.getBeforePositionRange()
+                    : diff1.getAfterPositionRange();
+            Range range2 = diff2.getDiffType() == DiffTypeEnum.DELETE
+                    ? diff2.getBeforePositionRange()
+                    : diff2.getAfterPositionRange();
+            return range1.start - range2.start;
+        }
+    };
+
+    /**
+     * Reference counted index of the distinct values of a column. Optionally
+     * keeps the value of every row to be able to update the reference counts
+     * for deleted and updated rows, and collects the values that were added or
+     * removed since the last call to {@link #pollChanges(int)}.
+     */
+    private static class ColumnValueIndex {
+
+        /**
+         * The value of every row, <code>null</code> if the row values are not
+         * tracked.
+         */
+        private List<Object> rowValues;
+        private int size;
+        private Map<Object, int[]> counts = new HashMap<Object, int[]>();
+        private boolean valuesChanged;
+
+        private final Set<Object> addedValues = new HashSet<Object>();
+        private final Set<Object> removedValues = new HashSet<Object>();
+
+        private List<?> values;
+
+        int size() {
+            return this.size;
+        }
+
+        boolean isRowValueTracking() {
+            return this.rowValues != null;
+        }
+
+        boolean insert(int rowIndex, Object[] newValues) {
+            if (rowIndex < 0 || rowIndex > this.size) {
+                return false;
+            }
+            if (this.rowValues != null) {
+                this.rowValues.addAll(rowIndex, Arrays.asList(newValues));
+            }
+            this.size += newValues.length;
+            for (Object value : newValues) {
+                increment(value);
+            }
+            return true;
+        }
+
+        /**
+         * @return <code>false</code> if the rows could not be removed, e.g.
+         *         because the row values are not tracked, so the index needs
+         *         to be recounted.
+         */
+        boolean remove(int rowIndex, int count) {
+            if (this.rowValues == null || rowIndex < 0 || rowIndex + count > this.size) {
+                return false;
+            }
+            List<Object> removed = this.rowValues.subList(rowIndex, rowIndex + count);
+            for (Object value : removed) {
+                decrement(value);
+            }
+            removed.clear();
+            this.size -= count;
+            return true;
+        }
+
+        void set(int rowIndex, Object value) {
+            Object oldValue = this.rowValues.set(rowIndex, value);
+            if (oldValue == null ? value != null : !oldValue.equals(value)) {
+                increment(value);
+                decrement(oldValue);
+            }
+        }
+
+        void reset(Object[] newValues, boolean trackRowValues) {
+            Map<Object, int[]> newCounts = new HashMap<Object, int[]>();
+            for (Object value : newValues) {
+                int[] count = newCounts.get(value);
+                if (count == null) {
+                    newCounts.put(value, new int[] { 1 });
+                } else {
+                    count[0]++;
+                }
+            }
+
+            for (Object value : this.counts.keySet()) {
+                if (!newCounts.containsKey(value)) {
+                    valueRemoved(value);
+                }
+            }
+            for (Object value : newCounts.keySet()) {
+                if (!this.counts.containsKey(value)) {
+                    valueAdded(value);
+                }
+            }
+
+            this.counts = newCounts;
+            this.rowValues = trackRowValues ? new ArrayList<Object>(Arrays.asList(newValues)) : null;
+            this.size = newValues.length;
+        }
+
+        private void increment(Object value) {
+            int[] count = this.counts.get(value);
+            if (count == null) {
+                this.counts.put(value, new int[] { 1 });
+                valueAdded(value);
+            } else {
+                count[0]++;
+            }
+        }
+
+        private void decrement(Object value) {
+            int[] count = this.counts.get(value);
+            if (count != null && --count[0] == 0) {
+                this.counts.remove(value);
+                valueRemoved(value);
+            }
+        }
+
+        private void valueAdded(Object value) {
+            if (!this.removedValues.remove(value)) {
+                this.addedValues.add(value);
+            }
+            this.values = null;
+            this.valuesChanged = true;
+        }
+
+        private void valueRemoved(Object value) {
+            if (!this.addedValues.remove(value)) {
+                this.removedValues.add(value);
+            }
+            this.values = null;
+            this.valuesChanged = true;
+        }
+
+        /**
+         * @return The sorted distinct values, <code>null</code> as first
+         *         value if contained.
+         */
+        List<?> getValues() {
+            if (this.values == null) {
+                List<Object> uniqueValues = new ArrayList<Object>(this.counts.keySet());
+                boolean nullFound = uniqueValues.remove(null);
+                this.values = toSortedList(uniqueValues, nullFound);
+            }
+            return this.values;
+        }
+
+        /**
+         * @return <code>true</code> if the distinct values changed since the
+         *         last call.
+         */
+        boolean pollValuesChanged() {
+            boolean changed = this.valuesChanged;
+            this.valuesChanged = false;
+            return changed;
+        }
+
+        /**
+         * @return The event for the values that were added or removed since
+         *         the last call, or <code>null</code> if nothing changed.
+         */
+        FilterRowComboUpdateEvent pollChanges(int columnIndex) {
+            if (this.addedValues.isEmpty() && this.removedValues.isEmpty()) {
+                return null;
+            }
+            FilterRowComboUpdateEvent event = new FilterRowComboUpdateEvent(
+                    columnIndex,
+                    new HashSet<Object>(this.addedValues),
+                    new HashSet<Object>(this.removedValues));
+            this.addedValues.clear();
+            this.removedValues.clear();
+            return event;
+        }
+    }
 }
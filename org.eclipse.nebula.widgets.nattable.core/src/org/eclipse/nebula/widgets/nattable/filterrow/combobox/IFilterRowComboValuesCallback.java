@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.filterrow.combobox;
+
+import java.util.List;
+
+/**
+ * Callback that gets informed about the values of a column that were collected
+ * by
+ * {@link FilterRowComboBoxDataProvider#loadValues(int, IFilterRowComboValuesCallback)}.
+ *
+ * @since 1.6
+ */
+public interface IFilterRowComboValuesCallback {
+
+    /**
+     * Called with the collected values. If the values were not available
+     * directly, this method is called in the background thread that collected
+     * the values. In that case the update event for the created value cache
+     * is not fired yet, so implementations should call
+     * {@link FilterRowComboBoxDataProvider#firePendingUpdateEvents()} in the
+     * UI thread.
+     *
+     * @param columnIndex
+     *            The index of the column whose values were collected.
+     * @param values
+     *            The distinct values of the column.
+     */
+    void valuesCollected(int columnIndex, List<?> values);
+}
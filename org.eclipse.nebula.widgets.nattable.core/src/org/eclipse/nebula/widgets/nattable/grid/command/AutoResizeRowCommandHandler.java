@@ -15,6 +15,7 @@
 import org.eclipse.nebula.widgets.nattable.layer.ILayer;
 import org.eclipse.nebula.widgets.nattable.print.command.TurnViewportOffCommand;
 import org.eclipse.nebula.widgets.nattable.print.command.TurnViewportOnCommand;
+import org.eclipse.nebula.widgets.nattable.resize.CellBoundsSampling;
 import org.eclipse.nebula.widgets.nattable.resize.MaxCellBoundsHelper;
 import org.eclipse.nebula.widgets.nattable.resize.command.AutoResizeRowsCommand;
 import org.eclipse.nebula.widgets.nattable.resize.command.InitializeAutoResizeRowsCommand;
@@ -43,6 +44,14 @@ public class AutoResizeRowCommandHandler implements ILayerCommandHandler<AutoRes
      * layer stack.
      */
     protected final ILayer positionLayer;
+    /**
+     * The {@link CellBoundsSampling} that is used to reduce the number of
+     * measured cells for huge tables. <code>null</code> if all cells should be
+     * measured.
+     *
+     * @since 1.6
+     */
+    protected CellBoundsSampling sampling;
 
     /**
      *
@@ -70,6 +79,29 @@ public AutoResizeRowCommandHandler(GridLayer gridLayer) {
         this.positionLayer = gridLayer.getBodyLayer();
     }
 
+    /**
+     * Configure the sampling of the cells that are measured on auto resizing.
+     * By default all cells of a row are measured, which can take a while
+     * for tables with a huge number of columns.
+     *
+     * @param sampling
+     *            The {@link CellBoundsSampling} that should be used, or
+     *            <code>null</code> if all cells should be measured.
+     * @since 1.6
+     */
+    public void setSampling(CellBoundsSampling sampling) {
+        this.sampling = sampling;
+    }
+
+    /**
+     * @return The {@link CellBoundsSampling} that is used on auto resizing,
+     *         or <code>null</code> if all cells are measured.
+     * @since 1.6
+     */
+    public CellBoundsSampling getSampling() {
+        return this.sampling;
+    }
+
     @Override
     public Class<AutoResizeRowsCommand> getCommandClass() {
         return AutoResizeRowsCommand.class;
@@ -88,7 +120,8 @@ public boolean doCommand(ILayer targetLayer, AutoResizeRowsCommand command) {
                 command.getConfigRegistry(),
                 command.getGCFactory(),
                 this.commandLayer,
-                gridRowPositions);
+                gridRowPositions,
+                this.sampling);
 
         // only perform further actions if the heights could be calculated
         // could fail and return null for example if the GCFactory fails
@@ -13,20 +13,22 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
 
 import org.eclipse.nebula.widgets.nattable.coordinate.PositionUtil;
 import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.coordinate.RangeSet;
 import org.eclipse.nebula.widgets.nattable.group.ColumnGroupModel.ColumnGroup;
 import org.eclipse.nebula.widgets.nattable.layer.AbstractLayerTransform;
 import org.eclipse.nebula.widgets.nattable.layer.ILayer;
 import org.eclipse.nebula.widgets.nattable.layer.IUniqueIndexLayer;
-import org.eclipse.nebula.widgets.nattable.layer.LayerUtil;
+import org.eclipse.nebula.widgets.nattable.layer.PositionOffsets;
 import org.eclipse.nebula.widgets.nattable.layer.event.ILayerEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.IStructuralChangeEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.StructuralChangeEventHelper;
+import org.eclipse.nebula.widgets.nattable.layer.event.StructuralDiff;
 import org.eclipse.nebula.widgets.nattable.reorder.event.ColumnReorderEvent;
 
 public abstract class AbstractColumnHideShowLayer extends AbstractLayerTransform implements IUniqueIndexLayer {
@@ -36,7 +38,16 @@ public abstract class AbstractColumnHideShowLayer extends AbstractLayerTransform
 
     private Map<Integer, Integer> cachedHiddenColumnIndexToPositionMap;
 
-    private final Map<Integer, Integer> startXCache = new HashMap<Integer, Integer>();
+    /**
+     * The last visible column index order that was built, used to determine
+     * the first column position whose offset changed on rebuilding the cache.
+     */
+    private List<Integer> previousVisibleColumnIndexOrder;
+
+    /**
+     * Index of the start x coordinates of the local column positions.
+     */
+    private final PositionOffsets columnOffsets = new PositionOffsets(this, true);
 
     public AbstractColumnHideShowLayer(IUniqueIndexLayer underlyingLayer) {
         super(underlyingLayer);
@@ -63,12 +74,46 @@ public void handleLayerEvent(ILayerEvent event) {
         if (event instanceof IStructuralChangeEvent) {
             IStructuralChangeEvent structuralChangeEvent = (IStructuralChangeEvent) event;
             if (structuralChangeEvent.isHorizontalStructureChanged()) {
-                invalidateCache();
+                Collection<StructuralDiff> columnDiffs = structuralChangeEvent.getColumnDiffs();
+                if (StructuralChangeEventHelper.isSizeChange(columnDiffs)) {
+                    if (this.columnOffsets.hasIndependentSizes()) {
+                        // only column widths have changed, the visible columns
+                        // stay the same so the column offsets can be updated
+                        // incrementally
+                        updateColumnOffsets(columnDiffs);
+                    } else {
+                        // with percentage sizing the other column widths
+                        // change too
+                        this.columnOffsets.invalidate();
+                    }
+                } else {
+                    if (columnDiffs != null && this.columnOffsets.hasUniformSizes()) {
+                        // all columns have the same width, so the offsets
+                        // are updated with the converted diffs before the
+                        // event is fired, custom widths are bound to
+                        // positions and require a rebuild
+                        this.columnOffsets.invalidate(event);
+                    }
+                    invalidateCache();
+                    if (!StructuralChangeEventHelper.isAddOrDelete(columnDiffs)) {
+                        // column widths might have changed without changing
+                        // the column indexes, e.g. on a refresh
+                        this.columnOffsets.invalidate();
+                    }
+                }
             }
         }
         super.handleLayerEvent(event);
     }
 
+    @Override
+    public void fireLayerEvent(ILayerEvent event) {
+        if (event instanceof IStructuralChangeEvent) {
+            this.columnOffsets.applyDiffs(event, ((IStructuralChangeEvent) event).getColumnDiffs());
+        }
+        super.fireLayerEvent(event);
+    }
+
     // Horizontal features
 
     // Columns
@@ -99,7 +144,7 @@ public int getColumnPositionByIndex(int columnIndex) {
     }
 
     public Collection<Integer> getColumnPositionsByIndexes(Collection<Integer> columnIndexes) {
-        Collection<Integer> columnPositions = new HashSet<Integer>();
+        RangeSet columnPositions = new RangeSet();
         for (int columnIndex : columnIndexes) {
             columnPositions.add(getColumnPositionByIndex(columnIndex));
         }
@@ -208,35 +253,41 @@ public int getWidth() {
 
     @Override
     public int getColumnPositionByX(int x) {
-        return LayerUtil.getColumnPositionByX(this, x);
+        return this.columnOffsets.getPositionByPixel(x);
     }
 
     @Override
     public int getStartXOfColumnPosition(int localColumnPosition) {
-        Integer cachedStartX = this.startXCache.get(localColumnPosition);
-        if (cachedStartX != null) {
-            return cachedStartX.intValue();
-        }
-
-        IUniqueIndexLayer underlyingLayer = (IUniqueIndexLayer) getUnderlyingLayer();
-        int underlyingPosition = localToUnderlyingColumnPosition(localColumnPosition);
-        if (underlyingPosition < 0) {
-            return -1;
-        }
-        int underlyingStartX = underlyingLayer.getStartXOfColumnPosition(underlyingPosition);
-        if (underlyingStartX < 0) {
+        if (localColumnPosition < 0 || localColumnPosition >= getColumnCount()) {
             return -1;
         }
+        return this.columnOffsets.getStartPixel(localColumnPosition);
+    }
 
-        for (Integer hiddenIndex : getHiddenColumnIndexes()) {
-            int hiddenPosition = underlyingLayer.getColumnPositionByIndex(hiddenIndex);
-            if (hiddenPosition <= underlyingPosition) {
-                underlyingStartX -= underlyingLayer.getColumnWidthByPosition(hiddenPosition);
+    /**
+     * Updates the column offsets for the column width changes described by the
+     * given diffs, which are based on the underlying layer.
+     *
+     * @param columnDiffs
+     *            The {@link StructuralDiff}s of type CHANGE in underlying
+     *            layer coordinates.
+     */
+    private void updateColumnOffsets(Collection<StructuralDiff> columnDiffs) {
+        ILayer underlyingLayer = getUnderlyingLayer();
+        Collection<Integer> localPositions = new ArrayList<Integer>();
+        for (StructuralDiff diff : columnDiffs) {
+            Range range = diff.getAfterPositionRange();
+            for (int underlyingPosition = range.start; underlyingPosition < range.end; underlyingPosition++) {
+                int columnIndex = underlyingLayer.getColumnIndexByPosition(underlyingPosition);
+                if (columnIndex >= 0 && !isColumnIndexHidden(columnIndex)) {
+                    int localPosition = getColumnPositionByIndex(columnIndex);
+                    if (localPosition >= 0) {
+                        localPositions.add(localPosition);
+                    }
+                }
             }
         }
-
-        this.startXCache.put(localColumnPosition, underlyingStartX);
-        return underlyingStartX;
+        this.columnOffsets.updateSizes(PositionUtil.getRanges(localPositions));
     }
 
     // Vertical features
@@ -282,7 +333,14 @@ public int getRowPositionByIndex(int rowIndex) {
     protected void invalidateCache() {
         this.cachedVisibleColumnIndexOrder = null;
         this.cachedVisibleColumnIndexPositionMap = null;
-        this.startXCache.clear();
+        if (this.columnOffsets.hasIndependentSizes()) {
+            // the offsets are invalidated from the first changed column
+            // position once the cache is rebuilt, which is always done before
+            // the offsets are rebuilt as they request the column count
+            this.columnOffsets.invalidateFrom(Integer.MAX_VALUE);
+        } else {
+            this.columnOffsets.invalidate();
+        }
     }
 
     private List<Integer> getCachedVisibleColumnIndexes() {
@@ -296,7 +354,6 @@ private void cacheVisibleColumnIndexes() {
         this.cachedVisibleColumnIndexOrder = new ArrayList<Integer>();
         this.cachedVisibleColumnIndexPositionMap = new HashMap<Integer, Integer>();
         this.cachedHiddenColumnIndexToPositionMap = new HashMap<Integer, Integer>();
-        this.startXCache.clear();
 
         ILayer underlyingLayer = getUnderlyingLayer();
         int columnPosition = 0;
@@ -311,6 +368,33 @@ private void cacheVisibleColumnIndexes() {
                 this.cachedHiddenColumnIndexToPositionMap.put(columnIndex, columnPosition);
             }
         }
+
+        invalidateColumnOffsets(this.previousVisibleColumnIndexOrder, this.cachedVisibleColumnIndexOrder);
+        this.previousVisibleColumnIndexOrder = this.cachedVisibleColumnIndexOrder;
+    }
+
+    /**
+     * Invalidates the column offsets starting at the first column position
+     * whose column index differs between the given index orders. The widths
+     * of the columns before are not affected as long as the column widths are
+     * independent of each other, otherwise all offsets are invalidated.
+     *
+     * @param previous
+     *            The visible column index order the column offsets were built
+     *            for, can be <code>null</code>.
+     * @param indexOrder
+     *            The new visible column index order.
+     */
+    private void invalidateColumnOffsets(List<Integer> previous, List<Integer> indexOrder) {
+        int firstChanged = 0;
+        if (previous != null && this.columnOffsets.hasIndependentSizes()) {
+            int count = Math.min(previous.size(), indexOrder.size());
+            while (firstChanged < count
+                    && previous.get(firstChanged).equals(indexOrder.get(firstChanged))) {
+                firstChanged++;
+            }
+        }
+        this.columnOffsets.invalidateFrom(firstChanged);
     }
 
 }
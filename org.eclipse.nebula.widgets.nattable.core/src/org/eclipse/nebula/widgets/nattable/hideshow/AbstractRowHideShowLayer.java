@@ -12,30 +12,47 @@
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
 
+import org.eclipse.nebula.widgets.nattable.coordinate.PositionUtil;
 import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.coordinate.RangeSet;
 import org.eclipse.nebula.widgets.nattable.layer.AbstractLayerTransform;
 import org.eclipse.nebula.widgets.nattable.layer.ILayer;
 import org.eclipse.nebula.widgets.nattable.layer.IUniqueIndexLayer;
-import org.eclipse.nebula.widgets.nattable.layer.LayerUtil;
+import org.eclipse.nebula.widgets.nattable.layer.PositionOffsets;
 import org.eclipse.nebula.widgets.nattable.layer.cell.ILayerCell;
 import org.eclipse.nebula.widgets.nattable.layer.cell.SpanningLayerCell;
 import org.eclipse.nebula.widgets.nattable.layer.event.ILayerEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.IStructuralChangeEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.StructuralChangeEventHelper;
+import org.eclipse.nebula.widgets.nattable.layer.event.StructuralDiff;
 import org.eclipse.nebula.widgets.nattable.layer.event.VisualRefreshEvent;
 
 public abstract class AbstractRowHideShowLayer extends AbstractLayerTransform implements IUniqueIndexLayer {
 
-    private Map<Integer, Integer> cachedVisibleRowIndexOrder;
-    private Map<Integer, Integer> cachedVisibleRowPositionOrder;
+    /**
+     * Mapping of the visible row positions to the row indexes of the
+     * underlying layer. Replaced on changes, so it can be read without
+     * locking.
+     */
+    private volatile IndexPositionMapping cachedRowMapping;
 
-    private Map<Integer, Integer> cachedHiddenRowIndexToPositionMap;
+    /**
+     * Modification counter used to avoid publishing a mapping that was
+     * invalidated while it was built.
+     */
+    private volatile int cacheModificationCount;
+
+    /**
+     * The last mapping that was built, used to determine the first row
+     * position whose offset changed on rebuilding the mapping.
+     */
+    private volatile IndexPositionMapping previousRowMapping;
 
-    private final Map<Integer, Integer> startYCache = new HashMap<Integer, Integer>();
+    /**
+     * Index of the start y coordinates of the local row positions.
+     */
+    private final PositionOffsets rowOffsets = new PositionOffsets(this, false);
 
     public AbstractRowHideShowLayer(IUniqueIndexLayer underlyingLayer) {
         super(underlyingLayer);
@@ -46,17 +63,52 @@ public void handleLayerEvent(ILayerEvent event) {
         if (event instanceof IStructuralChangeEvent) {
             IStructuralChangeEvent structuralChangeEvent = (IStructuralChangeEvent) event;
             if (structuralChangeEvent.isVerticalStructureChanged()) {
-                // vertical structure has changed, update cached row information
-                invalidateCache();
+                Collection<StructuralDiff> rowDiffs = structuralChangeEvent.getRowDiffs();
+                if (StructuralChangeEventHelper.isSizeChange(rowDiffs)) {
+                    if (this.rowOffsets.hasIndependentSizes()) {
+                        // only row heights have changed, the visible rows stay
+                        // the same so the row offsets can be updated
+                        // incrementally
+                        updateRowOffsets(rowDiffs);
+                    } else {
+                        // with percentage sizing the other row heights change
+                        // too
+                        this.rowOffsets.invalidate();
+                    }
+                } else {
+                    if (rowDiffs != null && this.rowOffsets.hasUniformSizes()) {
+                        // all rows have the same height, so the offsets are
+                        // updated with the converted diffs before the event is
+                        // fired, custom heights are bound to positions and
+                        // require a rebuild
+                        this.rowOffsets.invalidate(event);
+                    }
+                    // vertical structure has changed, update cached row
+                    // information
+                    invalidateCache();
+                    if (!StructuralChangeEventHelper.isAddOrDelete(rowDiffs)) {
+                        // row heights might have changed without changing the
+                        // row indexes, e.g. on a refresh
+                        this.rowOffsets.invalidate();
+                    }
+                }
             }
         } else if (event instanceof VisualRefreshEvent) {
-            // visual change, e.g. font change, the startYCache needs to be
+            // visual change, e.g. font change, the row offsets need to be
             // cleared in order to re-render correctly
-            this.startYCache.clear();
+            this.rowOffsets.invalidate();
         }
         super.handleLayerEvent(event);
     }
 
+    @Override
+    public void fireLayerEvent(ILayerEvent event) {
+        if (event instanceof IStructuralChangeEvent) {
+            this.rowOffsets.applyDiffs(event, ((IStructuralChangeEvent) event).getRowDiffs());
+        }
+        super.fireLayerEvent(event);
+    }
+
     // Horizontal features
 
     // Columns
@@ -72,31 +124,21 @@ public int getColumnPositionByIndex(int columnIndex) {
 
     @Override
     public int getRowCount() {
-        return getCachedVisibleRowIndexes().size();
+        return getCachedRowMapping().getPositionCount();
     }
 
     @Override
     public int getRowIndexByPosition(int rowPosition) {
-        if (rowPosition < 0 || rowPosition >= getRowCount()) {
-            return -1;
-        }
-
-        Integer rowIndex = getCachedVisibleRowPositons().get(rowPosition);
-        if (rowIndex != null) {
-            return rowIndex;
-        } else {
-            return -1;
-        }
+        return getCachedRowMapping().getIndexByPosition(rowPosition);
     }
 
     @Override
     public int getRowPositionByIndex(int rowIndex) {
-        final Integer position = getCachedVisibleRowIndexes().get(rowIndex);
-        return position != null ? position : -1;
+        return getCachedRowMapping().getPositionByIndex(rowIndex);
     }
 
     public Collection<Integer> getRowPositionsByIndexes(Collection<Integer> rowIndexes) {
-        Collection<Integer> rowPositions = new HashSet<Integer>();
+        RangeSet rowPositions = new RangeSet();
         for (int rowIndex : rowIndexes) {
             rowPositions.add(getRowPositionByIndex(rowIndex));
         }
@@ -112,16 +154,12 @@ public int localToUnderlyingRowPosition(int localRowPosition) {
     @Override
     public int underlyingToLocalRowPosition(ILayer sourceUnderlyingLayer, int underlyingRowPosition) {
         int rowIndex = getUnderlyingLayer().getRowIndexByPosition(underlyingRowPosition);
-        int rowPosition = getRowPositionByIndex(rowIndex);
+        IndexPositionMapping mapping = getCachedRowMapping();
+        int rowPosition = mapping.getPositionByIndex(rowIndex);
         if (rowPosition >= 0) {
             return rowPosition;
         } else {
-            Integer hiddenRowPosition = getCachedHiddenRowIndexToPositionMap().get(rowIndex);
-            if (hiddenRowPosition != null) {
-                return hiddenRowPosition;
-            } else {
-                return -1;
-            }
+            return mapping.getHiddenPosition(rowIndex);
         }
     }
 
@@ -198,38 +236,41 @@ public int getHeight() {
 
     @Override
     public int getRowPositionByY(int y) {
-        return LayerUtil.getRowPositionByY(this, y);
+        return this.rowOffsets.getPositionByPixel(y);
     }
 
     @Override
     public int getStartYOfRowPosition(int localRowPosition) {
-        Integer cachedStartY = this.startYCache.get(localRowPosition);
-        if (cachedStartY != null) {
-            return cachedStartY;
-        }
-
-        IUniqueIndexLayer underlyingLayer = (IUniqueIndexLayer) getUnderlyingLayer();
-        int underlyingPosition = localToUnderlyingRowPosition(localRowPosition);
-        if (underlyingPosition < 0) {
-            return -1;
-        }
-        int underlyingStartY = underlyingLayer.getStartYOfRowPosition(underlyingPosition);
-        if (underlyingStartY < 0) {
+        if (localRowPosition < 0 || localRowPosition >= getRowCount()) {
             return -1;
         }
+        return this.rowOffsets.getStartPixel(localRowPosition);
+    }
 
-        for (Integer hiddenIndex : getHiddenRowIndexes()) {
-            int hiddenPosition = underlyingLayer.getRowPositionByIndex(hiddenIndex);
-            // if the hidden position is -1, it is hidden in the underlying
-            // layer therefore the underlying layer should handle the
-            // positioning
-            if (hiddenPosition >= 0 && hiddenPosition <= underlyingPosition) {
-                underlyingStartY -= underlyingLayer.getRowHeightByPosition(hiddenPosition);
+    /**
+     * Updates the row offsets for the row height changes described by the
+     * given diffs, which are based on the underlying layer.
+     *
+     * @param rowDiffs
+     *            The {@link StructuralDiff}s of type CHANGE in underlying
+     *            layer coordinates.
+     */
+    private void updateRowOffsets(Collection<StructuralDiff> rowDiffs) {
+        ILayer underlyingLayer = getUnderlyingLayer();
+        Collection<Integer> localPositions = new ArrayList<Integer>();
+        for (StructuralDiff diff : rowDiffs) {
+            Range range = diff.getAfterPositionRange();
+            for (int underlyingPosition = range.start; underlyingPosition < range.end; underlyingPosition++) {
+                int rowIndex = underlyingLayer.getRowIndexByPosition(underlyingPosition);
+                if (rowIndex >= 0 && !isRowIndexHidden(rowIndex)) {
+                    int localPosition = getRowPositionByIndex(rowIndex);
+                    if (localPosition >= 0) {
+                        localPositions.add(localPosition);
+                    }
+                }
             }
         }
-
-        this.startYCache.put(localRowPosition, underlyingStartY);
-        return underlyingStartY;
+        this.rowOffsets.updateSizes(PositionUtil.getRanges(localPositions));
     }
 
     // Hide/show
@@ -284,53 +325,125 @@ public ILayerCell getCellByPosition(int columnPosition, int rowPosition) {
     /**
      * Invalidate the cache to ensure that information is rebuild.
      */
-    protected synchronized void invalidateCache() {
-        this.cachedVisibleRowIndexOrder = null;
-        this.cachedVisibleRowPositionOrder = null;
-        this.cachedHiddenRowIndexToPositionMap = null;
-        this.startYCache.clear();
+    protected void invalidateCache() {
+        this.cacheModificationCount++;
+        this.cachedRowMapping = null;
+        if (this.rowOffsets.hasIndependentSizes()) {
+            // the offsets are invalidated from the first changed row position
+            // once the mapping is rebuilt, which is always done before the
+            // offsets are rebuilt as they request the row count
+            this.rowOffsets.invalidateFrom(Integer.MAX_VALUE);
+        } else {
+            this.rowOffsets.invalidate();
+        }
     }
 
-    private synchronized Map<Integer, Integer> getCachedVisibleRowIndexes() {
-        if (this.cachedVisibleRowIndexOrder == null) {
-            cacheVisibleRowIndexes();
+    /**
+     * Updates the cached row information after the given visible row
+     * positions have been hidden. Needs to be called after the hidden state
+     * was changed instead of {@link #invalidateCache()} in case all of the
+     * given positions are hidden and nothing else has changed. The cached
+     * mapping is updated by shifting the remaining positions instead of
+     * checking the hidden state of every row of the underlying layer again.
+     *
+     * @param rowPositions
+     *            The local row positions that have been hidden, based on the
+     *            state before hiding.
+     *
+     * @since 1.6
+     */
+    protected void hideRowPositionsInCache(Collection<Integer> rowPositions) {
+        IndexPositionMapping current = this.cachedRowMapping;
+        if (current != null) {
+            IndexPositionMapping updated = current.hidePositions(rowPositions);
+            this.cacheModificationCount++;
+            this.cachedRowMapping = updated;
+            this.previousRowMapping = updated;
+            invalidateRowOffsets(current, updated);
         }
-        return Collections.unmodifiableMap(this.cachedVisibleRowIndexOrder);
     }
 
-    private synchronized Map<Integer, Integer> getCachedVisibleRowPositons() {
-        if (this.cachedVisibleRowPositionOrder == null) {
-            cacheVisibleRowIndexes();
+    /**
+     * Updates the cached row information after the given row indexes have
+     * been hidden. Row indexes that were not visible before are ignored.
+     *
+     * @param rowIndexes
+     *            The row indexes that have been hidden.
+     *
+     * @see #hideRowPositionsInCache(Collection)
+     * @since 1.6
+     */
+    protected void hideRowIndexesInCache(Collection<Integer> rowIndexes) {
+        IndexPositionMapping current = this.cachedRowMapping;
+        if (current != null) {
+            Collection<Integer> rowPositions = new ArrayList<Integer>(rowIndexes.size());
+            for (Integer rowIndex : rowIndexes) {
+                rowPositions.add(current.getPositionByIndex(rowIndex));
+            }
+            hideRowPositionsInCache(rowPositions);
         }
-        return Collections.unmodifiableMap(this.cachedVisibleRowPositionOrder);
     }
 
-    private synchronized Map<Integer, Integer> getCachedHiddenRowIndexToPositionMap() {
-        if (this.cachedHiddenRowIndexToPositionMap == null) {
-            cacheVisibleRowIndexes();
+    private IndexPositionMapping getCachedRowMapping() {
+        IndexPositionMapping mapping = this.cachedRowMapping;
+        if (mapping == null) {
+            mapping = buildRowMapping();
         }
-        return Collections.unmodifiableMap(this.cachedHiddenRowIndexToPositionMap);
+        return mapping;
+    }
+
+    protected void cacheVisibleRowIndexes() {
+        buildRowMapping();
     }
 
-    protected synchronized void cacheVisibleRowIndexes() {
-        this.cachedVisibleRowIndexOrder = new HashMap<Integer, Integer>();
-        this.cachedVisibleRowPositionOrder = new HashMap<Integer, Integer>();
-        this.cachedHiddenRowIndexToPositionMap = new HashMap<Integer, Integer>();
-        this.startYCache.clear();
+    /**
+     * Builds the mapping of the visible row positions to the row indexes by
+     * checking the hidden state of every row in the underlying layer.
+     *
+     * @return The created mapping.
+     */
+    private IndexPositionMapping buildRowMapping() {
+        int stamp = this.cacheModificationCount;
 
         ILayer underlyingLayer = getUnderlyingLayer();
-        int rowPosition = 0;
-        for (int parentRowPosition = 0; parentRowPosition < underlyingLayer.getRowCount(); parentRowPosition++) {
+        int underlyingRowCount = underlyingLayer.getRowCount();
+        IndexPositionMapping.Builder builder = new IndexPositionMapping.Builder(underlyingRowCount);
+        for (int parentRowPosition = 0; parentRowPosition < underlyingRowCount; parentRowPosition++) {
             int rowIndex = underlyingLayer.getRowIndexByPosition(parentRowPosition);
+            builder.add(rowIndex, isRowIndexHidden(rowIndex));
+        }
+
+        IndexPositionMapping mapping = builder.build();
+        invalidateRowOffsets(this.previousRowMapping, mapping);
+        if (stamp == this.cacheModificationCount) {
+            this.cachedRowMapping = mapping;
+            this.previousRowMapping = mapping;
+        }
+        return mapping;
+    }
 
-            if (!isRowIndexHidden(rowIndex)) {
-                this.cachedVisibleRowIndexOrder.put(rowIndex, rowPosition);
-                this.cachedVisibleRowPositionOrder.put(rowPosition, rowIndex);
-                rowPosition++;
-            } else {
-                this.cachedHiddenRowIndexToPositionMap.put(rowIndex, rowPosition);
+    /**
+     * Invalidates the row offsets starting at the first row position whose
+     * row index differs between the given mappings. The heights of the rows
+     * before are not affected as long as the row heights are independent of
+     * each other, otherwise all offsets are invalidated.
+     *
+     * @param previous
+     *            The mapping the row offsets were built for, can be
+     *            <code>null</code>.
+     * @param mapping
+     *            The new mapping.
+     */
+    private void invalidateRowOffsets(IndexPositionMapping previous, IndexPositionMapping mapping) {
+        int firstChanged = 0;
+        if (previous != null && this.rowOffsets.hasIndependentSizes()) {
+            int count = Math.min(previous.getPositionCount(), mapping.getPositionCount());
+            while (firstChanged < count
+                    && previous.getIndexByPosition(firstChanged) == mapping.getIndexByPosition(firstChanged)) {
+                firstChanged++;
             }
         }
+        this.rowOffsets.invalidateFrom(firstChanged);
     }
 
 }
@@ -10,15 +10,13 @@
  ******************************************************************************/
 package org.eclipse.nebula.widgets.nattable.hideshow;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Properties;
 import java.util.Set;
-import java.util.StringTokenizer;
-import java.util.TreeSet;
 
+import org.eclipse.nebula.widgets.nattable.coordinate.RangeSet;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.ColumnHideCommandHandler;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.ColumnShowCommandHandler;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.MultiColumnHideCommandHandler;
@@ -33,7 +31,7 @@
 import org.eclipse.nebula.widgets.nattable.layer.event.IStructuralChangeEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.StructuralChangeEventHelper;
 import org.eclipse.nebula.widgets.nattable.layer.event.StructuralDiff;
-import org.eclipse.nebula.widgets.nattable.persistence.IPersistable;
+import org.eclipse.nebula.widgets.nattable.persistence.PersistenceHelper;
 
 /**
  * Layer to add support for column hide/show feature to a NatTable. Technically
@@ -48,11 +46,11 @@ public class ColumnHideShowLayer extends AbstractColumnHideShowLayer implements
 
     public static final String PERSISTENCE_KEY_HIDDEN_COLUMN_INDEXES = ".hiddenColumnIndexes"; //$NON-NLS-1$
 
-    private final Set<Integer> hiddenColumnIndexes;
+    private final RangeSet hiddenColumnIndexes;
 
     public ColumnHideShowLayer(IUniqueIndexLayer underlyingLayer) {
         super(underlyingLayer);
-        this.hiddenColumnIndexes = new TreeSet<Integer>();
+        this.hiddenColumnIndexes = new RangeSet();
 
         registerCommandHandler(new MultiColumnHideCommandHandler(this));
         registerCommandHandler(new ColumnHideCommandHandler(this));
@@ -85,14 +83,11 @@ public void handleLayerEvent(ILayerEvent event) {
     @Override
     public void saveState(String prefix, Properties properties) {
         if (this.hiddenColumnIndexes.size() > 0) {
-            StringBuilder strBuilder = new StringBuilder();
-            for (Integer index : this.hiddenColumnIndexes) {
-                strBuilder.append(index);
-                strBuilder.append(IPersistable.VALUE_SEPARATOR);
-            }
+            // contiguous hidden columns are stored as range to keep the state
+            // compact
             properties.setProperty(
                     prefix + PERSISTENCE_KEY_HIDDEN_COLUMN_INDEXES,
-                    strBuilder.toString());
+                    PersistenceHelper.rangesToString(this.hiddenColumnIndexes));
         } else {
             properties.remove(prefix + PERSISTENCE_KEY_HIDDEN_COLUMN_INDEXES);
         }
@@ -107,11 +102,7 @@ public void loadState(String prefix, Properties properties) {
         this.hiddenColumnIndexes.clear();
         String property = properties.getProperty(prefix + PERSISTENCE_KEY_HIDDEN_COLUMN_INDEXES);
         if (property != null) {
-            StringTokenizer tok = new StringTokenizer(property, IPersistable.VALUE_SEPARATOR);
-            while (tok.hasMoreTokens()) {
-                String index = tok.nextToken();
-                this.hiddenColumnIndexes.add(Integer.valueOf(index));
-            }
+            PersistenceHelper.stringToRanges(property, this.hiddenColumnIndexes);
         }
 
         super.loadState(prefix, properties);
@@ -142,7 +133,7 @@ public LabelStack getConfigLabelsByPosition(int columnPosition, int rowPosition)
 
     @Override
     public boolean isColumnIndexHidden(int columnIndex) {
-        return this.hiddenColumnIndexes.contains(Integer.valueOf(columnIndex));
+        return this.hiddenColumnIndexes.contains(columnIndex);
     }
 
     @Override
@@ -162,7 +153,7 @@ public void hideColumnPositions(Integer... columnPositions) {
 
     @Override
     public void hideColumnPositions(Collection<Integer> columnPositions) {
-        Set<Integer> columnIndexes = new HashSet<Integer>();
+        RangeSet columnIndexes = new RangeSet();
         for (Integer columnPosition : columnPositions) {
             columnIndexes.add(getColumnIndexByPosition(columnPosition));
         }
@@ -226,7 +217,7 @@ public void showColumnPosition(int columnPosition, boolean showToLeft, boolean s
 
     @Override
     public void showAllColumns() {
-        Collection<Integer> hiddenColumns = new ArrayList<Integer>(this.hiddenColumnIndexes);
+        Collection<Integer> hiddenColumns = new RangeSet(this.hiddenColumnIndexes);
         this.hiddenColumnIndexes.clear();
         invalidateCache();
         fireLayerEvent(new ShowColumnPositionsEvent(this, getColumnPositionsByIndexes(hiddenColumns)));
@@ -0,0 +1,314 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.hideshow;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable bidirectional mapping between the visible positions of a hide/show
+ * layer and the indexes of the underlying layer, based on primitive int
+ * arrays.
+ * <p>
+ * For every index of the underlying layer the mapping stores either the
+ * visible position or, for hidden indexes, the position at which the index
+ * would be shown, which is the number of visible positions in front of it.
+ * Indexes are stored in an array addressed by index if they are dense, which
+ * is the common case. Otherwise sorted arrays are used and lookups are
+ * performed via binary search.
+ * </p>
+ * <p>
+ * As instances are never modified, a layer can publish a new mapping by
+ * assigning it to a volatile field and readers can access it without locking.
+ * Changes are applied by creating a modified copy, e.g. via
+ * {@link #hidePositions(Collection)}.
+ * </p>
+ *
+ * @since 1.6
+ */
+public final class IndexPositionMapping {
+
+    /**
+     * Value that is returned for indexes that are not contained.
+     */
+    private static final int UNKNOWN = -1;
+
+    /**
+     * The index for every visible position.
+     */
+    private final int[] positionToIndex;
+
+    /**
+     * The encoded position per index in dense mode. Visible indexes are
+     * stored with their position, hidden indexes as
+     * <code>-(position + 2)</code> and unknown indexes as -1. <code>null</code>
+     * in sparse mode.
+     */
+    private final int[] indexToPosition;
+
+    /**
+     * The sorted indexes in sparse mode, <code>null</code> in dense mode.
+     */
+    private final int[] sortedIndexes;
+
+    /**
+     * The encoded positions for the {@link #sortedIndexes} in sparse mode,
+     * <code>null</code> in dense mode.
+     */
+    private final int[] sortedPositions;
+
+    private IndexPositionMapping(int[] positionToIndex, int[] indexToPosition, int[] sortedIndexes, int[] sortedPositions) {
+        this.positionToIndex = positionToIndex;
+        this.indexToPosition = indexToPosition;
+        this.sortedIndexes = sortedIndexes;
+        this.sortedPositions = sortedPositions;
+    }
+
+    /**
+     * @return The number of visible positions.
+     */
+    public int getPositionCount() {
+        return this.positionToIndex.length;
+    }
+
+    /**
+     * @param position
+     *            The visible position.
+     * @return The index for the given position or -1 if the position is not
+     *         valid.
+     */
+    public int getIndexByPosition(int position) {
+        if (position < 0 || position >= this.positionToIndex.length) {
+            return -1;
+        }
+        return this.positionToIndex[position];
+    }
+
+    /**
+     * @param index
+     *            The index whose position is requested.
+     * @return The visible position of the given index or -1 if the index is
+     *         hidden or not known.
+     */
+    public int getPositionByIndex(int index) {
+        int encoded = getEncodedPosition(index);
+        return (encoded >= 0) ? encoded : -1;
+    }
+
+    /**
+     * @param index
+     *            The index whose hidden position is requested.
+     * @return The position at which the given hidden index would be shown or
+     *         -1 if the index is visible or not known.
+     */
+    public int getHiddenPosition(int index) {
+        int encoded = getEncodedPosition(index);
+        return (encoded < UNKNOWN) ? -(encoded + 2) : -1;
+    }
+
+    /**
+     * Creates a copy of this mapping in which the given visible positions are
+     * hidden. Invalid positions are ignored. The positions of the remaining
+     * visible and hidden indexes are shifted without requesting any
+     * information from the underlying layer, so hiding a contiguous block of
+     * positions results in a few array copy operations.
+     *
+     * @param positions
+     *            The visible positions that should be hidden.
+     * @return The new mapping or this mapping if there is nothing to hide.
+     */
+    public IndexPositionMapping hidePositions(Collection<Integer> positions) {
+        int[] hidden = toSortedValidPositions(positions);
+        if (hidden.length == 0) {
+            return this;
+        }
+
+        int count = this.positionToIndex.length;
+        int[] newPositionToIndex = new int[count - hidden.length];
+
+        // copy the contiguous blocks between hidden positions
+        int source = 0;
+        int target = 0;
+        for (int i = 0; i <= hidden.length; i++) {
+            int blockEnd = (i < hidden.length) ? hidden[i] : count;
+            int length = blockEnd - source;
+            if (length > 0) {
+                System.arraycopy(this.positionToIndex, source, newPositionToIndex, target, length);
+                target += length;
+            }
+            source = blockEnd + 1;
+        }
+
+        if (this.indexToPosition != null) {
+            return new IndexPositionMapping(
+                    newPositionToIndex,
+                    shiftPositions(this.indexToPosition, hidden),
+                    null,
+                    null);
+        }
+        return new IndexPositionMapping(
+                newPositionToIndex,
+                null,
+                this.sortedIndexes,
+                shiftPositions(this.sortedPositions, hidden));
+    }
+
+    private int getEncodedPosition(int index) {
+        if (index < 0) {
+            return UNKNOWN;
+        }
+        if (this.indexToPosition != null) {
+            return (index < this.indexToPosition.length) ? this.indexToPosition[index] : UNKNOWN;
+        }
+        int found = Arrays.binarySearch(this.sortedIndexes, index);
+        return (found >= 0) ? this.sortedPositions[found] : UNKNOWN;
+    }
+
+    private int[] toSortedValidPositions(Collection<Integer> positions) {
+        int[] result = new int[positions.size()];
+        int size = 0;
+        for (Integer position : positions) {
+            if (position != null && position >= 0 && position < this.positionToIndex.length) {
+                result[size++] = position;
+            }
+        }
+        Arrays.sort(result, 0, size);
+
+        // remove duplicates
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || result[distinct - 1] != result[i]) {
+                result[distinct++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, distinct);
+    }
+
+    /**
+     * Calculates the encoded positions after the given sorted positions are
+     * hidden. Visible and hidden positions are moved by the number of hidden
+     * positions in front of them, the hidden positions are encoded as hidden
+     * at their new location.
+     */
+    private static int[] shiftPositions(int[] encodedPositions, int[] hidden) {
+        int[] result = new int[encodedPositions.length];
+        for (int i = 0; i < encodedPositions.length; i++) {
+            int encoded = encodedPositions[i];
+            if (encoded == UNKNOWN) {
+                result[i] = UNKNOWN;
+            } else if (encoded >= 0) {
+                int found = Arrays.binarySearch(hidden, encoded);
+                if (found >= 0) {
+                    result[i] = -((encoded - found) + 2);
+                } else {
+                    result[i] = encoded - (-found - 1);
+                }
+            } else {
+                int position = -(encoded + 2);
+                int found = Arrays.binarySearch(hidden, position);
+                int shift = (found >= 0) ? found : (-found - 1);
+                result[i] = -((position - shift) + 2);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builder to create an {@link IndexPositionMapping} by adding the indexes
+     * of the underlying layer in position order.
+     */
+    public static final class Builder {
+
+        private int[] indexes;
+        private boolean[] hidden;
+        private int size;
+        private int visibleCount;
+        private int maxIndex = -1;
+
+        /**
+         * @param expectedSize
+         *            The number of indexes that are expected to be added.
+         */
+        public Builder(int expectedSize) {
+            this.indexes = new int[Math.max(expectedSize, 1)];
+            this.hidden = new boolean[this.indexes.length];
+        }
+
+        /**
+         * Adds the next index of the underlying layer.
+         *
+         * @param index
+         *            The index to add. Negative indexes are ignored.
+         * @param isHidden
+         *            <code>true</code> if the index is hidden,
+         *            <code>false</code> if it is visible.
+         * @return This builder.
+         */
+        public Builder add(int index, boolean isHidden) {
+            if (index < 0) {
+                return this;
+            }
+            if (this.size == this.indexes.length) {
+                this.indexes = Arrays.copyOf(this.indexes, this.size * 2);
+                this.hidden = Arrays.copyOf(this.hidden, this.size * 2);
+            }
+            this.indexes[this.size] = index;
+            this.hidden[this.size] = isHidden;
+            this.size++;
+            if (!isHidden) {
+                this.visibleCount++;
+            }
+            this.maxIndex = Math.max(this.maxIndex, index);
+            return this;
+        }
+
+        /**
+         * @return The {@link IndexPositionMapping} for the added indexes.
+         */
+        public IndexPositionMapping build() {
+            int[] positionToIndex = new int[this.visibleCount];
+            int[] encodedPositions = new int[this.size];
+            int position = 0;
+            for (int i = 0; i < this.size; i++) {
+                if (this.hidden[i]) {
+                    encodedPositions[i] = -(position + 2);
+                } else {
+                    positionToIndex[position] = this.indexes[i];
+                    encodedPositions[i] = position;
+                    position++;
+                }
+            }
+
+            // use an array addressed by index if the indexes are dense enough
+            if (this.maxIndex < (2 * this.size) + 16) {
+                int[] indexToPosition = new int[this.maxIndex + 1];
+                Arrays.fill(indexToPosition, UNKNOWN);
+                for (int i = 0; i < this.size; i++) {
+                    indexToPosition[this.indexes[i]] = encodedPositions[i];
+                }
+                return new IndexPositionMapping(positionToIndex, indexToPosition, null, null);
+            }
+
+            long[] pairs = new long[this.size];
+            for (int i = 0; i < this.size; i++) {
+                pairs[i] = ((long) this.indexes[i] << 32) | (encodedPositions[i] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(pairs);
+            int[] sortedIndexes = new int[this.size];
+            int[] sortedPositions = new int[this.size];
+            for (int i = 0; i < this.size; i++) {
+                sortedIndexes[i] = (int) (pairs[i] >>> 32);
+                sortedPositions[i] = (int) pairs[i];
+            }
+            return new IndexPositionMapping(positionToIndex, null, sortedIndexes, sortedPositions);
+        }
+    }
+}
@@ -10,15 +10,14 @@
  ******************************************************************************/
 package org.eclipse.nebula.widgets.nattable.hideshow;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Properties;
 import java.util.Set;
-import java.util.StringTokenizer;
-import java.util.TreeSet;
 
+import org.eclipse.nebula.widgets.nattable.coordinate.RangeSet;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.MultiRowHideCommandHandler;
+import org.eclipse.nebula.widgets.nattable.hideshow.command.MultiRowIndexHideCommandHandler;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.MultiRowShowCommandHandler;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.RowHideCommandHandler;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.RowPositionHideCommandHandler;
@@ -33,22 +32,23 @@
 import org.eclipse.nebula.widgets.nattable.layer.event.IStructuralChangeEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.StructuralChangeEventHelper;
 import org.eclipse.nebula.widgets.nattable.layer.event.StructuralDiff;
-import org.eclipse.nebula.widgets.nattable.persistence.IPersistable;
+import org.eclipse.nebula.widgets.nattable.persistence.PersistenceHelper;
 
 public class RowHideShowLayer extends AbstractRowHideShowLayer implements IRowHideShowCommandLayer, IRowHideShowLayer {
 
     public static final String PERSISTENCE_KEY_HIDDEN_ROW_INDEXES = ".hiddenRowIndexes"; //$NON-NLS-1$
 
-    private final Set<Integer> hiddenRowIndexes;
+    private final RangeSet hiddenRowIndexes;
 
     public RowHideShowLayer(IUniqueIndexLayer underlyingLayer) {
         super(underlyingLayer);
-        this.hiddenRowIndexes = new TreeSet<Integer>();
+        this.hiddenRowIndexes = new RangeSet();
 
         registerCommandHandler(new MultiRowHideCommandHandler(this));
         registerCommandHandler(new RowHideCommandHandler(this));
         registerCommandHandler(new ShowAllRowsCommandHandler(this));
         registerCommandHandler(new MultiRowShowCommandHandler(this));
+        registerCommandHandler(new MultiRowIndexHideCommandHandler(this));
         registerCommandHandler(new RowPositionHideCommandHandler(this));
         registerCommandHandler(new RowShowCommandHandler(this));
     }
@@ -82,12 +82,11 @@ public void handleLayerEvent(ILayerEvent event) {
     @Override
     public void saveState(String prefix, Properties properties) {
         if (this.hiddenRowIndexes.size() > 0) {
-            StringBuilder strBuilder = new StringBuilder();
-            for (Integer index : this.hiddenRowIndexes) {
-                strBuilder.append(index);
-                strBuilder.append(IPersistable.VALUE_SEPARATOR);
-            }
-            properties.setProperty(prefix + PERSISTENCE_KEY_HIDDEN_ROW_INDEXES, strBuilder.toString());
+            // contiguous hidden rows are stored as range to keep the state
+            // compact
+            properties.setProperty(
+                    prefix + PERSISTENCE_KEY_HIDDEN_ROW_INDEXES,
+                    PersistenceHelper.rangesToString(this.hiddenRowIndexes));
         }
 
         super.saveState(prefix, properties);
@@ -98,11 +97,7 @@ public void loadState(String prefix, Properties properties) {
         this.hiddenRowIndexes.clear();
         String property = properties.getProperty(prefix + PERSISTENCE_KEY_HIDDEN_ROW_INDEXES);
         if (property != null) {
-            StringTokenizer tok = new StringTokenizer(property, IPersistable.VALUE_SEPARATOR);
-            while (tok.hasMoreTokens()) {
-                String index = tok.nextToken();
-                this.hiddenRowIndexes.add(Integer.valueOf(index));
-            }
+            PersistenceHelper.stringToRanges(property, this.hiddenRowIndexes);
         }
 
         super.loadState(prefix, properties);
@@ -133,7 +128,7 @@ public LabelStack getConfigLabelsByPosition(int columnPosition, int rowPosition)
 
     @Override
     public boolean isRowIndexHidden(int rowIndex) {
-        return this.hiddenRowIndexes.contains(Integer.valueOf(rowIndex));
+        return this.hiddenRowIndexes.contains(rowIndex);
     }
 
     @Override
@@ -143,23 +138,23 @@ public Collection<Integer> getHiddenRowIndexes() {
 
     @Override
     public void hideRowPositions(Collection<Integer> rowPositions) {
-        Set<Integer> rowIndexes = new HashSet<Integer>();
+        RangeSet rowIndexes = new RangeSet();
         for (Integer rowPosition : rowPositions) {
             rowIndexes.add(getRowIndexByPosition(rowPosition));
         }
         this.hiddenRowIndexes.addAll(rowIndexes);
-        invalidateCache();
+        hideRowPositionsInCache(rowPositions);
         fireLayerEvent(new HideRowPositionsEvent(this, rowPositions));
     }
 
     @Override
     public void hideRowIndexes(Collection<Integer> rowIndexes) {
-        Set<Integer> rowPositions = new HashSet<Integer>();
+        RangeSet rowPositions = new RangeSet();
         for (Integer rowIndex : rowIndexes) {
             rowPositions.add(getRowPositionByIndex(rowIndex));
         }
         this.hiddenRowIndexes.addAll(rowIndexes);
-        invalidateCache();
+        hideRowPositionsInCache(rowPositions);
         fireLayerEvent(new HideRowPositionsEvent(this, rowPositions));
     }
 
@@ -207,7 +202,7 @@ public void showRowPosition(int rowPosition, boolean showToTop, boolean showAll)
 
     @Override
     public void showAllRows() {
-        Collection<Integer> hiddenRows = new ArrayList<Integer>(this.hiddenRowIndexes);
+        Collection<Integer> hiddenRows = new RangeSet(this.hiddenRowIndexes);
         this.hiddenRowIndexes.clear();
         invalidateCache();
         fireLayerEvent(new ShowRowPositionsEvent(this, hiddenRows));
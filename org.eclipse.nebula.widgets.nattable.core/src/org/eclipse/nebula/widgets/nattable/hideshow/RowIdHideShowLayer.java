@@ -26,6 +26,7 @@
 import org.eclipse.nebula.widgets.nattable.data.IRowIdAccessor;
 import org.eclipse.nebula.widgets.nattable.data.convert.IDisplayConverter;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.MultiRowHideCommandHandler;
+import org.eclipse.nebula.widgets.nattable.hideshow.command.MultiRowIndexHideCommandHandler;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.MultiRowShowCommandHandler;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.RowHideCommandHandler;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.RowPositionHideCommandHandler;
@@ -78,6 +79,7 @@ public RowIdHideShowLayer(IUniqueIndexLayer underlyingLayer, IRowDataProvider<T>
         registerCommandHandler(new RowHideCommandHandler(this));
         registerCommandHandler(new ShowAllRowsCommandHandler(this));
         registerCommandHandler(new MultiRowShowCommandHandler(this));
+        registerCommandHandler(new MultiRowIndexHideCommandHandler(this));
         registerCommandHandler(new RowPositionHideCommandHandler(this));
         registerCommandHandler(new RowShowCommandHandler(this));
     }
@@ -195,7 +197,7 @@ public void hideRowPositions(Collection<Integer> rowPositions) {
             T rowObject = getRowObjectByPosition(rowPosition);
             this.hiddenRows.put(this.rowIdAccessor.getRowId(rowObject), rowObject);
         }
-        invalidateCache();
+        hideRowPositionsInCache(rowPositions);
         fireLayerEvent(new HideRowPositionsEvent(this, rowPositions));
     }
 
@@ -207,7 +209,7 @@ public void hideRowIndexes(Collection<Integer> rowIndexes) {
             T rowObject = getRowObjectByIndex(rowIndex);
             this.hiddenRows.put(this.rowIdAccessor.getRowId(rowObject), rowObject);
         }
-        invalidateCache();
+        hideRowPositionsInCache(rowPositions);
         fireLayerEvent(new HideRowPositionsEvent(this, rowPositions));
     }
 
@@ -14,6 +14,8 @@
 import java.util.Collection;
 
 import org.eclipse.nebula.widgets.nattable.command.AbstractContextFreeCommand;
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.coordinate.RangeSet;
 
 /**
  * Command for showing hidden columns again via index.
@@ -34,6 +36,20 @@ public MultiColumnShowCommand(Collection<Integer> columnIndexes) {
         this.columnIndexes = columnIndexes;
     }
 
+    /**
+     * Creates a command to show the columns of the given index ranges. The
+     * indexes are kept as ranges, which avoids creating an object per index
+     * for big contiguous blocks.
+     *
+     * @param columnIndexRanges
+     *            The ranges of indexes of the columns that should be showed
+     *            again.
+     * @since 1.6
+     */
+    public MultiColumnShowCommand(Range... columnIndexRanges) {
+        this(new RangeSet(columnIndexRanges));
+    }
+
     /**
      *
      * @return The indexes of the columns that should be showed again.
@@ -44,7 +60,9 @@ public Collection<Integer> getColumnIndexes() {
 
     @Override
     public MultiColumnShowCommand cloneCommand() {
-        return new MultiColumnShowCommand(new ArrayList<Integer>(
-                this.columnIndexes));
+        if (this.columnIndexes instanceof RangeSet) {
+            return new MultiColumnShowCommand(new RangeSet(this.columnIndexes));
+        }
+        return new MultiColumnShowCommand(new ArrayList<Integer>(this.columnIndexes));
     }
 }
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.hideshow.command;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.eclipse.nebula.widgets.nattable.command.AbstractContextFreeCommand;
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.coordinate.RangeSet;
+
+/**
+ * Command for hiding rows via index. As indexes don't need to be converted
+ * between layers, the command can be used to hide big blocks of rows by
+ * specifying index ranges.
+ *
+ * @since 1.6
+ */
+public class MultiRowIndexHideCommand extends AbstractContextFreeCommand {
+
+    /**
+     * The indexes of the rows that should be hidden.
+     */
+    private final Collection<Integer> rowIndexes;
+
+    /**
+     *
+     * @param rowIndexes
+     *            The indexes of the rows that should be hidden.
+     */
+    public MultiRowIndexHideCommand(Collection<Integer> rowIndexes) {
+        this.rowIndexes = rowIndexes;
+    }
+
+    /**
+     * Creates a command to hide the rows of the given index ranges. The
+     * indexes are kept as ranges, which avoids creating an object per index
+     * for big contiguous blocks.
+     *
+     * @param rowIndexRanges
+     *            The ranges of indexes of the rows that should be hidden.
+     */
+    public MultiRowIndexHideCommand(Range... rowIndexRanges) {
+        this(new RangeSet(rowIndexRanges));
+    }
+
+    /**
+     *
+     * @return The indexes of the rows that should be hidden.
+     */
+    public Collection<Integer> getRowIndexes() {
+        return this.rowIndexes;
+    }
+
+    @Override
+    public MultiRowIndexHideCommand cloneCommand() {
+        if (this.rowIndexes instanceof RangeSet) {
+            return new MultiRowIndexHideCommand(new RangeSet(this.rowIndexes));
+        }
+        return new MultiRowIndexHideCommand(new ArrayList<Integer>(this.rowIndexes));
+    }
+}
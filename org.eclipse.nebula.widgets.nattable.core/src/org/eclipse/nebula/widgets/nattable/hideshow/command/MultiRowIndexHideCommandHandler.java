@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.hideshow.command;
+
+import org.eclipse.nebula.widgets.nattable.command.AbstractLayerCommandHandler;
+import org.eclipse.nebula.widgets.nattable.hideshow.IRowHideShowCommandLayer;
+
+/**
+ * Command handler for the {@link MultiRowIndexHideCommand}.
+ *
+ * @since 1.6
+ */
+public class MultiRowIndexHideCommandHandler extends
+        AbstractLayerCommandHandler<MultiRowIndexHideCommand> {
+
+    private final IRowHideShowCommandLayer rowHideShowLayer;
+
+    public MultiRowIndexHideCommandHandler(IRowHideShowCommandLayer rowHideShowLayer) {
+        this.rowHideShowLayer = rowHideShowLayer;
+    }
+
+    @Override
+    public Class<MultiRowIndexHideCommand> getCommandClass() {
+        return MultiRowIndexHideCommand.class;
+    }
+
+    @Override
+    protected boolean doCommand(MultiRowIndexHideCommand command) {
+        this.rowHideShowLayer.hideRowIndexes(command.getRowIndexes());
+        return true;
+    }
+
+}
@@ -14,6 +14,8 @@
 import java.util.Collection;
 
 import org.eclipse.nebula.widgets.nattable.command.AbstractContextFreeCommand;
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.coordinate.RangeSet;
 
 /**
  * Command for showing hidden rows again via index.
@@ -34,6 +36,20 @@ public MultiRowShowCommand(Collection<Integer> rowIndexes) {
         this.rowIndexes = rowIndexes;
     }
 
+    /**
+     * Creates a command to show the rows of the given index ranges. The
+     * indexes are kept as ranges, which avoids creating an object per index
+     * for big contiguous blocks.
+     *
+     * @param rowIndexRanges
+     *            The ranges of indexes of the rows that should be showed
+     *            again.
+     * @since 1.6
+     */
+    public MultiRowShowCommand(Range... rowIndexRanges) {
+        this(new RangeSet(rowIndexRanges));
+    }
+
     /**
      *
      * @return The indexes of the rows that should be showed again.
@@ -44,6 +60,9 @@ public Collection<Integer> getRowIndexes() {
 
     @Override
     public MultiRowShowCommand cloneCommand() {
+        if (this.rowIndexes instanceof RangeSet) {
+            return new MultiRowShowCommand(new RangeSet(this.rowIndexes));
+        }
         return new MultiRowShowCommand(new ArrayList<Integer>(this.rowIndexes));
     }
 }
@@ -1015,7 +1015,7 @@ public void expandOrCollapse(int columnIndex, int rowIndex, int toLevel) {
             coord.rowObject = this.underlyingList.get(coord.rowIndex);
             this.collapsedNodes.add(coord);
             this.getHiddenRowIndexes().addAll(toProcess);
-            invalidateCache();
+            hideRowIndexesInCache(toProcess);
             fireLayerEvent(new HideRowPositionsEvent(this, toProcess));
         }
     }
@@ -1059,7 +1059,7 @@ public void collapseAll() {
         }
 
         this.getHiddenRowIndexes().addAll(rowsToHide);
-        invalidateCache();
+        hideRowIndexesInCache(rowsToHide);
         fireLayerEvent(new HideRowPositionsEvent(this, rowsToHide));
     }
 
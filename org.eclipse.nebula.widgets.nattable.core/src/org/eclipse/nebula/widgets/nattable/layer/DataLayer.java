@@ -77,8 +77,8 @@ protected DataLayer() {
     }
 
     protected DataLayer(int defaultColumnWidth, int defaultRowHeight) {
-        this.columnWidthConfig = new SizeConfig(defaultColumnWidth);
-        this.rowHeightConfig = new SizeConfig(defaultRowHeight);
+        this.columnWidthConfig = new IndexedSizeConfig(defaultColumnWidth);
+        this.rowHeightConfig = new IndexedSizeConfig(defaultRowHeight);
 
         registerCommandHandlers();
     }
@@ -492,11 +492,23 @@ public void setDataValueByPosition(int columnPosition, int rowPosition, Object n
 
     @Override
     public int getColumnPositionByX(int x) {
+        if (this.columnWidthConfig instanceof IndexedSizeConfig) {
+            if (x < 0 || x >= getWidth()) {
+                return -1;
+            }
+            return ((IndexedSizeConfig) this.columnWidthConfig).getPositionByPixel(x);
+        }
         return LayerUtil.getColumnPositionByX(this, x);
     }
 
     @Override
     public int getRowPositionByY(int y) {
+        if (this.rowHeightConfig instanceof IndexedSizeConfig) {
+            if (y < 0 || y >= getHeight()) {
+                return -1;
+            }
+            return ((IndexedSizeConfig) this.rowHeightConfig).getPositionByPixel(y);
+        }
         return LayerUtil.getRowPositionByY(this, y);
     }
 
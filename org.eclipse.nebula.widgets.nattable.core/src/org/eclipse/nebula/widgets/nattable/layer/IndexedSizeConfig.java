@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.layer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Specialization of {@link SizeConfig} that is intended to be used for a huge
+ * number of positions with custom sizes, e.g. the row heights of a table with
+ * millions of rows.
+ * <p>
+ * Instead of caching aggregated sizes per requested position and clearing that
+ * cache on every change, the sizes are tracked in primitive int arrays that
+ * build a binary indexed tree (Fenwick tree) of the differences to the default
+ * size. This way {@link #getAggregateSize(int)} and
+ * {@link #getPositionByPixel(int)} are performed in O(log n), and resizing a
+ * single position in pixel mode updates the index incrementally in O(log n)
+ * instead of invalidating the whole cache.
+ * </p>
+ * <p>
+ * The configuration itself is still stored in the structures of the
+ * {@link SizeConfig}, so the persistence format and the percentage sizing
+ * semantics are the same. Operations that affect multiple positions at once,
+ * e.g. changing the default size, loading a state or recalculating the
+ * percentage sizes, mark the index as invalid so it gets rebuilt in O(n) on
+ * the next access.
+ * </p>
+ *
+ * @since 1.6
+ */
+public class IndexedSizeConfig extends SizeConfig {
+
+    /**
+     * The number of positions that are covered by the index. Positions greater
+     * or equal to the capacity are sized with the default size.
+     */
+    private int capacity = 0;
+    /**
+     * The difference of the size of a position to the default size. Needed to
+     * calculate the delta on incremental updates.
+     */
+    private int[] deltas = new int[0];
+    /**
+     * The binary indexed tree of the size differences. One-based, so the tree
+     * node for a position is at index position + 1.
+     */
+    private int[] tree = new int[1];
+
+    /**
+     * Create a new {@link IndexedSizeConfig} with the given default size.
+     *
+     * @param defaultSize
+     *            The default size to use.
+     */
+    public IndexedSizeConfig(int defaultSize) {
+        super(defaultSize);
+    }
+
+    @Override
+    public void setDefaultSize(int position, int size) {
+        boolean incremental = this.isAggregatedSizeCacheValid;
+        super.setDefaultSize(position, size);
+        if (incremental) {
+            updateIndex(position);
+        }
+    }
+
+    @Override
+    public void setSize(int position, int size) {
+        // in pixel mode only the size of the given position is changed, so the
+        // index can be updated incrementally, in percentage mode all positions
+        // can be affected which is handled by a rebuild
+        boolean incremental = this.isAggregatedSizeCacheValid
+                && !isPercentageSizing()
+                && isPositionResizable(position);
+        super.setSize(position, size);
+        if (incremental && !isPercentageSizing()) {
+            updateIndex(position);
+        }
+    }
+
+    @Override
+    public void setPercentage(int position, double percentage) {
+        super.setPercentage(position, percentage);
+        // the real size is updated even if the available space is not known
+        // yet, in which case no percentage recalculation is triggered
+        this.isAggregatedSizeCacheValid = false;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        this.isAggregatedSizeCacheValid = false;
+    }
+
+    @Override
+    public int getAggregateSize(int position) {
+        if (position < 0) {
+            return -1;
+        } else if (position == 0) {
+            return 0;
+        } else if (isAllPositionsSameSize() && !isPercentageSizing()) {
+            return position * getDefaultSize();
+        }
+
+        ensureIndex();
+
+        int indexed = Math.min(position, this.capacity);
+        int result = position * getDefaultSize();
+        for (int i = indexed; i > 0; i -= (i & -i)) {
+            result += this.tree[i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the position that contains the given pixel value. As the
+     * {@link SizeConfig} does not know the number of positions, the caller
+     * needs to check if the returned position is valid.
+     * <p>
+     * Positions with a size of 0 are skipped, so the returned position is the
+     * one for which <code>getAggregateSize(position) &lt;= pixel</code> and
+     * <code>getAggregateSize(position + 1) &gt; pixel</code>.
+     * </p>
+     *
+     * @param pixel
+     *            The pixel value for which the position is requested.
+     * @return The position that contains the given pixel or -1 if the pixel is
+     *         negative or no position can be determined because of a default
+     *         size of 0.
+     */
+    public int getPositionByPixel(int pixel) {
+        if (pixel < 0) {
+            return -1;
+        }
+
+        int defaultSize = getDefaultSize();
+        if (isAllPositionsSameSize() && !isPercentageSizing()) {
+            return (defaultSize > 0) ? pixel / defaultSize : -1;
+        }
+
+        ensureIndex();
+
+        // binary search by descending the tree, the result is the number of
+        // positions whose aggregated size is not bigger than the pixel value
+        int position = 0;
+        int remaining = pixel;
+        for (int step = Integer.highestOneBit(Math.max(this.capacity, 1)); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= this.capacity) {
+                int size = this.tree[next] + (step * defaultSize);
+                if (size <= remaining) {
+                    position = next;
+                    remaining -= size;
+                }
+            }
+        }
+
+        if (position == this.capacity) {
+            // the pixel is located behind the indexed positions
+            if (defaultSize <= 0) {
+                return -1;
+            }
+            position += remaining / defaultSize;
+        }
+        return position;
+    }
+
+    /**
+     * Rebuilds the index in case it was invalidated by a configuration change
+     * that affects multiple positions.
+     */
+    private void ensureIndex() {
+        if (!this.isAggregatedSizeCacheValid) {
+            rebuildIndex(0);
+            this.isAggregatedSizeCacheValid = true;
+        }
+    }
+
+    /**
+     * Updates the index for the given position after its size configuration
+     * was changed.
+     *
+     * @param position
+     *            The position whose size configuration was changed.
+     */
+    private void updateIndex(int position) {
+        if (position < 0) {
+            return;
+        }
+        if (position >= this.capacity) {
+            // grow with doubling strategy to keep the rebuilds amortized
+            rebuildIndex(Math.max(position + 1, this.capacity * 2));
+        } else {
+            int delta = getIndexedSize(position) - getDefaultSize();
+            int diff = delta - this.deltas[position];
+            if (diff != 0) {
+                this.deltas[position] = delta;
+                for (int i = position + 1; i <= this.capacity; i += (i & -i)) {
+                    this.tree[i] += diff;
+                }
+            }
+        }
+        this.isAggregatedSizeCacheValid = true;
+    }
+
+    /**
+     * Rebuilds the index in O(n) out of the size configuration maps.
+     *
+     * @param minCapacity
+     *            The minimum number of positions the index should cover.
+     */
+    private void rebuildIndex(int minCapacity) {
+        boolean percentageSizing = isPercentageSizing();
+        Map<Integer, Integer> mapToUse = percentageSizing ? this.realSizeMap : this.sizeMap;
+
+        int newCapacity = Math.max(minCapacity, Math.max(
+                getLastPosition(mapToUse),
+                getLastPosition(this.defaultSizeMap)) + 1);
+
+        if (newCapacity != this.capacity) {
+            this.capacity = newCapacity;
+            this.deltas = new int[newCapacity];
+            this.tree = new int[newCapacity + 1];
+        } else {
+            Arrays.fill(this.deltas, 0);
+        }
+
+        int defaultSize = getDefaultSize();
+        for (Map.Entry<Integer, Integer> entry : this.defaultSizeMap.entrySet()) {
+            if (entry.getKey() >= 0) {
+                this.deltas[entry.getKey()] = upScale(entry.getValue()) - defaultSize;
+            }
+        }
+        for (Map.Entry<Integer, Integer> entry : mapToUse.entrySet()) {
+            if (entry.getKey() >= 0) {
+                int size = percentageSizing ? entry.getValue() : upScale(entry.getValue());
+                this.deltas[entry.getKey()] = size - defaultSize;
+            }
+        }
+
+        // linear construction of the binary indexed tree
+        System.arraycopy(this.deltas, 0, this.tree, 1, this.capacity);
+        this.tree[0] = 0;
+        for (int i = 1; i <= this.capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= this.capacity) {
+                this.tree[parent] += this.tree[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the size of the given position as it is used for the aggregated
+     * size calculation.
+     *
+     * @param position
+     *            The position whose size is requested.
+     * @return The size of the given position to use for aggregation.
+     */
+    private int getIndexedSize(int position) {
+        if (isPercentageSizing()) {
+            Integer realSize = this.realSizeMap.get(position);
+            if (realSize != null) {
+                return realSize;
+            }
+        } else {
+            Integer size = this.sizeMap.get(position);
+            if (size != null) {
+                return upScale(size);
+            }
+        }
+        Integer defaultSize = this.defaultSizeMap.get(position);
+        return (defaultSize != null) ? upScale(defaultSize) : getDefaultSize();
+    }
+
+    /**
+     * @param map
+     *            The size configuration map to check.
+     * @return The highest position that is configured in the given map or -1
+     *         if the map is empty.
+     */
+    private static int getLastPosition(Map<Integer, ?> map) {
+        if (map.isEmpty()) {
+            return -1;
+        }
+        if (map instanceof TreeMap) {
+            return ((TreeMap<Integer, ?>) map).lastKey();
+        }
+        int last = -1;
+        for (Integer position : map.keySet()) {
+            last = Math.max(last, position);
+        }
+        return last;
+    }
+}
@@ -10,18 +10,34 @@
  ******************************************************************************/
 package org.eclipse.nebula.widgets.nattable.layer;
 
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class LabelStack {
 
     /**
-     * List implementation saves the overhead of popping labels off in the
-     * {@link #getLabels()} method
+     * The maximum number of label combinations that are kept by
+     * {@link #getCanonicalLabels(List)}. If the limit is exceeded the
+     * canonical instances are cleared, which only happens if labels are
+     * created dynamically, e.g. per row.
      */
-    private final List<String> labels = new LinkedList<String>();
+    private static final int MAX_CANONICAL_LABELS = 10000;
+
+    private static final ConcurrentMap<List<String>, List<String>> canonicalLabels = new ConcurrentHashMap<List<String>, List<String>>();
+
+    /**
+     * Array based list implementation, so collecting the labels for a cell
+     * does not create a node per label and hash based lookups with the labels
+     * as key do not need to recalculate the hash code.
+     */
+    private final LabelList labels;
 
     public LabelStack(String... labelNames) {
+        this.labels = new LabelList(Math.max(labelNames.length, 4), true);
         for (String label : labelNames) {
             if (label != null) {
                 this.labels.add(label);
@@ -56,13 +72,58 @@ public List<String> getLabels() {
     }
 
     public boolean hasLabel(String label) {
-        return this.labels.contains(label);
+        return this.labels.indexOf(label) >= 0;
     }
 
     public boolean removeLabel(String label) {
         return this.labels.remove(label);
     }
 
+    /**
+     * Returns the canonical, unmodifiable instance for the label combination
+     * of this {@link LabelStack}. Label stacks with equal labels return the
+     * same instance, so it can be used as a key in lookup caches without
+     * copying the labels for every cache.
+     *
+     * @return The canonical instance of the current labels.
+     * @see #getCanonicalLabels(List)
+     * @since 1.6
+     */
+    public List<String> getCanonicalLabels() {
+        return getCanonicalLabels(this.labels);
+    }
+
+    /**
+     * Returns the canonical, unmodifiable instance for the given label
+     * combination. The returned list is a snapshot, later modifications of
+     * the given list are not reflected.
+     *
+     * @param labels
+     *            The labels whose canonical instance is requested.
+     * @return The canonical instance of the given labels.
+     * @since 1.6
+     */
+    public static List<String> getCanonicalLabels(List<String> labels) {
+        if (labels instanceof LabelList && !((LabelList) labels).modifiable) {
+            return labels;
+        }
+        List<String> canonical = canonicalLabels.get(labels);
+        if (canonical == null) {
+            LabelList copy = new LabelList(labels.size(), false);
+            for (String label : labels) {
+                copy.append(label);
+            }
+            if (canonicalLabels.size() >= MAX_CANONICAL_LABELS) {
+                canonicalLabels.clear();
+            }
+            canonical = canonicalLabels.putIfAbsent(copy, copy);
+            if (canonical == null) {
+                canonical = copy;
+            }
+        }
+        return canonical;
+    }
+
     @Override
     public String toString() {
         return this.labels.toString();
@@ -88,4 +149,160 @@ public int hashCode() {
         return this.labels.hashCode();
     }
 
+    /**
+     * Array based list of labels that caches its hash code until it is
+     * modified.
+     */
+    private static final class LabelList extends AbstractList<String> implements RandomAccess {
+
+        private String[] elements;
+        private int size;
+        private int hash;
+        private boolean hashValid;
+        private final boolean modifiable;
+
+        LabelList(int initialCapacity, boolean modifiable) {
+            this.elements = new String[initialCapacity];
+            this.modifiable = modifiable;
+        }
+
+        @Override
+        public String get(int index) {
+            checkIndex(index, this.size);
+            return this.elements[index];
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public String set(int index, String element) {
+            checkModifiable();
+            checkIndex(index, this.size);
+            String old = this.elements[index];
+            this.elements[index] = element;
+            this.hashValid = false;
+            return old;
+        }
+
+        @Override
+        public void add(int index, String element) {
+            checkModifiable();
+            checkIndex(index, this.size + 1);
+            if (this.size == this.elements.length) {
+                this.elements = Arrays.copyOf(this.elements, Math.max(4, this.size * 2));
+            }
+            System.arraycopy(this.elements, index, this.elements, index + 1, this.size - index);
+            this.elements[index] = element;
+            this.size++;
+            this.hashValid = false;
+            this.modCount++;
+        }
+
+        @Override
+        public String remove(int index) {
+            checkModifiable();
+            checkIndex(index, this.size);
+            String old = this.elements[index];
+            System.arraycopy(this.elements, index + 1, this.elements, index, this.size - index - 1);
+            this.elements[--this.size] = null;
+            this.hashValid = false;
+            this.modCount++;
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            checkModifiable();
+            Arrays.fill(this.elements, 0, this.size, null);
+            this.size = 0;
+            this.hashValid = false;
+            this.modCount++;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            // labels are mostly constants, so check for identity first
+            for (int i = 0; i < this.size; i++) {
+                if (this.elements[i] == o) {
+                    return i;
+                }
+            }
+            if (o != null) {
+                for (int i = 0; i < this.size; i++) {
+                    if (o.equals(this.elements[i])) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+
+        @Override
+        public int hashCode() {
+            if (!this.hashValid) {
+                int result = 1;
+                for (int i = 0; i < this.size; i++) {
+                    String element = this.elements[i];
+                    result = 31 * result + (element == null ? 0 : element.hashCode());
+                }
+                this.hash = result;
+                this.hashValid = true;
+            }
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (o instanceof LabelList) {
+                LabelList that = (LabelList) o;
+                if (this.size != that.size
+                        || (this.hashValid && that.hashValid && this.hash != that.hash)) {
+                    return false;
+                }
+                for (int i = 0; i < this.size; i++) {
+                    String element = this.elements[i];
+                    if (element != that.elements[i]
+                            && (element == null || !element.equals(that.elements[i]))) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return super.equals(o);
+        }
+
+        /**
+         * Adds the given element without modification checks, used to fill
+         * unmodifiable instances.
+         */
+        void append(String element) {
+            if (this.size == this.elements.length) {
+                this.elements = Arrays.copyOf(this.elements, Math.max(4, this.size * 2));
+            }
+            this.elements[this.size++] = element;
+        }
+
+        private void checkModifiable() {
+            if (!this.modifiable) {
+                throw new UnsupportedOperationException();
+            }
+        }
+
+        private static void checkIndex(int index, int bound) {
+            if (index < 0 || index >= bound) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + bound); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        }
+    }
 }
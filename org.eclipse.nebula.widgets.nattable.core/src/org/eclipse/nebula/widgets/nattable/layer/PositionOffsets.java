@@ -0,0 +1,588 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.layer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.layer.event.ILayerEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.StructuralDiff;
+import org.eclipse.nebula.widgets.nattable.layer.event.StructuralDiff.DiffTypeEnum;
+
+/**
+ * Array based index of the start pixels of the row or column positions of a
+ * layer. Used by layer transforms to resolve pixel coordinates to positions
+ * via binary search in O(log n) and positions to start pixels in O(1), instead
+ * of iterating over the positions or caching start pixels per position.
+ * <p>
+ * The index is calculated lazily on first access by requesting the sizes of
+ * all positions from the layer it is created for. It needs to be invalidated by
+ * the layer on structural changes that add, remove or reorder positions. Size
+ * changes of positions can be applied via {@link #updateSizes(Collection)}
+ * without collecting the sizes of all positions again, as long as the sizes
+ * are independent of each other, see {@link #hasIndependentSizes()}. Added and
+ * removed positions can be applied via
+ * {@link #applyDiffs(ILayerEvent, Collection)} if all positions have the same
+ * size, see {@link #hasUniformSizes()}. Custom sizes are stored by position in
+ * the {@link DataLayer} and do not move with added or removed positions, so in
+ * that case the index needs to be rebuilt. If only positions starting at a
+ * known position have changed, the index can be invalidated via
+ * {@link #invalidateFrom(int)}, so the start pixels of the positions before
+ * are kept on rebuild.
+ * </p>
+ * <p>
+ * The offsets are published as a new array on every modification, so reading
+ * from the index does not need any locking.
+ * </p>
+ *
+ * @since 1.6
+ */
+public class PositionOffsets {
+
+    private final ILayer layer;
+    private final boolean horizontal;
+
+    /**
+     * The start pixels of the positions. The array has one more element than
+     * positions, the last element contains the total size. <code>null</code>
+     * if the index needs to be rebuilt.
+     */
+    private volatile int[] offsets;
+
+    /**
+     * Modification counter used to avoid publishing an index that was
+     * invalidated while it was built.
+     */
+    private volatile int modificationCount;
+
+    /**
+     * The offsets that stay valid on the next rebuild, kept by
+     * {@link #invalidateFrom(int)}. <code>null</code> if all offsets need to
+     * be collected again.
+     */
+    private volatile int[] validOffsets;
+
+    /**
+     * The offsets before the structural change described by
+     * {@link #retainingEvent}, kept to apply the diffs of that event.
+     */
+    private int[] retainedOffsets;
+
+    /**
+     * The event whose diffs should be applied to {@link #retainedOffsets}.
+     */
+    private ILayerEvent retainingEvent;
+
+    /**
+     * Create a new {@link PositionOffsets} for the given layer.
+     *
+     * @param layer
+     *            The layer whose positions should be indexed. Used to retrieve
+     *            the number of positions and their sizes.
+     * @param horizontal
+     *            <code>true</code> if the column positions should be indexed,
+     *            <code>false</code> if the row positions should be indexed.
+     */
+    public PositionOffsets(ILayer layer, boolean horizontal) {
+        this.layer = layer;
+        this.horizontal = horizontal;
+    }
+
+    /**
+     * @return The number of indexed positions.
+     */
+    public int getPositionCount() {
+        return getOffsets().length - 1;
+    }
+
+    /**
+     * @return The sum of the sizes of all indexed positions.
+     */
+    public int getTotalSize() {
+        int[] current = getOffsets();
+        return current[current.length - 1];
+    }
+
+    /**
+     * Returns the start pixel of the given position in O(1).
+     *
+     * @param position
+     *            The position whose start pixel is requested.
+     * @return The start pixel of the given position, the total size if the
+     *         given position is equal to or bigger than the position count,
+     *         or -1 for a negative position.
+     */
+    public int getStartPixel(int position) {
+        int[] current = getOffsets();
+        if (position < 0) {
+            return -1;
+        }
+        if (position >= current.length) {
+            return current[current.length - 1];
+        }
+        return current[position];
+    }
+
+    /**
+     * Returns the size of the given position as it was collected from the
+     * layer.
+     *
+     * @param position
+     *            The position whose size is requested.
+     * @return The size of the given position or 0 for an invalid position.
+     */
+    public int getSize(int position) {
+        int[] current = getOffsets();
+        if (position < 0 || position >= current.length - 1) {
+            return 0;
+        }
+        return current[position + 1] - current[position];
+    }
+
+    /**
+     * Returns the position that contains the given pixel via binary search.
+     * Positions with a size of 0 never contain a pixel. The range check is
+     * performed against the width or height of the layer, like in
+     * {@link LayerUtil#getColumnPositionByX(ILayer, int)}. If the layer
+     * reports a bigger size than the sum of the indexed positions, e.g. a
+     * layer without positions, a pixel after the indexed positions resolves
+     * to the position count.
+     *
+     * @param pixel
+     *            The pixel value for which the position is requested.
+     * @return The position that contains the given pixel or -1 if the pixel is
+     *         outside of the layer.
+     */
+    public int getPositionByPixel(int pixel) {
+        int layerSize = this.horizontal ? this.layer.getWidth() : this.layer.getHeight();
+        if (pixel < 0 || pixel >= layerSize) {
+            return -1;
+        }
+
+        int[] current = getOffsets();
+        int count = current.length - 1;
+        if (pixel >= current[count]) {
+            return count;
+        }
+
+        // search the last position whose start pixel is not bigger than the
+        // given pixel, that way positions of size 0 are skipped
+        int low = 0;
+        int high = count - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (current[mid] <= pixel) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Invalidates the index so it gets rebuilt on next access. Needs to be
+     * called on structural changes that change the number or the order of
+     * positions.
+     */
+    public void invalidate() {
+        invalidateFrom(0);
+    }
+
+    /**
+     * Invalidates the index starting at the given position, so it gets
+     * rebuilt on next access. The start pixels of the positions before the
+     * given position are kept, so only the sizes of the positions starting
+     * at the given position are requested from the layer again. Needs to be
+     * called on structural changes that only change the number or the order
+     * of the positions starting at the given position. Subsequent
+     * invalidations before the next rebuild keep the smallest valid part.
+     *
+     * @param position
+     *            The first position whose start pixel or size might have
+     *            changed.
+     */
+    public void invalidateFrom(int position) {
+        int[] valid = this.offsets;
+        if (valid == null) {
+            valid = this.validOffsets;
+        }
+        if (valid != null && position > 0) {
+            int validCount = Math.min(position, valid.length - 1);
+            // the offset arrays are never modified once they are published,
+            // so the array can be kept if it is not shortened
+            this.validOffsets = validCount == valid.length - 1 ? valid : Arrays.copyOf(valid, validCount + 1);
+        } else {
+            this.validOffsets = null;
+        }
+        this.modificationCount++;
+        this.offsets = null;
+    }
+
+    /**
+     * Invalidates the index for a structural change that adds or removes
+     * positions and is described by the diffs of the given event. The current
+     * offsets are kept, so they can be updated via
+     * {@link #applyDiffs(ILayerEvent, Collection)} once the diffs of the event
+     * are converted to local positions, instead of collecting the sizes of all
+     * positions again.
+     *
+     * @param event
+     *            The event that describes the structural change.
+     */
+    public void invalidate(ILayerEvent event) {
+        this.retainedOffsets = this.offsets;
+        this.retainingEvent = event;
+        invalidate();
+    }
+
+    /**
+     * @return <code>true</code> if the index is calculated,
+     *         <code>false</code> if it will be rebuilt on next access.
+     */
+    public boolean isValid() {
+        return this.offsets != null;
+    }
+
+    /**
+     * Updates the index for size changes of the given local positions. Only
+     * the sizes of the given positions are requested from the layer again, the
+     * start pixels of the following positions are shifted. If the index is
+     * currently not calculated, the offsets kept via
+     * {@link #invalidateFrom(int)} are shortened to the first given position,
+     * as the other sizes will be collected on the next access anyway.
+     *
+     * @param positionRanges
+     *            The ranges of local positions whose sizes have changed.
+     */
+    public void updateSizes(Collection<Range> positionRanges) {
+        if (positionRanges == null || positionRanges.isEmpty()) {
+            return;
+        }
+        int[] current = this.offsets;
+        if (current == null) {
+            if (this.validOffsets != null) {
+                int first = Integer.MAX_VALUE;
+                for (Range range : positionRanges) {
+                    first = Math.min(first, range.start);
+                }
+                invalidateFrom(first);
+            }
+            return;
+        }
+
+        int stamp = this.modificationCount;
+        int count = current.length - 1;
+
+        List<Range> ranges = new ArrayList<Range>(positionRanges);
+        sortRanges(ranges);
+
+        int[] updated = new int[current.length];
+        int rangeIdx = 0;
+        for (int position = 0; position < count; position++) {
+            while (rangeIdx < ranges.size() && ranges.get(rangeIdx).end <= position) {
+                rangeIdx++;
+            }
+            int size;
+            if (rangeIdx < ranges.size() && ranges.get(rangeIdx).contains(position)) {
+                size = getLayerSize(position);
+            } else {
+                size = current[position + 1] - current[position];
+            }
+            updated[position + 1] = updated[position] + size;
+        }
+
+        if (stamp == this.modificationCount && this.offsets == current) {
+            this.offsets = updated;
+        }
+    }
+
+    /**
+     * Updates the index that was invalidated via {@link #invalidate(ILayerEvent)}
+     * for the given event with the given diffs in local positions. The blocks
+     * of remaining positions are copied from the previous offsets and shifted
+     * by the size of the removed and added positions in front of them, only
+     * the sizes of added positions are requested from the layer. If the index
+     * was rebuilt in the meantime, the diffs contain size changes or do not
+     * match the number of positions of the layer, the index is rebuilt on next
+     * access instead.
+     *
+     * @param event
+     *            The event that was passed to
+     *            {@link #invalidate(ILayerEvent)}. Calls for other events are
+     *            ignored.
+     * @param diffs
+     *            The {@link StructuralDiff}s of the event in local positions.
+     */
+    public void applyDiffs(ILayerEvent event, Collection<StructuralDiff> diffs) {
+        if (event == null || event != this.retainingEvent) {
+            return;
+        }
+        int[] previous = this.retainedOffsets;
+        this.retainedOffsets = null;
+        this.retainingEvent = null;
+
+        int stamp = this.modificationCount;
+        if (previous == null || this.offsets != null || diffs == null || diffs.isEmpty()) {
+            return;
+        }
+
+        List<Range> deleted = new ArrayList<Range>();
+        List<Range> added = new ArrayList<Range>();
+        for (StructuralDiff diff : diffs) {
+            if (diff.getDiffType() == DiffTypeEnum.DELETE) {
+                deleted.add(diff.getBeforePositionRange());
+            } else if (diff.getDiffType() == DiffTypeEnum.ADD) {
+                added.add(diff.getAfterPositionRange());
+            } else {
+                // size changes are not known without asking the layer
+                return;
+            }
+        }
+
+        // the deletes are based on the positions before the change, the adds
+        // on the positions after the change, so the deletes are applied first
+        int[] remaining = removeRanges(previous, deleted);
+        if (remaining == null) {
+            return;
+        }
+        int[] updated = insertRanges(remaining, added);
+        if (updated == null) {
+            return;
+        }
+
+        int count = this.horizontal ? this.layer.getColumnCount() : this.layer.getRowCount();
+        if (updated.length != count + 1) {
+            return;
+        }
+
+        if (stamp == this.modificationCount && this.offsets == null) {
+            this.validOffsets = null;
+            this.offsets = updated;
+        }
+    }
+
+    /**
+     * Removes the given position ranges from the given offsets.
+     *
+     * @param source
+     *            The offsets to remove the positions from.
+     * @param ranges
+     *            The ranges of positions to remove.
+     * @return The offsets without the given positions or <code>null</code> if
+     *         the ranges do not match the given offsets.
+     */
+    private int[] removeRanges(int[] source, List<Range> ranges) {
+        if (ranges.isEmpty()) {
+            return source;
+        }
+        sortRanges(ranges);
+
+        int sourceCount = source.length - 1;
+        int removed = 0;
+        int end = 0;
+        for (Range range : ranges) {
+            if (range.start < 0 || range.end > sourceCount) {
+                return null;
+            }
+            // ranges might overlap
+            removed += Math.max(range.end, end) - Math.max(range.start, end);
+            end = Math.max(range.end, end);
+        }
+
+        int[] target = new int[sourceCount - removed + 1];
+        int sourcePosition = 0;
+        int targetPosition = 0;
+        for (Range range : ranges) {
+            if (range.start > sourcePosition) {
+                copyBlock(source, sourcePosition, range.start, target, targetPosition);
+                targetPosition += range.start - sourcePosition;
+            }
+            sourcePosition = Math.max(range.end, sourcePosition);
+        }
+        copyBlock(source, sourcePosition, sourceCount, target, targetPosition);
+        return target;
+    }
+
+    /**
+     * Inserts the given position ranges into the given offsets. The sizes of
+     * the inserted positions are requested from the layer.
+     *
+     * @param source
+     *            The offsets to insert the positions into.
+     * @param ranges
+     *            The ranges of the inserted positions, based on the positions
+     *            after the insert.
+     * @return The offsets with the given positions or <code>null</code> if the
+     *         ranges do not match the given offsets.
+     */
+    private int[] insertRanges(int[] source, List<Range> ranges) {
+        if (ranges.isEmpty()) {
+            return source;
+        }
+        sortRanges(ranges);
+
+        int sourceCount = source.length - 1;
+        int inserted = 0;
+        int end = 0;
+        for (Range range : ranges) {
+            if (range.start < end) {
+                return null;
+            }
+            inserted += range.end - range.start;
+            end = range.end;
+        }
+
+        int[] target = new int[sourceCount + inserted + 1];
+        int sourcePosition = 0;
+        int targetPosition = 0;
+        for (Range range : ranges) {
+            int length = range.start - targetPosition;
+            if (sourcePosition + length > sourceCount) {
+                return null;
+            }
+            copyBlock(source, sourcePosition, sourcePosition + length, target, targetPosition);
+            sourcePosition += length;
+            for (int position = range.start; position < range.end; position++) {
+                target[position + 1] = target[position] + getLayerSize(position);
+            }
+            targetPosition = range.end;
+        }
+        copyBlock(source, sourcePosition, sourceCount, target, targetPosition);
+        return target;
+    }
+
+    /**
+     * Copies the offsets of the given block of source positions to the given
+     * target position and shifts them to the start pixel that is already set
+     * for the target position.
+     *
+     * @param source
+     *            The offsets to copy from.
+     * @param from
+     *            The first source position to copy, inclusive.
+     * @param to
+     *            The last source position to copy, exclusive.
+     * @param target
+     *            The offsets to copy to.
+     * @param targetPosition
+     *            The target position of the first copied position.
+     */
+    private static void copyBlock(int[] source, int from, int to, int[] target, int targetPosition) {
+        int length = to - from;
+        if (length <= 0) {
+            return;
+        }
+        System.arraycopy(source, from + 1, target, targetPosition + 1, length);
+        int delta = target[targetPosition] - source[from];
+        if (delta != 0) {
+            for (int i = targetPosition + 1; i <= targetPosition + length; i++) {
+                target[i] += delta;
+            }
+        }
+    }
+
+    private static void sortRanges(List<Range> ranges) {
+        Collections.sort(ranges, new Comparator<Range>() {
+            @Override
+            public int compare(Range o1, Range o2) {
+                return o1.start - o2.start;
+            }
+        });
+    }
+
+    /**
+     * Checks if the size of a position is independent of the sizes of the
+     * other positions, which is the case if the {@link DataLayer} at the
+     * bottom of the layer stack does not use percentage sizing. Otherwise a
+     * size change of one position changes the sizes of other positions too,
+     * so {@link #updateSizes(Collection)} can not be used.
+     *
+     * @return <code>true</code> if size changes can be applied via
+     *         {@link #updateSizes(Collection)}, <code>false</code> if the
+     *         index needs to be invalidated.
+     */
+    public boolean hasIndependentSizes() {
+        SizeConfig sizeConfig = getSizeConfig();
+        return sizeConfig != null && !sizeConfig.isPercentageSizing();
+    }
+
+    /**
+     * Checks if all positions of the {@link DataLayer} at the bottom of the
+     * layer stack have the same fixed size. In that case the sizes do not
+     * depend on the position, so added and removed positions can be applied
+     * via {@link #applyDiffs(ILayerEvent, Collection)}.
+     *
+     * @return <code>true</code> if all positions have the same fixed size.
+     */
+    public boolean hasUniformSizes() {
+        SizeConfig sizeConfig = getSizeConfig();
+        return sizeConfig != null
+                && sizeConfig.isAllPositionsSameSize()
+                && !sizeConfig.isPercentageSizing();
+    }
+
+    /**
+     * @return The {@link SizeConfig} of the {@link DataLayer} at the bottom of
+     *         the layer stack, or <code>null</code> if the layer stack does
+     *         not end in a {@link DataLayer}.
+     */
+    private SizeConfig getSizeConfig() {
+        ILayer current = this.layer;
+        while (current instanceof AbstractLayerTransform) {
+            current = ((AbstractLayerTransform) current).getUnderlyingLayer();
+        }
+        if (current instanceof DataLayer) {
+            return this.horizontal
+                    ? ((DataLayer) current).columnWidthConfig
+                    : ((DataLayer) current).rowHeightConfig;
+        }
+        return null;
+    }
+
+    private int[] getOffsets() {
+        int[] current = this.offsets;
+        if (current == null) {
+            // requesting the count might rebuild the position mapping of the
+            // layer, which invalidates the offsets of the changed positions,
+            // so the count is requested before the valid offsets are read
+            int count = this.horizontal ? this.layer.getColumnCount() : this.layer.getRowCount();
+            int stamp = this.modificationCount;
+            int[] valid = this.validOffsets;
+
+            current = new int[count + 1];
+            int start = 0;
+            if (valid != null) {
+                start = Math.min(valid.length - 1, count);
+                System.arraycopy(valid, 0, current, 0, start + 1);
+            }
+            for (int position = start; position < count; position++) {
+                current[position + 1] = current[position] + getLayerSize(position);
+            }
+            if (stamp == this.modificationCount) {
+                this.validOffsets = null;
+                this.offsets = current;
+            }
+        }
+        return current;
+    }
+
+    private int getLayerSize(int position) {
+        return this.horizontal
+                ? this.layer.getColumnWidthByPosition(position)
+                : this.layer.getRowHeightByPosition(position);
+    }
+}
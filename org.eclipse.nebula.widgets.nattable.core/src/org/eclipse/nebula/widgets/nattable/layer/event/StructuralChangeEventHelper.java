@@ -12,9 +12,12 @@
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.coordinate.RangeSet;
 import org.eclipse.nebula.widgets.nattable.layer.ILayer;
 import org.eclipse.nebula.widgets.nattable.layer.event.StructuralDiff.DiffTypeEnum;
 
@@ -50,6 +53,11 @@ public static void handleRowDelete(
             Collection<StructuralDiff> rowDiffs, ILayer underlyingLayer,
             Collection<Integer> cachedRowIndexes, boolean handleNotFound) {
 
+        if (cachedRowIndexes instanceof RangeSet) {
+            handleDelete(rowDiffs, (RangeSet) cachedRowIndexes, handleNotFound);
+            return;
+        }
+
         // the number of all deleted rows that don't have a corresponding index
         // anymore (last row cases)
         int numberOfNoIndex = 0;
@@ -121,6 +129,17 @@ public static void handleRowInsert(
             Collection<StructuralDiff> rowDiffs, ILayer underlyingLayer,
             Collection<Integer> cachedRowIndexes, boolean addToCache) {
 
+        if (cachedRowIndexes instanceof RangeSet && !addToCache) {
+            for (StructuralDiff rowDiff : rowDiffs) {
+                if (rowDiff.getDiffType() != null
+                        && rowDiff.getDiffType().equals(DiffTypeEnum.ADD)) {
+                    ((RangeSet) cachedRowIndexes).insert(
+                            underlyingLayer.getRowIndexByPosition(rowDiff.getBeforePositionRange().start), 1);
+                }
+            }
+            return;
+        }
+
         for (StructuralDiff rowDiff : rowDiffs) {
             if (rowDiff.getDiffType() != null
                     && rowDiff.getDiffType().equals(DiffTypeEnum.ADD)) {
@@ -171,6 +190,11 @@ public static void handleColumnDelete(
             Collection<StructuralDiff> columnDiffs, ILayer underlyingLayer,
             Collection<Integer> cachedColumnIndexes, boolean handleNotFound) {
 
+        if (cachedColumnIndexes instanceof RangeSet) {
+            handleDelete(columnDiffs, (RangeSet) cachedColumnIndexes, handleNotFound);
+            return;
+        }
+
         // the number of all deleted columns that don't have a corresponding
         // index anymore (last column cases)
         int numberOfNoIndex = 0;
@@ -242,6 +266,17 @@ public static void handleColumnInsert(
             Collection<StructuralDiff> columnDiffs, ILayer underlyingLayer,
             Collection<Integer> cachedColumnIndexes, boolean addToCache) {
 
+        if (cachedColumnIndexes instanceof RangeSet && !addToCache) {
+            for (StructuralDiff columnDiff : columnDiffs) {
+                if (columnDiff.getDiffType() != null
+                        && columnDiff.getDiffType().equals(DiffTypeEnum.ADD)) {
+                    ((RangeSet) cachedColumnIndexes).insert(
+                            underlyingLayer.getColumnIndexByPosition(columnDiff.getBeforePositionRange().start), 1);
+                }
+            }
+            return;
+        }
+
         for (StructuralDiff columnDiff : columnDiffs) {
             if (columnDiff.getDiffType() != null
                     && columnDiff.getDiffType().equals(DiffTypeEnum.ADD)) {
@@ -266,6 +301,54 @@ public static void handleColumnInsert(
         }
     }
 
+    /**
+     * Handles the DELETE diffs for indexes that are stored in a
+     * {@link RangeSet}. Instead of removing and shifting every single index,
+     * the deleted ranges are removed and the following ranges are shifted in
+     * one operation per diff.
+     *
+     * @param diffs
+     *            The collection of {@link StructuralDiff}s to handle.
+     * @param cachedIndexes
+     *            The indexes that need transformation.
+     * @param handleNotFound
+     *            flag to tell whether the not found indexes should be taken
+     *            into account or not.
+     */
+    private static void handleDelete(
+            Collection<StructuralDiff> diffs, RangeSet cachedIndexes, boolean handleNotFound) {
+
+        int numberOfNoIndex = 0;
+        List<Range> toDelete = new ArrayList<Range>();
+        for (StructuralDiff diff : diffs) {
+            if (diff.getDiffType() != null
+                    && diff.getDiffType().equals(DiffTypeEnum.DELETE)) {
+                Range beforePositionRange = diff.getBeforePositionRange();
+                if (beforePositionRange.start < 0) {
+                    numberOfNoIndex += Math.min(0, beforePositionRange.end) - beforePositionRange.start;
+                }
+                if (beforePositionRange.end > 0) {
+                    toDelete.add(new Range(Math.max(0, beforePositionRange.start), beforePositionRange.end));
+                }
+            }
+        }
+
+        // delete from the end to keep the positions of the preceding ranges
+        Collections.sort(toDelete, new Comparator<Range>() {
+            @Override
+            public int compare(Range o1, Range o2) {
+                return o2.start - o1.start;
+            }
+        });
+        for (Range range : toDelete) {
+            cachedIndexes.delete(range.start, range.end);
+        }
+
+        if (handleNotFound && numberOfNoIndex > 0) {
+            cachedIndexes.delete(0, numberOfNoIndex);
+        }
+    }
+
     /**
      * Method to indicate if the collection of StructuralDiffs marks a reorder
      * event. This is necessary because reordering itself contains out of two
@@ -322,4 +405,55 @@ public static boolean isReorder(Collection<StructuralDiff> structuralDiffs) {
         return false;
     }
 
+    /**
+     * Checks if the given collection of {@link StructuralDiff}s only contains
+     * diffs of type {@link DiffTypeEnum#CHANGE}. This is the case for resize
+     * events, which change the size of positions but not the position order or
+     * the number of positions.
+     *
+     * @param structuralDiffs
+     *            The collection of StructuralDiffs to check.
+     * @return <code>true</code> if the given diffs only describe size changes,
+     *         <code>false</code> if the diffs are <code>null</code>, empty or
+     *         contain ADD or DELETE diffs.
+     *
+     * @since 1.6
+     */
+    public static boolean isSizeChange(Collection<StructuralDiff> structuralDiffs) {
+        if (structuralDiffs == null || structuralDiffs.isEmpty()) {
+            return false;
+        }
+        for (StructuralDiff diff : structuralDiffs) {
+            if (diff.getDiffType() != DiffTypeEnum.CHANGE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the given collection of {@link StructuralDiff}s only contains
+     * diffs of type {@link DiffTypeEnum#ADD} or {@link DiffTypeEnum#DELETE}.
+     * In that case the sizes of the remaining positions are not changed.
+     *
+     * @param structuralDiffs
+     *            The collection of StructuralDiffs to check.
+     * @return <code>true</code> if the given diffs only describe added or
+     *         deleted positions, <code>false</code> if the diffs are
+     *         <code>null</code>, empty or contain CHANGE diffs.
+     *
+     * @since 1.6
+     */
+    public static boolean isAddOrDelete(Collection<StructuralDiff> structuralDiffs) {
+        if (structuralDiffs == null || structuralDiffs.isEmpty()) {
+            return false;
+        }
+        for (StructuralDiff diff : structuralDiffs) {
+            if (diff.getDiffType() == DiffTypeEnum.CHANGE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 }
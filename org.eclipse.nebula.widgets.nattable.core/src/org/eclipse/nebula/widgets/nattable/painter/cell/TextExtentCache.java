@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.painter.cell;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.GC;
+
+/**
+ * Cache for the width of texts rendered with a specific font. The widths are
+ * stored per font in a size bounded LRU cache that is keyed by the text
+ * itself. For monospaced fonts the width of texts that only contain printable
+ * ASCII characters is calculated from the character width, so the GC does not
+ * need to measure them at all. A font is treated as monospaced if all
+ * printable ASCII characters have the same width, which is verified again
+ * against the measured width of the first long text.
+ *
+ * @since 1.6
+ */
+public final class TextExtentCache {
+
+    /**
+     * The maximum number of text widths that are cached per font.
+     */
+    static final int MAX_TEXTS_PER_FONT = 5000;
+
+    /**
+     * The maximum number of fonts for which widths are cached.
+     */
+    private static final int MAX_FONTS = 64;
+
+    /**
+     * The minimum length of the text that is measured to verify the width of
+     * a monospaced font.
+     */
+    private static final int VERIFY_LENGTH = 16;
+
+    /**
+     * Characters with different widths in proportional fonts, that are
+     * measured one by one to detect monospaced fonts.
+     */
+    private static final String PROBE_CHARACTERS = "iIl1.: WMm0@_"; //$NON-NLS-1$
+
+    /**
+     * All printable ASCII characters, measured together to detect monospaced
+     * fonts.
+     */
+    private static final String PRINTABLE_ASCII;
+
+    static {
+        StringBuilder builder = new StringBuilder();
+        for (char c = 0x20; c <= 0x7E; c++) {
+            builder.append(c);
+        }
+        PRINTABLE_ASCII = builder.toString();
+    }
+
+    private static final Map<Font, FontKey> fontKeys = new WeakHashMap<Font, FontKey>();
+    private static final Map<FontKey, FontWidths> fontWidths = new HashMap<FontKey, FontWidths>();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private TextExtentCache() {
+        // private default constructor for helper class
+    }
+
+    /**
+     * Returns the width of the given text if it is rendered with the current
+     * font of the given GC.
+     *
+     * @param gc
+     *            The GC that is used to render the text.
+     * @param text
+     *            The text whose width is requested.
+     * @return The width of the given text.
+     */
+    public static int getTextWidth(GC gc, String text) {
+        FontWidths widths = getFontWidths(gc);
+        if (widths == null) {
+            misses.incrementAndGet();
+            return gc.textExtent(text).x;
+        }
+        return widths.getWidth(gc, text);
+    }
+
+    /**
+     * @return The number of text widths that were returned without measuring
+     *         the text via GC.
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of text widths that needed to be measured via GC.
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Resets the hit and miss counters.
+     */
+    public static void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * Removes all cached text widths.
+     */
+    public static void clear() {
+        synchronized (fontWidths) {
+            fontKeys.clear();
+            fontWidths.clear();
+        }
+    }
+
+    private static FontWidths getFontWidths(GC gc) {
+        Font font = gc.getFont();
+        if (font == null) {
+            return null;
+        }
+        synchronized (fontWidths) {
+            FontKey key = fontKeys.get(font);
+            if (key == null) {
+                FontData[] datas = font.getFontData();
+                if (datas == null || datas.length == 0) {
+                    return null;
+                }
+                key = new FontKey(datas[0]);
+                fontKeys.put(font, key);
+            }
+            FontWidths widths = fontWidths.get(key);
+            if (widths == null) {
+                if (fontWidths.size() >= MAX_FONTS) {
+                    fontWidths.clear();
+                }
+                widths = new FontWidths(gc);
+                fontWidths.put(key, widths);
+            }
+            return widths;
+        }
+    }
+
+    /**
+     * Identifies a font by the attributes that influence the text width.
+     */
+    private static final class FontKey {
+
+        private final String name;
+        private final int height;
+        private final int style;
+
+        FontKey(FontData fontData) {
+            this.name = fontData.getName();
+            this.height = fontData.getHeight();
+            this.style = fontData.getStyle();
+        }
+
+        @Override
+        public int hashCode() {
+            return (this.name == null ? 0 : this.name.hashCode()) * 31 * 31
+                    + this.height * 31 + this.style;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof FontKey)) {
+                return false;
+            }
+            FontKey other = (FontKey) obj;
+            return this.height == other.height
+                    && this.style == other.style
+                    && (this.name == null ? other.name == null : this.name.equals(other.name));
+        }
+    }
+
+    /**
+     * The cached text widths of a single font.
+     */
+    private static final class FontWidths {
+
+        /**
+         * The width of a single ASCII character if the font is monospaced, -1
+         * otherwise.
+         */
+        private volatile int monospaceWidth;
+
+        /**
+         * Flag to indicate whether the monospace width was verified against
+         * the measured width of a long text.
+         */
+        private volatile boolean monospaceVerified;
+
+        private final Map<String, Integer> textWidths = new LinkedHashMap<String, Integer>(64, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > MAX_TEXTS_PER_FONT;
+            }
+        };
+
+        FontWidths(GC gc) {
+            this.monospaceWidth = getMonospaceWidth(gc);
+        }
+
+        /**
+         * @return The width of a single character if every probed character
+         *         and all printable ASCII characters together have the same
+         *         width per character, -1 otherwise.
+         */
+        private static int getMonospaceWidth(GC gc) {
+            int width = gc.textExtent(PROBE_CHARACTERS.substring(0, 1)).x;
+            if (width <= 0) {
+                return -1;
+            }
+            for (int i = 1; i < PROBE_CHARACTERS.length(); i++) {
+                if (gc.textExtent(PROBE_CHARACTERS.substring(i, i + 1)).x != width) {
+                    return -1;
+                }
+            }
+            return (gc.textExtent(PRINTABLE_ASCII).x == PRINTABLE_ASCII.length() * width) ? width : -1;
+        }
+
+        int getWidth(GC gc, String text) {
+            int monospace = this.monospaceWidth;
+            if (monospace > 0 && isPrintableAscii(text)) {
+                if (this.monospaceVerified || text.length() < VERIFY_LENGTH) {
+                    hits.incrementAndGet();
+                    return text.length() * monospace;
+                }
+                // verify the estimate once against a real measurement
+                misses.incrementAndGet();
+                int width = gc.textExtent(text).x;
+                if (width == text.length() * monospace) {
+                    this.monospaceVerified = true;
+                } else {
+                    this.monospaceWidth = -1;
+                }
+                synchronized (this.textWidths) {
+                    this.textWidths.put(text, Integer.valueOf(width));
+                }
+                return width;
+            }
+
+            synchronized (this.textWidths) {
+                Integer width = this.textWidths.get(text);
+                if (width != null) {
+                    hits.incrementAndGet();
+                    return width.intValue();
+                }
+            }
+
+            misses.incrementAndGet();
+            int width = gc.textExtent(text).x;
+            synchronized (this.textWidths) {
+                this.textWidths.put(text, Integer.valueOf(width));
+            }
+            return width;
+        }
+
+        /**
+         * Only printable ASCII characters are guaranteed to have the same
+         * width in monospaced fonts. Tabs, line breaks and other characters,
+         * that might be rendered with a fallback font, are measured by the GC.
+         */
+        private static boolean isPrintableAscii(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < 0x20 || c > 0x7E) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2015 Original authors and others.
+ * Copyright (c) 2012, 2019 Original authors and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,10 +10,8 @@
  ******************************************************************************/
 package org.eclipse.nebula.widgets.nattable.painter.layer;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.eclipse.nebula.widgets.nattable.config.IConfigRegistry;
 import org.eclipse.nebula.widgets.nattable.layer.ILayer;
@@ -25,8 +23,37 @@
 public class CellLayerPainter implements ILayerPainter {
 
     private ILayer natLayer;
-    private Map<Integer, Integer> horizontalPositionToPixelMap;
-    private Map<Integer, Integer> verticalPositionToPixelMap;
+
+    /**
+     * The start pixel of the visible column positions, starting at
+     * {@link #horizontalStartPosition}. Reused across frames.
+     */
+    private int[] horizontalPositionToPixel;
+    private int horizontalStartPosition;
+    private int horizontalPositionCount;
+
+    /**
+     * The start pixel of the visible row positions, starting at
+     * {@link #verticalStartPosition}. Reused across frames.
+     */
+    private int[] verticalPositionToPixel;
+    private int verticalStartPosition;
+    private int verticalPositionCount;
+
+    /**
+     * The clipping of the GC while painting the layer, <code>null</code> if
+     * no layer is currently painted or if the clipping needs to be restored
+     * after every cell.
+     */
+    private Rectangle originalClipping;
+
+    /**
+     * Whether the clipping can be restored once per frame instead of once per
+     * cell. Only possible if {@link #paintCell(ILayerCell, GC, IConfigRegistry)}
+     * is not overridden, as overriding implementations might expect the
+     * original clipping on the GC.
+     */
+    private final boolean batchClipping;
 
     private final boolean clipLeft;
     private final boolean clipTop;
@@ -55,6 +82,29 @@ public CellLayerPainter() {
     public CellLayerPainter(boolean clipLeft, boolean clipTop) {
         this.clipLeft = clipLeft;
         this.clipTop = clipTop;
+        this.batchClipping = !isPaintCellOverridden(getClass());
+    }
+
+    private static boolean isPaintCellOverridden(Class<?> type) {
+        for (Class<?> current = type; current != CellLayerPainter.class; current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod("paintCell", ILayerCell.class, GC.class, IConfigRegistry.class); //$NON-NLS-1$
+                return true;
+            } catch (NoSuchMethodException e) {
+                // not overridden in this class
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return <code>true</code> if the clipping is restored once per frame,
+     *         <code>false</code> if it is restored after every cell because
+     *         {@link #paintCell(ILayerCell, GC, IConfigRegistry)} is
+     *         overridden.
+     */
+    boolean isBatchClipping() {
+        return this.batchClipping;
     }
 
     @Override
@@ -69,28 +119,52 @@ public void paintLayer(ILayer natLayer, GC gc, int xOffset, int yOffset,
 
         calculateDimensionInfo(positionRectangle);
 
-        Collection<ILayerCell> spannedCells = new HashSet<ILayerCell>();
+        // the clipping is only requested once per frame and restored after
+        // all cells are painted instead of after every single cell
+        Rectangle previousClipping = this.originalClipping;
+        Rectangle frameClipping = this.batchClipping ? gc.getClipping() : null;
+        this.originalClipping = frameClipping;
 
-        for (int columnPosition = positionRectangle.x; columnPosition < positionRectangle.x
-                + positionRectangle.width; columnPosition++) {
-            for (int rowPosition = positionRectangle.y; rowPosition < positionRectangle.y
-                    + positionRectangle.height; rowPosition++) {
-                if (columnPosition == -1 || rowPosition == -1) {
-                    continue;
-                }
-                ILayerCell cell = natLayer.getCellByPosition(columnPosition, rowPosition);
-                if (cell != null) {
-                    if (cell.isSpannedCell()) {
-                        spannedCells.add(cell);
-                    } else {
-                        paintCell(cell, gc, configRegistry);
+        try {
+            List<ILayerCell> spannedCells = null;
+
+            // paint column by column, as overlapping cells are clipped
+            // depending on the paint order
+            int firstColumn = Math.max(positionRectangle.x, 0);
+            int firstRow = Math.max(positionRectangle.y, 0);
+            int endColumn = positionRectangle.x + positionRectangle.width;
+            int endRow = positionRectangle.y + positionRectangle.height;
+            for (int columnPosition = firstColumn; columnPosition < endColumn; columnPosition++) {
+                for (int rowPosition = firstRow; rowPosition < endRow; rowPosition++) {
+                    ILayerCell cell = natLayer.getCellByPosition(columnPosition, rowPosition);
+                    if (cell != null) {
+                        if (cell.isSpannedCell()) {
+                            // collect a spanned cell only at its first
+                            // visible position to paint it once
+                            if (columnPosition == Math.max(cell.getOriginColumnPosition(), firstColumn)
+                                    && rowPosition == Math.max(cell.getOriginRowPosition(), firstRow)) {
+                                if (spannedCells == null) {
+                                    spannedCells = new ArrayList<ILayerCell>();
+                                }
+                                spannedCells.add(cell);
+                            }
+                        } else {
+                            paintCell(cell, gc, configRegistry);
+                        }
                     }
                 }
             }
-        }
 
-        for (ILayerCell cell : spannedCells) {
-            paintCell(cell, gc, configRegistry);
+            if (spannedCells != null) {
+                for (ILayerCell cell : spannedCells) {
+                    paintCell(cell, gc, configRegistry);
+                }
+            }
+        } finally {
+            if (this.batchClipping) {
+                gc.setClipping(frameClipping);
+            }
+            this.originalClipping = previousClipping;
         }
     }
 
@@ -129,47 +203,60 @@ protected boolean isClipTop(int position) {
 
     private void calculateDimensionInfo(Rectangle positionRectangle) {
         {
-            this.horizontalPositionToPixelMap = new HashMap<Integer, Integer>();
             final int startPosition = positionRectangle.x;
             final int endPosition = startPosition + positionRectangle.width;
+            this.horizontalStartPosition = startPosition;
+            this.horizontalPositionCount = 0;
+            this.horizontalPositionToPixel = ensureCapacity(this.horizontalPositionToPixel, positionRectangle.width + 1);
             int previousEndX = (startPosition > 0)
                     ? this.natLayer.getStartXOfColumnPosition(startPosition - 1)
                             + this.natLayer.getColumnWidthByPosition(startPosition - 1)
                     : Integer.MIN_VALUE;
             for (int position = startPosition; position < endPosition; position++) {
                 int startX = this.natLayer.getStartXOfColumnPosition(position);
-                this.horizontalPositionToPixelMap.put(
-                        position,
-                        isClipLeft(position) ? startX : Math.max(startX, previousEndX));
+                this.horizontalPositionToPixel[this.horizontalPositionCount++] =
+                        isClipLeft(position) ? startX : Math.max(startX, previousEndX);
                 previousEndX = startX + this.natLayer.getColumnWidthByPosition(position);
             }
             if (endPosition < this.natLayer.getColumnCount()) {
                 int startX = this.natLayer.getStartXOfColumnPosition(endPosition);
-                this.horizontalPositionToPixelMap.put(endPosition, Math.max(startX, previousEndX));
+                this.horizontalPositionToPixel[this.horizontalPositionCount++] = Math.max(startX, previousEndX);
             }
         }
         {
-            this.verticalPositionToPixelMap = new HashMap<Integer, Integer>();
             final int startPosition = positionRectangle.y;
             final int endPosition = startPosition + positionRectangle.height;
+            this.verticalStartPosition = startPosition;
+            this.verticalPositionCount = 0;
+            this.verticalPositionToPixel = ensureCapacity(this.verticalPositionToPixel, positionRectangle.height + 1);
             int previousEndY = (startPosition > 0)
                     ? this.natLayer.getStartYOfRowPosition(startPosition - 1)
                             + this.natLayer.getRowHeightByPosition(startPosition - 1)
                     : Integer.MIN_VALUE;
             for (int position = startPosition; position < endPosition; position++) {
                 int startY = this.natLayer.getStartYOfRowPosition(position);
-                this.verticalPositionToPixelMap.put(
-                        position,
-                        isClipTop(position) ? startY : Math.max(startY, previousEndY));
+                this.verticalPositionToPixel[this.verticalPositionCount++] =
+                        isClipTop(position) ? startY : Math.max(startY, previousEndY);
                 previousEndY = startY + this.natLayer.getRowHeightByPosition(position);
             }
             if (endPosition < this.natLayer.getRowCount()) {
                 int startY = this.natLayer.getStartYOfRowPosition(endPosition);
-                this.verticalPositionToPixelMap.put(endPosition, Math.max(startY, previousEndY));
+                this.verticalPositionToPixel[this.verticalPositionCount++] = Math.max(startY, previousEndY);
             }
         }
     }
 
+    /**
+     * Returns the given array if it is big enough, otherwise a new one, so the
+     * pixel arrays are reused across frames.
+     */
+    private static int[] ensureCapacity(int[] array, int length) {
+        if (array == null || array.length < length) {
+            return new int[Math.max(length, 16)];
+        }
+        return array;
+    }
+
     @Override
     public Rectangle adjustCellBounds(int columnPosition, int rowPosition, Rectangle cellBounds) {
         return cellBounds;
@@ -201,7 +288,10 @@ protected void paintCell(ILayerCell cell, GC gc, IConfigRegistry configRegistry)
                 .getLayerPainter()
                 .adjustCellBounds(columnPosition, rowPosition, cell.getBounds());
         if (cellPainter != null) {
-            Rectangle originalClipping = gc.getClipping();
+            // inside paintLayer() the clipping of the frame is known and
+            // restored after all cells are painted
+            boolean batched = this.originalClipping != null;
+            Rectangle originalClipping = batched ? this.originalClipping : gc.getClipping();
 
             int startX = getStartXOfColumnPosition(columnPosition);
             int startY = getStartYOfRowPosition(rowPosition);
@@ -215,25 +305,27 @@ protected void paintCell(ILayerCell cell, GC gc, IConfigRegistry configRegistry)
 
             cellPainter.paintCell(cell, gc, adjustedCellBounds, configRegistry);
 
-            gc.setClipping(originalClipping);
+            if (!batched) {
+                gc.setClipping(originalClipping);
+            }
         }
     }
 
     protected int getStartXOfColumnPosition(final int columnPosition) {
         if (columnPosition < this.natLayer.getColumnCount()) {
-            Integer start = this.horizontalPositionToPixelMap.get(columnPosition);
-            if (start == null) {
-                start = this.natLayer.getStartXOfColumnPosition(columnPosition);
-                if (columnPosition > 0) {
-                    int start2 = this.natLayer.getStartXOfColumnPosition(columnPosition - 1)
-                            + this.natLayer.getColumnWidthByPosition(columnPosition - 1);
-                    if (start2 > start.intValue()) {
-                        start = start2;
-                    }
+            int offset = columnPosition - this.horizontalStartPosition;
+            if (offset >= 0 && offset < this.horizontalPositionCount) {
+                return this.horizontalPositionToPixel[offset];
+            }
+            int start = this.natLayer.getStartXOfColumnPosition(columnPosition);
+            if (columnPosition > 0) {
+                int start2 = this.natLayer.getStartXOfColumnPosition(columnPosition - 1)
+                        + this.natLayer.getColumnWidthByPosition(columnPosition - 1);
+                if (start2 > start) {
+                    start = start2;
                 }
-                this.horizontalPositionToPixelMap.put(columnPosition, start);
             }
-            return start.intValue();
+            return start;
         } else {
             return this.natLayer.getWidth();
         }
@@ -241,19 +333,19 @@ protected int getStartXOfColumnPosition(final int columnPosition) {
 
     protected int getStartYOfRowPosition(final int rowPosition) {
         if (rowPosition < this.natLayer.getRowCount()) {
-            Integer start = this.verticalPositionToPixelMap.get(rowPosition);
-            if (start == null) {
-                start = this.natLayer.getStartYOfRowPosition(rowPosition);
-                if (rowPosition > 0) {
-                    int start2 = this.natLayer.getStartYOfRowPosition(rowPosition - 1)
-                            + this.natLayer.getRowHeightByPosition(rowPosition - 1);
-                    if (start2 > start.intValue()) {
-                        start = start2;
-                    }
+            int offset = rowPosition - this.verticalStartPosition;
+            if (offset >= 0 && offset < this.verticalPositionCount) {
+                return this.verticalPositionToPixel[offset];
+            }
+            int start = this.natLayer.getStartYOfRowPosition(rowPosition);
+            if (rowPosition > 0) {
+                int start2 = this.natLayer.getStartYOfRowPosition(rowPosition - 1)
+                        + this.natLayer.getRowHeightByPosition(rowPosition - 1);
+                if (start2 > start) {
+                    start = start2;
                 }
-                this.verticalPositionToPixelMap.put(rowPosition, start);
             }
-            return start.intValue();
+            return start;
         } else {
             return this.natLayer.getHeight();
         }
@@ -16,7 +16,10 @@
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.StringTokenizer;
 
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.coordinate.RangeSet;
 import org.eclipse.nebula.widgets.nattable.persistence.gui.PersistenceDialog;
 
 /**
@@ -27,6 +30,14 @@
  */
 public class PersistenceHelper {
 
+    /**
+     * Separator used to persist a range of contiguous values via
+     * {@link #rangesToString(RangeSet)}.
+     *
+     * @since 1.6
+     */
+    public static final String RANGE_SEPARATOR = "-"; //$NON-NLS-1$
+
     /**
      * Deletes the keys for a state that is identified by given prefix out of
      * the given properties.
@@ -85,4 +96,66 @@ public static Collection<String> getAvailableStates(Properties properties) {
         }
         return stateNames;
     }
+
+    /**
+     * Creates the String representation of the given values for persistence.
+     * Runs of more than two contiguous values are stored as <i>start-end</i>
+     * with an inclusive end, other values are stored as is. The entries are
+     * separated by {@link IPersistable#VALUE_SEPARATOR}, so a set without such
+     * runs results in the same String as storing the single values.
+     *
+     * @param values
+     *            The values to persist.
+     * @return The String representation of the given values.
+     *
+     * @see #stringToRanges(String, RangeSet)
+     * @since 1.6
+     */
+    public static String rangesToString(RangeSet values) {
+        StringBuilder builder = new StringBuilder();
+        for (Range range : values.getRanges()) {
+            if (range.size() > 2) {
+                builder.append(range.start);
+                builder.append(RANGE_SEPARATOR);
+                builder.append(range.end - 1);
+                builder.append(IPersistable.VALUE_SEPARATOR);
+            } else {
+                // a range notation does not save space for less than three
+                // values
+                for (int value = range.start; value < range.end; value++) {
+                    builder.append(value);
+                    builder.append(IPersistable.VALUE_SEPARATOR);
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Adds the values of the given String representation created via
+     * {@link #rangesToString(RangeSet)} to the given {@link RangeSet}. Also
+     * supports Strings that only contain single values.
+     *
+     * @param property
+     *            The String representation of the values.
+     * @param values
+     *            The {@link RangeSet} to which the values should be added.
+     *
+     * @since 1.6
+     */
+    public static void stringToRanges(String property, RangeSet values) {
+        StringTokenizer tok = new StringTokenizer(property, IPersistable.VALUE_SEPARATOR);
+        while (tok.hasMoreTokens()) {
+            String token = tok.nextToken().trim();
+            // start search at 1 to support negative values
+            int separator = token.indexOf(RANGE_SEPARATOR, 1);
+            if (separator > 0) {
+                int start = Integer.parseInt(token.substring(0, separator));
+                int end = Integer.parseInt(token.substring(separator + 1));
+                values.addRange(start, end + 1);
+            } else {
+                values.add(Integer.parseInt(token));
+            }
+        }
+    }
 }
@@ -13,7 +13,6 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -26,7 +25,7 @@
 import org.eclipse.nebula.widgets.nattable.layer.AbstractLayerTransform;
 import org.eclipse.nebula.widgets.nattable.layer.ILayer;
 import org.eclipse.nebula.widgets.nattable.layer.IUniqueIndexLayer;
-import org.eclipse.nebula.widgets.nattable.layer.LayerUtil;
+import org.eclipse.nebula.widgets.nattable.layer.PositionOffsets;
 import org.eclipse.nebula.widgets.nattable.layer.event.ColumnStructuralRefreshEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.ILayerEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.IStructuralChangeEvent;
@@ -54,23 +53,34 @@ public class ColumnReorderLayer extends AbstractLayerTransform implements IUniqu
 
     private final IUniqueIndexLayer underlyingLayer;
 
+    /**
+     * The primitive permutation of the column indexes that backs the
+     * {@link #columnIndexOrder} and the {@link #indexPositionMapping}.
+     */
+    private final IndexOrderList indexOrder = new IndexOrderList();
+
     /**
      * The internal cache of the column index order. Used to track the
      * reordering performed by this layer. Position X in the List contains the
      * index of column at position X.
      */
-    protected final List<Integer> columnIndexOrder = new ArrayList<Integer>();
+    protected final List<Integer> columnIndexOrder = this.indexOrder;
 
     /**
      * The internal mapping of index to position values. Used for performance
      * reasons in {@link #getColumnPositionByIndex(int)} because
-     * {@link List#indexOf(Object)} doesn't scale well.
+     * {@link List#indexOf(Object)} doesn't scale well. This is a read-only
+     * view on the inverse permutation of the {@link #columnIndexOrder}, so it is
+     * always in sync with it.
      *
      * @since 1.5
      */
-    protected final Map<Integer, Integer> indexPositionMapping = new HashMap<Integer, Integer>();
+    protected final Map<Integer, Integer> indexPositionMapping = this.indexOrder.getPositionMapping();
 
-    private final Map<Integer, Integer> startXCache = new HashMap<Integer, Integer>();
+    /**
+     * Index of the start x coordinates of the local column positions.
+     */
+    private final PositionOffsets columnOffsets = new PositionOffsets(this, true);
 
     private int reorderFromColumnPosition;
 
@@ -115,24 +125,50 @@ public void handleLayerEvent(ILayerEvent event) {
             IStructuralChangeEvent structuralChangeEvent = (IStructuralChangeEvent) event;
             if (structuralChangeEvent.isHorizontalStructureChanged()) {
                 Collection<StructuralDiff> structuralDiffs = structuralChangeEvent.getColumnDiffs();
-                if (structuralDiffs == null) {
-                    // Assume everything changed
-                    populateIndexOrder();
+                if (StructuralChangeEventHelper.isSizeChange(structuralDiffs)) {
+                    if (this.columnOffsets.hasIndependentSizes()) {
+                        // only column sizes have changed, the order stays the
+                        // same so the column offsets can be updated
+                        // incrementally
+                        updateColumnOffsets(structuralDiffs);
+                    } else {
+                        // with percentage sizing the other column widths change
+                        // too
+                        this.columnOffsets.invalidate();
+                    }
                 } else {
-                    // only react on ADD or DELETE and not on CHANGE
-                    StructuralChangeEventHelper.handleColumnDelete(
-                            structuralDiffs, this.underlyingLayer, this.columnIndexOrder, true);
-                    StructuralChangeEventHelper.handleColumnInsert(
-                            structuralDiffs, this.underlyingLayer, this.columnIndexOrder, true);
-                    // update index-position mapping
-                    refreshIndexPositionMapping();
+                    if (structuralDiffs != null && this.columnOffsets.hasUniformSizes()) {
+                        // all columns have the same width, so the offsets
+                        // are updated with the converted diffs before the
+                        // event is fired, custom widths are bound to
+                        // positions and require a rebuild
+                        this.columnOffsets.invalidate(event);
+                    }
+                    if (structuralDiffs == null) {
+                        // Assume everything changed
+                        populateIndexOrder();
+                    } else {
+                        // only react on ADD or DELETE and not on CHANGE
+                        StructuralChangeEventHelper.handleColumnDelete(
+                                structuralDiffs, this.underlyingLayer, this.columnIndexOrder, true);
+                        StructuralChangeEventHelper.handleColumnInsert(
+                                structuralDiffs, this.underlyingLayer, this.columnIndexOrder, true);
+                    }
+                    invalidateCache();
                 }
-                invalidateCache();
             }
         }
         super.handleLayerEvent(event);
     }
 
+    @Override
+    public void fireLayerEvent(ILayerEvent event) {
+        if (event instanceof IStructuralChangeEvent) {
+            this.columnOffsets.applyDiffs(event, ((IStructuralChangeEvent) event).getColumnDiffs());
+        }
+        super.fireLayerEvent(event);
+    }
+
     // Configuration
 
     @Override
@@ -174,8 +210,6 @@ public void loadState(String prefix, Properties properties) {
             if (isRestoredStateValid(newColumnIndexOrder)) {
                 this.columnIndexOrder.clear();
                 this.columnIndexOrder.addAll(newColumnIndexOrder);
-                // refresh index-position mapping
-                refreshIndexPositionMapping();
             }
 
         }
@@ -220,17 +254,12 @@ public List<Integer> getColumnIndexOrder() {
 
     @Override
     public int getColumnIndexByPosition(int columnPosition) {
-        if (columnPosition >= 0 && columnPosition < this.columnIndexOrder.size()) {
-            return this.columnIndexOrder.get(columnPosition);
-        } else {
-            return -1;
-        }
+        return this.indexOrder.getIndex(columnPosition);
     }
 
     @Override
     public int getColumnPositionByIndex(int columnIndex) {
-        Integer result = this.indexPositionMapping.get(columnIndex);
-        return (result != null) ? result : -1;
+        return this.indexOrder.getPosition(columnIndex);
     }
 
     @Override
@@ -263,23 +292,34 @@ public Collection<Range> underlyingToLocalColumnPositions(ILayer sourceUnderlyin
 
     @Override
     public int getColumnPositionByX(int x) {
-        return LayerUtil.getColumnPositionByX(this, x);
+        return this.columnOffsets.getPositionByPixel(x);
     }
 
     @Override
     public int getStartXOfColumnPosition(int targetColumnPosition) {
-        Integer cachedStartX = this.startXCache.get(Integer.valueOf(targetColumnPosition));
-        if (cachedStartX != null) {
-            return cachedStartX.intValue();
-        }
+        return this.columnOffsets.getStartPixel(targetColumnPosition);
+    }
 
-        int aggregateWidth = 0;
-        for (int columnPosition = 0; columnPosition < targetColumnPosition; columnPosition++) {
-            aggregateWidth += this.underlyingLayer.getColumnWidthByPosition(localToUnderlyingColumnPosition(columnPosition));
+    /**
+     * Updates the column offsets for the size changes described by the given
+     * diffs, which are based on the underlying layer.
+     *
+     * @param structuralDiffs
+     *            The {@link StructuralDiff}s of type CHANGE in underlying
+     *            layer coordinates.
+     */
+    private void updateColumnOffsets(Collection<StructuralDiff> structuralDiffs) {
+        Collection<Integer> localPositions = new ArrayList<Integer>();
+        for (StructuralDiff diff : structuralDiffs) {
+            Range range = diff.getAfterPositionRange();
+            for (int position = range.start; position < range.end; position++) {
+                int localPosition = underlyingToLocalColumnPosition(this.underlyingLayer, position);
+                if (localPosition >= 0) {
+                    localPositions.add(localPosition);
+                }
+            }
         }
-
-        this.startXCache.put(Integer.valueOf(targetColumnPosition), Integer.valueOf(aggregateWidth));
-        return aggregateWidth;
+        this.columnOffsets.updateSizes(PositionUtil.getRanges(localPositions));
     }
 
     /**
@@ -292,19 +332,6 @@ private void populateIndexOrder() {
         for (int columnPosition = 0; columnPosition < underlyingLayer.getColumnCount(); columnPosition++) {
             int index = underlyingLayer.getColumnIndexByPosition(columnPosition);
             this.columnIndexOrder.add(index);
-            this.indexPositionMapping.put(index, columnPosition);
-        }
-    }
-
-    /**
-     * Initializes the internal index-position-mapping to reflect the internal
-     * column-index-order.
-     */
-    private void refreshIndexPositionMapping() {
-        this.indexPositionMapping.clear();
-        for (int position = 0; position < this.columnIndexOrder.size(); position++) {
-            int index = this.columnIndexOrder.get(position);
-            this.indexPositionMapping.put(index, position);
         }
     }
 
@@ -335,16 +362,38 @@ private void moveColumn(int fromColumnPosition, int toColumnPosition, boolean re
             toColumnPosition++;
         }
 
-        Integer fromColumnIndex = this.columnIndexOrder.get(fromColumnPosition);
-        this.columnIndexOrder.add(toColumnPosition, fromColumnIndex);
-        this.columnIndexOrder.remove(fromColumnPosition + (fromColumnPosition > toColumnPosition ? 1 : 0));
-
-        // update index-position mapping
-        refreshIndexPositionMapping();
+        this.indexOrder.move(fromColumnPosition, 1, toColumnPosition);
 
         invalidateCache();
     }
 
+    /**
+     * Moves the given from-columns to the specified edge of the column to move
+     * to by moving contiguous blocks of columns at once.
+     *
+     * @param fromColumnPositions
+     *            column positions to move
+     * @param toColumnPosition
+     *            position to move the columns to
+     * @param reorderToLeftEdge
+     *            <code>true</code> if the columns should be moved to the left
+     *            of the given column to move to, <code>false</code> if they
+     *            should be positioned to the right
+     * @return <code>true</code> if the columns were moved, <code>false</code>
+     *         if the given positions are not sorted ascending
+     */
+    private boolean moveColumns(List<Integer> fromColumnPositions, int toColumnPosition, boolean reorderToLeftEdge) {
+        if (!reorderToLeftEdge) {
+            toColumnPosition++;
+        }
+
+        if (this.indexOrder.move(fromColumnPositions, toColumnPosition)) {
+            invalidateCache();
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Moves the given from-column to the <b>left</b> edge of the column to move
      * to.
@@ -430,7 +479,14 @@ public void reorderMultipleColumnPositions(List<Integer> fromColumnPositions, in
         // Moving from left to right
         final int fromColumnPositionsCount = fromColumnPositions.size();
 
-        if (toColumnPosition > fromColumnPositions.get(fromColumnPositionsCount - 1)) {
+        boolean movedAtOnce = false;
+        if (toColumnPosition > fromColumnPositions.get(fromColumnPositionsCount - 1)
+                || toColumnPosition < fromColumnPositions.get(0)) {
+            // move the contiguous blocks of columns at once
+            movedAtOnce = moveColumns(fromColumnPositions, toColumnPosition, reorderToLeftEdge);
+        }
+
+        if (!movedAtOnce && toColumnPosition > fromColumnPositions.get(fromColumnPositionsCount - 1)) {
             int firstColumnPosition = fromColumnPositions.get(0).intValue();
 
             int moved = 0;
@@ -442,7 +498,7 @@ public void reorderMultipleColumnPositions(List<Integer> fromColumnPositions, in
                     firstColumnPosition = fromColumnPosition;
                 }
             }
-        } else if (toColumnPosition < fromColumnPositions.get(fromColumnPositionsCount - 1).intValue()) {
+        } else if (!movedAtOnce && toColumnPosition < fromColumnPositions.get(fromColumnPositionsCount - 1).intValue()) {
             // Moving from right to left
             int targetColumnPosition = toColumnPosition;
             for (Integer fromColumnPosition : fromColumnPositions) {
@@ -458,7 +514,7 @@ public void reorderMultipleColumnPositions(List<Integer> fromColumnPositions, in
      * Clear the internal cache.
      */
     private void invalidateCache() {
-        this.startXCache.clear();
+        this.columnOffsets.invalidate();
     }
 
     /**
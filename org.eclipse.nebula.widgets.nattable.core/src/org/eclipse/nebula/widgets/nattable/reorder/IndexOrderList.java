@@ -0,0 +1,378 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.reorder;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * List of indexes in position order that is backed by a primitive permutation
+ * array and its inverse. Position X in the list contains the index at position
+ * X, while the inverse array stores the position for every index, so lookups
+ * in both directions are constant time operations.
+ * <p>
+ * Structural modifications only update the inverse array for the positions
+ * that actually changed. Moving a block of positions via
+ * {@link #move(int, int, int)} therefore only touches the positions between
+ * the source and the target of the move.
+ * </p>
+ * <p>
+ * The {@link Map} returned by {@link #getPositionMapping()} is a read-only view
+ * on the inverse array.
+ * </p>
+ *
+ * @since 1.6
+ */
+public final class IndexOrderList extends AbstractList<Integer> implements RandomAccess {
+
+    /**
+     * The index for every position.
+     */
+    private int[] indexes = new int[16];
+
+    /**
+     * The position for every index, -1 for indexes that are not contained.
+     */
+    private int[] positions = new int[0];
+
+    private int size;
+
+    private final Map<Integer, Integer> positionMapping = new PositionMapping();
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public Integer get(int position) {
+        checkPosition(position, this.size);
+        return Integer.valueOf(this.indexes[position]);
+    }
+
+    /**
+     * @param position
+     *            The position whose index is requested.
+     * @return The index at the given position or -1 if the position is not
+     *         valid.
+     */
+    public int getIndex(int position) {
+        if (position < 0 || position >= this.size) {
+            return -1;
+        }
+        return this.indexes[position];
+    }
+
+    /**
+     * @param index
+     *            The index whose position is requested.
+     * @return The position of the given index or -1 if the index is not
+     *         contained.
+     */
+    public int getPosition(int index) {
+        if (index < 0 || index >= this.positions.length) {
+            return -1;
+        }
+        return this.positions[index];
+    }
+
+    /**
+     * @return A read-only view of this list as mapping from index to position.
+     */
+    public Map<Integer, Integer> getPositionMapping() {
+        return this.positionMapping;
+    }
+
+    @Override
+    public Integer set(int position, Integer index) {
+        checkPosition(position, this.size);
+        int old = this.indexes[position];
+        unlink(old, position);
+        this.indexes[position] = index;
+        link(index, position);
+        return Integer.valueOf(old);
+    }
+
+    @Override
+    public void add(int position, Integer index) {
+        checkPosition(position, this.size + 1);
+        if (this.size == this.indexes.length) {
+            this.indexes = Arrays.copyOf(this.indexes, this.size * 2);
+        }
+        System.arraycopy(this.indexes, position, this.indexes, position + 1, this.size - position);
+        this.indexes[position] = index;
+        this.size++;
+        this.modCount++;
+        reindex(position, this.size);
+    }
+
+    @Override
+    public Integer remove(int position) {
+        checkPosition(position, this.size);
+        int old = this.indexes[position];
+        unlink(old, position);
+        System.arraycopy(this.indexes, position + 1, this.indexes, position, this.size - position - 1);
+        this.size--;
+        this.modCount++;
+        reindex(position, this.size);
+        return Integer.valueOf(old);
+    }
+
+    @Override
+    protected void removeRange(int fromPosition, int toPosition) {
+        for (int position = fromPosition; position < toPosition; position++) {
+            unlink(this.indexes[position], position);
+        }
+        System.arraycopy(this.indexes, toPosition, this.indexes, fromPosition, this.size - toPosition);
+        this.size -= toPosition - fromPosition;
+        this.modCount++;
+        reindex(fromPosition, this.size);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        Collection<?> toRemove = (c instanceof Set || c.size() < 8) ? c : new HashSet<Object>(c);
+        int target = 0;
+        for (int position = 0; position < this.size; position++) {
+            int index = this.indexes[position];
+            if (toRemove.contains(Integer.valueOf(index))) {
+                unlink(index, position);
+            } else {
+                this.indexes[target++] = index;
+            }
+        }
+        if (target == this.size) {
+            return false;
+        }
+        int first = 0;
+        while (first < target && getPosition(this.indexes[first]) == first) {
+            first++;
+        }
+        this.size = target;
+        this.modCount++;
+        reindex(first, this.size);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.positions, -1);
+        this.size = 0;
+        this.modCount++;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return (o instanceof Integer) ? getPosition((Integer) o) : -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    /**
+     * Moves the block of positions starting at the given position in front of
+     * the element at the given target position. The target position is
+     * interpreted before the block is removed, so passing the size of this
+     * list moves the block to the end.
+     *
+     * @param fromPosition
+     *            The first position of the block to move.
+     * @param length
+     *            The number of positions to move.
+     * @param toPosition
+     *            The position of the element in front of which the block
+     *            should be inserted.
+     */
+    public void move(int fromPosition, int length, int toPosition) {
+        checkPosition(fromPosition, this.size);
+        checkPosition(fromPosition + length, this.size + 1);
+        checkPosition(toPosition, this.size + 1);
+        if (length <= 0 || (toPosition >= fromPosition && toPosition <= fromPosition + length)) {
+            return;
+        }
+
+        int[] block = Arrays.copyOfRange(this.indexes, fromPosition, fromPosition + length);
+        if (toPosition > fromPosition) {
+            System.arraycopy(this.indexes, fromPosition + length, this.indexes, fromPosition, toPosition - fromPosition - length);
+            System.arraycopy(block, 0, this.indexes, toPosition - length, length);
+            reindex(fromPosition, toPosition);
+        } else {
+            System.arraycopy(this.indexes, toPosition, this.indexes, toPosition + length, fromPosition - toPosition);
+            System.arraycopy(block, 0, this.indexes, toPosition, length);
+            reindex(toPosition, fromPosition + length);
+        }
+        this.modCount++;
+    }
+
+    /**
+     * Moves the given positions in front of the element at the given target
+     * position, keeping their order. Contiguous positions are moved as one
+     * block via {@link #move(int, int, int)}.
+     *
+     * @param fromPositions
+     *            The positions to move, sorted ascending without duplicates.
+     * @param toPosition
+     *            The position of the element in front of which the positions
+     *            should be inserted, interpreted before the move.
+     * @return <code>true</code> if the positions were moved,
+     *         <code>false</code> if the given positions are not sorted
+     *         ascending or contain duplicates, in which case nothing is moved.
+     */
+    public boolean move(List<Integer> fromPositions, int toPosition) {
+        // collect the contiguous runs
+        int[] runStarts = new int[fromPositions.size()];
+        int[] runLengths = new int[fromPositions.size()];
+        int runs = 0;
+        int last = -1;
+        for (Integer position : fromPositions) {
+            if (position <= last || position >= this.size) {
+                return false;
+            }
+            last = position;
+            if (runs > 0 && runStarts[runs - 1] + runLengths[runs - 1] == position) {
+                runLengths[runs - 1]++;
+            } else {
+                runStarts[runs] = position;
+                runLengths[runs] = 1;
+                runs++;
+            }
+        }
+
+        // runs in front of the target are moved starting with the last one, so
+        // the positions of the preceding runs are not affected
+        int target = toPosition;
+        int first = 0;
+        while (first < runs && runStarts[first] < toPosition) {
+            first++;
+        }
+        for (int run = first - 1; run >= 0; run--) {
+            move(runStarts[run], runLengths[run], target);
+            target -= runLengths[run];
+        }
+
+        // runs behind the target are appended to the moved block
+        target = toPosition;
+        for (int run = first; run < runs; run++) {
+            move(runStarts[run], runLengths[run], target);
+            target += runLengths[run];
+        }
+        return true;
+    }
+
+    /**
+     * Updates the inverse array for the positions between the given start
+     * (inclusive) and end (exclusive).
+     */
+    private void reindex(int start, int end) {
+        for (int position = start; position < end; position++) {
+            link(this.indexes[position], position);
+        }
+    }
+
+    private void link(int index, int position) {
+        if (index < 0) {
+            return;
+        }
+        if (index >= this.positions.length) {
+            int oldLength = this.positions.length;
+            this.positions = Arrays.copyOf(this.positions, Math.max(index + 1, oldLength * 2));
+            Arrays.fill(this.positions, oldLength, this.positions.length, -1);
+        }
+        this.positions[index] = position;
+    }
+
+    private void unlink(int index, int position) {
+        // only remove the mapping if it is not already used by another
+        // position, e.g. while indexes are shifted via set()
+        if (index >= 0 && index < this.positions.length && this.positions[index] == position) {
+            this.positions[index] = -1;
+        }
+    }
+
+    private static void checkPosition(int position, int bound) {
+        if (position < 0 || position >= bound) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + bound); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    /**
+     * Read-only index to position mapping view on the inverse array.
+     */
+    private class PositionMapping extends AbstractMap<Integer, Integer> {
+
+        @Override
+        public Integer get(Object key) {
+            int position = indexOf(key);
+            return (position >= 0) ? Integer.valueOf(position) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return IndexOrderList.this.size;
+        }
+
+        @Override
+        public Set<Map.Entry<Integer, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<Integer, Integer>>() {
+
+                @Override
+                public int size() {
+                    return IndexOrderList.this.size;
+                }
+
+                @Override
+                public Iterator<Map.Entry<Integer, Integer>> iterator() {
+                    return new Iterator<Map.Entry<Integer, Integer>>() {
+
+                        private int position = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return this.position < IndexOrderList.this.size;
+                        }
+
+                        @Override
+                        public Map.Entry<Integer, Integer> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int current = this.position++;
+                            return new AbstractMap.SimpleImmutableEntry<Integer, Integer>(
+                                    IndexOrderList.this.indexes[current], current);
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
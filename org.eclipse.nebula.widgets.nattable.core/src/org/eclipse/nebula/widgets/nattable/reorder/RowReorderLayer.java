@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2016 Dirk Fauth and others.
+ * Copyright (c) 2013, 2019 Dirk Fauth and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,7 +13,6 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -26,7 +25,7 @@
 import org.eclipse.nebula.widgets.nattable.layer.AbstractLayerTransform;
 import org.eclipse.nebula.widgets.nattable.layer.ILayer;
 import org.eclipse.nebula.widgets.nattable.layer.IUniqueIndexLayer;
-import org.eclipse.nebula.widgets.nattable.layer.LayerUtil;
+import org.eclipse.nebula.widgets.nattable.layer.PositionOffsets;
 import org.eclipse.nebula.widgets.nattable.layer.event.ILayerEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.IStructuralChangeEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.RowStructuralRefreshEvent;
@@ -53,27 +52,34 @@ public class RowReorderLayer extends AbstractLayerTransform implements IUniqueIn
 
     private final IUniqueIndexLayer underlyingLayer;
 
+    /**
+     * The primitive permutation of the row indexes that backs the
+     * {@link #rowIndexOrder} and the {@link #indexPositionMapping}.
+     */
+    private final IndexOrderList indexOrder = new IndexOrderList();
+
     /**
      * The local cache of the row index order. Used to track the reordering
      * performed by this layer. Position Y in the List contains the index of row
      * at position Y.
      */
-    protected final List<Integer> rowIndexOrder = new ArrayList<Integer>();
+    protected final List<Integer> rowIndexOrder = this.indexOrder;
 
     /**
      * The internal mapping of index to position values. Used for performance
-     * reasons in {@link #getColumnPositionByIndex(int)} because
-     * {@link List#indexOf(Object)} doesn't scale well.
+     * reasons in {@link #getRowPositionByIndex(int)} because
+     * {@link List#indexOf(Object)} doesn't scale well. This is a read-only
+     * view on the inverse permutation of the {@link #rowIndexOrder}, so it is
+     * always in sync with it.
      *
      * @since 1.5
      */
-    protected final Map<Integer, Integer> indexPositionMapping = new HashMap<Integer, Integer>();
+    protected final Map<Integer, Integer> indexPositionMapping = this.indexOrder.getPositionMapping();
 
     /**
-     * Caching of the starting y positions of the rows. Used to reduce
-     * calculation time on rendering
+     * Index of the start y coordinates of the local row positions.
      */
-    private final Map<Integer, Integer> startYCache = new HashMap<Integer, Integer>();
+    private final PositionOffsets rowOffsets = new PositionOffsets(this, false);
 
     /**
      * Local cached position of the row that is currently reordered.
@@ -121,24 +127,49 @@ public void handleLayerEvent(ILayerEvent event) {
             IStructuralChangeEvent structuralChangeEvent = (IStructuralChangeEvent) event;
             if (structuralChangeEvent.isVerticalStructureChanged()) {
                 Collection<StructuralDiff> structuralDiffs = structuralChangeEvent.getRowDiffs();
-                if (structuralDiffs == null) {
-                    // Assume everything changed
-                    populateIndexOrder();
+                if (StructuralChangeEventHelper.isSizeChange(structuralDiffs)) {
+                    if (this.rowOffsets.hasIndependentSizes()) {
+                        // only row sizes have changed, the order stays the
+                        // same so the row offsets can be updated incrementally
+                        updateRowOffsets(structuralDiffs);
+                    } else {
+                        // with percentage sizing the other row heights change
+                        // too
+                        this.rowOffsets.invalidate();
+                    }
                 } else {
-                    // only react on ADD or DELETE and not on CHANGE
-                    StructuralChangeEventHelper.handleRowDelete(
-                            structuralDiffs, this.underlyingLayer, this.rowIndexOrder, true);
-                    StructuralChangeEventHelper.handleRowInsert(
-                            structuralDiffs, this.underlyingLayer, this.rowIndexOrder, true);
-                    // update index-position mapping
-                    refreshIndexPositionMapping();
+                    if (structuralDiffs != null && this.rowOffsets.hasUniformSizes()) {
+                        // all rows have the same height, so the offsets are
+                        // updated with the converted diffs before the event is
+                        // fired, custom heights are bound to positions and
+                        // require a rebuild
+                        this.rowOffsets.invalidate(event);
+                    }
+                    if (structuralDiffs == null) {
+                        // Assume everything changed
+                        populateIndexOrder();
+                    } else {
+                        // only react on ADD or DELETE and not on CHANGE
+                        StructuralChangeEventHelper.handleRowDelete(
+                                structuralDiffs, this.underlyingLayer, this.rowIndexOrder, true);
+                        StructuralChangeEventHelper.handleRowInsert(
+                                structuralDiffs, this.underlyingLayer, this.rowIndexOrder, true);
+                    }
+                    invalidateCache();
                 }
-                invalidateCache();
             }
         }
         super.handleLayerEvent(event);
     }
 
+    @Override
+    public void fireLayerEvent(ILayerEvent event) {
+        if (event instanceof IStructuralChangeEvent) {
+            this.rowOffsets.applyDiffs(event, ((IStructuralChangeEvent) event).getRowDiffs());
+        }
+        super.fireLayerEvent(event);
+    }
+
     // Configuration
 
     @Override
@@ -180,8 +211,6 @@ public void loadState(String prefix, Properties properties) {
             if (isRestoredStateValid(newRowIndexOrder)) {
                 this.rowIndexOrder.clear();
                 this.rowIndexOrder.addAll(newRowIndexOrder);
-                // refresh index-position mapping
-                refreshIndexPositionMapping();
             }
 
         }
@@ -225,23 +254,34 @@ public int getColumnPositionByIndex(int columnIndex) {
 
     @Override
     public int getRowPositionByY(int y) {
-        return LayerUtil.getRowPositionByY(this, y);
+        return this.rowOffsets.getPositionByPixel(y);
     }
 
     @Override
     public int getStartYOfRowPosition(int targetRowPosition) {
-        Integer cachedStartY = this.startYCache.get(targetRowPosition);
-        if (cachedStartY != null) {
-            return cachedStartY;
-        }
+        return this.rowOffsets.getStartPixel(targetRowPosition);
+    }
 
-        int aggregateWidth = 0;
-        for (int rowPosition = 0; rowPosition < targetRowPosition; rowPosition++) {
-            aggregateWidth += this.underlyingLayer.getRowHeightByPosition(localToUnderlyingRowPosition(rowPosition));
+    /**
+     * Updates the row offsets for the size changes described by the given
+     * diffs, which are based on the underlying layer.
+     *
+     * @param structuralDiffs
+     *            The {@link StructuralDiff}s of type CHANGE in underlying
+     *            layer coordinates.
+     */
+    private void updateRowOffsets(Collection<StructuralDiff> structuralDiffs) {
+        Collection<Integer> localPositions = new ArrayList<Integer>();
+        for (StructuralDiff diff : structuralDiffs) {
+            Range range = diff.getAfterPositionRange();
+            for (int position = range.start; position < range.end; position++) {
+                int localPosition = underlyingToLocalRowPosition(this.underlyingLayer, position);
+                if (localPosition >= 0) {
+                    localPositions.add(localPosition);
+                }
+            }
         }
-
-        this.startYCache.put(targetRowPosition, aggregateWidth);
-        return aggregateWidth;
+        this.rowOffsets.updateSizes(PositionUtil.getRanges(localPositions));
     }
 
     /**
@@ -253,19 +293,6 @@ private void populateIndexOrder() {
         for (int rowPosition = 0; rowPosition < underlyingLayer.getRowCount(); rowPosition++) {
             int index = underlyingLayer.getRowIndexByPosition(rowPosition);
             this.rowIndexOrder.add(index);
-            this.indexPositionMapping.put(index, rowPosition);
-        }
-    }
-
-    /**
-     * Initializes the internal index-position-mapping to reflect the internal
-     * row-index-order.
-     */
-    private void refreshIndexPositionMapping() {
-        this.indexPositionMapping.clear();
-        for (int position = 0; position < this.rowIndexOrder.size(); position++) {
-            int index = this.rowIndexOrder.get(position);
-            this.indexPositionMapping.put(index, position);
         }
     }
 
@@ -281,17 +308,12 @@ public List<Integer> getRowIndexOrder() {
 
     @Override
     public int getRowIndexByPosition(int rowPosition) {
-        if (rowPosition >= 0 && rowPosition < this.rowIndexOrder.size()) {
-            return this.rowIndexOrder.get(rowPosition).intValue();
-        } else {
-            return -1;
-        }
+        return this.indexOrder.getIndex(rowPosition);
     }
 
     @Override
     public int getRowPositionByIndex(int rowIndex) {
-        Integer result = this.indexPositionMapping.get(rowIndex);
-        return (result != null) ? result : -1;
+        return this.indexOrder.getPosition(rowIndex);
     }
 
     @Override
@@ -338,16 +360,52 @@ private void moveRow(int fromRowPosition, int toRowPosition, boolean reorderToTo
             toRowPosition++;
         }
 
-        Integer fromRowIndex = this.rowIndexOrder.get(fromRowPosition);
-        this.rowIndexOrder.add(toRowPosition, fromRowIndex);
-        this.rowIndexOrder.remove(fromRowPosition + (fromRowPosition > toRowPosition ? 1 : 0));
-
-        // update index-position mapping
-        refreshIndexPositionMapping();
+        this.indexOrder.move(fromRowPosition, 1, toRowPosition);
 
         invalidateCache();
     }
 
+    /**
+     * Moves the rows at the given from positions to the <i>TOP</i> of the of
+     * the given to position by moving contiguous blocks of rows at once.
+     *
+     * @param fromRowPositions
+     *            row positions to move
+     * @param toRowPosition
+     *            position to move the rows to
+     * @param reorderToTopEdge
+     *            whether the move should be done above the given to position or
+     *            not
+     * @return <code>true</code> if the rows were moved, <code>false</code> if
+     *         the given positions are not sorted ascending
+     */
+    private boolean moveRows(List<Integer> fromRowPositions, int toRowPosition, boolean reorderToTopEdge) {
+        if (!reorderToTopEdge) {
+            toRowPosition++;
+        }
+
+        if (this.indexOrder.move(fromRowPositions, toRowPosition)) {
+            invalidateCache();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param rowPositions
+     *            the row positions to check
+     * @return <code>true</code> if the given positions are a contiguous
+     *         ascending sequence
+     */
+    private static boolean isContiguous(List<Integer> rowPositions) {
+        for (int i = 1; i < rowPositions.size(); i++) {
+            if (rowPositions.get(i) != rowPositions.get(i - 1) + 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Reorders the row at the given from position to the <i>TOP</i> of the of
      * the given to position. Will calculate whether the move is done above the
@@ -422,7 +480,14 @@ public void reorderMultipleRowPositions(List<Integer> fromRowPositions, int toRo
     public void reorderMultipleRowPositions(List<Integer> fromRowPositions, int toRowPosition, boolean reorderToTopEdge) {
         final int fromRowPositionsCount = fromRowPositions.size();
 
-        if (toRowPosition > fromRowPositions.get(fromRowPositionsCount - 1)) {
+        boolean movedAtOnce = false;
+        if ((toRowPosition > fromRowPositions.get(fromRowPositionsCount - 1) && isContiguous(fromRowPositions))
+                || toRowPosition < fromRowPositions.get(0)) {
+            // move the contiguous blocks of rows at once
+            movedAtOnce = moveRows(fromRowPositions, toRowPosition, reorderToTopEdge);
+        }
+
+        if (!movedAtOnce && toRowPosition > fromRowPositions.get(fromRowPositionsCount - 1)) {
             // Moving from top to bottom
             int firstRowPosition = fromRowPositions.get(0);
 
@@ -433,7 +498,7 @@ public void reorderMultipleRowPositions(List<Integer> fromRowPositions, int toRo
                     firstRowPosition = fromRowPosition;
                 }
             }
-        } else if (toRowPosition < fromRowPositions.get(fromRowPositionsCount - 1)) {
+        } else if (!movedAtOnce && toRowPosition < fromRowPositions.get(fromRowPositionsCount - 1)) {
             // Moving from bottom to top
             int targetRowPosition = toRowPosition;
             for (Integer fromRowPosition : fromRowPositions) {
@@ -449,7 +514,7 @@ public void reorderMultipleRowPositions(List<Integer> fromRowPositions, int toRo
      * Clear the caching of the starting Y positions
      */
     private void invalidateCache() {
-        this.startYCache.clear();
+        this.rowOffsets.invalidate();
     }
 
     /**
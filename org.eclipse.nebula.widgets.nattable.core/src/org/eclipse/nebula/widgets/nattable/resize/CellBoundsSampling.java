@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.resize;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.eclipse.nebula.widgets.nattable.layer.ILayer;
+
+/**
+ * Configuration for sampling the cells that are measured on auto resizing.
+ * Measuring a cell requires the painter, the style configuration and a GC, so
+ * measuring every cell of a column with a million rows blocks the UI thread
+ * for seconds. If the number of cells exceeds the configured threshold, only
+ * the cells with the longest text representation of their data value and a
+ * random sample of the remaining cells are measured.
+ * <p>
+ * The result is an approximation. Cells whose text is shorter but wider, e.g.
+ * because of a different font, or because a display converter creates a
+ * longer representation, might not be measured. Increasing the number of
+ * longest and random cells increases the accuracy.
+ * </p>
+ * <p>
+ * Additionally a maximum duration can be configured. If the measurement takes
+ * longer, it is cancelled and the preferred size is calculated from the cells
+ * measured so far. As the cells with the longest text are measured first, the
+ * result is still reasonable.
+ * </p>
+ *
+ * @see MaxCellBoundsHelper
+ * @since 1.6
+ */
+public class CellBoundsSampling {
+
+    private final int threshold;
+    private final int longestCount;
+    private final int randomCount;
+    private final long maxDuration;
+
+    /**
+     * Creates a sampling configuration without time limit.
+     *
+     * @param threshold
+     *            The number of cells up to which all cells are measured.
+     * @param longestCount
+     *            The number of cells with the longest text that are measured
+     *            if the threshold is exceeded.
+     * @param randomCount
+     *            The number of randomly chosen cells that are measured
+     *            additionally if the threshold is exceeded.
+     */
+    public CellBoundsSampling(int threshold, int longestCount, int randomCount) {
+        this(threshold, longestCount, randomCount, 0);
+    }
+
+    /**
+     * Creates a sampling configuration.
+     *
+     * @param threshold
+     *            The number of cells up to which all cells are measured.
+     * @param longestCount
+     *            The number of cells with the longest text that are measured
+     *            if the threshold is exceeded.
+     * @param randomCount
+     *            The number of randomly chosen cells that are measured
+     *            additionally if the threshold is exceeded.
+     * @param maxDuration
+     *            The maximum time in milliseconds to spend on measuring the
+     *            cells of a single column or row. A value &lt;= 0 means no
+     *            limit.
+     */
+    public CellBoundsSampling(int threshold, int longestCount, int randomCount, long maxDuration) {
+        this.threshold = threshold;
+        this.longestCount = longestCount;
+        this.randomCount = randomCount;
+        this.maxDuration = maxDuration;
+    }
+
+    /**
+     * @return The number of cells up to which all cells are measured.
+     */
+    public int getThreshold() {
+        return this.threshold;
+    }
+
+    /**
+     * @return The number of cells with the longest text that are measured if
+     *         the threshold is exceeded.
+     */
+    public int getLongestCount() {
+        return this.longestCount;
+    }
+
+    /**
+     * @return The number of randomly chosen cells that are measured
+     *         additionally if the threshold is exceeded.
+     */
+    public int getRandomCount() {
+        return this.randomCount;
+    }
+
+    /**
+     * @return The maximum time in milliseconds to spend on measuring the cells
+     *         of a single column or row. A value &lt;= 0 means no limit.
+     */
+    public long getMaxDuration() {
+        return this.maxDuration;
+    }
+
+    /**
+     * Returns the positions of the cells that should be measured.
+     *
+     * @param layer
+     *            The layer to which the position matches.
+     * @param position
+     *            The column position if <code>column</code> is
+     *            <code>true</code>, the row position otherwise.
+     * @param column
+     *            <code>true</code> if the cells of a column should be sampled,
+     *            <code>false</code> for the cells of a row.
+     * @return The row positions if <code>column</code> is <code>true</code>,
+     *         the column positions otherwise. The positions of the cells with
+     *         the longest text come first, ordered by descending length,
+     *         followed by the random sample in ascending order. If the number
+     *         of cells does not exceed the threshold, all positions are
+     *         returned in ascending order.
+     */
+    public int[] getSamplePositions(ILayer layer, int position, boolean column) {
+        int count = column ? layer.getRowCount() : layer.getColumnCount();
+        if (count <= this.threshold || count <= this.longestCount + this.randomCount) {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        // keep the longest texts in a min-heap of (length << 32 | position)
+        PriorityQueue<Long> longest = new PriorityQueue<Long>(Math.max(1, this.longestCount + 1));
+        for (int i = 0; i < count && this.longestCount > 0; i++) {
+            Object value = column
+                    ? layer.getDataValueByPosition(position, i)
+                    : layer.getDataValueByPosition(i, position);
+            long length = (value != null) ? value.toString().length() : 0;
+            if (longest.size() < this.longestCount) {
+                longest.add(Long.valueOf((length << 32) | i));
+            } else if (length > (longest.peek().longValue() >>> 32)) {
+                longest.poll();
+                longest.add(Long.valueOf((length << 32) | i));
+            }
+        }
+
+        int[] result = new int[longest.size() + this.randomCount];
+        boolean[] selected = new boolean[count];
+        int index = longest.size();
+        while (!longest.isEmpty()) {
+            int pos = (int) longest.poll().longValue();
+            result[--index] = pos;
+            selected[pos] = true;
+        }
+
+        // a fixed seed makes consecutive auto resizes of unchanged data
+        // return the same result
+        Random random = new Random(count);
+        int first = result.length - this.randomCount;
+        int added = 0;
+        while (added < this.randomCount) {
+            int pos = random.nextInt(count);
+            if (!selected[pos]) {
+                selected[pos] = true;
+                result[first + added++] = pos;
+            }
+        }
+        Arrays.sort(result, first, result.length);
+        return result;
+    }
+}
@@ -51,12 +51,46 @@ public class MaxCellBoundsHelper {
      */
     public static int[] getPreferredColumnWidths(
             IConfigRegistry configRegistry, GCFactory gcFactory, ILayer layer, int[] columnPositions) {
+        return getPreferredColumnWidths(configRegistry, gcFactory, layer, columnPositions, null);
+    }
+
+    /**
+     * Calculates the preferred column widths of the given columns based on the
+     * given {@link IConfigRegistry}. If a {@link CellBoundsSampling} is given
+     * and the number of rows exceeds its threshold, only a sample of the cells
+     * is measured, which results in an approximation of the preferred column
+     * width.
+     *
+     * @param configRegistry
+     *            The {@link IConfigRegistry} to get the required configuration
+     *            values.
+     * @param gcFactory
+     *            The {@link GCFactory} for creating a temporary {@link GC}
+     *            needed for UI related calculations without blocking the UI
+     *            thread.
+     * @param layer
+     *            The layer to which the column positions match.
+     * @param columnPositions
+     *            The column positions for which the preferred width should be
+     *            calculated.
+     * @param sampling
+     *            The {@link CellBoundsSampling} that specifies which cells
+     *            should be measured. Can be <code>null</code> to measure all
+     *            cells.
+     * @return The preferred column widths of the given columns or
+     *         <code>null</code> if an error occurred on processing.
+     * @since 1.6
+     */
+    public static int[] getPreferredColumnWidths(
+            IConfigRegistry configRegistry, GCFactory gcFactory, ILayer layer, int[] columnPositions, CellBoundsSampling sampling) {
 
         GC gc = gcFactory.createGC();
         if (gc != null) {
             int[] columnWidths = new int[columnPositions.length];
             for (int i = 0; i < columnPositions.length; i++) {
-                columnWidths[i] = getPreferredColumnWidth(layer, columnPositions[i], configRegistry, gc);
+                columnWidths[i] = (sampling != null)
+                        ? getPreferredColumnWidth(layer, columnPositions[i], configRegistry, gc, sampling)
+                        : getPreferredColumnWidth(layer, columnPositions[i], configRegistry, gc);
             }
             gc.dispose();
 
@@ -86,42 +120,85 @@ public static int[] getPreferredColumnWidths(
     private static int getPreferredColumnWidth(ILayer layer, int columnPosition, IConfigRegistry configRegistry, GC gc) {
 
         int maxWidth = 0;
-        ICellPainter painter;
-        ILayerCell cell;
 
         for (int rowPosition = 0; rowPosition < layer.getRowCount(); rowPosition++) {
-            cell = layer.getCellByPosition(columnPosition, rowPosition);
-            if (cell != null) {
-                boolean atEndOfCellSpan = (cell.getOriginColumnPosition() + cell.getColumnSpan() - 1) == columnPosition;
-                if (atEndOfCellSpan) {
-                    painter = layer.getCellPainter(cell.getColumnPosition(), cell.getRowPosition(), cell, configRegistry);
-                    if (painter != null) {
-                        int preferredWidth = painter.getPreferredWidth(cell, gc, configRegistry);
-
-                        // Adjust width
-                        Rectangle bounds = cell.getBounds();
-                        bounds.width = preferredWidth;
-                        Rectangle adjustedCellBounds = cell
-                                .getLayer()
-                                .getLayerPainter()
-                                .adjustCellBounds(columnPosition, rowPosition, bounds);
-                        preferredWidth += preferredWidth - adjustedCellBounds.width;
-
-                        if (cell.getColumnSpan() > 1) {
-                            int columnStartX = layer.getStartXOfColumnPosition(columnPosition);
-                            int cellStartX = layer.getStartXOfColumnPosition(cell.getOriginColumnPosition());
-                            preferredWidth = Math.max(0, preferredWidth - (columnStartX - cellStartX));
-                        }
-
-                        maxWidth = (preferredWidth > maxWidth) ? preferredWidth : maxWidth;
-                    }
-                }
+            int preferredWidth = getPreferredCellWidth(layer, columnPosition, rowPosition, configRegistry, gc);
+            maxWidth = (preferredWidth > maxWidth) ? preferredWidth : maxWidth;
+        }
+
+        return maxWidth;
+    }
+
+    /**
+     * Calculates the width (in pixels) required to display the contents of
+     * the sampled cells in a column.
+     *
+     * @param layer
+     *            The layer to which the column position matches.
+     * @param columnPosition
+     *            The column position whose preferred width should be
+     *            calculated.
+     * @param configRegistry
+     *            The {@link IConfigRegistry} to get the required configuration
+     *            values.
+     * @param gc
+     *            The {@link GC} needed for UI related calculations.
+     * @param sampling
+     *            The {@link CellBoundsSampling} that specifies which cells
+     *            should be measured.
+     * @return The preferred column width of the given column.
+     */
+    private static int getPreferredColumnWidth(ILayer layer, int columnPosition, IConfigRegistry configRegistry, GC gc, CellBoundsSampling sampling) {
+
+        int maxWidth = 0;
+        long start = System.nanoTime();
+
+        for (int rowPosition : sampling.getSamplePositions(layer, columnPosition, true)) {
+            int preferredWidth = getPreferredCellWidth(layer, columnPosition, rowPosition, configRegistry, gc);
+            maxWidth = (preferredWidth > maxWidth) ? preferredWidth : maxWidth;
+            if (isCancelled(sampling, start)) {
+                break;
             }
         }
 
         return maxWidth;
     }
 
+    /**
+     * Calculates the width (in pixels) required to display the content of the
+     * cell at the given position, if the cell ends in the given column.
+     */
+    private static int getPreferredCellWidth(ILayer layer, int columnPosition, int rowPosition, IConfigRegistry configRegistry, GC gc) {
+        ILayerCell cell = layer.getCellByPosition(columnPosition, rowPosition);
+        if (cell != null) {
+            boolean atEndOfCellSpan = (cell.getOriginColumnPosition() + cell.getColumnSpan() - 1) == columnPosition;
+            if (atEndOfCellSpan) {
+                ICellPainter painter = layer.getCellPainter(cell.getColumnPosition(), cell.getRowPosition(), cell, configRegistry);
+                if (painter != null) {
+                    int preferredWidth = painter.getPreferredWidth(cell, gc, configRegistry);
+
+                    // Adjust width
+                    Rectangle bounds = cell.getBounds();
+                    bounds.width = preferredWidth;
+                    Rectangle adjustedCellBounds = cell
+                            .getLayer()
+                            .getLayerPainter()
+                            .adjustCellBounds(columnPosition, rowPosition, bounds);
+                    preferredWidth += preferredWidth - adjustedCellBounds.width;
+
+                    if (cell.getColumnSpan() > 1) {
+                        int columnStartX = layer.getStartXOfColumnPosition(columnPosition);
+                        int cellStartX = layer.getStartXOfColumnPosition(cell.getOriginColumnPosition());
+                        preferredWidth = Math.max(0, preferredWidth - (columnStartX - cellStartX));
+                    }
+
+                    return preferredWidth;
+                }
+            }
+        }
+        return 0;
+    }
+
     /**
      * Calculates the preferred row heights of the given rows based on the given
      * {@link IConfigRegistry}. The preferred row height is the height needed at
@@ -144,12 +221,45 @@ private static int getPreferredColumnWidth(ILayer layer, int columnPosition, ICo
      */
     public static int[] getPreferredRowHeights(
             IConfigRegistry configRegistry, GCFactory gcFactory, ILayer layer, int[] rowPositions) {
+        return getPreferredRowHeights(configRegistry, gcFactory, layer, rowPositions, null);
+    }
+
+    /**
+     * Calculates the preferred row heights of the given rows based on the given
+     * {@link IConfigRegistry}. If a {@link CellBoundsSampling} is given and the
+     * number of columns exceeds its threshold, only a sample of the cells is
+     * measured, which results in an approximation of the preferred row height.
+     *
+     * @param configRegistry
+     *            The {@link IConfigRegistry} to get the required configuration
+     *            values.
+     * @param gcFactory
+     *            The {@link GCFactory} for creating a temporary {@link GC}
+     *            needed for UI related calculations without blocking the UI
+     *            thread.
+     * @param layer
+     *            The layer to which the row positions match.
+     * @param rowPositions
+     *            The row positions for which the preferred height should be
+     *            calculated.
+     * @param sampling
+     *            The {@link CellBoundsSampling} that specifies which cells
+     *            should be measured. Can be <code>null</code> to measure all
+     *            cells.
+     * @return The preferred row heights of the given rows or <code>null</code>
+     *         if an error occurred on processing.
+     * @since 1.6
+     */
+    public static int[] getPreferredRowHeights(
+            IConfigRegistry configRegistry, GCFactory gcFactory, ILayer layer, int[] rowPositions, CellBoundsSampling sampling) {
 
         GC gc = gcFactory.createGC();
         if (gc != null) {
             int[] rowHeights = new int[rowPositions.length];
             for (int i = 0; i < rowPositions.length; i++) {
-                rowHeights[i] = getPreferredRowHeight(layer, rowPositions[i], configRegistry, gc);
+                rowHeights[i] = (sampling != null)
+                        ? getPreferredRowHeight(layer, rowPositions[i], configRegistry, gc, sampling)
+                        : getPreferredRowHeight(layer, rowPositions[i], configRegistry, gc);
             }
             gc.dispose();
 
@@ -178,40 +288,91 @@ public static int[] getPreferredRowHeights(
     private static int getPreferredRowHeight(ILayer layer, int rowPosition, IConfigRegistry configRegistry, GC gc) {
 
         int maxHeight = 0;
-        ICellPainter painter;
-        ILayerCell cell;
 
         for (int columnPosition = 0; columnPosition < layer.getColumnCount(); columnPosition++) {
-            cell = layer.getCellByPosition(columnPosition, rowPosition);
-            if (cell != null) {
-                boolean atEndOfCellSpan = (cell.getOriginRowPosition() + cell.getRowSpan() - 1) == rowPosition;
-                if (atEndOfCellSpan) {
-                    painter = layer.getCellPainter(cell.getColumnPosition(), cell.getRowPosition(), cell, configRegistry);
-                    if (painter != null) {
-                        int preferredHeight = painter.getPreferredHeight(cell, gc, configRegistry);
-
-                        // Adjust height
-                        Rectangle bounds = cell.getBounds();
-                        bounds.height = preferredHeight;
-                        Rectangle adjustedCellBounds = cell
-                                .getLayer()
-                                .getLayerPainter()
-                                .adjustCellBounds(columnPosition, rowPosition, bounds);
-                        preferredHeight += preferredHeight - adjustedCellBounds.height;
-
-                        if (cell.getRowSpan() > 1) {
-                            int rowStartY = layer.getStartYOfRowPosition(rowPosition);
-                            int cellStartY = layer.getStartYOfRowPosition(cell.getOriginRowPosition());
-                            preferredHeight = Math.max(0, preferredHeight - (rowStartY - cellStartY));
-                        }
-
-                        maxHeight = (preferredHeight > maxHeight) ? preferredHeight : maxHeight;
+            int preferredHeight = getPreferredCellHeight(layer, columnPosition, rowPosition, configRegistry, gc);
+            maxHeight = (preferredHeight > maxHeight) ? preferredHeight : maxHeight;
+        }
+
+        return maxHeight;
+    }
+
+    /**
+     * Calculates the height (in pixels) required to display the contents of
+     * the sampled cells in a row.
+     *
+     * @param layer
+     *            The layer to which the row position matches.
+     * @param rowPosition
+     *            The row position whose preferred height should be calculated.
+     * @param configRegistry
+     *            The {@link IConfigRegistry} to get the required configuration
+     *            values.
+     * @param gc
+     *            The {@link GC} needed for UI related calculations.
+     * @param sampling
+     *            The {@link CellBoundsSampling} that specifies which cells
+     *            should be measured.
+     * @return The preferred row height of the given row.
+     */
+    private static int getPreferredRowHeight(ILayer layer, int rowPosition, IConfigRegistry configRegistry, GC gc, CellBoundsSampling sampling) {
+
+        int maxHeight = 0;
+        long start = System.nanoTime();
+
+        for (int columnPosition : sampling.getSamplePositions(layer, rowPosition, false)) {
+            int preferredHeight = getPreferredCellHeight(layer, columnPosition, rowPosition, configRegistry, gc);
+            maxHeight = (preferredHeight > maxHeight) ? preferredHeight : maxHeight;
+            if (isCancelled(sampling, start)) {
+                break;
+            }
+        }
+
+        return maxHeight;
+    }
+
+    /**
+     * Calculates the height (in pixels) required to display the content of
+     * the cell at the given position, if the cell ends in the given row.
+     */
+    private static int getPreferredCellHeight(ILayer layer, int columnPosition, int rowPosition, IConfigRegistry configRegistry, GC gc) {
+        ILayerCell cell = layer.getCellByPosition(columnPosition, rowPosition);
+        if (cell != null) {
+            boolean atEndOfCellSpan = (cell.getOriginRowPosition() + cell.getRowSpan() - 1) == rowPosition;
+            if (atEndOfCellSpan) {
+                ICellPainter painter = layer.getCellPainter(cell.getColumnPosition(), cell.getRowPosition(), cell, configRegistry);
+                if (painter != null) {
+                    int preferredHeight = painter.getPreferredHeight(cell, gc, configRegistry);
+
+                    // Adjust height
+                    Rectangle bounds = cell.getBounds();
+                    bounds.height = preferredHeight;
+                    Rectangle adjustedCellBounds = cell
+                            .getLayer()
+                            .getLayerPainter()
+                            .adjustCellBounds(columnPosition, rowPosition, bounds);
+                    preferredHeight += preferredHeight - adjustedCellBounds.height;
+
+                    if (cell.getRowSpan() > 1) {
+                        int rowStartY = layer.getStartYOfRowPosition(rowPosition);
+                        int cellStartY = layer.getStartYOfRowPosition(cell.getOriginRowPosition());
+                        preferredHeight = Math.max(0, preferredHeight - (rowStartY - cellStartY));
                     }
+
+                    return preferredHeight;
                 }
             }
         }
+        return 0;
+    }
 
-        return maxHeight;
+    /**
+     * @return <code>true</code> if the maximum duration configured in the
+     *         given {@link CellBoundsSampling} is exceeded.
+     */
+    private static boolean isCancelled(CellBoundsSampling sampling, long start) {
+        return sampling.getMaxDuration() > 0
+                && System.nanoTime() - start > sampling.getMaxDuration() * 1000000L;
     }
 
     /**
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.search;
+
+import java.util.List;
+
+import org.eclipse.nebula.widgets.nattable.coordinate.PositionCoordinate;
+
+/**
+ * Listener that gets informed about the results of a search that is executed
+ * by a {@link SearchService}. If the {@link SearchService} is created with a
+ * {@link org.eclipse.swt.widgets.Display}, the methods are called in the UI
+ * thread, otherwise in the thread that searched the cells.
+ *
+ * @since 1.6
+ */
+public interface ISearchResultListener {
+
+    /**
+     * Called for every batch of matching cells. The display values are
+     * collected slice by slice in the UI thread, and the values of every slice
+     * are matched by a separate task of the
+     * {@link org.eclipse.nebula.widgets.nattable.util.CalculationService}. The
+     * batches are reported in the order the tasks find them, so the batches of
+     * a later slice can be reported before the ones of an earlier slice.
+     *
+     * @param matches
+     *            The coordinates of the matching cells.
+     */
+    void matchesFound(List<PositionCoordinate> matches);
+
+    /**
+     * Called once after all cells were searched or the search was cancelled.
+     * No further batches are reported after this call.
+     *
+     * @param matchCount
+     *            The number of matching cells that were reported.
+     * @param cancelled
+     *            <code>true</code> if the search was cancelled before all
+     *            cells were searched.
+     */
+    void searchFinished(int matchCount, boolean cancelled);
+}
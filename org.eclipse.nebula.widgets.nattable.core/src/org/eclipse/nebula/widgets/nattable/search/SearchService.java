@@ -0,0 +1,491 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.eclipse.nebula.widgets.nattable.config.IConfigRegistry;
+import org.eclipse.nebula.widgets.nattable.coordinate.PositionCoordinate;
+import org.eclipse.nebula.widgets.nattable.layer.ILayerListener;
+import org.eclipse.nebula.widgets.nattable.layer.cell.ILayerCell;
+import org.eclipse.nebula.widgets.nattable.layer.event.ILayerEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.IStructuralChangeEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.ResizeStructuralRefreshEvent;
+import org.eclipse.nebula.widgets.nattable.resize.event.ColumnResizeEvent;
+import org.eclipse.nebula.widgets.nattable.resize.event.RowResizeEvent;
+import org.eclipse.nebula.widgets.nattable.search.strategy.CellDisplayValueSearchUtil;
+import org.eclipse.nebula.widgets.nattable.selection.SelectionLayer;
+import org.eclipse.nebula.widgets.nattable.util.CalculationService;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Service that searches all cells of a {@link SelectionLayer} and reports the
+ * matching cells in batches to an {@link ISearchResultListener}, e.g. to
+ * highlight the matches or to show the number of matches.
+ * <p>
+ * The display values can only be read from the layer stack in the UI thread,
+ * as the label accumulators, the {@link IConfigRegistry} and the display
+ * converters are not thread safe. Therefore the display values are collected
+ * row by row in the UI thread in slices of {@link #getSliceDuration()}
+ * milliseconds that are scheduled via {@link Display#asyncExec(Runnable)}, so
+ * the UI stays responsive. The collected display values of every slice are
+ * matched against the search value in one task executed by a
+ * {@link CalculationService}, which reports the matches in bands of
+ * {@link #getBandSize()} rows.
+ * </p>
+ * <p>
+ * Only one search is running at a time, starting a new search cancels the
+ * previous one, so the service can be triggered on every keystroke.
+ * Structural changes of the {@link SelectionLayer} cancel the running search,
+ * as the positions it collected are not valid anymore.
+ * </p>
+ *
+ * @since 1.6
+ */
+public class SearchService implements ILayerListener {
+
+    /**
+     * The default number of rows a task matches before it reports the matches
+     * and checks for cancellation.
+     */
+    public static final int DEFAULT_BAND_SIZE = 512;
+
+    /**
+     * The default time in milliseconds the display values are collected in
+     * one slice in the UI thread.
+     */
+    public static final int DEFAULT_SLICE_DURATION = 20;
+
+    private final SelectionLayer selectionLayer;
+    private final IConfigRegistry configRegistry;
+    private final Display display;
+    private final CalculationService calculationService;
+
+    private int bandSize = DEFAULT_BAND_SIZE;
+    private int sliceDuration = DEFAULT_SLICE_DURATION;
+
+    private SearchJob currentSearch;
+
+    /**
+     * Creates a {@link SearchService} that uses the shared
+     * {@link CalculationService}.
+     *
+     * @param selectionLayer
+     *            The {@link SelectionLayer} whose cells should be searched.
+     * @param configRegistry
+     *            The {@link IConfigRegistry} to retrieve the display
+     *            converters.
+     * @param display
+     *            The {@link Display} in whose UI thread the display values
+     *            are collected and the {@link ISearchResultListener} is
+     *            informed. Can be <code>null</code> to collect all display
+     *            values in the thread that starts the search and to inform
+     *            the listener in the worker threads.
+     */
+    public SearchService(SelectionLayer selectionLayer, IConfigRegistry configRegistry, Display display) {
+        this(selectionLayer, configRegistry, display, CalculationService.getSharedInstance());
+    }
+
+    /**
+     * @param selectionLayer
+     *            The {@link SelectionLayer} whose cells should be searched.
+     * @param configRegistry
+     *            The {@link IConfigRegistry} to retrieve the display
+     *            converters.
+     * @param display
+     *            The {@link Display} in whose UI thread the display values
+     *            are collected and the {@link ISearchResultListener} is
+     *            informed. Can be <code>null</code> to collect all display
+     *            values in the thread that starts the search and to inform
+     *            the listener in the worker threads.
+     * @param calculationService
+     *            The {@link CalculationService} that executes the matching.
+     */
+    public SearchService(SelectionLayer selectionLayer, IConfigRegistry configRegistry,
+            Display display, CalculationService calculationService) {
+        this.selectionLayer = selectionLayer;
+        this.configRegistry = configRegistry;
+        this.display = display;
+        this.calculationService = calculationService;
+        this.selectionLayer.addLayerListener(this);
+    }
+
+    /**
+     * Starts searching all cells of the {@link SelectionLayer} for the given
+     * value. A running search is cancelled before. Needs to be called in the
+     * UI thread, as the first slice of display values is collected directly.
+     *
+     * @param valueToMatch
+     *            The value to search for.
+     * @param comparator
+     *            The {@link Comparator} to compare the search value with the
+     *            display values. It is called in the worker threads.
+     * @param caseSensitive
+     *            <code>true</code> if the search should be case sensitive.
+     * @param wholeWord
+     *            <code>true</code> if only whole words should match.
+     * @param regex
+     *            <code>true</code> if the value to match is a regular
+     *            expression.
+     * @param listener
+     *            The {@link ISearchResultListener} that gets informed about
+     *            the matches.
+     * @throws PatternSyntaxException
+     *             if the value to match is not a valid regular expression. In
+     *             this case no search is started.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void search(
+            Object valueToMatch,
+            Comparator<?> comparator,
+            boolean caseSensitive,
+            boolean wholeWord,
+            boolean regex,
+            ISearchResultListener listener) throws PatternSyntaxException {
+
+        cancel();
+
+        String stringValue = caseSensitive ? valueToMatch.toString() : valueToMatch.toString().toLowerCase();
+        // fail early in the calling thread
+        Pattern pattern = regex ? Pattern.compile(stringValue) : null;
+
+        this.currentSearch = new SearchJob(
+                stringValue,
+                pattern,
+                (Comparator<String>) comparator,
+                caseSensitive,
+                wholeWord,
+                regex,
+                listener,
+                this.selectionLayer.getColumnCount(),
+                this.selectionLayer.getRowCount());
+        this.currentSearch.start();
+    }
+
+    /**
+     * Cancels the running search. The listener of the search is informed via
+     * {@link ISearchResultListener#searchFinished(int, boolean)}.
+     */
+    public synchronized void cancel() {
+        if (this.currentSearch != null) {
+            this.currentSearch.cancel();
+            this.currentSearch = null;
+            this.calculationService.purge();
+        }
+    }
+
+    /**
+     * @return <code>true</code> if a search was started that is not finished
+     *         or cancelled yet.
+     */
+    public synchronized boolean isSearching() {
+        return this.currentSearch != null && !this.currentSearch.isDone();
+    }
+
+    @Override
+    public void handleLayerEvent(ILayerEvent event) {
+        if (event instanceof IStructuralChangeEvent
+                && !(event instanceof ColumnResizeEvent)
+                && !(event instanceof RowResizeEvent)
+                && !(event instanceof ResizeStructuralRefreshEvent)) {
+            cancel();
+        }
+    }
+
+    /**
+     * Cancels the running search and unregisters the service from the
+     * {@link SelectionLayer}.
+     */
+    public void dispose() {
+        cancel();
+        this.selectionLayer.removeLayerListener(this);
+    }
+
+    /**
+     * @return The number of rows a task matches before it reports the matches
+     *         and checks for cancellation.
+     */
+    public int getBandSize() {
+        return this.bandSize;
+    }
+
+    /**
+     * @param bandSize
+     *            The number of rows a task matches before it reports the
+     *            matches and checks for cancellation.
+     */
+    public void setBandSize(int bandSize) {
+        this.bandSize = Math.max(1, bandSize);
+    }
+
+    /**
+     * @return The time in milliseconds the display values are collected in
+     *         one slice in the UI thread.
+     */
+    public int getSliceDuration() {
+        return this.sliceDuration;
+    }
+
+    /**
+     * @param sliceDuration
+     *            The time in milliseconds the display values are collected
+     *            in one slice in the UI thread.
+     */
+    public void setSliceDuration(int sliceDuration) {
+        this.sliceDuration = Math.max(1, sliceDuration);
+    }
+
+    /**
+     * Executes the given runnable in the UI thread if a {@link Display} is
+     * set, otherwise in the current thread.
+     */
+    private void report(Runnable runnable) {
+        if (this.display == null) {
+            runnable.run();
+        } else if (!this.display.isDisposed()) {
+            this.display.asyncExec(runnable);
+        }
+    }
+
+    /**
+     * A single search. The display values are collected in slices in the UI
+     * thread, every slice is matched by a {@link MatchTask}.
+     */
+    private class SearchJob implements Runnable {
+
+        private final String stringValue;
+        private final Pattern pattern;
+        private final Comparator<String> comparator;
+        private final boolean caseSensitive;
+        private final boolean wholeWord;
+        private final boolean regex;
+        private final ISearchResultListener listener;
+
+        private final int columnCount;
+        private final int rowCount;
+
+        // only accessed in the UI thread
+        private int rowPosition;
+
+        /**
+         * The number of submitted tasks that are not finished, plus one
+         * while the display values are collected.
+         */
+        private final AtomicInteger pendingTasks = new AtomicInteger(1);
+        private final List<Future<?>> futures = new ArrayList<Future<?>>();
+
+        private volatile boolean cancelled;
+        private volatile boolean done;
+
+        // only accessed in the reporting thread
+        private int matchCount;
+        private boolean finished;
+
+        SearchJob(String stringValue, Pattern pattern, Comparator<String> comparator,
+                boolean caseSensitive, boolean wholeWord, boolean regex,
+                ISearchResultListener listener, int columnCount, int rowCount) {
+            this.stringValue = stringValue;
+            this.pattern = pattern;
+            this.comparator = comparator;
+            this.caseSensitive = caseSensitive;
+            this.wholeWord = wholeWord;
+            this.regex = regex;
+            this.listener = listener;
+            this.columnCount = columnCount;
+            this.rowCount = rowCount;
+        }
+
+        void start() {
+            if (this.rowCount == 0 || this.columnCount == 0) {
+                taskFinished();
+                return;
+            }
+            run();
+        }
+
+        /**
+         * Collects the display values of one slice of rows and submits them
+         * for matching. Executed in the UI thread.
+         */
+        @Override
+        public void run() {
+            if (this.cancelled) {
+                return;
+            }
+
+            long sliceEnd = System.currentTimeMillis() + SearchService.this.sliceDuration;
+            int startRow = this.rowPosition;
+            List<String[]> values = new ArrayList<String[]>();
+            while (this.rowPosition < this.rowCount) {
+                values.add(collectDisplayValues(this.rowPosition));
+                this.rowPosition++;
+
+                if (SearchService.this.display != null
+                        && System.currentTimeMillis() >= sliceEnd) {
+                    break;
+                }
+            }
+
+            submit(new MatchTask(this, startRow, values));
+
+            if (this.rowPosition < this.rowCount) {
+                if (SearchService.this.display.isDisposed()) {
+                    cancel();
+                } else {
+                    SearchService.this.display.asyncExec(this);
+                }
+            } else {
+                // all display values are collected
+                taskFinished();
+            }
+        }
+
+        private String[] collectDisplayValues(int row) {
+            SelectionLayer layer = SearchService.this.selectionLayer;
+            String[] rowValues = new String[this.columnCount];
+            for (int column = 0; column < this.columnCount; column++) {
+                ILayerCell cell = layer.getCellByPosition(column, row);
+                // only search the origin of spanned cells
+                if (cell != null
+                        && cell.getOriginColumnPosition() == column
+                        && cell.getOriginRowPosition() == row) {
+                    rowValues[column] = CellDisplayValueSearchUtil.getDisplayValueString(
+                            layer, SearchService.this.configRegistry, column, row);
+                }
+            }
+            return rowValues;
+        }
+
+        private void submit(MatchTask task) {
+            this.pendingTasks.incrementAndGet();
+            Future<?> future = SearchService.this.calculationService.execute(task);
+            if (future == null) {
+                // rejected, so match in the calling thread
+                task.run();
+            } else {
+                synchronized (this.futures) {
+                    this.futures.add(future);
+                }
+            }
+        }
+
+        void match(int startRow, List<String[]> values) {
+            try {
+                int bandSize = SearchService.this.bandSize;
+                for (int bandStart = 0; bandStart < values.size() && !this.cancelled; bandStart += bandSize) {
+                    final List<PositionCoordinate> matches = new ArrayList<PositionCoordinate>();
+                    int bandEnd = Math.min(bandStart + bandSize, values.size());
+                    for (int i = bandStart; i < bandEnd; i++) {
+                        String[] rowValues = values.get(i);
+                        for (int column = 0; column < rowValues.length; column++) {
+                            if (CellDisplayValueSearchUtil.matches(
+                                    rowValues[column],
+                                    this.pattern,
+                                    this.stringValue,
+                                    this.comparator,
+                                    this.caseSensitive,
+                                    this.wholeWord,
+                                    this.regex)) {
+                                matches.add(new PositionCoordinate(
+                                        SearchService.this.selectionLayer, column, startRow + i));
+                            }
+                        }
+                    }
+                    if (!matches.isEmpty() && !this.cancelled) {
+                        report(new Runnable() {
+                            @Override
+                            public void run() {
+                                reportMatches(matches);
+                            }
+                        });
+                    }
+                }
+            } finally {
+                taskFinished();
+            }
+        }
+
+        private void taskFinished() {
+            if (this.pendingTasks.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+
+        void cancel() {
+            if (this.done) {
+                return;
+            }
+            this.cancelled = true;
+            synchronized (this.futures) {
+                for (Future<?> future : this.futures) {
+                    future.cancel(false);
+                }
+            }
+            finish();
+        }
+
+        boolean isDone() {
+            return this.done;
+        }
+
+        private void finish() {
+            this.done = true;
+            report(new Runnable() {
+                @Override
+                public void run() {
+                    reportFinished();
+                }
+            });
+        }
+
+        private synchronized void reportMatches(List<PositionCoordinate> matches) {
+            if (!this.finished && !this.cancelled) {
+                this.matchCount += matches.size();
+                this.listener.matchesFound(matches);
+            }
+        }
+
+        private synchronized void reportFinished() {
+            if (!this.finished) {
+                this.finished = true;
+                this.listener.searchFinished(this.matchCount, this.cancelled);
+            }
+        }
+    }
+
+    /**
+     * Matches the collected display values of one slice of rows. Only works
+     * on the collected strings, so it does not access the layer stack.
+     */
+    private static class MatchTask implements Runnable {
+
+        private final SearchJob job;
+        private final int startRow;
+        private final List<String[]> values;
+
+        MatchTask(SearchJob job, int startRow, List<String[]> values) {
+            this.job = job;
+            this.startRow = startRow;
+            this.values = values;
+        }
+
+        @Override
+        public void run() {
+            this.job.match(this.startRow, this.values);
+        }
+    }
+}
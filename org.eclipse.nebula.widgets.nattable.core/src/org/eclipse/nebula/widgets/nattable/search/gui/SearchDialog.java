@@ -37,6 +37,8 @@
 import org.eclipse.nebula.widgets.nattable.layer.cell.ILayerCell;
 import org.eclipse.nebula.widgets.nattable.layer.event.ILayerEvent;
 import org.eclipse.nebula.widgets.nattable.search.ISearchDirection;
+import org.eclipse.nebula.widgets.nattable.search.ISearchResultListener;
+import org.eclipse.nebula.widgets.nattable.search.SearchService;
 import org.eclipse.nebula.widgets.nattable.search.action.SearchAction;
 import org.eclipse.nebula.widgets.nattable.search.command.SearchCommand;
 import org.eclipse.nebula.widgets.nattable.search.event.SearchEvent;
@@ -130,6 +132,11 @@ private class SelectionItem {
 
     // Status label
     private Label statusLabel;
+    private Label matchCountLabel;
+
+    // Background search to count the matches
+    private boolean countMatches;
+    private SearchService searchService;
 
     // Find button
     private Button findButton;
@@ -147,6 +154,7 @@ public void setInput(NatTable natTable, IDialogSettings settings) {
             return;
         }
         this.natTable = natTable;
+        disposeSearchService();
         if (natTable != null) {
             ILayer result = findSelectionLayer(this.natTable.getLayer());
             if (result != null && result instanceof SelectionLayer) {
@@ -206,6 +214,32 @@ public IDialogSettings getOriginalDialogSettings() {
         return this.originalSettings;
     }
 
+    /**
+     * @return <code>true</code> if the matches of the search text are counted
+     *         in the background and shown in the status area.
+     * @since 1.6
+     */
+    public boolean isCountMatches() {
+        return this.countMatches;
+    }
+
+    /**
+     * Enables or disables counting the matches of the search text. If enabled,
+     * all cells are searched in the background via a {@link SearchService}
+     * whenever the search text changes. The count is restarted on every
+     * keystroke. Only supported for the search scope <i>All</i>.
+     *
+     * @param countMatches
+     *            <code>true</code> if the matches should be counted.
+     * @since 1.6
+     */
+    public void setCountMatches(boolean countMatches) {
+        this.countMatches = countMatches;
+        if (!countMatches) {
+            disposeSearchService();
+        }
+    }
+
     @Override
     public void create() {
 
@@ -274,6 +308,7 @@ private String getTextForSelection(PositionCoordinate selection) {
 
     @Override
     public boolean close() {
+        disposeSearchService();
         storeSettings();
         return super.close();
     }
@@ -317,10 +352,13 @@ protected Control createContents(final Composite parent) {
 
     private Composite createStatusPanel(Composite composite) {
         Composite panel = new Composite(composite, SWT.NONE);
-        panel.setLayout(new GridLayout(1, false));
+        panel.setLayout(new GridLayout(2, false));
         this.statusLabel = new Label(panel, SWT.LEFT);
         GridDataFactory.fillDefaults().align(SWT.FILL, SWT.CENTER)
                 .grab(true, false).applyTo(this.statusLabel);
+        this.matchCountLabel = new Label(panel, SWT.RIGHT);
+        GridDataFactory.fillDefaults().align(SWT.END, SWT.CENTER)
+                .grab(false, false).applyTo(this.matchCountLabel);
         return panel;
     }
 
@@ -388,6 +426,7 @@ public void modifyText(ModifyEvent e) {
                         && SearchDialog.this.incrementalButton.getSelection()) {
                     doIncrementalFind();
                 }
+                doCountMatches();
                 SearchDialog.this.findButton.setEnabled(SearchDialog.this.findCombo.getText().length() > 0 && SearchDialog.this.selectionLayer != null);
             }
         };
@@ -498,6 +537,80 @@ public void widgetSelected(SelectionEvent e) {
     private void doFind() {
         doFindInit();
         doFind0(false, this.findCombo.getText());
+        doCountMatches();
+    }
+
+    /**
+     * Starts counting the matches of the current search text in the
+     * background if {@link #isCountMatches()} is enabled. A running count is
+     * cancelled, so the count is restarted on every keystroke.
+     */
+    private void doCountMatches() {
+        if (!this.countMatches
+                || this.selectionLayer == null
+                || this.matchCountLabel == null
+                || this.matchCountLabel.isDisposed()) {
+            return;
+        }
+
+        this.matchCountLabel.setText(""); //$NON-NLS-1$
+        String text = this.findCombo.getText();
+        if (text.length() == 0 || !this.allButton.getSelection()) {
+            if (this.searchService != null) {
+                this.searchService.cancel();
+            }
+            return;
+        }
+
+        if (this.searchService == null) {
+            this.searchService = new SearchService(
+                    this.selectionLayer,
+                    this.natTable.getConfigRegistry(),
+                    getShell().getDisplay());
+        }
+
+        boolean regex = this.regexButton.getSelection();
+        try {
+            this.searchService.search(
+                    text,
+                    this.comparator,
+                    this.caseSensitiveButton.getSelection(),
+                    !regex && this.wholeWordButton.getSelection(),
+                    regex,
+                    new ISearchResultListener() {
+
+                        private int count;
+
+                        @Override
+                        public void matchesFound(List<PositionCoordinate> matches) {
+                            this.count += matches.size();
+                            updateMatchCount(Messages.getString("Search.matchCountRunning", this.count)); //$NON-NLS-1$
+                        }
+
+                        @Override
+                        public void searchFinished(int matchCount, boolean cancelled) {
+                            if (!cancelled) {
+                                updateMatchCount(Messages.getString("Search.matchCount", matchCount)); //$NON-NLS-1$
+                            }
+                        }
+                    });
+        } catch (PatternSyntaxException e) {
+            // the error is shown by the find operation
+        }
+    }
+
+    private void updateMatchCount(String text) {
+        if (this.matchCountLabel != null && !this.matchCountLabel.isDisposed()) {
+            this.matchCountLabel.setText(text);
+            this.matchCountLabel.getParent().layout();
+        }
+    }
+
+    private void disposeSearchService() {
+        if (this.searchService != null) {
+            this.searchService.dispose();
+            this.searchService = null;
+        }
     }
 
     protected void doIncrementalFind() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2018 Original authors and others.
+ * Copyright (c) 2012, 2019 Original authors and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,6 +20,7 @@
 import org.eclipse.nebula.widgets.nattable.config.CellConfigAttributes;
 import org.eclipse.nebula.widgets.nattable.config.IConfigRegistry;
 import org.eclipse.nebula.widgets.nattable.coordinate.PositionCoordinate;
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
 import org.eclipse.nebula.widgets.nattable.data.convert.IDisplayConverter;
 import org.eclipse.nebula.widgets.nattable.layer.ILayer;
 import org.eclipse.nebula.widgets.nattable.layer.LabelStack;
@@ -300,6 +301,77 @@ private static PositionCoordinate findCell(
         return null;
     }
 
+    /**
+     * Finds all matching cells in a rectangle of cells. The cells are checked
+     * row by row. Spanned cells are only checked and returned at their origin
+     * position, so every cell is contained only once in the result, even if
+     * it is checked in several calls with adjacent rectangles.
+     *
+     * @param layer
+     *            The layer to which the positions match.
+     * @param configRegistry
+     *            The {@link IConfigRegistry} to retrieve the display converter.
+     * @param columnRange
+     *            The column positions to search.
+     * @param rowRange
+     *            The row positions to search.
+     * @param valueToMatch
+     *            The value to search for.
+     * @param comparator
+     *            The {@link Comparator} to compare the search value with the
+     *            display values.
+     * @param caseSensitive
+     *            <code>true</code> if the search should be case sensitive.
+     * @param wholeWord
+     *            <code>true</code> if only whole words should match.
+     * @param regex
+     *            <code>true</code> if the value to match is a regular
+     *            expression.
+     * @return The coordinates of the matching cells, never <code>null</code>.
+     * @throws PatternSyntaxException
+     *             if the value to match is not a valid regular expression.
+     *
+     * @since 1.6
+     */
+    public static List<PositionCoordinate> findCells(
+            ILayer layer,
+            IConfigRegistry configRegistry,
+            Range columnRange,
+            Range rowRange,
+            Object valueToMatch,
+            Comparator<String> comparator,
+            boolean caseSensitive,
+            boolean wholeWord,
+            boolean regex) throws PatternSyntaxException {
+        String stringValue = caseSensitive ? valueToMatch.toString() : valueToMatch.toString().toLowerCase();
+        Pattern pattern = regex ? Pattern.compile(stringValue) : null;
+        List<PositionCoordinate> result = new ArrayList<PositionCoordinate>();
+        for (int rowPosition = rowRange.start; rowPosition < rowRange.end; rowPosition++) {
+            for (int columnPosition = columnRange.start; columnPosition < columnRange.end; columnPosition++) {
+                ILayerCell cell = layer.getCellByPosition(columnPosition, rowPosition);
+                if (cell == null
+                        || cell.getOriginColumnPosition() != columnPosition
+                        || cell.getOriginRowPosition() != rowPosition) {
+                    continue;
+                }
+                if (compare(
+                        layer,
+                        configRegistry,
+                        pattern,
+                        stringValue,
+                        comparator,
+                        caseSensitive,
+                        wholeWord,
+                        regex,
+                        columnPosition,
+                        rowPosition)) {
+                    result.add(new PositionCoordinate(layer, columnPosition, rowPosition));
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Get an anchor for the search of the given cell.
      *
@@ -311,7 +383,7 @@ private static PositionCoordinate getSearchAnchor(ILayerCell cell, int direction
         return new PositionCoordinate(cell.getLayer(), cell.getOriginColumnPosition(), cell.getOriginRowPosition());
     }
 
-    private static boolean compare(
+    static boolean compare(
             ILayer layer,
             IConfigRegistry configRegistry,
             Pattern pattern,
@@ -324,6 +396,101 @@ private static boolean compare(
             int rowPosition) {
 
         // Convert cell's data
+        String dataValueString = getDisplayValueString(layer, configRegistry, columnPosition, rowPosition);
+
+        // Compare with valueToMatch
+        return matches(dataValueString, pattern, stringValue, comparator, caseSensitive, wholeWord, regex);
+    }
+
+    /**
+     * Checks if the given display value string matches the search value. Does
+     * not access the layer, so it can be called outside the UI thread for
+     * display values that were collected via
+     * {@link #getDisplayValueString(ILayer, IConfigRegistry, int, int)}.
+     *
+     * @param dataValueString
+     *            The display value string of a cell, can be <code>null</code>.
+     * @param pattern
+     *            The compiled regular expression of the lower case search
+     *            value if the search is not case sensitive. Only used if
+     *            <code>regex</code> is <code>true</code>.
+     * @param stringValue
+     *            The search value, in lower case if the search is not case
+     *            sensitive.
+     * @param comparator
+     *            The {@link Comparator} to compare the search value with the
+     *            display value.
+     * @param caseSensitive
+     *            <code>true</code> if the search is case sensitive.
+     * @param wholeWord
+     *            <code>true</code> if only whole words should match.
+     * @param regex
+     *            <code>true</code> if the search value is a regular
+     *            expression.
+     * @return <code>true</code> if the display value matches.
+     *
+     * @since 1.6
+     */
+    public static boolean matches(
+            String dataValueString,
+            Pattern pattern,
+            String stringValue,
+            Comparator<String> comparator,
+            boolean caseSensitive,
+            boolean wholeWord,
+            boolean regex) {
+
+        if (dataValueString != null) {
+            if (!caseSensitive) {
+                dataValueString = dataValueString.toLowerCase();
+            }
+            if (regex) {
+                if (pattern.matcher(dataValueString).matches()) {
+                    return true;
+                }
+            } else if (comparator.compare(stringValue, dataValueString) == 0) {
+                return true;
+            } else if (!wholeWord && dataValueString.contains(stringValue)) {
+                return true;
+            } else if (wholeWord) {
+                // we also need to check single words in a multi word value
+                String[] split = dataValueString.split("\\b"); //$NON-NLS-1$
+                for (String word : split) {
+                    if (comparator.compare(stringValue, word) == 0) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the string representation of the display value of a cell as it
+     * is used for comparison with the search value. As it reads the layer
+     * stack and calls the display converter, it needs to be called in the UI
+     * thread.
+     *
+     * @param layer
+     *            The layer to which the positions match.
+     * @param configRegistry
+     *            The {@link IConfigRegistry} to retrieve the display converter.
+     * @param columnPosition
+     *            The column position of the cell.
+     * @param rowPosition
+     *            The row position of the cell.
+     * @return The display value of the cell as string or <code>null</code> if
+     *         the cell should be skipped in search or its display value is not
+     *         {@link Comparable}.
+     *
+     * @since 1.6
+     */
+    public static String getDisplayValueString(
+            ILayer layer,
+            IConfigRegistry configRegistry,
+            int columnPosition,
+            int rowPosition) {
+
         LabelStack labels = layer.getConfigLabelsByPosition(columnPosition, rowPosition);
         if (!labels.hasLabel(ISearchStrategy.SKIP_SEARCH_RESULT_LABEL)) {
             final IDisplayConverter displayConverter = configRegistry.getConfigAttribute(
@@ -338,28 +505,10 @@ private static boolean compare(
                 }
             }
 
-            // Compare with valueToMatch
             if (dataValue instanceof Comparable<?>) {
-                String dataValueString = caseSensitive ? dataValue.toString() : dataValue.toString().toLowerCase();
-                if (regex) {
-                    if (pattern.matcher(dataValueString).matches()) {
-                        return true;
-                    }
-                } else if (comparator.compare(stringValue, dataValueString) == 0) {
-                    return true;
-                } else if (!wholeWord && dataValueString.contains(stringValue)) {
-                    return true;
-                } else if (wholeWord) {
-                    // we also need to check single words in a multi word value
-                    String[] split = dataValueString.split("\\b"); //$NON-NLS-1$
-                    for (String word : split) {
-                        if (comparator.compare(stringValue, word) == 0) {
-                            return true;
-                        }
-                    }
-                }
+                return dataValue.toString();
             }
         }
-        return false;
+        return null;
     }
 }
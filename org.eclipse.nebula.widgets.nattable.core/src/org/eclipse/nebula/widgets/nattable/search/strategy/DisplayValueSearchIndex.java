@@ -0,0 +1,312 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.search.strategy;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index of the display values of cells, used by
+ * {@link IndexedGridSearchStrategy}. For every column index the trigrams of
+ * the display values are mapped to the row indexes of the cells that contain
+ * them. A lookup returns the row indexes of all cells that contain every
+ * trigram of the search text, which is a superset of the cells that contain
+ * the search text. The candidates therefore need to be verified against the
+ * real cell values.
+ * <p>
+ * The trigrams are folded per character, so the index can be used for case
+ * sensitive and case insensitive searches. Cells that changed after the index
+ * was built can be marked as dirty. Dirty cells are always returned as
+ * candidates until the index is rebuilt.
+ * </p>
+ * <p>
+ * Note that the index stores every distinct trigram of every cell, so its
+ * memory consumption is a multiple of the number of cells.
+ * </p>
+ *
+ * @since 1.6
+ */
+public class DisplayValueSearchIndex {
+
+    /**
+     * The length of the character sequences that are indexed. Search texts
+     * that are shorter can not be looked up in the index.
+     */
+    public static final int NGRAM_LENGTH = 3;
+
+    private final Map<Integer, Map<Long, RowIndexes>> columns = new HashMap<Integer, Map<Long, RowIndexes>>();
+
+    private final Map<Integer, Set<Integer>> dirtyCells = new HashMap<Integer, Set<Integer>>();
+    private final Set<Integer> dirtyRows = new HashSet<Integer>();
+    private int dirtyCount;
+
+    private boolean complete;
+
+    /**
+     * Removes all entries and marks the index as incomplete.
+     */
+    public synchronized void clear() {
+        this.columns.clear();
+        this.dirtyCells.clear();
+        this.dirtyRows.clear();
+        this.dirtyCount = 0;
+        this.complete = false;
+    }
+
+    /**
+     * Registers a column, so dirty rows are also reported for it, even if none
+     * of its cells contains a value that could be indexed.
+     *
+     * @param columnIndex
+     *            The column index to register.
+     */
+    public synchronized void addColumn(int columnIndex) {
+        getColumn(columnIndex);
+    }
+
+    /**
+     * Adds the display value of a cell to the index. The cells of a row should
+     * be added together, as consecutive duplicates are skipped.
+     *
+     * @param columnIndex
+     *            The column index of the cell.
+     * @param rowIndex
+     *            The row index of the cell.
+     * @param value
+     *            The string representation of the display value of the cell.
+     */
+    public synchronized void add(int columnIndex, int rowIndex, String value) {
+        Map<Long, RowIndexes> column = getColumn(columnIndex);
+        for (int i = 0; i + NGRAM_LENGTH <= value.length(); i++) {
+            Long key = Long.valueOf(getKey(value, i));
+            RowIndexes rows = column.get(key);
+            if (rows == null) {
+                rows = new RowIndexes();
+                column.put(key, rows);
+            }
+            rows.add(rowIndex);
+        }
+    }
+
+    private Map<Long, RowIndexes> getColumn(int columnIndex) {
+        Integer key = Integer.valueOf(columnIndex);
+        Map<Long, RowIndexes> column = this.columns.get(key);
+        if (column == null) {
+            column = new HashMap<Long, RowIndexes>();
+            this.columns.put(key, column);
+        }
+        return column;
+    }
+
+    /**
+     * Sorts and compacts the collected row indexes and marks the index as
+     * complete, so it can be used for lookups.
+     */
+    public synchronized void complete() {
+        for (Map<Long, RowIndexes> column : this.columns.values()) {
+            for (RowIndexes rows : column.values()) {
+                rows.compact();
+            }
+        }
+        this.complete = true;
+    }
+
+    /**
+     * @return <code>true</code> if all cells were added and the index can be
+     *         used for lookups.
+     */
+    public synchronized boolean isComplete() {
+        return this.complete;
+    }
+
+    /**
+     * Marks a cell as changed after the index was built.
+     *
+     * @param columnIndex
+     *            The column index of the changed cell.
+     * @param rowIndex
+     *            The row index of the changed cell.
+     */
+    public synchronized void markDirty(int columnIndex, int rowIndex) {
+        Integer key = Integer.valueOf(columnIndex);
+        Set<Integer> rows = this.dirtyCells.get(key);
+        if (rows == null) {
+            rows = new HashSet<Integer>();
+            this.dirtyCells.put(key, rows);
+        }
+        if (rows.add(Integer.valueOf(rowIndex))) {
+            this.dirtyCount++;
+        }
+    }
+
+    /**
+     * Marks all cells of a row as changed after the index was built.
+     *
+     * @param rowIndex
+     *            The row index of the changed row.
+     */
+    public synchronized void markRowDirty(int rowIndex) {
+        if (this.dirtyRows.add(Integer.valueOf(rowIndex))) {
+            this.dirtyCount++;
+        }
+    }
+
+    /**
+     * @return The number of cells and rows that were marked as changed since
+     *         the index was built.
+     */
+    public synchronized int getDirtyCount() {
+        return this.dirtyCount;
+    }
+
+    /**
+     * @return The indexes of the columns that are contained in the index.
+     */
+    public synchronized Collection<Integer> getColumnIndexes() {
+        Set<Integer> result = new HashSet<Integer>(this.columns.keySet());
+        result.addAll(this.dirtyCells.keySet());
+        return result;
+    }
+
+    /**
+     * Returns the row indexes of the cells in the given column that might
+     * contain the given text, including the cells that were marked as dirty.
+     *
+     * @param columnIndex
+     *            The column index of the cells.
+     * @param text
+     *            The text to search for.
+     * @return The ascending row indexes of the candidate cells or
+     *         <code>null</code> if the index is not complete or the text is
+     *         shorter than {@link #NGRAM_LENGTH}.
+     */
+    public synchronized int[] getCandidateRowIndexes(int columnIndex, String text) {
+        if (!this.complete || text.length() < NGRAM_LENGTH) {
+            return null;
+        }
+
+        int[] result = null;
+        Map<Long, RowIndexes> column = this.columns.get(Integer.valueOf(columnIndex));
+        if (column != null) {
+            // collect the posting lists and start with the shortest one
+            RowIndexes[] postings = new RowIndexes[text.length() - NGRAM_LENGTH + 1];
+            int shortest = 0;
+            for (int i = 0; i < postings.length; i++) {
+                postings[i] = column.get(Long.valueOf(getKey(text, i)));
+                if (postings[i] == null) {
+                    postings = null;
+                    break;
+                }
+                if (postings[i].size < postings[shortest].size) {
+                    shortest = i;
+                }
+            }
+
+            if (postings != null) {
+                int[] candidates = Arrays.copyOf(postings[shortest].indexes, postings[shortest].size);
+                int size = candidates.length;
+                for (int i = 0; i < postings.length && size > 0; i++) {
+                    if (i != shortest) {
+                        size = retain(candidates, size, postings[i]);
+                    }
+                }
+                result = Arrays.copyOf(candidates, size);
+            }
+        }
+
+        Set<Integer> dirty = this.dirtyCells.get(Integer.valueOf(columnIndex));
+        if ((dirty != null && !dirty.isEmpty()) || !this.dirtyRows.isEmpty()) {
+            Set<Integer> all = new HashSet<Integer>(this.dirtyRows);
+            if (dirty != null) {
+                all.addAll(dirty);
+            }
+            if (result != null) {
+                for (int rowIndex : result) {
+                    all.add(Integer.valueOf(rowIndex));
+                }
+            }
+            result = new int[all.size()];
+            int i = 0;
+            for (Integer rowIndex : all) {
+                result[i++] = rowIndex.intValue();
+            }
+            Arrays.sort(result);
+        }
+
+        return (result != null) ? result : new int[0];
+    }
+
+    /**
+     * Removes the values from the given candidates array that are not
+     * contained in the given row indexes.
+     *
+     * @return The number of retained candidates.
+     */
+    private static int retain(int[] candidates, int size, RowIndexes rows) {
+        int retained = 0;
+        for (int i = 0; i < size; i++) {
+            if (Arrays.binarySearch(rows.indexes, 0, rows.size, candidates[i]) >= 0) {
+                candidates[retained++] = candidates[i];
+            }
+        }
+        return retained;
+    }
+
+    /**
+     * Creates the key for the trigram at the given offset. The characters are
+     * folded one by one, so a substring of a value is always mapped to the
+     * same keys as the value at the corresponding offsets.
+     */
+    private static long getKey(String value, int offset) {
+        long key = 0;
+        for (int i = offset; i < offset + NGRAM_LENGTH; i++) {
+            key = (key << 16) | Character.toLowerCase(Character.toUpperCase(value.charAt(i)));
+        }
+        return key;
+    }
+
+    /**
+     * Growable list of row indexes. While the index is built the list might
+     * be unsorted, after {@link #compact()} it is sorted and free of
+     * duplicates.
+     */
+    private static class RowIndexes {
+
+        int[] indexes = new int[4];
+        int size;
+
+        void add(int rowIndex) {
+            if (this.size > 0 && this.indexes[this.size - 1] == rowIndex) {
+                return;
+            }
+            if (this.size == this.indexes.length) {
+                this.indexes = Arrays.copyOf(this.indexes, this.size * 2);
+            }
+            this.indexes[this.size++] = rowIndex;
+        }
+
+        void compact() {
+            Arrays.sort(this.indexes, 0, this.size);
+            int unique = 0;
+            for (int i = 0; i < this.size; i++) {
+                if (unique == 0 || this.indexes[unique - 1] != this.indexes[i]) {
+                    this.indexes[unique++] = this.indexes[i];
+                }
+            }
+            this.size = unique;
+            this.indexes = Arrays.copyOf(this.indexes, unique);
+        }
+    }
+}
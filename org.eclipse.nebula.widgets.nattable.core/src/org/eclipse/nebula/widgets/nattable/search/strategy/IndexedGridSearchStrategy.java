@@ -0,0 +1,440 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.search.strategy;
+
+import java.util.Comparator;
+import java.util.regex.PatternSyntaxException;
+
+import org.eclipse.nebula.widgets.nattable.config.IConfigRegistry;
+import org.eclipse.nebula.widgets.nattable.coordinate.PositionCoordinate;
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.layer.ILayer;
+import org.eclipse.nebula.widgets.nattable.layer.ILayerListener;
+import org.eclipse.nebula.widgets.nattable.layer.cell.ILayerCell;
+import org.eclipse.nebula.widgets.nattable.layer.event.CellVisualChangeEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.ILayerEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.IStructuralChangeEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.ResizeStructuralRefreshEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowVisualChangeEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.VisualRefreshEvent;
+import org.eclipse.nebula.widgets.nattable.resize.event.ColumnResizeEvent;
+import org.eclipse.nebula.widgets.nattable.resize.event.RowResizeEvent;
+import org.eclipse.nebula.widgets.nattable.search.CellValueAsStringComparator;
+import org.eclipse.nebula.widgets.nattable.search.ISearchDirection;
+import org.eclipse.nebula.widgets.nattable.selection.SelectionLayer;
+import org.eclipse.nebula.widgets.nattable.selection.event.ISelectionEvent;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * {@link GridSearchStrategy} that answers searches via a
+ * {@link DisplayValueSearchIndex} instead of comparing the display value of
+ * every cell. The index is created on the first search and updated from the
+ * events of the {@link SelectionLayer} the strategy is registered to.
+ * <p>
+ * Searches that can not be answered by the index fall back to the scan of the
+ * {@link GridSearchStrategy}. This is the case for regular expression
+ * searches, search texts shorter than
+ * {@link DisplayValueSearchIndex#NGRAM_LENGTH}, comparators other than
+ * {@link CellValueAsStringComparator} and while the index is built.
+ * </p>
+ * <p>
+ * As the display values can only be retrieved from the layers in the UI
+ * thread, the index is built there in slices of
+ * {@link #getBuildSliceDuration()} milliseconds that are scheduled via
+ * {@link Display#asyncExec(Runnable)}, so the UI stays responsive. Structural
+ * changes like sorting, filtering, hiding or reordering invalidate the index,
+ * it is rebuilt with the next search. Changed cells are marked as dirty and
+ * always verified until the index is rebuilt.
+ * </p>
+ * <p>
+ * The strategy keeps the index between searches, so the same instance needs
+ * to be used for subsequent {@link org.eclipse.nebula.widgets.nattable.search.command.SearchCommand}s.
+ * Call {@link #dispose()} if the strategy is not used anymore.
+ * </p>
+ *
+ * @since 1.6
+ */
+public class IndexedGridSearchStrategy extends GridSearchStrategy implements ILayerListener {
+
+    /**
+     * The default number of dirty cells after which the index is invalidated.
+     */
+    public static final int DEFAULT_MAX_DIRTY_CELLS = 10000;
+
+    private final IConfigRegistry configRegistry;
+    private final DisplayValueSearchIndex index = new DisplayValueSearchIndex();
+
+    private volatile IndexBuilder builder;
+    private int buildSliceDuration = 20;
+    private int maxDirtyCells = DEFAULT_MAX_DIRTY_CELLS;
+
+    public IndexedGridSearchStrategy(IConfigRegistry configRegistry, boolean wrapSearch, boolean columnFirst) {
+        this(configRegistry, wrapSearch, ISearchDirection.SEARCH_FORWARD, columnFirst);
+    }
+
+    public IndexedGridSearchStrategy(IConfigRegistry configRegistry, boolean wrapSearch, String searchDirection, boolean columnFirst) {
+        super(configRegistry, wrapSearch, searchDirection, columnFirst);
+        this.configRegistry = configRegistry;
+    }
+
+    @Override
+    public void setContextLayer(ILayer contextLayer) {
+        ILayer current = getContextLayer();
+        if (current != contextLayer) {
+            if (current != null) {
+                current.removeLayerListener(this);
+            }
+            super.setContextLayer(contextLayer);
+            if (contextLayer != null) {
+                contextLayer.addLayerListener(this);
+            }
+            invalidateIndex();
+        }
+    }
+
+    @Override
+    public PositionCoordinate executeSearch(Object valueToMatch) throws PatternSyntaxException {
+        ILayer contextLayer = getContextLayer();
+        if (!(contextLayer instanceof SelectionLayer)
+                || valueToMatch == null
+                || isRegex()
+                || !(getComparator() instanceof CellValueAsStringComparator)) {
+            return super.executeSearch(valueToMatch);
+        }
+
+        String text = valueToMatch.toString();
+        if (text.length() < DisplayValueSearchIndex.NGRAM_LENGTH) {
+            return super.executeSearch(valueToMatch);
+        }
+
+        if (!this.index.isComplete()) {
+            startBuild(contextLayer, Display.getCurrent());
+            if (!this.index.isComplete()) {
+                return super.executeSearch(valueToMatch);
+            }
+        }
+
+        return searchIndex((SelectionLayer) contextLayer, text);
+    }
+
+    /**
+     * Searches the next matching cell in search order by looking up the
+     * candidates in the index and verifying them against the current display
+     * values.
+     */
+    private PositionCoordinate searchIndex(SelectionLayer selectionLayer, String text) {
+        int columnCount = selectionLayer.getColumnCount();
+        int rowCount = selectionLayer.getRowCount();
+        if (columnCount == 0 || rowCount == 0) {
+            return null;
+        }
+
+        int direction = this.searchDirection.equals(ISearchDirection.SEARCH_FORWARD) ? 1 : -1;
+        long secondDimCount = this.columnFirst ? rowCount : columnCount;
+        long total = (long) columnCount * rowCount;
+
+        // the position of the search start in search order, calculated like
+        // in GridSearchStrategy
+        PositionCoordinate selectionAnchor = selectionLayer.getSelectionAnchor();
+        boolean hadSelectionAnchor = selectionAnchor.columnPosition >= 0 && selectionAnchor.rowPosition >= 0;
+        long start = 0;
+        if (hadSelectionAnchor) {
+            start = getOrder(selectionAnchor.columnPosition, selectionAnchor.rowPosition, secondDimCount);
+            if (!isIncremental()) {
+                start += direction;
+                if (start < 0 || start >= total) {
+                    if (!this.wrapSearch) {
+                        return null;
+                    }
+                    start = (start + total) % total;
+                }
+            }
+        }
+
+        String stringValue = isCaseSensitive() ? text : text.toLowerCase();
+        @SuppressWarnings("unchecked")
+        Comparator<String> comparator = (Comparator<String>) getComparator();
+
+        PositionCoordinate result = null;
+        long resultDistance = Long.MAX_VALUE;
+        for (Integer columnIndex : this.index.getColumnIndexes()) {
+            int columnPosition = selectionLayer.getColumnPositionByIndex(columnIndex.intValue());
+            if (columnPosition < 0) {
+                continue;
+            }
+            int[] rowIndexes = this.index.getCandidateRowIndexes(columnIndex.intValue(), text);
+            if (rowIndexes == null) {
+                // the index was invalidated while searching
+                return super.executeSearch(text);
+            }
+            for (int rowIndex : rowIndexes) {
+                int rowPosition = selectionLayer.getRowPositionByIndex(rowIndex);
+                if (rowPosition < 0) {
+                    continue;
+                }
+
+                // spanned cells are only matched at their origin
+                ILayerCell cell = selectionLayer.getCellByPosition(columnPosition, rowPosition);
+                if (cell == null) {
+                    continue;
+                }
+                int originColumn = cell.getOriginColumnPosition();
+                int originRow = cell.getOriginRowPosition();
+
+                long order = getOrder(originColumn, originRow, secondDimCount);
+                if (!this.wrapSearch && direction * (order - start) < 0) {
+                    continue;
+                }
+                long distance = (direction * (order - start) + total) % total;
+                if (distance < resultDistance
+                        && CellDisplayValueSearchUtil.compare(
+                                selectionLayer,
+                                this.configRegistry,
+                                null,
+                                stringValue,
+                                comparator,
+                                isCaseSensitive(),
+                                isWholeWord(),
+                                false,
+                                originColumn,
+                                originRow)) {
+                    result = new PositionCoordinate(selectionLayer, originColumn, originRow);
+                    resultDistance = distance;
+                }
+            }
+        }
+        return result;
+    }
+
+    private long getOrder(int columnPosition, int rowPosition, long secondDimCount) {
+        return this.columnFirst
+                ? columnPosition * secondDimCount + rowPosition
+                : rowPosition * secondDimCount + columnPosition;
+    }
+
+    @Override
+    public void handleLayerEvent(ILayerEvent event) {
+        if (event instanceof ISelectionEvent
+                || event instanceof ColumnResizeEvent
+                || event instanceof RowResizeEvent
+                || event instanceof ResizeStructuralRefreshEvent) {
+            return;
+        }
+
+        if (event instanceof IStructuralChangeEvent || event instanceof VisualRefreshEvent) {
+            invalidateIndex();
+        } else if (event instanceof CellVisualChangeEvent) {
+            CellVisualChangeEvent cellEvent = (CellVisualChangeEvent) event;
+            ILayer layer = cellEvent.getLayer();
+            markDirty(
+                    layer.getColumnIndexByPosition(cellEvent.getColumnPosition()),
+                    layer.getRowIndexByPosition(cellEvent.getRowPosition()));
+        } else if (event instanceof RowVisualChangeEvent) {
+            RowVisualChangeEvent rowEvent = (RowVisualChangeEvent) event;
+            ILayer layer = rowEvent.getLayer();
+            for (Range range : rowEvent.getRowPositionRanges()) {
+                for (int rowPosition = range.start; rowPosition < range.end; rowPosition++) {
+                    markDirty(-1, layer.getRowIndexByPosition(rowPosition));
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks a changed cell or row in the index. If too many changes were
+     * tracked, the index is invalidated.
+     *
+     * @param columnIndex
+     *            The column index of the changed cell, or -1 if all cells of
+     *            the row changed.
+     * @param rowIndex
+     *            The row index of the changed cell.
+     */
+    private void markDirty(int columnIndex, int rowIndex) {
+        if (rowIndex < 0) {
+            return;
+        }
+        if (columnIndex >= 0) {
+            this.index.markDirty(columnIndex, rowIndex);
+        } else {
+            this.index.markRowDirty(rowIndex);
+        }
+        if (this.index.getDirtyCount() > this.maxDirtyCells) {
+            invalidateIndex();
+        }
+    }
+
+    /**
+     * Clears the index and stops a running build. The index is rebuilt with
+     * the next search.
+     */
+    public void invalidateIndex() {
+        this.builder = null;
+        this.index.clear();
+    }
+
+    /**
+     * Builds the index synchronously in the current thread. Needs to be called
+     * in the UI thread after the context layer was set. Typically the index is
+     * built in slices on the first search, this method can be used to create
+     * it upfront.
+     */
+    public void buildIndex() {
+        if (getContextLayer() != null && !this.index.isComplete()) {
+            this.builder = null;
+            startBuild(getContextLayer(), null);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the index is built and searches are
+     *         answered by index lookups.
+     */
+    public boolean isIndexComplete() {
+        return this.index.isComplete();
+    }
+
+    /**
+     * @return The {@link DisplayValueSearchIndex} used by this strategy.
+     */
+    public DisplayValueSearchIndex getIndex() {
+        return this.index;
+    }
+
+    /**
+     * @return The time in milliseconds the index is built in one slice
+     *         before the UI thread is released.
+     */
+    public int getBuildSliceDuration() {
+        return this.buildSliceDuration;
+    }
+
+    /**
+     * @param buildSliceDuration
+     *            The time in milliseconds the index is built in one slice
+     *            before the UI thread is released.
+     */
+    public void setBuildSliceDuration(int buildSliceDuration) {
+        this.buildSliceDuration = buildSliceDuration;
+    }
+
+    /**
+     * @return The number of changed cells after which the index is
+     *         invalidated instead of verifying the changed cells on every
+     *         search.
+     */
+    public int getMaxDirtyCells() {
+        return this.maxDirtyCells;
+    }
+
+    /**
+     * @param maxDirtyCells
+     *            The number of changed cells after which the index is
+     *            invalidated instead of verifying the changed cells on every
+     *            search.
+     */
+    public void setMaxDirtyCells(int maxDirtyCells) {
+        this.maxDirtyCells = maxDirtyCells;
+    }
+
+    /**
+     * Unregisters the strategy from the context layer and releases the index.
+     */
+    public void dispose() {
+        setContextLayer(null);
+    }
+
+    /**
+     * Starts building the index if no build is running.
+     *
+     * @param layer
+     *            The layer whose cells should be indexed.
+     * @param display
+     *            The {@link Display} to schedule the build slices, or
+     *            <code>null</code> to build the index in one go.
+     */
+    private void startBuild(ILayer layer, Display display) {
+        if (this.builder == null) {
+            this.index.clear();
+            IndexBuilder indexBuilder = new IndexBuilder(layer, display);
+            this.builder = indexBuilder;
+            indexBuilder.run();
+        }
+    }
+
+    /**
+     * Adds the cells of the context layer row by row to the index. If a
+     * {@link Display} is set, the build is continued via
+     * {@link Display#asyncExec(Runnable)} after each slice.
+     */
+    private class IndexBuilder implements Runnable {
+
+        private final ILayer layer;
+        private final Display display;
+        private int rowPosition;
+
+        IndexBuilder(ILayer layer, Display display) {
+            this.layer = layer;
+            this.display = display;
+        }
+
+        @Override
+        public void run() {
+            long sliceEnd = System.currentTimeMillis() + IndexedGridSearchStrategy.this.buildSliceDuration;
+            int columnCount = this.layer.getColumnCount();
+            int rowCount = this.layer.getRowCount();
+
+            if (this.rowPosition == 0) {
+                for (int columnPosition = 0; columnPosition < columnCount; columnPosition++) {
+                    IndexedGridSearchStrategy.this.index.addColumn(
+                            this.layer.getColumnIndexByPosition(columnPosition));
+                }
+            }
+
+            while (this.rowPosition < rowCount) {
+                if (IndexedGridSearchStrategy.this.builder != this) {
+                    // the build was cancelled
+                    return;
+                }
+
+                int rowIndex = this.layer.getRowIndexByPosition(this.rowPosition);
+                for (int columnPosition = 0; columnPosition < columnCount; columnPosition++) {
+                    String value = CellDisplayValueSearchUtil.getDisplayValueString(
+                            this.layer,
+                            IndexedGridSearchStrategy.this.configRegistry,
+                            columnPosition,
+                            this.rowPosition);
+                    if (value != null) {
+                        IndexedGridSearchStrategy.this.index.add(
+                                this.layer.getColumnIndexByPosition(columnPosition),
+                                rowIndex,
+                                value);
+                    }
+                }
+                this.rowPosition++;
+
+                if (this.display != null
+                        && this.rowPosition < rowCount
+                        && System.currentTimeMillis() >= sliceEnd) {
+                    if (!this.display.isDisposed()) {
+                        this.display.asyncExec(this);
+                    }
+                    return;
+                }
+            }
+
+            if (IndexedGridSearchStrategy.this.builder == this) {
+                IndexedGridSearchStrategy.this.index.complete();
+                IndexedGridSearchStrategy.this.builder = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,543 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.selection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.coordinate.RangeSet;
+import org.eclipse.nebula.widgets.nattable.layer.cell.ILayerCell;
+import org.eclipse.nebula.widgets.nattable.layer.event.IStructuralChangeEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.StructuralDiff;
+import org.eclipse.nebula.widgets.nattable.layer.event.StructuralDiff.DiffTypeEnum;
+import org.eclipse.swt.graphics.Rectangle;
+
+/**
+ * {@link ISelectionModel} that tracks the selection in a two dimensional range
+ * index instead of a list of selected rectangles.
+ * <p>
+ * The column axis is split into bands of adjacent columns that share the same
+ * selected rows. Every band stores its selected rows as {@link RangeSet}, so
+ * overlapping or adjacent selections are merged on insert. Checking whether a
+ * cell is selected is a lookup of the band via the sorted band starts followed
+ * by a binary search in the row ranges of the band. The row axis is indexed
+ * the same way in bands of adjacent rows that share the same selected
+ * columns, so row based checks do not need to visit every column band. The
+ * costs therefore depend logarithmically on the number of selections, which
+ * makes this model suitable for big and fragmented selections, e.g. thousands
+ * of rows selected via CTRL + click.
+ * </p>
+ * <p>
+ * As selections are merged, {@link #getSelections()} does not return the
+ * added rectangles but a minimal set of disjoint rectangles that cover the
+ * same cells.
+ * </p>
+ *
+ * Coordinates are in <i>Selection Layer positions</i>
+ *
+ * @see SelectionLayer
+ * @since 1.6
+ */
+public class RangeSelectionModel implements ISelectionModel {
+
+    protected final SelectionLayer selectionLayer;
+    private boolean multipleSelectionAllowed;
+
+    /**
+     * The column bands, keyed by the first column position of the band. A
+     * band ends at the start of the next band, the last band is always empty.
+     */
+    private final NavigableMap<Integer, RangeSet> bands = new TreeMap<Integer, RangeSet>();
+    /**
+     * The row bands, keyed by the first row position of the band, with the
+     * selected columns of the band. Contains the same selection as
+     * {@link #bands}, indexed by rows.
+     */
+    private final NavigableMap<Integer, RangeSet> rowBands = new TreeMap<Integer, RangeSet>();
+    private final ReadWriteLock bandsLock = new ReentrantReadWriteLock();
+
+    private boolean clearSelectionOnChange = true;
+
+    public RangeSelectionModel(SelectionLayer selectionLayer) {
+        this(selectionLayer, true);
+    }
+
+    public RangeSelectionModel(SelectionLayer selectionLayer, boolean multipleSelectionAllowed) {
+        this.selectionLayer = selectionLayer;
+        this.multipleSelectionAllowed = multipleSelectionAllowed;
+    }
+
+    @Override
+    public boolean isMultipleSelectionAllowed() {
+        return this.multipleSelectionAllowed;
+    }
+
+    @Override
+    public void setMultipleSelectionAllowed(boolean multipleSelectionAllowed) {
+        this.multipleSelectionAllowed = multipleSelectionAllowed;
+    }
+
+    @Override
+    public void addSelection(int columnPosition, int rowPosition) {
+        addSelection(new Rectangle(columnPosition, rowPosition, 1, 1));
+    }
+
+    @Override
+    public void addSelection(Rectangle range) {
+        if (range == null) {
+            return;
+        }
+
+        this.bandsLock.writeLock().lock();
+        try {
+            int width = range.width;
+            int height = range.height;
+            if (!this.multipleSelectionAllowed) {
+                this.bands.clear();
+                this.rowBands.clear();
+                // as no multiple selection is allowed, ensure that only one
+                // column and one row will be selected
+                width = 1;
+                height = 1;
+            }
+            if (width <= 0 || height <= 0) {
+                return;
+            }
+
+            updateBands(this.bands, range.x, range.x + width, range.y, range.y + height, true);
+            updateBands(this.rowBands, range.y, range.y + height, range.x, range.x + width, true);
+        } finally {
+            this.bandsLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clearSelection() {
+        this.bandsLock.writeLock().lock();
+        try {
+            this.bands.clear();
+            this.rowBands.clear();
+        } finally {
+            this.bandsLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clearSelection(int columnPosition, int rowPosition) {
+        clearSelection(new Rectangle(columnPosition, rowPosition, 1, 1));
+    }
+
+    @Override
+    public void clearSelection(Rectangle removedSelection) {
+        if (removedSelection.width <= 0 || removedSelection.height <= 0) {
+            return;
+        }
+
+        this.bandsLock.writeLock().lock();
+        try {
+            if (this.bands.isEmpty()) {
+                return;
+            }
+            int columnEnd = removedSelection.x + removedSelection.width;
+            int rowEnd = removedSelection.y + removedSelection.height;
+            updateBands(this.bands, removedSelection.x, columnEnd, removedSelection.y, rowEnd, false);
+            updateBands(this.rowBands, removedSelection.y, rowEnd, removedSelection.x, columnEnd, false);
+        } finally {
+            this.bandsLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        this.bandsLock.readLock().lock();
+        try {
+            // empty bands are merged, so only the terminating band remains
+            return this.bands.size() <= 1;
+        } finally {
+            this.bandsLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Rectangle> getSelections() {
+        List<Rectangle> selections = new ArrayList<Rectangle>();
+
+        this.bandsLock.readLock().lock();
+        try {
+            Entry<Integer, RangeSet> band = this.bands.firstEntry();
+            while (band != null) {
+                Entry<Integer, RangeSet> next = this.bands.higherEntry(band.getKey());
+                if (next != null) {
+                    int width = next.getKey() - band.getKey();
+                    for (Range rows : band.getValue().getRanges()) {
+                        selections.add(new Rectangle(band.getKey(), rows.start, width, rows.end - rows.start));
+                    }
+                }
+                band = next;
+            }
+        } finally {
+            this.bandsLock.readLock().unlock();
+        }
+        return selections;
+    }
+
+    // Cell features
+
+    @Override
+    public boolean isCellPositionSelected(int columnPosition, int rowPosition) {
+        ILayerCell cell = this.selectionLayer.getCellByPosition(columnPosition, rowPosition);
+        if (cell == null) {
+            return false;
+        }
+
+        this.bandsLock.readLock().lock();
+        try {
+            if (cell.getColumnSpan() == 1 && cell.getRowSpan() == 1) {
+                RangeSet rows = getBand(this.bands, cell.getOriginColumnPosition());
+                return rows != null && rows.contains(cell.getOriginRowPosition());
+            }
+
+            // spanned cells are selected if any of the spanned cells is
+            int startRow = cell.getOriginRowPosition();
+            int endRow = startRow + cell.getRowSpan();
+            for (RangeSet rows : getBands(cell.getOriginColumnPosition(), cell.getOriginColumnPosition() + cell.getColumnSpan())) {
+                if (rows.intersects(startRow, endRow)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            this.bandsLock.readLock().unlock();
+        }
+    }
+
+    // Column features
+
+    @Override
+    public int[] getSelectedColumnPositions() {
+        return toArray(getSelectedColumns());
+    }
+
+    @Override
+    public boolean isColumnPositionSelected(int columnPosition) {
+        this.bandsLock.readLock().lock();
+        try {
+            RangeSet rows = getBand(this.bands, columnPosition);
+            return rows != null && !rows.isEmpty();
+        } finally {
+            this.bandsLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int[] getFullySelectedColumnPositions(int columnHeight) {
+        return toArray(getSelectedPositions(this.bands, this.selectionLayer.getColumnCount(), columnHeight));
+    }
+
+    /**
+     * A column is fully selected if the selected rows of the column are
+     * contiguous and cover at least the given column height.
+     */
+    @Override
+    public boolean isColumnPositionFullySelected(int columnPosition, int columnHeight) {
+        this.bandsLock.readLock().lock();
+        try {
+            return isFullySelected(getBand(this.bands, columnPosition), columnHeight);
+        } finally {
+            this.bandsLock.readLock().unlock();
+        }
+    }
+
+    // Row features
+
+    @Override
+    public int getSelectedRowCount() {
+        return getSelectedRows().size();
+    }
+
+    @Override
+    public Set<Range> getSelectedRowPositions() {
+        return new HashSet<Range>(getSelectedRows().getRanges());
+    }
+
+    @Override
+    public boolean isRowPositionSelected(int rowPosition) {
+        this.bandsLock.readLock().lock();
+        try {
+            RangeSet columns = getBand(this.rowBands, rowPosition);
+            return columns != null && !columns.isEmpty();
+        } finally {
+            this.bandsLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int[] getFullySelectedRowPositions(int rowWidth) {
+        return toArray(getSelectedPositions(this.rowBands, this.selectionLayer.getRowCount(), rowWidth));
+    }
+
+    /**
+     * A row is fully selected if the selected columns of the row are
+     * contiguous and cover at least the given row width.
+     */
+    @Override
+    public boolean isRowPositionFullySelected(int rowPosition, int rowWidth) {
+        this.bandsLock.readLock().lock();
+        try {
+            return isFullySelected(getBand(this.rowBands, rowPosition), rowWidth);
+        } finally {
+            this.bandsLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The selected column positions that are valid in the
+     *         {@link SelectionLayer}.
+     */
+    private RangeSet getSelectedColumns() {
+        return getSelectedPositions(this.bands, this.selectionLayer.getColumnCount(), -1);
+    }
+
+    /**
+     * @return The selected row positions that are valid in the
+     *         {@link SelectionLayer}.
+     */
+    private RangeSet getSelectedRows() {
+        return getSelectedPositions(this.rowBands, this.selectionLayer.getRowCount(), -1);
+    }
+
+    /**
+     * @param index
+     *            The column or row bands to check.
+     * @param count
+     *            The number of columns or rows in the {@link SelectionLayer}.
+     * @param size
+     *            The number of contiguous selected rows or columns a column
+     *            or row needs to be fully selected, or -1 to collect all
+     *            columns or rows that contain a selection.
+     * @return The selected column or row positions that are valid in the
+     *         {@link SelectionLayer}.
+     */
+    private RangeSet getSelectedPositions(NavigableMap<Integer, RangeSet> index, int count, int size) {
+        RangeSet positions = new RangeSet();
+
+        this.bandsLock.readLock().lock();
+        try {
+            Integer start = null;
+            for (Entry<Integer, RangeSet> band : index.entrySet()) {
+                if (start != null) {
+                    positions.addRange(start, Math.min(band.getKey(), count));
+                }
+                boolean selected = (size >= 0)
+                        ? isFullySelected(band.getValue(), size)
+                        : !band.getValue().isEmpty();
+                start = selected ? band.getKey() : null;
+            }
+        } finally {
+            this.bandsLock.readLock().unlock();
+        }
+        return positions;
+    }
+
+    /**
+     * A column or row is fully selected if its selected positions are
+     * contiguous and cover at least the given size.
+     */
+    private static boolean isFullySelected(RangeSet selected, int size) {
+        return selected != null && selected.getRangeCount() == 1 && selected.size() >= size;
+    }
+
+    private static int[] toArray(RangeSet positions) {
+        int[] result = new int[positions.size()];
+        int i = 0;
+        for (Integer position : positions) {
+            result[i++] = position;
+        }
+        return result;
+    }
+
+    /**
+     * @return The selected positions of the band in the given index that
+     *         contains the given position or <code>null</code> if there is no
+     *         such band.
+     */
+    private static RangeSet getBand(NavigableMap<Integer, RangeSet> index, int position) {
+        Entry<Integer, RangeSet> band = index.floorEntry(position);
+        return (band != null) ? band.getValue() : null;
+    }
+
+    /**
+     * @return The selected rows of all bands that overlap the given column
+     *         range.
+     */
+    private Collection<RangeSet> getBands(int startColumn, int endColumn) {
+        Integer first = this.bands.floorKey(startColumn);
+        if (first == null) {
+            first = startColumn;
+        }
+        return this.bands.subMap(first, true, endColumn, false).values();
+    }
+
+    /**
+     * Adds or removes the given range of selected positions to or from the
+     * bands of the given index between the given start and end.
+     */
+    private static void updateBands(NavigableMap<Integer, RangeSet> index, int start, int end,
+            int rangeStart, int rangeEnd, boolean add) {
+        splitBand(index, start);
+        splitBand(index, end);
+        for (RangeSet selected : index.subMap(start, true, end, false).values()) {
+            if (add) {
+                selected.addRange(rangeStart, rangeEnd);
+            } else {
+                selected.removeRange(rangeStart, rangeEnd);
+            }
+        }
+        mergeBands(index, start, end);
+    }
+
+    /**
+     * Ensures that a band of the given index starts at the given position by
+     * splitting the band that contains it.
+     */
+    private static void splitBand(NavigableMap<Integer, RangeSet> index, int position) {
+        if (!index.containsKey(position)) {
+            RangeSet selected = getBand(index, position);
+            index.put(position, (selected != null) ? new RangeSet(selected) : new RangeSet());
+        }
+    }
+
+    /**
+     * Merges the bands of the given index between the given positions with
+     * their neighbours if they contain the same selection, to keep the number
+     * of bands minimal.
+     */
+    private static void mergeBands(NavigableMap<Integer, RangeSet> index, int start, int end) {
+        Entry<Integer, RangeSet> before = index.lowerEntry(start);
+        RangeSet previous = (before != null) ? before.getValue() : null;
+
+        List<Integer> redundant = new ArrayList<Integer>();
+        for (Entry<Integer, RangeSet> band : index.subMap(start, true, end, true).entrySet()) {
+            // a band is redundant if it contains the same rows as the previous
+            // band, or if it is empty and there is no previous band
+            if (previous != null ? previous.equals(band.getValue()) : band.getValue().isEmpty()) {
+                redundant.add(band.getKey());
+            } else {
+                previous = band.getValue();
+            }
+        }
+        for (Integer key : redundant) {
+            index.remove(key);
+        }
+    }
+
+    // Object methods
+
+    @Override
+    public String toString() {
+        return getSelections().toString();
+    }
+
+    @Override
+    public void handleLayerEvent(IStructuralChangeEvent event) {
+        if (this.clearSelectionOnChange) {
+            if (event.isHorizontalStructureChanged()) {
+                if (event.getColumnDiffs() == null) {
+                    if (isModified(event.getChangedPositionRectangles(), true)) {
+                        this.selectionLayer.clear();
+                    }
+                } else if (isModified(event.getColumnDiffs(), getSelectedColumns(), 1)) {
+                    this.selectionLayer.clear();
+                }
+            }
+
+            if (event.isVerticalStructureChanged()) {
+                // if there are no row diffs, it seems to be a complete refresh
+                if (event.getRowDiffs() == null) {
+                    if (isModified(event.getChangedPositionRectangles(), false)) {
+                        this.selectionLayer.clear();
+                    }
+                } else if (isModified(event.getRowDiffs(), getSelectedRows(), 0)
+                        || (this.selectionLayer.getRowCount() == 0 && !isEmpty())) {
+                    // if the selection layer is empty, we should clear the
+                    // selection also
+                    this.selectionLayer.clear();
+                }
+            }
+        } else {
+            // keep the selection as is in case of changes, but remove the
+            // selection of cells that are not valid anymore
+            int columnCount = this.selectionLayer.getColumnCount();
+            int rowCount = this.selectionLayer.getRowCount();
+            clearSelection(new Rectangle(columnCount, 0, Integer.MAX_VALUE - columnCount, Integer.MAX_VALUE));
+            clearSelection(new Rectangle(0, rowCount, Integer.MAX_VALUE, Integer.MAX_VALUE - rowCount));
+        }
+    }
+
+    /**
+     * Checks if the selection is affected by a complete refresh. The changed
+     * rows are checked for both orientations, like in {@link SelectionModel}.
+     */
+    private boolean isModified(Collection<Rectangle> changedRectangles, boolean horizontal) {
+        RangeSet selected = horizontal ? getSelectedColumns() : getSelectedRows();
+        for (Rectangle rectangle : changedRectangles) {
+            int end = rectangle.y + rectangle.height;
+            if (selected.intersects(rectangle.y, horizontal ? end + 1 : end)) {
+                return true;
+            }
+        }
+        // if the selection layer is empty, we should clear the selection also
+        return !horizontal && this.selectionLayer.getRowCount() == 0 && !isEmpty();
+    }
+
+    /**
+     * Checks if the selection is affected by the given diffs. Diffs of type
+     * {@link DiffTypeEnum#CHANGE} are used for resizing and are ignored. The
+     * given extension is added to the end of the changed ranges, as the
+     * {@link SelectionModel} also checks the column after a changed range.
+     */
+    private boolean isModified(Collection<StructuralDiff> diffs, RangeSet selected, int extension) {
+        for (StructuralDiff diff : diffs) {
+            if (diff.getDiffType() != DiffTypeEnum.CHANGE) {
+                Range range = diff.getBeforePositionRange();
+                if (selected.intersects(range.start, range.end + extension)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     *
+     * @param clearSelectionOnChange
+     *            <code>true</code> to simply clear the selection on structural
+     *            changes, <code>false</code> to keep the valid selection
+     *            (selection of cells that still exist)
+     */
+    public void setClearSelectionOnChange(boolean clearSelectionOnChange) {
+        this.clearSelectionOnChange = clearSelectionOnChange;
+    }
+
+    @Override
+    public Class<IStructuralChangeEvent> getLayerEventClass() {
+        return IStructuralChangeEvent.class;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2018 Jonas Hugo, Markus Wahl, Dirk Fauth.
+ * Copyright (c) 2014, 2019 Jonas Hugo, Markus Wahl, Dirk Fauth.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,7 +19,6 @@
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -37,7 +36,6 @@
 import org.eclipse.nebula.widgets.nattable.resize.event.RowResizeEvent;
 import org.eclipse.nebula.widgets.nattable.selection.IMarkerSelectionModel;
 import org.eclipse.nebula.widgets.nattable.selection.SelectionLayer;
-import org.eclipse.nebula.widgets.nattable.selection.SelectionUtils;
 import org.eclipse.nebula.widgets.nattable.selection.preserve.Selections.CellPosition;
 import org.eclipse.nebula.widgets.nattable.util.ArrayUtil;
 import org.eclipse.swt.graphics.Point;
@@ -177,9 +175,11 @@ public void addSelection(Rectangle range) {
                     T rowObject = getRowObjectByPosition(rowPosition);
                     if (rowObject != null) {
                         Serializable rowId = this.rowIdAccessor.getRowId(rowObject);
-                        for (int columnPosition = startColumnPosition; columnPosition < startColumnPosition + numberOfVisibleColumnsToBeSelected; columnPosition++) {
-                            this.selections.select(rowId, rowObject, columnPosition);
-                        }
+                        this.selections.select(
+                                rowId,
+                                rowObject,
+                                startColumnPosition,
+                                startColumnPosition + numberOfVisibleColumnsToBeSelected);
                     }
                 }
             }
@@ -227,9 +227,10 @@ public void clearSelection(Rectangle removedSelection) {
                     T rowObject = getRowObjectByPosition(rowPosition);
                     if (rowObject != null) {
                         Serializable rowId = this.rowIdAccessor.getRowId(rowObject);
-                        for (int columnPosition = startColumnPosition; columnPosition < startColumnPosition + numberOfVisibleColumnsToBeSelected; columnPosition++) {
-                            this.selections.deselect(rowId, columnPosition);
-                        }
+                        this.selections.deselect(
+                                rowId,
+                                startColumnPosition,
+                                startColumnPosition + numberOfVisibleColumnsToBeSelected);
                     }
                 }
             }
@@ -352,16 +353,10 @@ public int[] getSelectedColumnPositions() {
     public boolean isColumnPositionSelected(int columnPosition) {
         this.selectionsLock.readLock().lock();
         try {
-            for (Selections.Row<T> row : this.selections.getRows()) {
-                if (row.contains(columnPosition)) {
-                    return true;
-                }
-            }
-
+            return this.selections.getSelectedRowCount(columnPosition) > 0;
         } finally {
             this.selectionsLock.readLock().unlock();
         }
-        return false;
     }
 
     @Override
@@ -384,27 +379,13 @@ public int[] getFullySelectedColumnPositions(int columnHeight) {
     public boolean isColumnPositionFullySelected(int columnPosition, int columnHeight) {
         this.selectionsLock.readLock().lock();
         try {
-            Selections.Column selectedRowsInColumn = this.selections.getSelectedRows(columnPosition);
-            if (hasColumnsSelectedRows(selectedRowsInColumn)) {
-                return selectedRowsInColumn.getItems().size() >= columnHeight;
-            }
-            return false;
+            int selectedRowCount = this.selections.getSelectedRowCount(columnPosition);
+            return selectedRowCount > 0 && selectedRowCount >= columnHeight;
         } finally {
             this.selectionsLock.readLock().unlock();
         }
     }
 
-    /**
-     * Determines if there are selected cells in a column
-     *
-     * @param column
-     *            collections of selected cells for a column
-     * @return whether there are selected cells in column
-     */
-    private boolean hasColumnsSelectedRows(Selections.Column column) {
-        return column != null;
-    }
-
     @Override
     public int getSelectedRowCount() {
         this.selectionsLock.readLock().lock();
@@ -450,11 +431,11 @@ public int[] getFullySelectedRowPositions(int rowWidth) {
         try {
             List<Integer> fullySelectedRows = new ArrayList<Integer>();
             for (Selections.Row<T> selectedRow : this.selections.getRows()) {
-                T rowObject = selectedRow.getRowObject();
-                int rowPosition = getRowPositionByRowObject(rowObject);
-                if (isRowVisible(rowPosition)
-                        && isRowPositionFullySelected(rowPosition, rowWidth)) {
-                    fullySelectedRows.add(rowPosition);
+                if (selectedRow.isFullySelected(rowWidth)) {
+                    int rowPosition = getRowPositionByRowObject(selectedRow.getRowObject());
+                    if (isRowVisible(rowPosition)) {
+                        fullySelectedRows.add(rowPosition);
+                    }
                 }
             }
             Collections.sort(fullySelectedRows);
@@ -466,8 +447,6 @@ && isRowPositionFullySelected(rowPosition, rowWidth)) {
 
     @Override
     public boolean isRowPositionFullySelected(int rowPosition, int rowWidth) {
-        TreeSet<Integer> selectedColumnPositions = new TreeSet<Integer>();
-
         this.selectionsLock.readLock().lock();
         try {
             T rowObject = getRowObjectByPosition(rowPosition);
@@ -475,18 +454,14 @@ public boolean isRowPositionFullySelected(int rowPosition, int rowWidth) {
                 Serializable rowId = this.rowIdAccessor.getRowId(rowObject);
                 Selections.Row<T> selectedColumnsInRow = this.selections.getSelectedColumns(rowId);
                 if (hasRowSelectedColumns(selectedColumnsInRow)) {
-                    for (Integer columnPosition : selectedColumnsInRow.getItems()) {
-                        selectedColumnPositions.add(columnPosition);
-                    }
+                    return selectedColumnsInRow.isFullySelected(rowWidth);
                 }
             }
         } finally {
             this.selectionsLock.readLock().unlock();
         }
 
-        return (selectedColumnPositions.size() < rowWidth)
-                ? false
-                : SelectionUtils.isConsecutive(ArrayUtil.asIntArray(selectedColumnPositions));
+        return rowWidth <= 0;
     }
 
     /**
@@ -708,7 +683,27 @@ public void handleLayerEvent(IStructuralChangeEvent event) {
         // handling for deleting columns
         if (event.isHorizontalStructureChanged()) {
             Collection<StructuralDiff> diffs = event.getColumnDiffs();
-            if (diffs != null) {
+            if (diffs != null && event instanceof ColumnReorderEvent) {
+                // move the selections of the reordered columns
+                List<Integer> from = new ArrayList<Integer>();
+                List<Integer> to = new ArrayList<Integer>();
+                for (StructuralDiff columnDiff : diffs) {
+                    if (columnDiff.getDiffType() == DiffTypeEnum.DELETE) {
+                        Range beforePositionRange = columnDiff.getBeforePositionRange();
+                        for (int i = beforePositionRange.start; i < beforePositionRange.end; i++) {
+                            from.add(i);
+                        }
+                    } else if (columnDiff.getDiffType() == DiffTypeEnum.ADD) {
+                        Range afterPositionRange = columnDiff.getAfterPositionRange();
+                        for (int i = afterPositionRange.start; i < afterPositionRange.end; i++) {
+                            to.add(i);
+                        }
+                    }
+                }
+                Collections.sort(from);
+                Collections.sort(to);
+                this.selections.updateColumnsForReorder(from, to);
+            } else if (diffs != null) {
                 // first handle deletion, then handle insert
                 // this is to avoid mixed operations that might lead to
                 // confusing indexes
@@ -719,11 +714,7 @@ public void handleLayerEvent(IStructuralChangeEvent event) {
                         Range beforePositionRange = columnDiff.getBeforePositionRange();
                         // first de-select removed columns
                         for (int i = beforePositionRange.start; i < beforePositionRange.end; i++) {
-                            if (!(event instanceof ColumnReorderEvent)) {
-                                // in case the column was reordered we don't
-                                // want to deselect the column
-                                this.selections.deselectColumn(i);
-                            }
+                            this.selections.deselectColumn(i);
                             removed.add(i);
                         }
                     }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2018 Jonas Hugo, Markus Wahl.
+ * Copyright (c) 2014, 2019 Jonas Hugo, Markus Wahl.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,15 +15,23 @@
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
- * The selected cells of columns and rows
+ * The selected cells of columns and rows.
+ * <p>
+ * The selected columns of a row are stored in a {@link BitSet}. Rows that are
+ * selected via {@link #select(Serializable, Object, int, int)} with the same
+ * column range share one column set that is only copied on modification, so
+ * selecting whole rows or all cells does not create an object per cell. For
+ * the columns only the number of rows with a selected cell is tracked, so
+ * checking for fully selected columns does not need to inspect the rows.
+ * </p>
  *
  * @param <T>
  *            the type of object underlying each row
@@ -36,9 +44,17 @@
     private Map<Serializable, Row<T>> selectedRows = new HashMap<Serializable, Row<T>>();
 
     /**
-     * A map for looking up columns given their column positions
+     * The number of rows with a selected cell per column position
      */
-    private Map<Integer, Column> selectedColumns = new HashMap<Integer, Column>();
+    private int[] selectedRowCounts = new int[0];
+
+    /**
+     * The column set that is shared by rows selected for the same column
+     * range, together with the range it represents.
+     */
+    private BitSet sharedColumns;
+    private int sharedFromColumn;
+    private int sharedToColumn;
 
     /**
      * Select the cell at the intersection of the specified row and column.
@@ -50,10 +66,41 @@
      */
     void select(Serializable rowId, T rowObject, int columnPosition) {
         Row<T> row = retrieveRow(rowId, rowObject);
-        row.addItem(columnPosition);
+        if (!row.contains(columnPosition)) {
+            row.modifiableColumns().set(columnPosition);
+            incrementColumn(columnPosition, 1);
+        }
+    }
 
-        Column column = retrieveColumn(columnPosition);
-        column.addItem(rowId);
+    /**
+     * Select the cells of the specified row in the given column range.
+     *
+     * @param rowId
+     * @param rowObject
+     *            row object with the row rowId
+     * @param fromColumnPosition
+     *            the first column position to select (inclusive)
+     * @param toColumnPosition
+     *            the last column position to select (exclusive)
+     */
+    void select(Serializable rowId, T rowObject, int fromColumnPosition, int toColumnPosition) {
+        if (fromColumnPosition >= toColumnPosition) {
+            return;
+        }
+
+        Row<T> row = getSelectedColumns(rowId);
+        if (row == null) {
+            // share the column set with other rows selected in the same range
+            row = new Row<T>(rowId, rowObject, getSharedColumns(fromColumnPosition, toColumnPosition));
+            this.selectedRows.put(rowId, row);
+            for (int i = fromColumnPosition; i < toColumnPosition; i++) {
+                incrementColumn(i, 1);
+            }
+        } else {
+            for (int i = fromColumnPosition; i < toColumnPosition; i++) {
+                select(rowId, rowObject, i);
+            }
+        }
     }
 
     /**
@@ -65,19 +112,47 @@ void select(Serializable rowId, T rowObject, int columnPosition) {
      */
     void deselect(Serializable rowId, int columnPosition) {
         Row<T> row = getSelectedColumns(rowId);
-        if (row != null) {
-            row.removeItem(columnPosition);
+        if (row != null && row.contains(columnPosition)) {
+            row.modifiableColumns().clear(columnPosition);
+            incrementColumn(columnPosition, -1);
             if (!row.hasSelection()) {
                 this.selectedRows.remove(rowId);
             }
         }
+    }
 
-        Column column = getSelectedRows(columnPosition);
-        if (column != null) {
-            column.removeItem(rowId);
-            if (!column.hasSelection()) {
-                this.selectedColumns.remove(columnPosition);
-            }
+    /**
+     * Removes the selection of the cells of the specified row in the given
+     * column range.
+     *
+     * @param rowId
+     * @param fromColumnPosition
+     *            the first column position to deselect (inclusive)
+     * @param toColumnPosition
+     *            the last column position to deselect (exclusive)
+     */
+    void deselect(Serializable rowId, int fromColumnPosition, int toColumnPosition) {
+        Row<T> row = getSelectedColumns(rowId);
+        if (row == null) {
+            return;
+        }
+
+        BitSet columns = row.getColumns();
+        if (columns.nextSetBit(fromColumnPosition) < 0
+                || columns.nextSetBit(fromColumnPosition) >= toColumnPosition) {
+            // nothing selected in the range
+            return;
+        }
+
+        for (int i = columns.nextSetBit(fromColumnPosition); i >= 0 && i < toColumnPosition; i = columns.nextSetBit(i + 1)) {
+            incrementColumn(i, -1);
+        }
+
+        if (fromColumnPosition <= columns.nextSetBit(0) && toColumnPosition >= columns.length()) {
+            // all selected columns are deselected
+            this.selectedRows.remove(rowId);
+        } else {
+            row.modifiableColumns().clear(fromColumnPosition, toColumnPosition);
         }
     }
 
@@ -87,23 +162,13 @@ void deselect(Serializable rowId, int columnPosition) {
      * @param rowId
      */
     void deselectRow(Serializable rowId) {
-        Row<T> row = getSelectedColumns(rowId);
+        Row<T> row = this.selectedRows.remove(rowId);
         if (row != null) {
-            row.clearItems();
-            this.selectedRows.remove(rowId);
-        }
-
-        Collection<Integer> toRemove = new HashSet<Integer>();
-        for (Map.Entry<Integer, Column> entry : this.selectedColumns.entrySet()) {
-            entry.getValue().removeItem(rowId);
-            if (!entry.getValue().hasSelection()) {
-                toRemove.add(entry.getKey());
+            BitSet columns = row.getColumns();
+            for (int i = columns.nextSetBit(0); i >= 0; i = columns.nextSetBit(i + 1)) {
+                incrementColumn(i, -1);
             }
         }
-
-        for (Integer key : toRemove) {
-            this.selectedColumns.remove(key);
-        }
     }
 
     /**
@@ -112,83 +177,180 @@ void deselectRow(Serializable rowId) {
      * @param columnPosition
      */
     void deselectColumn(int columnPosition) {
-        Column column = getSelectedRows(columnPosition);
-        if (column != null) {
-            column.clearItems();
-            this.selectedColumns.remove(columnPosition);
+        if (getSelectedRowCount(columnPosition) == 0) {
+            return;
         }
 
-        Collection<Serializable> toRemove = new HashSet<Serializable>();
+        // rows that share a column set keep sharing the modified one
+        Map<BitSet, BitSet> modified = new IdentityHashMap<BitSet, BitSet>();
+        Collection<Serializable> toRemove = new ArrayList<Serializable>();
         for (Map.Entry<Serializable, Row<T>> entry : this.selectedRows.entrySet()) {
-            entry.getValue().removeItem(columnPosition);
-            if (!entry.getValue().hasSelection()) {
-                toRemove.add(entry.getKey());
+            Row<T> row = entry.getValue();
+            if (row.contains(columnPosition)) {
+                BitSet columns = modified.get(row.getColumns());
+                if (columns == null) {
+                    columns = (BitSet) row.getColumns().clone();
+                    columns.clear(columnPosition);
+                    modified.put(row.getColumns(), columns);
+                }
+                row.setColumns(columns);
+                if (!row.hasSelection()) {
+                    toRemove.add(entry.getKey());
+                }
             }
         }
 
         for (Serializable key : toRemove) {
             this.selectedRows.remove(key);
         }
+        this.selectedRowCounts[columnPosition] = 0;
+        resetSharedColumns();
     }
 
+    /**
+     * Updates the column positions of the selections after the column at the
+     * given position was removed. The selections of columns to the right of the
+     * removed column are moved one column to the left.
+     *
+     * @param columnPosition
+     *            the position of the removed column
+     */
     void updateColumnsForRemoval(int columnPosition) {
-        // find maximum selected column
-        int maxColumn = 0;
-        for (Integer pos : this.selectedColumns.keySet()) {
-            maxColumn = Math.max(maxColumn, pos);
-        }
-
-        for (int i = columnPosition + 1; i <= maxColumn; i++) {
-            Column column = this.selectedColumns.get(i);
-            if (column != null) {
-                this.selectedColumns.put(i - 1, new Column(i - 1, column.getItems()));
-                this.selectedColumns.remove(i);
-
-                // also update the row references
-                for (Row<T> row : this.selectedRows.values()) {
-                    Collection<Integer> toRemove = new HashSet<Integer>();
-                    Collection<Integer> toAdd = new HashSet<Integer>();
-                    for (Integer col : row.getItems()) {
-                        if (col <= i) {
-                            toRemove.add(i);
-                            toAdd.add(i - 1);
-                        }
-                    }
-                    row.getItems().removeAll(toRemove);
-                    row.getItems().addAll(toAdd);
+        if (columnPosition >= this.selectedRowCounts.length) {
+            return;
+        }
+
+        shiftColumns(columnPosition, false);
+
+        int[] counts = new int[this.selectedRowCounts.length - 1];
+        System.arraycopy(this.selectedRowCounts, 0, counts, 0, columnPosition);
+        System.arraycopy(this.selectedRowCounts, columnPosition + 1, counts, columnPosition, counts.length - columnPosition);
+        this.selectedRowCounts = counts;
+    }
+
+    /**
+     * Updates the column positions of the selections after a column was added
+     * at the given position. The selections of the column at that position and
+     * the columns to the right are moved one column to the right.
+     *
+     * @param columnPosition
+     *            the position of the added column
+     */
+    void updateColumnsForAddition(int columnPosition) {
+        if (columnPosition >= this.selectedRowCounts.length) {
+            return;
+        }
+
+        shiftColumns(columnPosition, true);
+
+        int[] counts = new int[this.selectedRowCounts.length + 1];
+        System.arraycopy(this.selectedRowCounts, 0, counts, 0, columnPosition);
+        System.arraycopy(this.selectedRowCounts, columnPosition, counts, columnPosition + 1, this.selectedRowCounts.length - columnPosition);
+        this.selectedRowCounts = counts;
+    }
+
+    /**
+     * Updates the column positions of the selections after columns were
+     * reordered. The selections of the moved columns are moved with them, the
+     * selections of the other columns keep their order.
+     *
+     * @param fromColumnPositions
+     *            the sorted positions of the moved columns before the reorder
+     * @param toColumnPositions
+     *            the sorted positions of the moved columns after the reorder
+     */
+    void updateColumnsForReorder(List<Integer> fromColumnPositions, List<Integer> toColumnPositions) {
+        if (fromColumnPositions.isEmpty() || fromColumnPositions.size() != toColumnPositions.size()) {
+            return;
+        }
+
+        int columnCount = Math.max(
+                this.selectedRowCounts.length,
+                Math.max(fromColumnPositions.get(fromColumnPositions.size() - 1), toColumnPositions.get(toColumnPositions.size() - 1)) + 1);
+
+        // calculate the new position for every old position
+        BitSet moved = new BitSet(columnCount);
+        for (Integer position : fromColumnPositions) {
+            moved.set(position);
+        }
+        BitSet target = new BitSet(columnCount);
+        for (Integer position : toColumnPositions) {
+            target.set(position);
+        }
+        int[] newPositions = new int[columnCount];
+        int nextMoved = moved.nextSetBit(0);
+        int nextKept = moved.nextClearBit(0);
+        for (int i = 0; i < columnCount; i++) {
+            if (target.get(i)) {
+                newPositions[nextMoved] = i;
+                nextMoved = moved.nextSetBit(nextMoved + 1);
+            } else {
+                newPositions[nextKept] = i;
+                nextKept = moved.nextClearBit(nextKept + 1);
+            }
+        }
+
+        Map<BitSet, BitSet> modified = new IdentityHashMap<BitSet, BitSet>();
+        for (Row<T> row : this.selectedRows.values()) {
+            BitSet columns = row.getColumns();
+            BitSet reordered = modified.get(columns);
+            if (reordered == null) {
+                reordered = new BitSet(columnCount);
+                for (int i = columns.nextSetBit(0); i >= 0; i = columns.nextSetBit(i + 1)) {
+                    reordered.set(i < columnCount ? newPositions[i] : i);
                 }
+                modified.put(columns, reordered);
             }
+            row.setColumns(reordered);
+        }
+
+        int[] counts = new int[columnCount];
+        for (int i = 0; i < this.selectedRowCounts.length; i++) {
+            counts[newPositions[i]] = this.selectedRowCounts[i];
         }
+        this.selectedRowCounts = counts;
+        resetSharedColumns();
     }
 
-    void updateColumnsForAddition(int columnPosition) {
-        // find maximum selected column
-        int maxColumn = 0;
-        for (Integer pos : this.selectedColumns.keySet()) {
-            maxColumn = Math.max(maxColumn, pos);
-        }
-
-        for (int i = maxColumn; i >= columnPosition; i--) {
-            Column column = this.selectedColumns.get(i);
-            if (column != null) {
-                this.selectedColumns.put(i + 1, new Column(i + 1, column.getItems()));
-                this.selectedColumns.remove(i);
-
-                // also update the row references
-                for (Row<T> row : this.selectedRows.values()) {
-                    Collection<Integer> toRemove = new HashSet<Integer>();
-                    Collection<Integer> toAdd = new HashSet<Integer>();
-                    for (Integer col : row.getItems()) {
-                        if (col >= i) {
-                            toRemove.add(i);
-                            toAdd.add(i + 1);
-                        }
-                    }
-                    row.getItems().removeAll(toRemove);
-                    row.getItems().addAll(toAdd);
+    /**
+     * Moves the selected columns of all rows starting at the given position.
+     *
+     * @param columnPosition
+     *            the position of the removed or added column
+     * @param addition
+     *            <code>true</code> to move the columns to the right,
+     *            <code>false</code> to move them to the left
+     */
+    private void shiftColumns(int columnPosition, boolean addition) {
+        Map<BitSet, BitSet> modified = new IdentityHashMap<BitSet, BitSet>();
+        Collection<Serializable> toRemove = new ArrayList<Serializable>();
+        for (Map.Entry<Serializable, Row<T>> entry : this.selectedRows.entrySet()) {
+            Row<T> row = entry.getValue();
+            BitSet columns = row.getColumns();
+            if (columns.length() <= columnPosition) {
+                continue;
+            }
+
+            BitSet shifted = modified.get(columns);
+            if (shifted == null) {
+                shifted = columns.get(0, columnPosition);
+                int offset = addition ? columnPosition + 1 : columnPosition;
+                int from = addition ? columnPosition : columnPosition + 1;
+                for (int i = columns.nextSetBit(from); i >= 0; i = columns.nextSetBit(i + 1)) {
+                    shifted.set(offset + i - from);
                 }
+                modified.put(columns, shifted);
             }
+            row.setColumns(shifted);
+            if (!row.hasSelection()) {
+                toRemove.add(entry.getKey());
+            }
+        }
+
+        for (Serializable key : toRemove) {
+            this.selectedRows.remove(key);
         }
+        resetSharedColumns();
     }
 
     /**
@@ -196,7 +358,8 @@ void updateColumnsForAddition(int columnPosition) {
      */
     void clear() {
         this.selectedRows.clear();
-        this.selectedColumns.clear();
+        this.selectedRowCounts = new int[0];
+        resetSharedColumns();
     }
 
     /**
@@ -215,21 +378,26 @@ Collection<Row<T>> getRows() {
      * @return all columns positions with selected cells
      */
     List<Integer> getColumnPositions() {
-        List<Integer> keys = new ArrayList<Integer>(this.selectedColumns.keySet());
-        Collections.sort(keys);
-        return keys;
+        List<Integer> positions = new ArrayList<Integer>();
+        for (int i = 0; i < this.selectedRowCounts.length; i++) {
+            if (this.selectedRowCounts[i] > 0) {
+                positions.add(i);
+            }
+        }
+        return positions;
     }
 
     /**
-     * Retrieves the selected rows of a column
+     * Retrieves the number of rows with a selected cell in a column
      *
      * @param columnPosition
-     *            column for retrieving selected rows
-     * @return selected rows of columnPosition, or null if no selected rows in
-     *         that column
+     *            column for retrieving the number of selected rows
+     * @return the number of selected rows in columnPosition
      */
-    Column getSelectedRows(int columnPosition) {
-        return this.selectedColumns.get(columnPosition);
+    int getSelectedRowCount(int columnPosition) {
+        return (columnPosition >= 0 && columnPosition < this.selectedRowCounts.length)
+                ? this.selectedRowCounts[columnPosition]
+                : 0;
     }
 
     /**
@@ -254,8 +422,9 @@ Row<T> getSelectedColumns(Serializable rowId) {
     Collection<CellPosition<T>> getSelections() {
         ArrayList<CellPosition<T>> selectedCells = new ArrayList<CellPosition<T>>();
         for (Row<T> row : this.selectedRows.values()) {
-            for (Integer columnPosition : row.getItems()) {
-                CellPosition<T> cell = new CellPosition<T>(row.getRowObject(), columnPosition);
+            BitSet columns = row.getColumns();
+            for (int i = columns.nextSetBit(0); i >= 0; i = columns.nextSetBit(i + 1)) {
+                CellPosition<T> cell = new CellPosition<T>(row.getRowObject(), i);
                 selectedCells.add(cell);
             }
         }
@@ -272,11 +441,8 @@ Collection<CellPosition<T>> getSelections() {
      * @return whether the specified cell is selected
      */
     boolean isSelected(Serializable rowId, int columnPosition) {
-        if (isRowSelected(rowId)) {
-            return getSelectedColumns(rowId).contains(columnPosition);
-        } else {
-            return false;
-        }
+        Row<T> row = getSelectedColumns(rowId);
+        return row != null && row.contains(columnPosition);
     }
 
     /**
@@ -313,198 +479,183 @@ boolean isEmpty() {
     private Row<T> retrieveRow(Serializable rowId, T rowObject) {
         Row<T> row = getSelectedColumns(rowId);
         if (row == null) {
-            row = new Row<T>(rowId, rowObject);
+            row = new Row<T>(rowId, rowObject, new BitSet());
             this.selectedRows.put(rowId, row);
         }
         return row;
     }
 
     /**
-     * Retrieves a collection of selected rows for a column.
+     * Retrieves the column set for the given range that is shared by all rows
+     * selected in that range.
      *
-     * @param columnPosition
-     *            column to retrieve columns for
-     * @return a collection of selected rows for a column
+     * @param fromColumnPosition
+     *            the first column position (inclusive)
+     * @param toColumnPosition
+     *            the last column position (exclusive)
+     * @return the shared column set, must not be modified
      */
-    private Column retrieveColumn(int columnPosition) {
-        Column column = getSelectedRows(columnPosition);
-        if (column == null) {
-            column = new Column(columnPosition);
-            this.selectedColumns.put(columnPosition, column);
-        }
-        return column;
+    private BitSet getSharedColumns(int fromColumnPosition, int toColumnPosition) {
+        if (this.sharedColumns == null
+                || this.sharedFromColumn != fromColumnPosition
+                || this.sharedToColumn != toColumnPosition) {
+            this.sharedColumns = new BitSet(toColumnPosition);
+            this.sharedColumns.set(fromColumnPosition, toColumnPosition);
+            this.sharedFromColumn = fromColumnPosition;
+            this.sharedToColumn = toColumnPosition;
+        }
+        return this.sharedColumns;
+    }
+
+    private void resetSharedColumns() {
+        this.sharedColumns = null;
     }
 
     /**
-     * A collection of selected columns for a row. Row is a Line<Serializable,
-     * Integer> where <Serializable> denotes the row ID of the row and <Integer>
-     * denotes the type of the selected columns (column positions).
+     * Adds the given delta to the number of selected rows in a column.
+     *
+     * @param columnPosition
+     *            the column position
+     * @param delta
+     *            the value to add
      */
-    static class Row<R> extends Line<Serializable, Integer> {
-        /**
-         * The underlying row object
-         */
-        private final R rowObject;
-
-        /**
-         * Creates a row with the specified row
-         *
-         * @param rowId
-         *            ID of the row
-         * @param rowObject
-         *            underlying row object
-         */
-        Row(Serializable rowId, R rowObject) {
-            super(rowId);
-            this.rowObject = rowObject;
-        }
-
-        /**
-         * Retrieves the underlying row object
-         *
-         * @return the underlying row object
-         */
-        R getRowObject() {
-            return this.rowObject;
+    private void incrementColumn(int columnPosition, int delta) {
+        if (columnPosition >= this.selectedRowCounts.length) {
+            int[] counts = new int[Math.max(columnPosition + 1, this.selectedRowCounts.length * 2)];
+            System.arraycopy(this.selectedRowCounts, 0, counts, 0, this.selectedRowCounts.length);
+            this.selectedRowCounts = counts;
         }
+        this.selectedRowCounts[columnPosition] += delta;
     }
 
     /**
-     * A collection of selected rows for a column. Column is a Line<Integer,
-     * Serializable> where <Integer> denotes the column position of the column
-     * and <Serializable> denotes the type of the selected rows (row ID).
+     * The selected columns of a row, stored as {@link BitSet} of column
+     * positions. The column set can be shared with other rows and is copied
+     * before it is modified.
      */
-    static class Column extends Line<Integer, Serializable> {
+    static class Row<R> {
         /**
-         * Creates a column with the specified column
-         *
-         * @param columnPosition
-         *            position of the column
+         * The ID of the row
          */
-        Column(Integer columnPosition) {
-            super(columnPosition);
-        }
+        private final Serializable rowId;
 
         /**
-         * Creates a column with the specified column and the given content.
-         * Needed on selection update.
-         *
-         * @param columnPosition
-         *            position of the column
-         * @param content
-         *            the content to set initially
+         * The underlying row object
          */
-        Column(Integer columnPosition, Collection<Serializable> content) {
-            super(columnPosition, content);
-        }
-    }
+        private final R rowObject;
 
-    /**
-     * A collection of selected items in a line.
-     *
-     * @param <I>
-     *            the type of the line identifier
-     * @param <S>
-     *            the type of the selected items
-     */
-    static class Line<I, S> {
         /**
-         * Identifying the line
+         * The selected column positions
          */
-        private final I lineId;
+        private BitSet columns;
 
         /**
-         * The selected items
+         * Whether the column set is exclusively used by this row
          */
-        private HashSet<S> content = new HashSet<S>();
+        private boolean exclusive;
 
         /**
-         * Creates a line with the specified ID
+         * Creates a row with the specified row
          *
-         * @param lineId
-         *            identifying the line
+         * @param rowId
+         *            ID of the row
+         * @param rowObject
+         *            underlying row object
+         * @param columns
+         *            the initially selected columns, possibly shared with
+         *            other rows
          */
-        Line(I lineId) {
-            this.lineId = lineId;
+        Row(Serializable rowId, R rowObject, BitSet columns) {
+            this.rowId = rowId;
+            this.rowObject = rowObject;
+            this.columns = columns;
         }
 
         /**
-         * Creates a line with the specified ID and the given content. Needed on
-         * selection update.
+         * Retrieves the row ID
          *
-         * @param lineId
-         *            identifying the line
-         * @param content
-         *            the content to set initially
+         * @return the row ID
          */
-        Line(I lineId, Collection<S> content) {
-            this.lineId = lineId;
-            this.content.addAll(content);
+        Serializable getId() {
+            return this.rowId;
         }
 
         /**
-         * Retrieves the selected items of the line
+         * Retrieves the underlying row object
          *
-         * @return the selected items
+         * @return the underlying row object
          */
-        Collection<S> getItems() {
-            return this.content;
+        R getRowObject() {
+            return this.rowObject;
         }
 
         /**
-         * Adds an item to the selected items
+         * Retrieves the selected column positions. The returned set must not
+         * be modified.
          *
-         * @param item
-         *            item to add
+         * @return the selected column positions
          */
-        void addItem(S item) {
-            this.content.add(item);
+        BitSet getColumns() {
+            return this.columns;
         }
 
         /**
-         * Removes an item from the selected items
+         * Sets a column set that is possibly shared with other rows.
          *
-         * @param item
-         *            item to remove
+         * @param columns
+         *            the selected column positions
          */
-        void removeItem(S item) {
-            this.content.remove(item);
+        void setColumns(BitSet columns) {
+            this.columns = columns;
+            this.exclusive = false;
         }
 
         /**
-         * Clears the selected items.
+         * Retrieves the selected column positions for modification. A shared
+         * column set is copied before.
+         *
+         * @return the selected column positions of this row only
          */
-        void clearItems() {
-            this.content.clear();
+        BitSet modifiableColumns() {
+            if (!this.exclusive) {
+                this.columns = (BitSet) this.columns.clone();
+                this.exclusive = true;
+            }
+            return this.columns;
         }
 
         /**
-         * Determines whether a certain item is selected in the line
+         * Determines whether a certain column is selected in the row
          *
-         * @param item
-         *            item to look for
-         * @return whether the item is selected in the line
+         * @param columnPosition
+         *            column position to look for
+         * @return whether the column is selected in the row
          */
-        boolean contains(S item) {
-            return this.content.contains(item);
+        boolean contains(int columnPosition) {
+            return columnPosition >= 0 && this.columns.get(columnPosition);
         }
 
         /**
-         * Determines whether the line has any selections
+         * Determines whether the row has any selections
          *
-         * @return whether the line has any selections
+         * @return whether the row has any selections
          */
         boolean hasSelection() {
-            return !this.content.isEmpty();
+            return !this.columns.isEmpty();
         }
 
         /**
-         * Retrieves the line identifier
+         * Determines whether the selected columns are consecutive and at least
+         * the given number of columns is selected.
          *
-         * @return the line identifier
+         * @param columnCount
+         *            the minimum number of selected columns
+         * @return whether the row is fully selected for the given width
          */
-        I getId() {
-            return this.lineId;
+        boolean isFullySelected(int columnCount) {
+            int selected = this.columns.cardinality();
+            return selected >= columnCount
+                    && (selected == 0 || this.columns.length() - this.columns.nextSetBit(0) == selected);
         }
     }
 
@@ -12,6 +12,7 @@
 
 import java.util.List;
 
+import org.eclipse.nebula.widgets.nattable.config.ConfigRegistry;
 import org.eclipse.nebula.widgets.nattable.config.IConfigRegistry;
 
 public abstract class StyleProxy implements IStyle {
@@ -33,6 +34,23 @@ public StyleProxy(ConfigAttribute<IStyle> styleConfigAttribute,
     @Override
     public <T> T getAttributeValue(ConfigAttribute<T> styleAttribute) {
         T styleAttributeValue = null;
+
+        if (this.configRegistry instanceof ConfigRegistry
+                && ((ConfigRegistry) this.configRegistry).isDefaultLookup()) {
+            // use the resolved and cached styles ordered by priority, which
+            // is only valid if the lookup methods used below are not
+            // overridden
+            List<IStyle> cellStyles = ((ConfigRegistry) this.configRegistry).getConfigAttributes(
+                    this.styleConfigAttribute, this.targetDisplayMode, this.configLabels);
+            for (int i = 0; i < cellStyles.size(); i++) {
+                styleAttributeValue = cellStyles.get(i).getAttributeValue(styleAttribute);
+                if (styleAttributeValue != null) {
+                    return styleAttributeValue;
+                }
+            }
+            return null;
+        }
+
         IDisplayModeOrdering displayModeOrdering = this.configRegistry
                 .getDisplayModeOrdering();
 
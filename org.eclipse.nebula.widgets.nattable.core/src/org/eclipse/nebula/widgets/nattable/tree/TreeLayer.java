@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2018 Original authors and others.
+ * Copyright (c) 2012, 2019 Original authors and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,13 +14,12 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.eclipse.nebula.widgets.nattable.command.ILayerCommand;
 import org.eclipse.nebula.widgets.nattable.config.IConfigRegistry;
+import org.eclipse.nebula.widgets.nattable.coordinate.RangeSet;
 import org.eclipse.nebula.widgets.nattable.hideshow.AbstractRowHideShowLayer;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.MultiRowHideCommand;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.RowHideCommand;
@@ -71,7 +70,7 @@ public class TreeLayer extends AbstractRowHideShowLayer {
      * where the hide/show approach is not used (e.g. GlazedListTreeRowModel)
      * </p>
      */
-    private final Set<Integer> hiddenRowIndexes = new TreeSet<Integer>();
+    private final RangeSet hiddenRowIndexes = new RangeSet();
 
     /**
      * The IndentedTreeImagePainter that paints indentation to the left of the
@@ -319,7 +318,7 @@ private IndentedTreeImagePainter findIndentedTreeImagePainter(ICellPainter paint
 
     @Override
     public boolean isRowIndexHidden(int rowIndex) {
-        return this.hiddenRowIndexes.contains(Integer.valueOf(rowIndex))
+        return this.hiddenRowIndexes.contains(rowIndex)
                 || isHiddenInUnderlyingLayer(rowIndex);
     }
 
@@ -363,6 +362,9 @@ public void collapseTreeRow(int parentIndex) {
             }
         }
         this.hiddenRowIndexes.addAll(rowIndexes);
+        // no incremental cache update, as tree row models that do not use the
+        // hide/show approach (e.g. GlazedListTreeRowModel) return no indexes
+        // and hide the children in the underlying layer
         invalidateCache();
         fireLayerEvent(new HideRowPositionsEvent(this, rowPositions));
     }
@@ -382,6 +384,9 @@ public void collapseAll() {
             }
         }
         this.hiddenRowIndexes.addAll(rowIndexes);
+        // no incremental cache update, as tree row models that do not use the
+        // hide/show approach (e.g. GlazedListTreeRowModel) return no indexes
+        // and hide the children in the underlying layer
         invalidateCache();
         fireLayerEvent(new HideRowPositionsEvent(this, rowPositions));
     }
@@ -395,11 +400,9 @@ public void collapseAll() {
      */
     public void expandTreeRow(int parentIndex) {
         List<Integer> rowIndexes = this.treeRowModel.expand(parentIndex);
-        // Bug 432865: iterating and removing every single item is faster than
-        // removeAll()
-        for (final Integer expandedChildRowIndex : rowIndexes) {
-            this.hiddenRowIndexes.remove(expandedChildRowIndex);
-        }
+        // Bug 432865: avoid removeAll() with a List argument, the child
+        // indexes are usually contiguous and removed as ranges
+        this.hiddenRowIndexes.removeAll(new RangeSet(rowIndexes));
         invalidateCache();
         fireLayerEvent(new ShowRowPositionsEvent(this, rowIndexes));
     }
@@ -416,11 +419,9 @@ public void expandTreeRow(int parentIndex) {
      */
     public void expandTreeRowToLevel(int parentIndex, int level) {
         List<Integer> rowIndexes = this.treeRowModel.expandToLevel(parentIndex, level);
-        // Bug 432865: iterating and removing every single item is faster than
-        // removeAll()
-        for (final Integer expandedChildRowIndex : rowIndexes) {
-            this.hiddenRowIndexes.remove(expandedChildRowIndex);
-        }
+        // Bug 432865: avoid removeAll() with a List argument, the child
+        // indexes are usually contiguous and removed as ranges
+        this.hiddenRowIndexes.removeAll(new RangeSet(rowIndexes));
         invalidateCache();
         fireLayerEvent(new ShowRowPositionsEvent(this, rowIndexes));
     }
@@ -443,11 +444,9 @@ public void expandAll() {
      */
     public void expandAllToLevel(int level) {
         List<Integer> rowIndexes = this.treeRowModel.expandToLevel(level);
-        // Bug 432865: iterating and removing every single item is faster than
-        // removeAll()
-        for (final Integer expandedChildRowIndex : rowIndexes) {
-            this.hiddenRowIndexes.remove(expandedChildRowIndex);
-        }
+        // Bug 432865: avoid removeAll() with a List argument, the child
+        // indexes are usually contiguous and removed as ranges
+        this.hiddenRowIndexes.removeAll(new RangeSet(rowIndexes));
         invalidateCache();
         fireLayerEvent(new ShowRowPositionsEvent(this, rowIndexes));
     }
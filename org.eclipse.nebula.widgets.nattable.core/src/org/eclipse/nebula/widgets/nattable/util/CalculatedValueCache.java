@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2016 Dirk Fauth and others.
+ * Copyright (c) 2014, 2019 Dirk Fauth and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,12 +12,11 @@
  *******************************************************************************/
 package org.eclipse.nebula.widgets.nattable.util;
 
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
 
 import org.eclipse.nebula.widgets.nattable.layer.ILayer;
 import org.eclipse.nebula.widgets.nattable.layer.event.CellVisualChangeEvent;
@@ -32,6 +31,15 @@
  * {@link ICalculatedValueCacheKey} as the key for the value cache. Usually the
  * internal default implementations for column or row position, or the
  * column-row coordinates should fit most of the use cases.
+ * <p>
+ * The background calculations are performed by a {@link CalculationService}
+ * that is shared by all CalculatedValueCache instances by default. Only one
+ * calculation per key is in progress at a time. Clearing the cache cancels the
+ * queued calculations. The result of a calculation that was running while the
+ * cache was cleared is only added to the cache copy, so the values keep up
+ * with frequent updates, and the value is calculated again on the next
+ * request. Calculations that are obsolete because the cache was killed are
+ * cancelled or discarded.
  */
 public class CalculatedValueCache implements ICalculatedValueCache {
 
@@ -42,10 +50,29 @@ public class CalculatedValueCache implements ICalculatedValueCache {
     private ILayer layer;
 
     /**
-     * ExecutorService that is used to create background threads to process
-     * calculations.
+     * The service that is used to process calculations in background threads.
+     */
+    private final CalculationService calculationService;
+
+    /**
+     * The calculations that are queued or in progress per key. Used to avoid
+     * duplicate calculations for the same key and to cancel obsolete
+     * calculations on clearing the cache.
      */
-    private ExecutorService executor;
+    private final ConcurrentMap<ICalculatedValueCacheKey, Calculation> calculations = new ConcurrentHashMap<ICalculatedValueCacheKey, Calculation>();
+
+    /**
+     * Incremented whenever the cache is cleared or killed, so calculations that
+     * were started before only add their result to the cache copy. Guarded by
+     * <code>this</code>, together with the modifications of the caches.
+     */
+    private int generation;
+
+    /**
+     * Incremented whenever the cache is killed, so calculations that were
+     * started before discard their result. Guarded by <code>this</code>.
+     */
+    private int killGeneration;
 
     /**
      * Cache that contains the calculated values. Introduced for performance
@@ -147,16 +174,34 @@ public CalculatedValueCache(ILayer layer, boolean useColumnAsKey, boolean useRow
      *            be performed smoothly.
      */
     public CalculatedValueCache(ILayer layer, boolean useColumnAsKey, boolean useRowAsKey, boolean smoothUpdates) {
-        this.layer = layer;
-        this.executor = new ThreadPoolExecutor(
-                Runtime.getRuntime().availableProcessors() + 1,
-                Runtime.getRuntime().availableProcessors() + 1,
-                5000,
-                TimeUnit.MILLISECONDS,
-                new LinkedBlockingQueue<Runnable>());
-
-        ((ThreadPoolExecutor) this.executor).allowCoreThreadTimeOut(true);
+        this(layer, useColumnAsKey, useRowAsKey, smoothUpdates, CalculationService.getSharedInstance());
+    }
 
+    /**
+     * Creates a new CalculatedValueCache for the specified layer that uses the
+     * given {@link CalculationService} for background calculations instead of
+     * the shared one.
+     *
+     * @param layer
+     *            The layer to which the CalculatedValueCache is connected.
+     * @param useColumnAsKey
+     *            Flag to specify if the column position should be used as cache
+     *            key.
+     * @param useRowAsKey
+     *            Flag to specify if the row position should be used as cache
+     *            key.
+     * @param smoothUpdates
+     *            Flag to specify if the update of the calculated values should
+     *            be performed smoothly.
+     * @param calculationService
+     *            The {@link CalculationService} that performs the background
+     *            calculations.
+     * @since 1.6
+     */
+    public CalculatedValueCache(ILayer layer, boolean useColumnAsKey, boolean useRowAsKey,
+            boolean smoothUpdates, CalculationService calculationService) {
+        this.layer = layer;
+        this.calculationService = calculationService;
         this.useColumnAsKey = useColumnAsKey;
         this.useRowAsKey = useRowAsKey;
         this.smoothUpdates = smoothUpdates;
@@ -206,21 +251,13 @@ public Object getCalculatedValue(final int columnPosition, final int rowPosition
                     result = null;
                 }
 
-                this.executor.execute(new Runnable() {
-                    @Override
-                    public void run() {
-                        Object summaryValue = calculator.executeCalculation();
-                        addToCache(key, summaryValue);
-
-                        // only fire an update event if the new calculated value
-                        // is different to the value in the cache copy
-                        if (!cacheValuesEqual(summaryValue, cacheCopyValue)
-                                && CalculatedValueCache.this.layer != null) {
-                            CalculatedValueCache.this.layer.fireLayerEvent(new CellVisualChangeEvent(
-                                    CalculatedValueCache.this.layer, columnPosition, rowPosition));
-                        }
-                    }
-                });
+                // only start a calculation if there is none in progress for
+                // the key
+                Calculation calculation = new Calculation(
+                        columnPosition, rowPosition, key, cacheCopyValue, calculator);
+                if (this.calculations.putIfAbsent(key, calculation) == null) {
+                    submit(calculation);
+                }
             }
         } else {
             // Execute the calculation in the same thread to make printing and
@@ -236,13 +273,92 @@ public void run() {
 
     @Override
     public void clearCache() {
-        this.cache.clear();
+        // running calculations only update the cache copy, queued ones are
+        // cancelled and started again on the next request
+        boolean cancelled;
+        synchronized (this) {
+            this.generation++;
+            this.cache.clear();
+            cancelled = cancelQueuedCalculations();
+        }
+        if (cancelled) {
+            this.calculationService.purge();
+        }
+    }
+
+    /**
+     * Cancels the calculations that are not running yet. Needs to be called
+     * while holding the lock of this cache, as the calculations mark
+     * themselves as running while holding it.
+     *
+     * @return <code>true</code> if a calculation was cancelled.
+     */
+    private boolean cancelQueuedCalculations() {
+        boolean cancelled = false;
+        Iterator<Calculation> iterator = this.calculations.values().iterator();
+        while (iterator.hasNext()) {
+            Calculation calculation = iterator.next();
+            if (!calculation.running) {
+                calculation.cancelled = true;
+                Future<?> future = calculation.future;
+                if (future != null) {
+                    future.cancel(false);
+                }
+                iterator.remove();
+                cancelled = true;
+            }
+        }
+        return cancelled;
     }
 
     @Override
     public void killCache() {
-        this.cache.clear();
-        this.cacheCopy.clear();
+        synchronized (this) {
+            this.generation++;
+            this.killGeneration++;
+            this.cache.clear();
+            this.cacheCopy.clear();
+        }
+        cancelCalculations(false);
+    }
+
+    /**
+     * Cancels the queued calculations. Running calculations discard their
+     * result as the kill generation was incremented before.
+     *
+     * @param interrupt
+     *            <code>true</code> if running calculations should be
+     *            interrupted.
+     */
+    private void cancelCalculations(boolean interrupt) {
+        if (!this.calculations.isEmpty()) {
+            for (Calculation calculation : this.calculations.values()) {
+                Future<?> future = calculation.future;
+                if (future != null) {
+                    future.cancel(interrupt);
+                }
+            }
+            this.calculations.clear();
+            this.calculationService.purge();
+        }
+    }
+
+    /**
+     * @return The number of calculations of this cache that are queued or in
+     *         progress.
+     * @since 1.6
+     */
+    public int getPendingCalculationCount() {
+        return this.calculations.size();
+    }
+
+    /**
+     * @return The {@link CalculationService} that is used for background
+     *         calculations.
+     * @since 1.6
+     */
+    public CalculationService getCalculationService() {
+        return this.calculationService;
     }
 
     /**
@@ -254,7 +370,7 @@ public void killCache() {
      * @param value
      *            The value for the given coordinates to be cached.
      */
-    protected void addToCache(ICalculatedValueCacheKey key, Object value) {
+    protected synchronized void addToCache(ICalculatedValueCacheKey key, Object value) {
         if (value != null) {
             this.cache.put(key, value);
             this.cacheCopy.put(key, value);
@@ -266,7 +382,24 @@ protected void addToCache(ICalculatedValueCacheKey key, Object value) {
 
     @Override
     public void dispose() {
-        this.executor.shutdownNow();
+        synchronized (this) {
+            this.killGeneration++;
+        }
+        // the calculation service is shared, so only the calculations of this
+        // cache are cancelled
+        cancelCalculations(true);
+    }
+
+    /**
+     * Submits the given calculation that is already registered for its key to
+     * the {@link CalculationService}.
+     */
+    private void submit(Calculation calculation) {
+        calculation.future = this.calculationService.execute(calculation);
+        if (calculation.future == null) {
+            // rejected, retry on the next request
+            this.calculations.remove(calculation.key, calculation);
+        }
     }
 
     /**
@@ -289,6 +422,87 @@ public void setLayer(ILayer layer) {
         this.layer = layer;
     }
 
+    /**
+     * A background calculation for a single key.
+     */
+    private class Calculation implements Runnable {
+
+        private final int columnPosition;
+        private final int rowPosition;
+        private final ICalculatedValueCacheKey key;
+        private final Object cacheCopyValue;
+        private final ICalculator calculator;
+        volatile Future<?> future;
+        // guarded by the lock of the cache
+        boolean running;
+        boolean cancelled;
+
+        Calculation(int columnPosition, int rowPosition, ICalculatedValueCacheKey key,
+                Object cacheCopyValue, ICalculator calculator) {
+            this.columnPosition = columnPosition;
+            this.rowPosition = rowPosition;
+            this.key = key;
+            this.cacheCopyValue = cacheCopyValue;
+            this.calculator = calculator;
+        }
+
+        @Override
+        public void run() {
+            try {
+                int startGeneration;
+                int startKillGeneration;
+                synchronized (CalculatedValueCache.this) {
+                    if (this.cancelled) {
+                        // the cache was cleared while queued
+                        return;
+                    }
+                    this.running = true;
+                    startGeneration = CalculatedValueCache.this.generation;
+                    startKillGeneration = CalculatedValueCache.this.killGeneration;
+                }
+
+                Object summaryValue = this.calculator.executeCalculation();
+
+                boolean outdated;
+                synchronized (CalculatedValueCache.this) {
+                    if (startKillGeneration != CalculatedValueCache.this.killGeneration) {
+                        // the cache was killed while calculating
+                        return;
+                    }
+                    outdated = startGeneration != CalculatedValueCache.this.generation;
+                    if (outdated) {
+                        // the result is based on an outdated state, but it is
+                        // more recent than the current copy, so it is used
+                        // for smooth updates, the value is calculated again
+                        // on the next request
+                        if (summaryValue != null) {
+                            CalculatedValueCache.this.cacheCopy.put(this.key, summaryValue);
+                        } else {
+                            CalculatedValueCache.this.cacheCopy.remove(this.key);
+                        }
+                    } else {
+                        addToCache(this.key, summaryValue);
+                    }
+                }
+
+                // finished before the event is fired, so a request triggered
+                // by the event starts a new calculation
+                CalculatedValueCache.this.calculations.remove(this.key, this);
+
+                // only fire an update event if the new calculated value
+                // is different to the value in the cache copy, or if the
+                // value needs to be requested again as it is outdated
+                if ((outdated || !cacheValuesEqual(summaryValue, this.cacheCopyValue))
+                        && CalculatedValueCache.this.layer != null) {
+                    CalculatedValueCache.this.layer.fireLayerEvent(new CellVisualChangeEvent(
+                            CalculatedValueCache.this.layer, this.columnPosition, this.rowPosition));
+                }
+            } finally {
+                CalculatedValueCache.this.calculations.remove(this.key, this);
+            }
+        }
+    }
+
     /**
      * ICalculatedValueCacheKey that uses either the column or row position as
      * key.
@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Bounded executor for background calculations that is shared by multiple
+ * {@link CalculatedValueCache} instances. The number of threads and the number
+ * of queued calculations are limited, so several tables with calculated
+ * values do not create a thread pool each. Calculations that exceed the queue
+ * capacity are rejected and counted, the {@link CalculatedValueCache} will
+ * retry them the next time the value is requested.
+ * <p>
+ * The idle threads are terminated after a keep alive time, so the shared
+ * instance does not need to be shut down explicitly.
+ * </p>
+ *
+ * @since 1.6
+ */
+public class CalculationService implements ThreadFactory {
+
+    private static final Log log = LogFactory.getLog(CalculationService.class);
+
+    /**
+     * The default number of calculations that can be queued.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    private static final long KEEP_ALIVE_MILLIS = 5000;
+
+    private static CalculationService sharedInstance;
+
+    private final String threadNamePrefix;
+    private final AtomicInteger counter = new AtomicInteger();
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    /**
+     * Creates a {@link CalculationService} that uses one thread more than
+     * there are processors available and queues at most
+     * {@link #DEFAULT_QUEUE_CAPACITY} calculations.
+     *
+     * @param threadNamePrefix
+     *            The prefix for the names of the calculation threads.
+     */
+    public CalculationService(String threadNamePrefix) {
+        this(threadNamePrefix, Runtime.getRuntime().availableProcessors() + 1, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param threadNamePrefix
+     *            The prefix for the names of the calculation threads.
+     * @param maxThreads
+     *            The maximum number of threads that perform calculations.
+     * @param queueCapacity
+     *            The maximum number of calculations that can be queued.
+     */
+    public CalculationService(String threadNamePrefix, int maxThreads, int queueCapacity) {
+        this.threadNamePrefix = threadNamePrefix;
+        this.executor = new ThreadPoolExecutor(
+                Math.max(1, maxThreads),
+                Math.max(1, maxThreads),
+                KEEP_ALIVE_MILLIS,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(Math.max(1, queueCapacity)),
+                this);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @return The {@link CalculationService} that is shared by all
+     *         {@link CalculatedValueCache} instances that are not configured
+     *         with a dedicated service.
+     */
+    public static synchronized CalculationService getSharedInstance() {
+        if (sharedInstance == null) {
+            sharedInstance = new CalculationService("CalculationService"); //$NON-NLS-1$
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Queues the given calculation for execution in a background thread.
+     *
+     * @param calculation
+     *            The calculation to execute.
+     * @return The {@link Future} that can be used to cancel the calculation,
+     *         or <code>null</code> if the calculation was rejected because the
+     *         queue is full or the service is shut down.
+     */
+    public Future<?> execute(Runnable calculation) {
+        CalculationTask task = new CalculationTask(calculation);
+        try {
+            this.executor.execute(task);
+            return task;
+        } catch (RejectedExecutionException e) {
+            this.rejected.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Removes cancelled calculations from the queue, so they do not occupy
+     * queue capacity until they would have been started.
+     */
+    public void purge() {
+        this.executor.purge();
+    }
+
+    /**
+     * Terminates the running calculations and shuts down the service. Only
+     * needed for services that were created for a dedicated purpose, the
+     * shared instance terminates its threads if they are idle.
+     */
+    public void shutdownNow() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * @return The number of calculations that are queued and not yet started.
+     */
+    public int getQueueSize() {
+        return this.executor.getQueue().size();
+    }
+
+    /**
+     * @return The approximate number of calculations that are currently
+     *         executed.
+     */
+    public int getActiveCount() {
+        return this.executor.getActiveCount();
+    }
+
+    /**
+     * @return The number of calculations that were finished.
+     */
+    public long getCompletedCount() {
+        return this.completed.get();
+    }
+
+    /**
+     * @return The number of calculations that were rejected because the queue
+     *         was full.
+     */
+    public long getRejectedCount() {
+        return this.rejected.get();
+    }
+
+    /**
+     * @return The average time in milliseconds between queuing a calculation
+     *         and its completion.
+     */
+    public double getAverageLatency() {
+        long count = this.completed.get();
+        return count > 0 ? this.totalLatency.get() / (count * 1000000d) : 0;
+    }
+
+    /**
+     * @return The maximum time in milliseconds between queuing a calculation
+     *         and its completion.
+     */
+    public double getMaxLatency() {
+        return this.maxLatency.get() / 1000000d;
+    }
+
+    /**
+     * Resets the completed and rejected counters and the latency statistics.
+     */
+    public void resetStatistics() {
+        this.completed.set(0);
+        this.rejected.set(0);
+        this.totalLatency.set(0);
+        this.maxLatency.set(0);
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        Thread thread = new Thread(ObjectUtils.getNatTableThreadGroup(), r,
+                this.threadNamePrefix + "-" + this.counter.incrementAndGet()); //$NON-NLS-1$
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * {@link FutureTask} that tracks the time between queuing and completion.
+     */
+    private class CalculationTask extends FutureTask<Object> {
+
+        private final long queued = System.nanoTime();
+
+        CalculationTask(Runnable calculation) {
+            super(calculation, null);
+        }
+
+        @Override
+        protected void done() {
+            if (!isCancelled()) {
+                long latency = System.nanoTime() - this.queued;
+                CalculationService.this.completed.incrementAndGet();
+                CalculationService.this.totalLatency.addAndGet(latency);
+                long max = CalculationService.this.maxLatency.get();
+                while (latency > max
+                        && !CalculationService.this.maxLatency.compareAndSet(max, latency)) {
+                    max = CalculationService.this.maxLatency.get();
+                }
+
+                try {
+                    get();
+                } catch (ExecutionException e) {
+                    log.error("Error on background calculation", e.getCause()); //$NON-NLS-1$
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
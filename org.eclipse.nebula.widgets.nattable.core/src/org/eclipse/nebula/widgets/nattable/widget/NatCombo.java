@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2018 Original authors and others.
+ * Copyright (c) 2012, 2019 Original authors and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,9 +14,11 @@
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.jface.viewers.ILabelProvider;
 import org.eclipse.jface.viewers.ILabelProviderListener;
@@ -1048,13 +1050,13 @@ public int[] getSelectionIndices() {
      */
     public int getSelectionCount() {
         if (this.selectionStateMap != null) {
-            List<Integer> selectedIndices = new ArrayList<Integer>();
-            for (String item : this.selectionStateMap.keySet()) {
-                if (this.selectionStateMap.get(item)) {
-                    selectedIndices.add(this.itemList.indexOf(item));
+            int count = 0;
+            for (Boolean selected : this.selectionStateMap.values()) {
+                if (selected) {
+                    count++;
                 }
             }
-            return selectedIndices.size();
+            return count;
         } else {
             return getTextAsArray().length;
         }
@@ -1373,7 +1375,7 @@ protected String[] getTransformedSelection() {
      *            The Strings that represent the selected items
      */
     protected void setDropdownSelection(String[] selection) {
-        java.util.List<String> selectionList = Arrays.asList(selection);
+        Set<String> selectionList = new HashSet<String>(Arrays.asList(selection));
         java.util.List<TableItem> selectedItems = new ArrayList<TableItem>();
         for (TableItem item : getDropdownTable().getItems()) {
             if (selectionList.contains(EditConstants.SELECT_ALL_ITEMS_VALUE)
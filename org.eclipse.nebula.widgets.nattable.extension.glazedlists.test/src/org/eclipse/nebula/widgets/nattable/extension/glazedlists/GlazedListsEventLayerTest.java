@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2018 Original authors and others.
+ * Copyright (c) 2012, 2019 Original authors and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,38 +10,59 @@
  ******************************************************************************/
 package org.eclipse.nebula.widgets.nattable.extension.glazedlists;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
 
 import org.eclipse.nebula.widgets.nattable.command.DisposeResourcesCommand;
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.data.ListDataProvider;
+import org.eclipse.nebula.widgets.nattable.data.ReflectiveColumnPropertyAccessor;
 import org.eclipse.nebula.widgets.nattable.dataset.fixture.data.BlinkingRowDataFixture;
 import org.eclipse.nebula.widgets.nattable.dataset.fixture.data.RowDataFixture;
 import org.eclipse.nebula.widgets.nattable.dataset.fixture.data.RowDataListFixture;
 import org.eclipse.nebula.widgets.nattable.extension.glazedlists.fixture.DataLayerFixture;
 import org.eclipse.nebula.widgets.nattable.extension.glazedlists.fixture.LayerListenerFixture;
+import org.eclipse.nebula.widgets.nattable.hideshow.RowHideShowLayer;
+import org.eclipse.nebula.widgets.nattable.layer.DataLayer;
+import org.eclipse.nebula.widgets.nattable.layer.ILayerListener;
+import org.eclipse.nebula.widgets.nattable.layer.IUniqueIndexLayer;
+import org.eclipse.nebula.widgets.nattable.layer.event.ILayerEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.PropertyUpdateEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowDeleteEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowInsertEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.RowStructuralRefreshEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowUpdateEvent;
+import org.eclipse.nebula.widgets.nattable.reorder.RowReorderLayer;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import ca.odell.glazedlists.EventList;
 import ca.odell.glazedlists.GlazedLists;
+import ca.odell.glazedlists.SortedList;
 
 public class GlazedListsEventLayerTest {
 
     private EventList<RowDataFixture> listFixture;
-    private GlazedListsEventLayer<RowDataFixture> layerUnderTest;
+    private ManuallyScheduledEventLayer layerUnderTest;
     private LayerListenerFixture listenerFixture;
 
     @Before
     public void setup() {
         this.listFixture = GlazedLists.eventList(RowDataListFixture.getList());
 
-        this.layerUnderTest = new GlazedListsEventLayer<>(new DataLayerFixture(), this.listFixture);
+        this.layerUnderTest = new ManuallyScheduledEventLayer(new DataLayerFixture(), this.listFixture);
         this.layerUnderTest.setTestMode(true);
 
         this.listenerFixture = new LayerListenerFixture();
@@ -85,4 +106,320 @@ public void propertyChangeEventshouldBePropagatedImmediately() throws Exception
 
         assertNotNull(this.listenerFixture.getReceivedEvent(PropertyUpdateEvent.class));
     }
+
+    @Test
+    public void shouldFireDetailedEvents() throws Exception {
+        this.layerUnderTest.setDetailedEventThreshold(10);
+        this.layerUnderTest.manualScheduling = true;
+
+        this.listFixture.add(RowDataFixture.getInstance("T1", "A"));
+        this.listFixture.add(RowDataFixture.getInstance("T2", "A"));
+        this.layerUnderTest.runScheduledNotifications();
+
+        // the inserts are fired immediately
+        assertEquals(2, this.listenerFixture.getEventsCount());
+        int size = this.listFixture.size();
+        RowInsertEvent insertEvent = (RowInsertEvent) this.listenerFixture.getReceivedEvents().get(0);
+        assertEquals(new Range(size - 2, size - 1), insertEvent.getRowPositionRanges().iterator().next());
+        insertEvent = (RowInsertEvent) this.listenerFixture.getReceivedEvents().get(1);
+        assertEquals(new Range(size - 1, size), insertEvent.getRowPositionRanges().iterator().next());
+
+        this.listenerFixture.clearReceivedEvents();
+        this.listFixture.set(3, RowDataFixture.getInstance("T3", "A"));
+        this.layerUnderTest.runScheduledNotifications();
+
+        RowUpdateEvent updateEvent = (RowUpdateEvent) this.listenerFixture.getReceivedEvent(RowUpdateEvent.class);
+        assertEquals(new Range(3, 4), updateEvent.getRowPositionRanges().iterator().next());
+        assertFalse(this.listenerFixture.containsInstanceOf(RowStructuralRefreshEvent.class));
+    }
+
+    @Test
+    public void shouldFallBackToRefreshOnTooManyChanges() throws Exception {
+        this.layerUnderTest.setDetailedEventThreshold(2);
+        this.layerUnderTest.manualScheduling = true;
+
+        this.listFixture.add(0, RowDataFixture.getInstance("T1", "A"));
+        this.listFixture.remove(5);
+        this.listFixture.add(3, RowDataFixture.getInstance("T2", "A"));
+        this.listFixture.remove(7);
+        this.layerUnderTest.runScheduledNotifications();
+
+        // the changes within the threshold are fired in detail, the rest is
+        // propagated via a refresh
+        assertEquals(3, this.listenerFixture.getEventsCount());
+        assertTrue(this.listenerFixture.getReceivedEvents().get(0) instanceof RowInsertEvent);
+        assertTrue(this.listenerFixture.getReceivedEvents().get(1) instanceof RowDeleteEvent);
+        assertTrue(this.listenerFixture.getReceivedEvents().get(2) instanceof RowStructuralRefreshEvent);
+
+        // the threshold applies per conflation interval
+        this.listenerFixture.clearReceivedEvents();
+        this.listFixture.add(0, RowDataFixture.getInstance("T3", "A"));
+        this.layerUnderTest.runScheduledNotifications();
+
+        assertEquals(1, this.listenerFixture.getEventsCount());
+        assertTrue(this.listenerFixture.getReceivedEvents().get(0) instanceof RowInsertEvent);
+    }
+
+    @Test
+    public void shouldFallBackToRefreshOnMultipleBlocks() throws Exception {
+        this.layerUnderTest.setDetailedEventThreshold(10);
+        this.layerUnderTest.manualScheduling = true;
+
+        // a single change with multiple blocks
+        this.listFixture.removeAll(Arrays.asList(this.listFixture.get(2), this.listFixture.get(6)));
+        this.layerUnderTest.runScheduledNotifications();
+
+        assertEquals(1, this.listenerFixture.getEventsCount());
+        assertTrue(this.listenerFixture.containsInstanceOf(RowStructuralRefreshEvent.class));
+    }
+
+    @Test
+    public void shouldKeepHiddenAndReorderedRowsOnDetailedEvents() throws Exception {
+        EventList<RowDataFixture> eventList = GlazedLists.eventList(RowDataListFixture.getList(30));
+        LayerStack stack = new LayerStack(eventList);
+
+        RowDataFixture hidden = eventList.get(20);
+        RowDataFixture moved = eventList.get(10);
+        stack.hideShowLayer.hideRowIndexes(Arrays.asList(20));
+        stack.reorderLayer.reorderRowPosition(10, 0);
+
+        // the sequence that broke the RowReorderLayer with conflated diffs
+        eventList.add(29, RowDataFixture.getInstance("T1", "A"));
+        eventList.remove(6);
+        eventList.remove(13);
+        stack.eventLayer.runScheduledNotifications();
+        stack.assertConsistent(eventList, hidden, moved);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            int size = eventList.size();
+            int row = random.nextInt(size);
+            if (eventList.get(row) == hidden || eventList.get(row) == moved || random.nextBoolean()) {
+                // not at the top, which would move the reordered row down
+                eventList.add(1 + random.nextInt(size), RowDataFixture.getInstance("T" + i, "A"));
+            } else {
+                eventList.remove(row);
+            }
+            if (random.nextInt(10) == 0) {
+                stack.eventLayer.runScheduledNotifications();
+            }
+        }
+        stack.eventLayer.runScheduledNotifications();
+
+        assertFalse(stack.listener.containsInstanceOf(RowStructuralRefreshEvent.class));
+        stack.assertConsistent(eventList, hidden, moved);
+        stack.eventLayer.doCommand(new DisposeResourcesCommand());
+    }
+
+    @Test
+    public void shouldKeepHiddenRowsOnSort() throws Exception {
+        EventList<RowDataFixture> eventList = GlazedLists.eventList(RowDataListFixture.getList(6));
+        SortedList<RowDataFixture> sortedList = new SortedList<>(eventList, null);
+        LayerStack stack = new LayerStack(sortedList);
+
+        stack.hideShowLayer.hideRowIndexes(Arrays.asList(1));
+        assertEquals(5, stack.hideShowLayer.getRowCount());
+
+        sortedList.setComparator(new Comparator<RowDataFixture>() {
+            @Override
+            public int compare(RowDataFixture o1, RowDataFixture o2) {
+                return o2.getSecurity_id().compareTo(o1.getSecurity_id());
+            }
+        });
+        stack.eventLayer.runScheduledNotifications();
+
+        assertTrue(stack.listener.containsInstanceOf(RowStructuralRefreshEvent.class));
+        assertFalse(stack.listener.containsInstanceOf(RowInsertEvent.class));
+        assertFalse(stack.listener.containsInstanceOf(RowDeleteEvent.class));
+        assertEquals(Arrays.asList(1), new ArrayList<Integer>(stack.hideShowLayer.getHiddenRowIndexes()));
+        assertEquals(5, stack.hideShowLayer.getRowCount());
+        stack.eventLayer.doCommand(new DisposeResourcesCommand());
+    }
+
+    @Test
+    public void shouldReplayDetailedEvents() throws Exception {
+        this.layerUnderTest.setDetailedEventThreshold(1000);
+        this.layerUnderTest.manualScheduling = true;
+
+        List<RowDataFixture> shadow = new ArrayList<RowDataFixture>(this.listFixture);
+        List<RowDataFixture> originalRows = new ArrayList<RowDataFixture>(this.listFixture);
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            int size = this.listFixture.size();
+            switch (size == 0 ? 0 : random.nextInt(4)) {
+                case 0:
+                    this.listFixture.add(random.nextInt(size + 1), RowDataFixture.getInstance("T" + i, "A"));
+                    break;
+                case 1:
+                    this.listFixture.remove(random.nextInt(size));
+                    break;
+                case 2:
+                    int from = random.nextInt(size);
+                    this.listFixture.subList(from, Math.min(size, from + random.nextInt(4) + 1)).clear();
+                    break;
+                default:
+                    this.listFixture.add(size, RowDataFixture.getInstance("T" + i, "B"));
+                    break;
+            }
+        }
+        this.layerUnderTest.runScheduledNotifications();
+
+        // apply the received events to the copy of the original list
+        for (ILayerEvent event : this.listenerFixture.getReceivedEvents()) {
+            if (event instanceof RowDeleteEvent) {
+                for (Range range : ((RowDeleteEvent) event).getRowPositionRanges()) {
+                    shadow.subList(range.start, range.end).clear();
+                }
+            } else if (event instanceof RowInsertEvent) {
+                for (Range range : ((RowInsertEvent) event).getRowPositionRanges()) {
+                    for (int row = range.start; row < range.end; row++) {
+                        // placeholder for the inserted row
+                        shadow.add(row, null);
+                    }
+                }
+            }
+        }
+        assertFalse(this.listenerFixture.containsInstanceOf(RowStructuralRefreshEvent.class));
+        assertEquals(this.listFixture.size(), shadow.size());
+        for (int row = 0; row < shadow.size(); row++) {
+            if (shadow.get(row) != null) {
+                assertTrue(shadow.get(row) == this.listFixture.get(row));
+            } else {
+                assertFalse(originalRows.contains(this.listFixture.get(row)));
+            }
+        }
+    }
+
+    @Test
+    public void shouldFireEventsReceivedWhileDeactivatedOnActivate() throws Exception {
+        this.layerUnderTest.manualScheduling = true;
+        this.layerUnderTest.deactivate();
+        this.listFixture.add(RowDataFixture.getInstance("T1", "A"));
+        this.layerUnderTest.runScheduledNotifications();
+
+        assertEquals(0, this.listenerFixture.getEventsCount());
+
+        // the notification is scheduled on activation
+        this.layerUnderTest.activate();
+        this.layerUnderTest.runScheduledNotifications();
+
+        assertNotNull(this.listenerFixture.getReceivedEvent(RowStructuralRefreshEvent.class));
+        assertEquals(0, this.layerUnderTest.getPendingNotificationCount());
+    }
+
+    @Test
+    public void shouldKeepMinimumIntervalForFastProcessing() throws Exception {
+        this.layerUnderTest.manualScheduling = true;
+        assertEquals(GlazedListsEventLayer.DEFAULT_MIN_INTERVAL, this.layerUnderTest.getCurrentInterval());
+
+        this.listFixture.add(RowDataFixture.getInstance("T1", "A"));
+        this.layerUnderTest.runScheduledNotifications();
+
+        assertEquals(1, this.listenerFixture.getEventsCount());
+        assertEquals(GlazedListsEventLayer.DEFAULT_MIN_INTERVAL, this.layerUnderTest.getCurrentInterval());
+    }
+
+    @Test
+    public void shouldStretchIntervalForSlowProcessing() throws Exception {
+        this.layerUnderTest.manualScheduling = true;
+        this.layerUnderTest.addLayerListener(new ILayerListener() {
+            @Override
+            public void handleLayerEvent(ILayerEvent event) {
+                try {
+                    Thread.sleep(150);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        this.listFixture.add(RowDataFixture.getInstance("T1", "A"));
+        this.layerUnderTest.runScheduledNotifications();
+
+        assertEquals(1, this.listenerFixture.getEventsCount());
+        assertTrue(this.layerUnderTest.getCurrentInterval() >= 300);
+    }
+
+    private static int indexOf(List<RowDataFixture> list, RowDataFixture rowObject) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == rowObject) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A body layer stack with real reorder and hide/show layers on top of the
+     * event layer, to verify that they can handle the fired events.
+     */
+    private static class LayerStack {
+
+        final ManuallyScheduledEventLayer eventLayer;
+        final RowReorderLayer reorderLayer;
+        final RowHideShowLayer hideShowLayer;
+        final LayerListenerFixture listener = new LayerListenerFixture();
+
+        LayerStack(EventList<RowDataFixture> eventList) {
+            DataLayer dataLayer = new DataLayer(new ListDataProvider<>(
+                    eventList,
+                    new ReflectiveColumnPropertyAccessor<RowDataFixture>(RowDataListFixture.getPropertyNames())));
+            this.eventLayer = new ManuallyScheduledEventLayer(dataLayer, eventList);
+            this.eventLayer.setTestMode(true);
+            this.eventLayer.setDetailedEventThreshold(1000);
+            this.eventLayer.manualScheduling = true;
+            this.reorderLayer = new RowReorderLayer(this.eventLayer);
+            this.hideShowLayer = new RowHideShowLayer(this.reorderLayer);
+            this.hideShowLayer.addLayerListener(this.listener);
+        }
+
+        void assertConsistent(List<RowDataFixture> list, RowDataFixture hidden, RowDataFixture moved) {
+            int size = list.size();
+            List<Integer> order = new ArrayList<Integer>(this.reorderLayer.getRowIndexOrder());
+            assertEquals(size, order.size());
+            Collections.sort(order);
+            for (int i = 0; i < size; i++) {
+                assertEquals(i, order.get(i).intValue());
+            }
+            assertEquals(indexOf(list, moved), this.reorderLayer.getRowIndexByPosition(0));
+
+            assertEquals(Arrays.asList(indexOf(list, hidden)),
+                    new ArrayList<Integer>(this.hideShowLayer.getHiddenRowIndexes()));
+            assertEquals(size - 1, this.hideShowLayer.getRowCount());
+        }
+    }
+
+    /**
+     * Collects the scheduled notifications instead of handing them to the
+     * scheduler if manual scheduling is enabled, so tests can run them
+     * deterministically.
+     */
+    private static class ManuallyScheduledEventLayer extends GlazedListsEventLayer<RowDataFixture> {
+
+        boolean manualScheduling = false;
+        private final List<Runnable> scheduledNotifications = new LinkedList<>();
+
+        ManuallyScheduledEventLayer(IUniqueIndexLayer underlyingLayer, EventList<RowDataFixture> eventList) {
+            super(underlyingLayer, eventList);
+        }
+
+        @Override
+        protected ScheduledFuture<?> schedule(Runnable notification, long delay) {
+            if (!this.manualScheduling) {
+                return super.schedule(notification, delay);
+            }
+            this.scheduledNotifications.add(notification);
+            return null;
+        }
+
+        /**
+         * Runs the scheduled notifications, including the ones that are
+         * scheduled while running them.
+         */
+        void runScheduledNotifications() {
+            while (!this.scheduledNotifications.isEmpty()) {
+                this.scheduledNotifications.remove(0).run();
+            }
+        }
+    }
 }
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.extension.glazedlists;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.nebula.widgets.nattable.data.IRowIdAccessor;
+import org.eclipse.nebula.widgets.nattable.data.ListDataProvider;
+import org.eclipse.nebula.widgets.nattable.data.ReflectiveColumnPropertyAccessor;
+import org.eclipse.nebula.widgets.nattable.dataset.person.Person;
+import org.eclipse.nebula.widgets.nattable.dataset.person.Person.Gender;
+import org.eclipse.nebula.widgets.nattable.dataset.person.PersonService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.odell.glazedlists.EventList;
+import ca.odell.glazedlists.GlazedLists;
+import ca.odell.glazedlists.SortedList;
+
+public class GlazedListsRowIdIndexTest {
+
+    private EventList<Person> eventList;
+    private SortedList<Person> sortedList;
+    private ListDataProvider<Person> dataProvider;
+    private GlazedListsRowIdIndex<Person> rowIdIndex;
+
+    @Before
+    public void setup() {
+        this.eventList = GlazedLists.eventList(PersonService.getFixedPersons());
+        this.sortedList = new SortedList<>(this.eventList, null);
+        this.dataProvider = new ListDataProvider<>(
+                this.sortedList,
+                new ReflectiveColumnPropertyAccessor<Person>(new String[] { "firstName", "lastName" }));
+
+        this.rowIdIndex = new GlazedListsRowIdIndex<>(this.sortedList, new IRowIdAccessor<Person>() {
+
+            @Override
+            public Serializable getRowId(Person rowObject) {
+                return rowObject.getId();
+            }
+        });
+        this.dataProvider.setRowIdIndex(this.rowIdIndex);
+    }
+
+    @After
+    public void tearDown() {
+        this.rowIdIndex.dispose();
+    }
+
+    @Test
+    public void shouldUpdateOnInsertAndDelete() {
+        Person person = this.sortedList.get(5);
+        assertEquals(5, this.dataProvider.indexOfRowObject(person));
+
+        Person ralph = new Person(42, "Ralph", "Wiggum", Gender.MALE, false, null);
+        this.eventList.add(2, ralph);
+
+        assertEquals(2, this.dataProvider.indexOfRowObject(ralph));
+        assertEquals(6, this.dataProvider.indexOfRowObject(person));
+
+        this.eventList.remove(ralph);
+        this.eventList.remove(0);
+
+        assertEquals(-1, this.dataProvider.indexOfRowObject(ralph));
+        assertEquals(4, this.dataProvider.indexOfRowObject(person));
+    }
+
+    @Test
+    public void shouldUpdateOnEventWithMultipleBlocks() {
+        Person first = this.sortedList.get(0);
+        Person last = this.sortedList.get(this.sortedList.size() - 1);
+        assertEquals(0, this.dataProvider.indexOfRowObject(first));
+
+        // removing rows at several indexes results in one list event with
+        // multiple blocks
+        List<Person> removed = Arrays.asList(this.eventList.get(1), this.eventList.get(4), this.eventList.get(7));
+        this.eventList.removeAll(removed);
+        this.eventList.addAll(2, Arrays.asList(
+                new Person(42, "Ralph", "Wiggum", Gender.MALE, false, null),
+                new Person(43, "Nelson", "Muntz", Gender.MALE, false, null)));
+
+        for (int i = 0; i < this.sortedList.size(); i++) {
+            assertEquals(i, this.dataProvider.indexOfRowObject(this.sortedList.get(i)));
+        }
+        for (Person person : removed) {
+            assertEquals(-1, this.dataProvider.indexOfRowObject(person));
+        }
+        assertEquals(this.sortedList.size() - 1, this.dataProvider.indexOfRowObject(last));
+    }
+
+    @Test
+    public void shouldUpdateOnSort() {
+        Person person = this.sortedList.get(0);
+        assertEquals(0, this.dataProvider.indexOfRowObject(person));
+
+        this.sortedList.setComparator(new Comparator<Person>() {
+
+            @Override
+            public int compare(Person o1, Person o2) {
+                return o2.getId() - o1.getId();
+            }
+        });
+
+        assertEquals(this.sortedList.size() - 1, this.dataProvider.indexOfRowObject(person));
+        for (int i = 0; i < this.sortedList.size(); i++) {
+            assertEquals(i, this.dataProvider.indexOfRowObject(this.sortedList.get(i)));
+        }
+    }
+}
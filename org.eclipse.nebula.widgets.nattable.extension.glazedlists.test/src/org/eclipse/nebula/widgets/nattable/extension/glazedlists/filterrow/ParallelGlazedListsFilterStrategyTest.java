@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.extension.glazedlists.filterrow;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.nebula.widgets.nattable.config.ConfigRegistry;
+import org.eclipse.nebula.widgets.nattable.config.DefaultNatTableStyleConfiguration;
+import org.eclipse.nebula.widgets.nattable.data.ReflectiveColumnPropertyAccessor;
+import org.eclipse.nebula.widgets.nattable.data.convert.DefaultDisplayConverter;
+import org.eclipse.nebula.widgets.nattable.dataset.person.Person;
+import org.eclipse.nebula.widgets.nattable.dataset.person.PersonService;
+import org.eclipse.nebula.widgets.nattable.extension.glazedlists.fixture.DataLayerFixture;
+import org.eclipse.nebula.widgets.nattable.filterrow.FilterRowDataLayer;
+import org.eclipse.nebula.widgets.nattable.filterrow.FilterRowDataProvider;
+import org.eclipse.nebula.widgets.nattable.filterrow.config.DefaultFilterRowConfiguration;
+import org.eclipse.nebula.widgets.nattable.filterrow.config.FilterRowConfigAttributes;
+import org.eclipse.nebula.widgets.nattable.style.DisplayMode;
+import org.eclipse.nebula.widgets.nattable.util.CalculationService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.odell.glazedlists.EventList;
+import ca.odell.glazedlists.FilterList;
+import ca.odell.glazedlists.GlazedLists;
+
+public class ParallelGlazedListsFilterStrategyTest {
+
+    private EventList<Person> baseList;
+    private FilterList<Person> filterList;
+    private ConfigRegistry configRegistry;
+    private CalculationService calculationService;
+    private ParallelGlazedListsFilterStrategy<Person> filterStrategy;
+    private FilterRowDataProvider<Person> dataProvider;
+
+    private static String[] personPropertyNames = {
+            "firstName",
+            "lastName",
+            "gender",
+            "married",
+            "birthday" };
+
+    @Before
+    public void setup() {
+        // initialize the collection with a big amount of values
+        this.baseList = GlazedLists.eventList(PersonService.getFixedPersons());
+        for (int i = 1; i < 1000; i++) {
+            this.baseList.addAll(PersonService.getFixedPersons());
+        }
+        this.filterList = new FilterList<>(this.baseList);
+
+        this.configRegistry = new ConfigRegistry();
+        new DefaultNatTableStyleConfiguration().configureRegistry(this.configRegistry);
+        new DefaultFilterRowConfiguration().configureRegistry(this.configRegistry);
+
+        this.calculationService = new CalculationService("ParallelFilterTest", 4, 100);
+        this.filterStrategy = new ParallelGlazedListsFilterStrategy<>(
+                this.baseList,
+                this.filterList,
+                new ReflectiveColumnPropertyAccessor<Person>(personPropertyNames),
+                this.configRegistry,
+                this.calculationService);
+        // use several chunks
+        this.filterStrategy.setChunkSize(1000);
+
+        DataLayerFixture columnHeaderLayer = new DataLayerFixture(5, 2, 100, 50);
+        this.dataProvider = new FilterRowDataProvider<>(
+                this.filterStrategy,
+                columnHeaderLayer,
+                columnHeaderLayer.getDataProvider(), this.configRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        this.filterStrategy.dispose();
+        this.calculationService.shutdownNow();
+    }
+
+    @Test
+    public void shouldFilterForSimpsons() {
+        assertEquals(18000, this.filterList.size());
+
+        this.dataProvider.setDataValue(1, 1, "Simpson");
+
+        assertEquals(10000, this.filterList.size());
+    }
+
+    @Test
+    public void shouldConvertDisplayValuesInCallingThread() {
+        final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+        this.configRegistry.registerConfigAttribute(
+                FilterRowConfigAttributes.FILTER_DISPLAY_CONVERTER,
+                new DefaultDisplayConverter() {
+                    @Override
+                    public Object canonicalToDisplayValue(Object canonicalValue) {
+                        threads.add(Thread.currentThread());
+                        return super.canonicalToDisplayValue(canonicalValue);
+                    }
+                },
+                DisplayMode.NORMAL,
+                FilterRowDataLayer.FILTER_ROW_COLUMN_LABEL_PREFIX + 0);
+
+        this.dataProvider.setDataValue(0, 1, "m");
+
+        assertEquals(7000, this.filterList.size());
+        assertEquals(Collections.singleton(Thread.currentThread()), threads);
+    }
+
+    @Test
+    public void shouldFilterForMultipleCriteria() {
+        assertEquals(18000, this.filterList.size());
+
+        // filter: contains m
+        // per fixed we have 3 Homer, 2 Marge, 2 Maude
+        this.dataProvider.setDataValue(0, 1, "m");
+
+        assertEquals(7000, this.filterList.size());
+
+        this.dataProvider.setDataValue(1, 1, "Flanders");
+
+        assertEquals(2000, this.filterList.size());
+    }
+
+    @Test
+    public void shouldResetFilterinSameOrder() {
+        this.dataProvider.setDataValue(0, 1, "m");
+        this.dataProvider.setDataValue(1, 1, "Flanders");
+        assertEquals(2000, this.filterList.size());
+
+        this.dataProvider.setDataValue(1, 1, null);
+        assertEquals(7000, this.filterList.size());
+
+        this.dataProvider.setDataValue(0, 1, null);
+        assertEquals(18000, this.filterList.size());
+    }
+
+    @Test
+    public void shouldResetFilterinDifferentOrder() {
+        this.dataProvider.setDataValue(0, 1, "m");
+        this.dataProvider.setDataValue(1, 1, "Flanders");
+        assertEquals(2000, this.filterList.size());
+
+        this.dataProvider.setDataValue(0, 1, null);
+        assertEquals(8000, this.filterList.size());
+
+        this.dataProvider.setDataValue(1, 1, null);
+        assertEquals(18000, this.filterList.size());
+    }
+
+    @Test
+    public void shouldNarrowAndWidenFilter() {
+        this.dataProvider.setDataValue(0, 1, "m");
+        assertEquals(7000, this.filterList.size());
+
+        // 2 Marge, 2 Maude
+        this.dataProvider.setDataValue(0, 1, "ma");
+        assertEquals(4000, this.filterList.size());
+
+        // 2 Marge
+        this.dataProvider.setDataValue(0, 1, "mar");
+        assertEquals(2000, this.filterList.size());
+
+        this.dataProvider.setDataValue(0, 1, "m");
+        assertEquals(7000, this.filterList.size());
+    }
+
+    @Test
+    public void shouldFilterAddedRows() {
+        this.dataProvider.setDataValue(1, 1, "Flanders");
+        assertEquals(8000, this.filterList.size());
+
+        this.baseList.addAll(PersonService.getFixedPersons());
+        assertEquals(8008, this.filterList.size());
+
+        this.dataProvider.setDataValue(0, 1, "m");
+        assertEquals(2002, this.filterList.size());
+    }
+
+    @Test
+    public void shouldReEvaluateWithChange() {
+        this.dataProvider.setDataValue(1, 1, "Simpson");
+        assertEquals(10000, this.filterList.size());
+
+        // modify an element without an event
+        this.filterList.get(0).setLastName("Flanders");
+        assertEquals(10000, this.filterList.size());
+
+        // trigger again, the cached values are not used
+        this.dataProvider.setDataValue(1, 1, "Simpson");
+        assertEquals(9999, this.filterList.size());
+    }
+}
@@ -22,8 +22,12 @@
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.eclipse.nebula.widgets.nattable.data.ListDataProvider;
+import org.eclipse.nebula.widgets.nattable.data.ReflectiveColumnPropertyAccessor;
 import org.eclipse.nebula.widgets.nattable.dataset.person.Person;
 import org.eclipse.nebula.widgets.nattable.dataset.person.PersonService;
+import org.eclipse.nebula.widgets.nattable.layer.DataLayer;
+import org.eclipse.nebula.widgets.nattable.tree.TreeLayer;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -55,6 +59,28 @@ public void testInitialExpanded() {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testTreeLayerRowCountOnCollapse() {
+        DataLayer dataLayer = new DataLayer(new ListDataProvider<Object>(
+                this.treeList,
+                new ReflectiveColumnPropertyAccessor<>(new String[] { "lastName" })));
+        TreeLayer treeLayer = new TreeLayer(dataLayer, this.treeRowModel, false);
+        assertEquals(this.treeList.size(), treeLayer.getRowCount());
+
+        // the collapsed children are removed from the TreeList and not
+        // reported as hidden indexes
+        treeLayer.collapseTreeRow(0);
+        assertEquals(this.treeList.size(), treeLayer.getRowCount());
+        for (int i = 0; i < treeLayer.getRowCount(); i++) {
+            assertEquals(i, treeLayer.getRowIndexByPosition(i));
+        }
+
+        treeLayer.collapseAll();
+        assertEquals(this.treeList.size(), treeLayer.getRowCount());
+        assertEquals(this.treeList.size() - 1, treeLayer.getRowIndexByPosition(treeLayer.getRowCount() - 1));
+    }
+
     @Test
     public void testCollapseAllStepByStep() {
         for (int i = this.treeList.size() - 1; i >= 0; i--) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2013, 2015 Original authors and others.
+ * Copyright (c) 2012, 2019 Original authors and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,15 +12,26 @@
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.nebula.widgets.nattable.command.DisposeResourcesCommand;
 import org.eclipse.nebula.widgets.nattable.command.ILayerCommand;
+import org.eclipse.nebula.widgets.nattable.coordinate.Range;
+import org.eclipse.nebula.widgets.nattable.coordinate.RangeSet;
 import org.eclipse.nebula.widgets.nattable.layer.AbstractLayerTransform;
 import org.eclipse.nebula.widgets.nattable.layer.IUniqueIndexLayer;
 import org.eclipse.nebula.widgets.nattable.layer.event.ILayerEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.PropertyUpdateEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowDeleteEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowInsertEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.RowStructuralRefreshEvent;
+import org.eclipse.nebula.widgets.nattable.layer.event.RowUpdateEvent;
 import org.eclipse.nebula.widgets.nattable.layer.event.VisualRefreshEvent;
 import org.eclipse.nebula.widgets.nattable.util.Scheduler;
 import org.eclipse.swt.widgets.Display;
@@ -28,6 +39,7 @@
 import ca.odell.glazedlists.EventList;
 import ca.odell.glazedlists.event.ListEvent;
 import ca.odell.glazedlists.event.ListEventListener;
+import ca.odell.glazedlists.util.concurrent.Lock;
 
 /**
  * This layer acts as the event listener for:
@@ -35,12 +47,25 @@
  * <li>GlazedLists events - {@link ListEvent}
  * <li>Bean updates - PropertyChangeEvent(s)
  * </ol>
- * GlazedLists events are conflated at a 100ms interval i.e a single
+ * GlazedLists events are conflated i.e a single
  * {@link RowStructuralRefreshEvent} is fired for any number of GlazedLists
- * events received during that interval.
+ * events received during the conflation interval. The interval starts with the
+ * first GlazedLists event, so an idle layer does not wake up periodically. It
+ * is at least {@link #DEFAULT_MIN_INTERVAL} ms and adapts to twice the average
+ * time the display thread needs to process the fired events, bounded by
+ * {@link #DEFAULT_MAX_INTERVAL} ms. While fired events are still waiting to be
+ * processed by the display thread, no further events are fired, so the
+ * GlazedLists events are conflated until the display thread caught up.
  * <p>
  * PropertyChangeEvent(s) are propagated immediately as a
  * {@link PropertyUpdateEvent}.
+ * <p>
+ * If detailed events are enabled via {@link #setDetailedEventThreshold(int)},
+ * single inserts and deletes are propagated as {@link RowInsertEvent} and
+ * {@link RowDeleteEvent}, and the updated rows of the conflated GlazedLists
+ * events as {@link RowUpdateEvent}, so layers above can update their states
+ * incrementally instead of recalculating them completely.
+ * </p>
  *
  * @param <T>
  *            Type of the bean in the backing list.
@@ -48,16 +73,71 @@
 public class GlazedListsEventLayer<T> extends AbstractLayerTransform implements
 IUniqueIndexLayer, ListEventListener<T>, PropertyChangeListener {
 
+    /**
+     * The minimum conflation interval in milliseconds.
+     *
+     * @since 1.6
+     */
+    public static final int DEFAULT_MIN_INTERVAL = 100;
+    /**
+     * The maximum conflation interval in milliseconds.
+     *
+     * @since 1.6
+     */
+    public static final int DEFAULT_MAX_INTERVAL = 1000;
+
     private static final Scheduler scheduler = new Scheduler("GlazedListsEventLayer"); //$NON-NLS-1$
+    private static int liveLayers = 0;
+
     private final IUniqueIndexLayer underlyingLayer;
-    private final ScheduledFuture<?> future;
+    private final Runnable eventNotifier;
+    private final AtomicBoolean notificationScheduled = new AtomicBoolean();
+    private volatile ScheduledFuture<?> future;
     private EventList<T> eventList;
     private boolean testMode = false;
-    private boolean structuralChangeEventsToProcess = false;
-    private boolean eventsToProcess = false;
-    private boolean terminated;
+    private final AtomicBoolean structuralChangeEventsToProcess = new AtomicBoolean();
+    private volatile boolean eventsToProcess = false;
+    private volatile boolean terminated;
+
+    private volatile boolean active = true;
 
-    private boolean active = true;
+    /**
+     * The number of event notifications that were handed to the display
+     * thread but are not processed yet.
+     */
+    private final AtomicInteger pendingNotifications = new AtomicInteger();
+    /**
+     * The exponential moving average of the time the display thread needed
+     * to process the fired events.
+     */
+    private volatile long averageProcessingNanos;
+
+    /**
+     * The maximum number of structural changes that are propagated as detailed
+     * events within one conflation interval. A negative value disables
+     * detailed events.
+     */
+    private volatile int detailedEventThreshold = -1;
+
+    private final Object rowChangeLock = new Object();
+    private final RangeSet rowUpdates = new RangeSet();
+    /**
+     * The number of inserts and deletes that were fired as detailed events
+     * since the last notification.
+     */
+    private int firedRowChanges = 0;
+    /**
+     * Flag to indicate that structural changes could not be fired as detailed
+     * events, e.g. because they exceeded the threshold, were a reordering or
+     * were received while detailed events were disabled.
+     */
+    private boolean rowChangesIncomplete = false;
+    /**
+     * The number of GlazedLists events received, used to detect that the list
+     * changed between creating a detailed event and firing it in the display
+     * thread. Guarded by the row change lock.
+     */
+    private int listChangeCount = 0;
 
     public GlazedListsEventLayer(IUniqueIndexLayer underlyingLayer, EventList<T> eventList) {
         super(underlyingLayer);
@@ -66,8 +146,49 @@ public GlazedListsEventLayer(IUniqueIndexLayer underlyingLayer, EventList<T> eve
 
         this.eventList.addListEventListener(this);
 
-        // Start the event conflation thread
-        this.future = scheduler.scheduleAtFixedRate(getEventNotifier(), 0L, 100L);
+        // the event conflation is scheduled when events are received
+        this.eventNotifier = getEventNotifier();
+        synchronized (GlazedListsEventLayer.class) {
+            liveLayers++;
+        }
+    }
+
+    /**
+     * Schedules the event notifier if it is not scheduled yet.
+     */
+    private void scheduleNotification() {
+        if (!this.terminated && this.notificationScheduled.compareAndSet(false, true)) {
+            this.future = schedule(new Runnable() {
+                @Override
+                public void run() {
+                    GlazedListsEventLayer.this.notificationScheduled.set(false);
+                    if (GlazedListsEventLayer.this.pendingNotifications.get() > 0) {
+                        // the display thread did not process the previous
+                        // events yet, the notification is scheduled again
+                        // afterwards
+                        return;
+                    }
+                    GlazedListsEventLayer.this.eventNotifier.run();
+                }
+            }, getCurrentInterval());
+        }
+    }
+
+    /**
+     * Schedules the given notification to be executed after the given delay.
+     * Subclasses can override this to take control over the execution of the
+     * notification, e.g. to run it deterministically in tests.
+     *
+     * @param notification
+     *            The notification to execute.
+     * @param delay
+     *            The delay in milliseconds.
+     * @return The {@link ScheduledFuture} that can be used to cancel the
+     *         notification, or <code>null</code> if it can not be cancelled.
+     * @since 1.6
+     */
+    protected ScheduledFuture<?> schedule(Runnable notification, long delay) {
+        return scheduler.schedule(notification, delay);
     }
 
     /**
@@ -77,34 +198,143 @@ protected Runnable getEventNotifier() {
         return new Runnable() {
             @Override
             public void run() {
-                if (GlazedListsEventLayer.this.eventsToProcess && GlazedListsEventLayer.this.active) {
+                if (GlazedListsEventLayer.this.eventsToProcess
+                        && GlazedListsEventLayer.this.active
+                        && GlazedListsEventLayer.this.detailedEventThreshold >= 0) {
+                    fireDetailedEvents();
+                } else if (GlazedListsEventLayer.this.eventsToProcess && GlazedListsEventLayer.this.active) {
+                    clearRowChanges();
+                    // reset before firing, so events received meanwhile
+                    // schedule a new notification, and take the structural
+                    // flag in one step so a structural change received
+                    // meanwhile is not lost
+                    GlazedListsEventLayer.this.eventsToProcess = false;
                     ILayerEvent layerEvent;
-                    if (GlazedListsEventLayer.this.structuralChangeEventsToProcess) {
+                    if (GlazedListsEventLayer.this.structuralChangeEventsToProcess.getAndSet(false)) {
                         layerEvent = new RowStructuralRefreshEvent(getUnderlyingLayer());
                     } else {
                         layerEvent = new VisualRefreshEvent(getUnderlyingLayer());
                     }
-                    fireEventFromSWTDisplayThread(layerEvent);
 
-                    GlazedListsEventLayer.this.eventsToProcess = false;
-                    GlazedListsEventLayer.this.structuralChangeEventsToProcess = false;
+                    fireEventFromSWTDisplayThread(layerEvent);
                 }
             }
         };
     }
 
+    /**
+     * Fires the collected row updates, or a {@link RowStructuralRefreshEvent}
+     * if structural changes could not be propagated as detailed events.
+     */
+    private void fireDetailedEvents() {
+        final List<ILayerEvent> layerEvents = new ArrayList<ILayerEvent>();
+        synchronized (this.rowChangeLock) {
+            if (this.rowChangesIncomplete) {
+                layerEvents.add(new RowStructuralRefreshEvent(getUnderlyingLayer()));
+            } else if (!this.rowUpdates.isEmpty()) {
+                for (Range range : this.rowUpdates.getRanges()) {
+                    layerEvents.add(new RowUpdateEvent(getUnderlyingLayer(), range));
+                }
+            }
+            // the inserts and deletes were already fired in listChanged()
+            clearRowChanges();
+            this.eventsToProcess = false;
+            this.structuralChangeEventsToProcess.set(false);
+        }
+
+        if (!layerEvents.isEmpty()) {
+            // fire all events in one step so they are processed in order
+            fireEventsFromSWTDisplayThread(layerEvents);
+        }
+    }
+
+    private void clearRowChanges() {
+        synchronized (this.rowChangeLock) {
+            this.rowUpdates.clear();
+            this.rowChangesIncomplete = false;
+            this.firedRowChanges = 0;
+        }
+    }
+
     /**
      * Glazed list event handling.
      */
     @Override
     public void listChanged(ListEvent<T> event) {
-        while (event.next()) {
-            int eventType = event.getType();
-            if (eventType == ListEvent.DELETE || eventType == ListEvent.INSERT) {
-                this.structuralChangeEventsToProcess = true;
+        int threshold = this.detailedEventThreshold;
+        if (threshold < 0) {
+            while (event.next()) {
+                int eventType = event.getType();
+                if (eventType == ListEvent.DELETE || eventType == ListEvent.INSERT) {
+                    this.structuralChangeEventsToProcess.set(true);
+                }
+            }
+            synchronized (this.rowChangeLock) {
+                this.listChangeCount++;
+                // changes received now can not be propagated in detail
+                this.rowChangesIncomplete = true;
+            }
+        } else {
+            ILayerEvent rowChangeEvent = null;
+            int changeCount;
+            synchronized (this.rowChangeLock) {
+                changeCount = ++this.listChangeCount;
+                boolean reordering = event.isReordering();
+                int structuralBlocks = 0;
+                int changeType = 0;
+                int changeStart = 0;
+                int changeEnd = 0;
+                while (event.nextBlock()) {
+                    int eventType = event.getType();
+                    int start = event.getBlockStartIndex();
+                    int end = event.getBlockEndIndex() + 1;
+                    if (eventType == ListEvent.UPDATE) {
+                        this.rowUpdates.addRange(start, end);
+                    } else {
+                        structuralBlocks++;
+                        changeType = eventType;
+                        changeStart = start;
+                        changeEnd = end;
+                    }
+                }
+
+                if (reordering || structuralBlocks > 0) {
+                    // Layers above query the underlying layer while handling
+                    // a structural diff, so a diff is only consistent if the
+                    // list did not change further. Reorderings, multiple
+                    // blocks, changes after a pending refresh or after events
+                    // that are not processed by the display thread yet are
+                    // therefore propagated via a refresh.
+                    if (reordering
+                            || structuralBlocks > 1
+                            || this.rowChangesIncomplete
+                            || !this.active
+                            || this.firedRowChanges >= threshold
+                            || this.pendingNotifications.get() > 0) {
+                        this.rowChangesIncomplete = true;
+                        this.structuralChangeEventsToProcess.set(true);
+                    } else {
+                        Range range = new Range(changeStart, changeEnd);
+                        if (changeType == ListEvent.INSERT) {
+                            rowChangeEvent = new RowInsertEvent(getUnderlyingLayer(), range);
+                        } else {
+                            rowChangeEvent = new RowDeleteEvent(getUnderlyingLayer(), range);
+                        }
+                        this.firedRowChanges++;
+                        // the rows are repainted anyway on structural changes
+                        this.rowUpdates.clear();
+                    }
+                }
+            }
+
+            if (rowChangeEvent != null) {
+                fireRowChangeFromSWTDisplayThread(rowChangeEvent, changeCount);
             }
         }
+        // the notification also ends the interval in which the fired detailed
+        // events are counted
         this.eventsToProcess = true;
+        scheduleNotification();
     }
 
     /**
@@ -129,23 +359,146 @@ public void propertyChange(PropertyChangeEvent event) {
      * Painting can only be triggered from the SWT Display thread.
      */
     protected void fireEventFromSWTDisplayThread(final ILayerEvent event) {
-        if (!this.testMode && Display.getCurrent() == null) {
+        fireEventsFromSWTDisplayThread(Collections.singletonList(event));
+    }
+
+    /**
+     * Fires the given events in the SWT Display thread and measures the time
+     * needed to process them. Events that are not fired from the SWT Display
+     * thread are counted as pending notification until they are processed.
+     */
+    private void fireEventsFromSWTDisplayThread(final List<ILayerEvent> events) {
+        runInSWTDisplayThread(new Runnable() {
+            @Override
+            public void run() {
+                fireAndMeasure(events);
+            }
+        });
+    }
+
+    /**
+     * Fires the given detailed insert or delete event in the SWT Display
+     * thread. If the event can not be fired synchronously, the list might
+     * change before the display thread processes it, so the diff would not
+     * match the list anymore. In that case the event is dropped and a
+     * {@link RowStructuralRefreshEvent} is fired by the next notification
+     * instead.
+     *
+     * @param event
+     *            The detailed event to fire.
+     * @param changeCount
+     *            The number of GlazedLists events received when the event was
+     *            created.
+     */
+    private void fireRowChangeFromSWTDisplayThread(final ILayerEvent event, final int changeCount) {
+        if (isSWTDisplayThread()) {
+            // fired while the list is in the matching state
+            fireAndMeasure(Collections.singletonList(event));
+            return;
+        }
+        runInSWTDisplayThread(new Runnable() {
+            @Override
+            public void run() {
+                // the list can not change while the event is handled, if it
+                // is changed right now, the refresh is used to not block the
+                // display thread
+                Lock readLock = GlazedListsEventLayer.this.eventList.getReadWriteLock().readLock();
+                boolean locked = readLock.tryLock();
+                try {
+                    boolean unchanged;
+                    synchronized (GlazedListsEventLayer.this.rowChangeLock) {
+                        unchanged = locked && changeCount == GlazedListsEventLayer.this.listChangeCount;
+                        if (!unchanged) {
+                            GlazedListsEventLayer.this.rowChangesIncomplete = true;
+                            GlazedListsEventLayer.this.structuralChangeEventsToProcess.set(true);
+                            GlazedListsEventLayer.this.eventsToProcess = true;
+                        }
+                    }
+                    if (unchanged) {
+                        fireAndMeasure(Collections.singletonList(event));
+                    }
+                } finally {
+                    if (locked) {
+                        readLock.unlock();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs the given firing of events in the SWT Display thread. If it is not
+     * called from the SWT Display thread, the firing is counted as pending
+     * notification until it is processed.
+     */
+    private void runInSWTDisplayThread(final Runnable firing) {
+        if (!isSWTDisplayThread()) {
+            this.pendingNotifications.incrementAndGet();
             Display.getDefault().asyncExec(new Runnable() {
                 @Override
                 public void run() {
-                    fireLayerEvent(event);
+                    try {
+                        firing.run();
+                    } finally {
+                        GlazedListsEventLayer.this.pendingNotifications.decrementAndGet();
+                        if (GlazedListsEventLayer.this.eventsToProcess) {
+                            scheduleNotification();
+                        }
+                    }
                 }
             });
         } else {
-            fireLayerEvent(event);
+            firing.run();
+        }
+    }
+
+    private boolean isSWTDisplayThread() {
+        return this.testMode || Display.getCurrent() != null;
+    }
+
+    private void fireAndMeasure(List<ILayerEvent> events) {
+        long start = System.nanoTime();
+        for (ILayerEvent layerEvent : events) {
+            fireLayerEvent(layerEvent);
         }
+        long duration = System.nanoTime() - start;
+        long average = this.averageProcessingNanos;
+        this.averageProcessingNanos = (average == 0) ? duration : (average * 3 + duration) / 4;
+    }
+
+    /**
+     * @return The conflation interval in milliseconds that is currently used
+     *         to delay the notification after a GlazedLists event was
+     *         received.
+     * @since 1.6
+     */
+    public long getCurrentInterval() {
+        long interval = TimeUnit.NANOSECONDS.toMillis(this.averageProcessingNanos * 2);
+        return Math.min(DEFAULT_MAX_INTERVAL, Math.max(DEFAULT_MIN_INTERVAL, interval));
+    }
+
+    /**
+     * @return The number of event notifications that were handed to the SWT
+     *         Display thread but are not processed yet.
+     * @since 1.6
+     */
+    public int getPendingNotificationCount() {
+        return this.pendingNotifications.get();
     }
 
     @Override
     public boolean doCommand(ILayerCommand command) {
         if (!this.terminated && command instanceof DisposeResourcesCommand) {
             this.terminated = true;
-            scheduler.unschedule(this.future);
+            ScheduledFuture<?> pending = this.future;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            synchronized (GlazedListsEventLayer.class) {
+                if (--liveLayers <= 0) {
+                    scheduler.shutdownNow();
+                }
+            }
         }
         return super.doCommand(command);
     }
@@ -168,6 +521,37 @@ public void setTestMode(boolean testMode) {
         this.testMode = testMode;
     }
 
+    /**
+     * Enables or disables detailed events. If enabled, a GlazedLists event
+     * that consists of a single insert or delete block is propagated
+     * immediately as {@link RowInsertEvent} or {@link RowDeleteEvent}, so the
+     * layers above handle it while the list is in the matching state. Updates
+     * are conflated and propagated as {@link RowUpdateEvent}s. Reorderings,
+     * events with multiple structural blocks and more than the given number of
+     * inserts and deletes within one conflation interval are propagated as a
+     * {@link RowStructuralRefreshEvent} at the end of the interval.
+     *
+     * @param threshold
+     *            The maximum number of inserts and deletes that are propagated
+     *            as detailed events per conflation interval. A negative value
+     *            disables detailed events, which is the default.
+     * @since 1.6
+     */
+    public void setDetailedEventThreshold(int threshold) {
+        this.detailedEventThreshold = threshold;
+    }
+
+    /**
+     * @return The maximum number of inserts and deletes that are propagated as
+     *         detailed events per conflation interval, a negative value if
+     *         detailed events are disabled.
+     * @see #setDetailedEventThreshold(int)
+     * @since 1.6
+     */
+    public int getDetailedEventThreshold() {
+        return this.detailedEventThreshold;
+    }
+
     /**
      * Activates the handling of GlazedLists events. By activating on receiving
      * GlazedLists change events, there will be NatTable events fired to
@@ -181,6 +565,9 @@ public void setTestMode(boolean testMode) {
      */
     public void activate() {
         this.active = true;
+        if (this.eventsToProcess) {
+            scheduleNotification();
+        }
     }
 
     /**
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.extension.glazedlists;
+
+import java.io.Serializable;
+
+import org.eclipse.nebula.widgets.nattable.data.IRowIdAccessor;
+import org.eclipse.nebula.widgets.nattable.data.RowIdIndex;
+
+import ca.odell.glazedlists.EventList;
+import ca.odell.glazedlists.event.ListEvent;
+import ca.odell.glazedlists.event.ListEventListener;
+
+/**
+ * {@link RowIdIndex} for an {@link EventList}. It listens to the
+ * {@link EventList} directly, so the index is invalidated synchronously with
+ * the list changes and does not need to be registered to the DataLayer.
+ * Inserts and deletes shift the indexes of the following rows, reorderings
+ * like sorting invalidate the whole index. The index is built with the read
+ * lock of the {@link EventList} acquired.
+ * <p>
+ * Call {@link #dispose()} to remove the listener from the {@link EventList}.
+ * </p>
+ *
+ * @param <T>
+ *            The type of the objects in the list.
+ * @since 1.6
+ */
+public class GlazedListsRowIdIndex<T> extends RowIdIndex<T> implements ListEventListener<T> {
+
+    /**
+     * @param list
+     *            The {@link EventList} whose objects should be indexed.
+     * @param rowIdAccessor
+     *            The {@link IRowIdAccessor} to retrieve the row ids.
+     */
+    public GlazedListsRowIdIndex(EventList<T> list, IRowIdAccessor<T> rowIdAccessor) {
+        super(list, rowIdAccessor);
+        list.addListEventListener(this);
+    }
+
+    @Override
+    public int indexOfRowId(Serializable rowId) {
+        ((EventList<T>) this.list).getReadWriteLock().readLock().lock();
+        try {
+            return super.indexOfRowId(rowId);
+        } finally {
+            ((EventList<T>) this.list).getReadWriteLock().readLock().unlock();
+        }
+    }
+
+    @Override
+    public void listChanged(ListEvent<T> listChanges) {
+        if (listChanges.isReordering()) {
+            invalidate();
+            return;
+        }
+
+        // the blocks are reported in the order they were applied to the list
+        while (listChanges.nextBlock()) {
+            int start = listChanges.getBlockStartIndex();
+            int count = listChanges.getBlockEndIndex() - start + 1;
+            switch (listChanges.getType()) {
+                case ListEvent.INSERT:
+                    rowsInserted(start, count);
+                    break;
+                case ListEvent.DELETE:
+                    rowsDeleted(start, count);
+                    break;
+                default:
+                    // the row ids are expected to be stable on updates
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Removes the listener from the {@link EventList}.
+     */
+    public void dispose() {
+        ((EventList<T>) this.list).removeListEventListener(this);
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2016 Dirk Fauth and others.
+ * Copyright (c) 2013, 2019 Dirk Fauth and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,10 +10,9 @@
  *******************************************************************************/
 package org.eclipse.nebula.widgets.nattable.extension.glazedlists.filterrow;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
@@ -99,7 +98,42 @@ public GlazedListsFilterRowComboBoxDataProvider(
             Collection<T> baseCollection,
             IColumnAccessor<T> columnAccessor,
             boolean lazy) {
-        super(bodyLayer, baseCollection, columnAccessor, lazy);
+        this(bodyLayer, baseCollection, columnAccessor, lazy, false);
+    }
+
+    /**
+     * @param bodyLayer
+     *            A layer in the body region. Usually the DataLayer or a layer
+     *            that is responsible for list event handling. Needed to
+     *            register ourself as listener for data changes.
+     * @param baseCollection
+     *            The base collection used to collect the unique values from.
+     *            This need to be a collection that is not filtered, otherwise
+     *            after modifications the content of the filter row combo boxes
+     *            will only contain the current visible (not filtered) elements.
+     * @param columnAccessor
+     *            The IColumnAccessor to be able to read the values out of the
+     *            base collection objects.
+     * @param lazy
+     *            <code>true</code> to configure this
+     *            {@link FilterRowComboBoxDataProvider} should load the combobox
+     *            values lazily, <code>false</code> to pre-build the value
+     *            cache.
+     * @param parallel
+     *            <code>true</code> if the columns should be processed in
+     *            parallel on pre-building the value cache,
+     *            <code>false</code> if they should be processed one after
+     *            the other. Only set to <code>true</code> if the given
+     *            {@link IColumnAccessor} supports concurrent reads.
+     * @since 1.6
+     */
+    public GlazedListsFilterRowComboBoxDataProvider(
+            ILayer bodyLayer,
+            Collection<T> baseCollection,
+            IColumnAccessor<T> columnAccessor,
+            boolean lazy,
+            boolean parallel) {
+        super(bodyLayer, baseCollection, columnAccessor, lazy, parallel);
 
         if (baseCollection instanceof EventList) {
             ((EventList<T>) baseCollection).addListEventListener(this);
@@ -110,40 +144,39 @@ public GlazedListsFilterRowComboBoxDataProvider(
 
     @Override
     public void listChanged(ListEvent<T> listChanges) {
+        // update the value index directly, as the changed rows are only known
+        // while processing the event
+        if (listChanges.isReordering()) {
+            recountValues();
+        } else {
+            while (listChanges.nextBlock()) {
+                int start = listChanges.getBlockStartIndex();
+                int count = listChanges.getBlockEndIndex() - start + 1;
+                switch (listChanges.getType()) {
+                    case ListEvent.INSERT:
+                        rowsInserted(start, count);
+                        break;
+                    case ListEvent.DELETE:
+                        rowsDeleted(start, count);
+                        break;
+                    case ListEvent.UPDATE:
+                        rowsUpdated(start, count);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
         if (!this.changeHandlingProcessing.getAndSet(true)) {
-            // a new row was added or a row was deleted
+            // inform about the changed values delayed to combine multiple
+            // list changes
             SCHEDULER.schedule(new Runnable() {
 
                 @Override
                 public void run() {
-                    // remember the cache before updating
-                    Map<Integer, List<?>> cacheBefore = new HashMap<Integer, List<?>>(getValueCache());
-
-                    // perform a refresh of the whole cache
-                    getValueCache().clear();
-
-                    if (!GlazedListsFilterRowComboBoxDataProvider.this.lazyLoading) {
-                        buildValueCache();
-                    }
-
-                    // fire events for every column
-                    for (Map.Entry<Integer, List<?>> entry : cacheBefore.entrySet()) {
-
-                        if (GlazedListsFilterRowComboBoxDataProvider.this.lazyLoading) {
-                            // to determine the diff for the update event the
-                            // current values need to be collected, otherwise on
-                            // clear() - addAll() a full reset will be triggered
-                            // since there are no cached values
-                            getValueCache().put(entry.getKey(), collectValues(entry.getKey()));
-                        }
-
-                        fireCacheUpdateEvent(buildUpdateEvent(
-                                entry.getKey(),
-                                entry.getValue(),
-                                getValueCache().get(entry.getKey())));
-                    }
-
                     GlazedListsFilterRowComboBoxDataProvider.this.changeHandlingProcessing.set(false);
+                    fireValueCacheUpdates();
                 }
             }, 100);
         }
@@ -154,18 +187,34 @@ public void handleLayerEvent(ILayerEvent event) {
         if (event instanceof CellVisualChangeEvent) {
             // usually this is fired for data updates
             // so we need to update the value cache for the updated column
-            int column = ((CellVisualChangeEvent) event).getColumnPosition();
-
-            List<?> cacheBefore = getValueCache().get(column);
-
-            getValueCache().put(column, collectValues(column));
+            CellVisualChangeEvent changeEvent = (CellVisualChangeEvent) event;
+            int column = changeEvent.getColumnPosition();
+            if (!getCachedColumnIndexes().contains(column)) {
+                // create the index and inform about the values
+                getValues(column, 0);
+            } else if (isBaseCollectionLayer(changeEvent.getLayer())) {
+                updateRows(column, changeEvent.getRowPosition(), 1);
+            } else {
+                // the row position is not the index in the base collection,
+                // e.g. because the body is sorted or filtered
+                recountColumn(column);
+            }
+        }
+    }
 
-            // get the diff and fire the event
-            fireCacheUpdateEvent(buildUpdateEvent(
-                    column,
-                    cacheBefore,
-                    getValueCache().get(column)));
+    @Override
+    protected List<T> getRowSnapshot() {
+        Collection<T> baseCollection = getBaseCollection();
+        if (baseCollection instanceof EventList) {
+            EventList<T> eventList = (EventList<T>) baseCollection;
+            eventList.getReadWriteLock().readLock().lock();
+            try {
+                return new ArrayList<T>(eventList);
+            } finally {
+                eventList.getReadWriteLock().readLock().unlock();
+            }
         }
+        return super.getRowSnapshot();
     }
 
     @Override
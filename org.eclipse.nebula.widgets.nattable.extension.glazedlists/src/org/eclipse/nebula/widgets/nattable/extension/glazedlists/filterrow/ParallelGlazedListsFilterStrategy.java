@@ -0,0 +1,746 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.extension.glazedlists.filterrow;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.nebula.widgets.nattable.config.IConfigRegistry;
+import org.eclipse.nebula.widgets.nattable.data.IColumnAccessor;
+import org.eclipse.nebula.widgets.nattable.data.convert.IDisplayConverter;
+import org.eclipse.nebula.widgets.nattable.filterrow.FilterRowDataLayer;
+import org.eclipse.nebula.widgets.nattable.filterrow.ParseResult;
+import org.eclipse.nebula.widgets.nattable.filterrow.ParseResult.MatchType;
+import org.eclipse.nebula.widgets.nattable.filterrow.TextMatchingMode;
+import org.eclipse.nebula.widgets.nattable.filterrow.config.FilterRowConfigAttributes;
+import org.eclipse.nebula.widgets.nattable.style.DisplayMode;
+import org.eclipse.nebula.widgets.nattable.util.CalculationService;
+
+import ca.odell.glazedlists.EventList;
+import ca.odell.glazedlists.FilterList;
+import ca.odell.glazedlists.FunctionList.Function;
+import ca.odell.glazedlists.TextFilterator;
+import ca.odell.glazedlists.event.ListEvent;
+import ca.odell.glazedlists.event.ListEventListener;
+import ca.odell.glazedlists.matchers.AbstractMatcherEditor;
+import ca.odell.glazedlists.matchers.Matcher;
+import ca.odell.glazedlists.matchers.TextMatcherEditor;
+import ca.odell.glazedlists.matchers.ThresholdMatcherEditor;
+
+/**
+ * {@link DefaultGlazedListsFilterStrategy} that evaluates the filter row
+ * criteria itself instead of adding {@link TextMatcherEditor}s and
+ * {@link ThresholdMatcherEditor}s to the {@link FilterList}.
+ * <ul>
+ * <li>The display values of the filtered columns are converted once in the
+ * calling thread and cached until the base list changes or a re-evaluation of
+ * an unchanged filter is requested.</li>
+ * <li>If the new filter text of a column extends the previous one for
+ * {@link TextMatchingMode#CONTAINS} or {@link TextMatchingMode#STARTS_WITH},
+ * only the rows that matched the previous text are evaluated.</li>
+ * <li>The rows are evaluated in chunks of {@link #getChunkSize()} rows in
+ * parallel by a {@link CalculationService}.</li>
+ * <li>The resulting match bitmap is handed to the {@link FilterList} via a
+ * single {@link ca.odell.glazedlists.matchers.MatcherEditor}, that reports a
+ * narrowed filter as constrained and a removed filter as relaxed, so the
+ * {@link FilterList} only re-tests the affected elements.</li>
+ * </ul>
+ * <p>
+ * The matching itself is performed by GlazedLists matchers, so the results
+ * are the same as with the {@link DefaultGlazedListsFilterStrategy}. But the
+ * matchers are created internally per worker, overriding
+ * {@link #getTextMatcherEditor(Integer, TextMatchingMode, IDisplayConverter, String)},
+ * {@link #getTextFilterator(Integer, IDisplayConverter)} or
+ * {@link #getThresholdMatcherEditor(Integer, Object, Comparator, Function, MatchType)}
+ * has no effect.
+ * </p>
+ * <p>
+ * The column values for threshold criteria are read by the
+ * {@link IColumnAccessor} in the worker threads, so it needs to support
+ * concurrent reads. The {@link IDisplayConverter}s are only called in the
+ * calling thread, as they are usually not thread safe, e.g. because of a
+ * shared {@link java.text.DateFormat}. The workers only match the converted
+ * display values.
+ * </p>
+ *
+ * @param <T>
+ *            The type of the row objects.
+ *
+ * @since 1.6
+ */
+public class ParallelGlazedListsFilterStrategy<T> extends DefaultGlazedListsFilterStrategy<T> {
+
+    private static final Log LOG = LogFactory.getLog(ParallelGlazedListsFilterStrategy.class);
+
+    /**
+     * The default number of rows that are evaluated in one task.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 10000;
+
+    private static final int CHANGE_NONE = 0;
+    private static final int CHANGE_CONSTRAINED = 1;
+    private static final int CHANGE_RELAXED = 2;
+    private static final int CHANGE_CHANGED = 3;
+
+    private final EventList<T> baseList;
+    private final CalculationService calculationService;
+    private final BitmapMatcherEditor bitmapMatcherEditor = new BitmapMatcherEditor();
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    private volatile boolean baseListChanged = true;
+    private Object[] rows = new Object[0];
+    private final Map<Integer, String[]> displayValues = new HashMap<Integer, String[]>();
+    private Map<Integer, ColumnFilter> columnFilters = new HashMap<Integer, ColumnFilter>();
+
+    private final ListEventListener<T> baseListListener = new ListEventListener<T>() {
+        @Override
+        public void listChanged(ListEvent<T> listChanges) {
+            ParallelGlazedListsFilterStrategy.this.baseListChanged = true;
+        }
+    };
+
+    /**
+     * Create a new {@link ParallelGlazedListsFilterStrategy} that uses the
+     * shared {@link CalculationService}.
+     *
+     * @param baseList
+     *            The source list of the given {@link FilterList}.
+     * @param filterList
+     *            The {@link FilterList} that is used within the GlazedLists
+     *            based NatTable for filtering.
+     * @param columnAccessor
+     *            The {@link IColumnAccessor} necessary to access the column
+     *            data of the row objects.
+     * @param configRegistry
+     *            The {@link IConfigRegistry} necessary to retrieve filter
+     *            specific configurations.
+     */
+    public ParallelGlazedListsFilterStrategy(
+            EventList<T> baseList,
+            FilterList<T> filterList,
+            IColumnAccessor<T> columnAccessor,
+            IConfigRegistry configRegistry) {
+
+        this(baseList, filterList, columnAccessor, configRegistry, CalculationService.getSharedInstance());
+    }
+
+    /**
+     * Create a new {@link ParallelGlazedListsFilterStrategy}.
+     *
+     * @param baseList
+     *            The source list of the given {@link FilterList}.
+     * @param filterList
+     *            The {@link FilterList} that is used within the GlazedLists
+     *            based NatTable for filtering.
+     * @param columnAccessor
+     *            The {@link IColumnAccessor} necessary to access the column
+     *            data of the row objects.
+     * @param configRegistry
+     *            The {@link IConfigRegistry} necessary to retrieve filter
+     *            specific configurations.
+     * @param calculationService
+     *            The {@link CalculationService} that evaluates the chunks.
+     */
+    public ParallelGlazedListsFilterStrategy(
+            EventList<T> baseList,
+            FilterList<T> filterList,
+            IColumnAccessor<T> columnAccessor,
+            IConfigRegistry configRegistry,
+            CalculationService calculationService) {
+
+        super(filterList, columnAccessor, configRegistry);
+        this.baseList = baseList;
+        this.calculationService = calculationService;
+
+        try {
+            this.filterLock.writeLock().lock();
+            this.baseList.addListEventListener(this.baseListListener);
+            getMatcherEditor().getMatcherEditors().add(this.bitmapMatcherEditor);
+        } finally {
+            this.filterLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void applyFilter(Map<Integer, Object> filterIndexToObjectMap) {
+        try {
+            Map<Integer, ColumnFilter> newFilters = new HashMap<Integer, ColumnFilter>();
+            for (Entry<Integer, Object> mapEntry : filterIndexToObjectMap.entrySet()) {
+                ColumnFilter filter = createColumnFilter(mapEntry.getKey(), mapEntry.getValue());
+                if (filter != null) {
+                    newFilters.put(mapEntry.getKey(), filter);
+                }
+            }
+
+            int change = CHANGE_NONE;
+            if (this.baseListChanged || isSameFilter(newFilters)) {
+                // the data might have changed, so the cached values and
+                // matches are not valid anymore
+                takeSnapshot();
+                change = CHANGE_CHANGED;
+            }
+
+            for (Integer columnIndex : this.columnFilters.keySet()) {
+                if (!newFilters.containsKey(columnIndex)) {
+                    change = mergeChange(change, CHANGE_RELAXED);
+                }
+            }
+
+            for (ColumnFilter filter : newFilters.values()) {
+                ColumnFilter previous = this.columnFilters.get(filter.columnIndex);
+                if (previous != null && previous.matches != null && previous.isSameFilter(filter)) {
+                    filter.matches = previous.matches;
+                } else if (previous != null && previous.matches != null && filter.isNarrowing(previous)) {
+                    filter.matches = evaluate(filter, previous.matches);
+                    change = mergeChange(change, CHANGE_CONSTRAINED);
+                } else {
+                    filter.matches = evaluate(filter, null);
+                    change = mergeChange(change, previous == null ? CHANGE_CONSTRAINED : CHANGE_CHANGED);
+                }
+            }
+            this.columnFilters = newFilters;
+
+            BitSet combined = null;
+            for (ColumnFilter filter : newFilters.values()) {
+                if (combined == null) {
+                    combined = (BitSet) filter.matches.clone();
+                } else {
+                    combined.and(filter.matches);
+                }
+            }
+
+            try {
+                this.filterLock.writeLock().lock();
+                this.bitmapMatcherEditor.update(
+                        this.rows,
+                        combined,
+                        new ArrayList<ColumnFilter>(newFilters.values()),
+                        change == CHANGE_NONE ? CHANGE_CHANGED : change);
+            } finally {
+                this.filterLock.writeLock().unlock();
+            }
+        } catch (Exception e) {
+            LOG.error("Error on applying a filter", e); //$NON-NLS-1$
+        }
+    }
+
+    private boolean isSameFilter(Map<Integer, ColumnFilter> newFilters) {
+        if (newFilters.size() != this.columnFilters.size()) {
+            return false;
+        }
+        for (ColumnFilter filter : newFilters.values()) {
+            ColumnFilter previous = this.columnFilters.get(filter.columnIndex);
+            if (previous == null || !previous.isSameFilter(filter)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mergeChange(int change, int additional) {
+        return (change == CHANGE_NONE || change == additional) ? additional : CHANGE_CHANGED;
+    }
+
+    /**
+     * Takes a snapshot of the base list and clears the cached display values
+     * and matches.
+     */
+    private void takeSnapshot() {
+        this.baseListChanged = false;
+        this.baseList.getReadWriteLock().readLock().lock();
+        try {
+            this.rows = this.baseList.toArray();
+        } finally {
+            this.baseList.getReadWriteLock().readLock().unlock();
+        }
+        this.displayValues.clear();
+        this.columnFilters.clear();
+    }
+
+    /**
+     * Creates the {@link ColumnFilter} for the given filter value. Invalid
+     * regular expressions are skipped like in the
+     * {@link DefaultGlazedListsFilterStrategy}.
+     *
+     * @return The {@link ColumnFilter} or <code>null</code> if there is no
+     *         valid criterion for the column.
+     */
+    @SuppressWarnings("unchecked")
+    private ColumnFilter createColumnFilter(Integer columnIndex, Object filterValue) {
+        String filterText = getStringFromColumnObject(columnIndex, filterValue);
+        String configLabel = FilterRowDataLayer.FILTER_ROW_COLUMN_LABEL_PREFIX + columnIndex;
+
+        String textDelimiter = this.configRegistry.getConfigAttribute(
+                FilterRowConfigAttributes.TEXT_DELIMITER,
+                DisplayMode.NORMAL,
+                configLabel);
+        TextMatchingMode textMatchingMode = this.configRegistry.getConfigAttribute(
+                FilterRowConfigAttributes.TEXT_MATCHING_MODE,
+                DisplayMode.NORMAL,
+                configLabel);
+        IDisplayConverter displayConverter = this.configRegistry.getConfigAttribute(
+                FilterRowConfigAttributes.FILTER_DISPLAY_CONVERTER,
+                DisplayMode.NORMAL,
+                configLabel);
+        Comparator<Object> comparator = (Comparator<Object>) this.configRegistry.getConfigAttribute(
+                FilterRowConfigAttributes.FILTER_COMPARATOR,
+                DisplayMode.NORMAL,
+                configLabel);
+
+        ColumnFilter filter = new ColumnFilter(
+                columnIndex, filterText, getGlazedListsTextMatcherEditorMode(textMatchingMode), displayConverter);
+        for (ParseResult parseResult : FilterRowUtils.parse(filterText, textDelimiter, textMatchingMode)) {
+            try {
+                MatchType matchOperation = parseResult.getMatchOperation();
+                if (matchOperation == MatchType.NONE) {
+                    // create a matcher to check the pattern
+                    filter.createTextMatcher(parseResult.getValueToMatch(), null);
+                    filter.textTerms.add(parseResult.getValueToMatch());
+                } else {
+                    filter.thresholds.add(new Threshold(
+                            displayConverter.displayToCanonicalValue(parseResult.getValueToMatch()),
+                            comparator,
+                            matchOperation));
+                }
+            } catch (PatternSyntaxException e) {
+                LOG.warn("Error on applying a filter: " + e.getLocalizedMessage()); //$NON-NLS-1$
+            }
+        }
+
+        return (filter.textTerms.isEmpty() && filter.thresholds.isEmpty()) ? null : filter;
+    }
+
+    /**
+     * Evaluates the given filter for all rows or the given candidates.
+     *
+     * @param filter
+     *            The filter to evaluate.
+     * @param candidates
+     *            The indexes of the rows to evaluate, or <code>null</code> if
+     *            all rows should be evaluated.
+     * @return The indexes of the matching rows.
+     */
+    private BitSet evaluate(final ColumnFilter filter, final BitSet candidates) {
+        final Object[] snapshot = this.rows;
+        final String[] values = filter.textTerms.isEmpty() ? null : getDisplayValues(filter);
+        return runInChunks(snapshot.length, new ChunkEvaluation() {
+            @Override
+            public void evaluate(int start, int end, BitSet result) {
+                RowMatcher matcher = filter.createRowMatcher(values);
+                if (candidates == null) {
+                    for (int i = start; i < end; i++) {
+                        if (matcher.matches(i, snapshot[i])) {
+                            result.set(i);
+                        }
+                    }
+                } else {
+                    for (int i = candidates.nextSetBit(start); i >= 0 && i < end; i = candidates.nextSetBit(i + 1)) {
+                        if (matcher.matches(i, snapshot[i])) {
+                            result.set(i);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the display values of the column of the given filter for all
+     * rows of the snapshot. The values are converted on first access and
+     * cached until the next snapshot. The conversion is performed in the
+     * calling thread, as display converters are not required to be thread
+     * safe.
+     */
+    private String[] getDisplayValues(ColumnFilter filter) {
+        String[] values = this.displayValues.get(filter.columnIndex);
+        if (values == null) {
+            Object[] snapshot = this.rows;
+            values = new String[snapshot.length];
+            for (int i = 0; i < snapshot.length; i++) {
+                values[i] = filter.getDisplayValue(snapshot[i]);
+            }
+            this.displayValues.put(filter.columnIndex, values);
+        }
+        return values;
+    }
+
+    /**
+     * Splits the given number of rows in chunks and evaluates them in parallel
+     * via the {@link CalculationService}. The first chunk is evaluated in the
+     * calling thread, so lazy initializations like the property lookup of a
+     * reflective column accessor happen before the workers start.
+     *
+     * @return The combined result of all chunks.
+     */
+    private BitSet runInChunks(int rowCount, final ChunkEvaluation evaluation) {
+        BitSet result = new BitSet(rowCount);
+        int first = Math.min(this.chunkSize, rowCount);
+        evaluation.evaluate(0, first, result);
+
+        List<BitSet> chunkResults = new ArrayList<BitSet>();
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int start = first; start < rowCount; start += this.chunkSize) {
+            final int chunkStart = start;
+            final int chunkEnd = Math.min(start + this.chunkSize, rowCount);
+            final BitSet chunkResult = new BitSet();
+            chunkResults.add(chunkResult);
+            Runnable chunk = new Runnable() {
+                @Override
+                public void run() {
+                    evaluation.evaluate(chunkStart, chunkEnd, chunkResult);
+                }
+            };
+            Future<?> future = this.calculationService.execute(chunk);
+            if (future == null) {
+                // rejected, so evaluate in the calling thread
+                chunk.run();
+            } else {
+                futures.add(future);
+            }
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while filtering", e); //$NON-NLS-1$
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error while filtering", e.getCause()); //$NON-NLS-1$
+        }
+
+        for (BitSet chunkResult : chunkResults) {
+            result.or(chunkResult);
+        }
+        return result;
+    }
+
+    /**
+     * @return The number of rows that are evaluated in one task.
+     */
+    public int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * @param chunkSize
+     *            The number of rows that are evaluated in one task.
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Removes the listener from the base list and releases the cached values.
+     */
+    public void dispose() {
+        this.baseList.removeListEventListener(this.baseListListener);
+        this.rows = new Object[0];
+        this.displayValues.clear();
+        this.columnFilters.clear();
+    }
+
+    /**
+     * Evaluation of a range of rows.
+     */
+    private interface ChunkEvaluation {
+        void evaluate(int start, int end, BitSet result);
+    }
+
+    /**
+     * A threshold criterion like '&gt;20'.
+     */
+    private static class Threshold {
+        final Object threshold;
+        final Comparator<Object> comparator;
+        final MatchType matchOperation;
+
+        Threshold(Object threshold, Comparator<Object> comparator, MatchType matchOperation) {
+            this.threshold = threshold;
+            this.comparator = comparator;
+            this.matchOperation = matchOperation;
+        }
+    }
+
+    /**
+     * Reference to the row that is currently evaluated by a
+     * {@link RowMatcher}. The index is -1 for rows that are not contained in
+     * the snapshot.
+     */
+    private static class RowRef {
+        int index;
+        Object row;
+    }
+
+    /**
+     * The criteria of the filter row for one column and the indexes of the
+     * matching rows.
+     */
+    private class ColumnFilter {
+        final Integer columnIndex;
+        final String filterText;
+        final int mode;
+        final IDisplayConverter displayConverter;
+        final List<String> textTerms = new ArrayList<String>();
+        final List<Threshold> thresholds = new ArrayList<Threshold>();
+
+        BitSet matches;
+
+        ColumnFilter(Integer columnIndex, String filterText, int mode, IDisplayConverter displayConverter) {
+            this.columnIndex = columnIndex;
+            this.filterText = filterText;
+            this.mode = mode;
+            this.displayConverter = displayConverter;
+        }
+
+        boolean isSameFilter(ColumnFilter other) {
+            return this.filterText.equals(other.filterText) && this.mode == other.mode;
+        }
+
+        /**
+         * @return <code>true</code> if every value that matches this filter
+         *         is known to match the given previous filter.
+         */
+        boolean isNarrowing(ColumnFilter previous) {
+            if (this.mode != previous.mode
+                    || this.textTerms.size() != 1
+                    || previous.textTerms.size() != 1
+                    || !this.thresholds.isEmpty()
+                    || !previous.thresholds.isEmpty()) {
+                return false;
+            }
+            String term = this.textTerms.get(0);
+            String previousTerm = previous.textTerms.get(0);
+            if (previousTerm.length() == 0
+                    || hasSearchSyntax(term)
+                    || hasSearchSyntax(previousTerm)) {
+                return false;
+            }
+            if (this.mode == TextMatcherEditor.STARTS_WITH) {
+                return term.regionMatches(true, 0, previousTerm, 0, previousTerm.length());
+            } else if (this.mode == TextMatcherEditor.CONTAINS) {
+                for (int i = 0; i + previousTerm.length() <= term.length(); i++) {
+                    if (term.regionMatches(true, i, previousTerm, 0, previousTerm.length())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Negated, required or quoted terms are never treated as narrowing.
+         */
+        private boolean hasSearchSyntax(String term) {
+            return term.startsWith("-") || term.startsWith("+") || term.indexOf('"') >= 0; //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        @SuppressWarnings("unchecked")
+        String getDisplayValue(Object row) {
+            Object cellData = ParallelGlazedListsFilterStrategy.this.columnAccessor.getDataValue((T) row, this.columnIndex);
+            Object displayValue = this.displayConverter.canonicalToDisplayValue(cellData);
+            return (displayValue != null) ? displayValue.toString() : ""; //$NON-NLS-1$
+        }
+
+        Matcher<RowRef> createTextMatcher(String term, final String[] values) {
+            TextMatcherEditor<RowRef> editor = new TextMatcherEditor<RowRef>(new TextFilterator<RowRef>() {
+                @Override
+                public void getFilterStrings(List<String> baseList, RowRef rowRef) {
+                    baseList.add((values != null && rowRef.index >= 0)
+                            ? values[rowRef.index]
+                            : getDisplayValue(rowRef.row));
+                }
+            });
+            editor.setMode(this.mode);
+            editor.setFilterText(new String[] { term });
+            return editor.getMatcher();
+        }
+
+        /**
+         * Creates the GlazedLists matchers for the criteria of this column.
+         * The matchers are not thread safe, so every worker needs its own
+         * {@link RowMatcher}.
+         */
+        RowMatcher createRowMatcher(String[] values) {
+            RowMatcher matcher = new RowMatcher();
+            for (String term : this.textTerms) {
+                matcher.textMatchers.add(createTextMatcher(term, values));
+            }
+            for (Threshold threshold : this.thresholds) {
+                ThresholdMatcherEditor<RowRef, Object> editor = new ThresholdMatcherEditor<RowRef, Object>(
+                        threshold.threshold,
+                        null,
+                        threshold.comparator,
+                        new Function<RowRef, Object>() {
+                            @SuppressWarnings("unchecked")
+                            @Override
+                            public Object evaluate(RowRef rowRef) {
+                                return ParallelGlazedListsFilterStrategy.this.columnAccessor.getDataValue(
+                                        (T) rowRef.row, ColumnFilter.this.columnIndex);
+                            }
+                        });
+                FilterRowUtils.setMatchOperation(editor, threshold.matchOperation);
+                matcher.thresholdMatchers.add(editor.getMatcher());
+            }
+            return matcher;
+        }
+    }
+
+    /**
+     * Evaluates the criteria of one column like the matcher editors of the
+     * {@link DefaultGlazedListsFilterStrategy}: all thresholds need to match
+     * and one of the text terms.
+     */
+    private static class RowMatcher {
+        final List<Matcher<RowRef>> textMatchers = new ArrayList<Matcher<RowRef>>();
+        final List<Matcher<RowRef>> thresholdMatchers = new ArrayList<Matcher<RowRef>>();
+        final RowRef rowRef = new RowRef();
+
+        boolean matches(int index, Object row) {
+            this.rowRef.index = index;
+            this.rowRef.row = row;
+            for (Matcher<RowRef> matcher : this.thresholdMatchers) {
+                if (!matcher.matches(this.rowRef)) {
+                    return false;
+                }
+            }
+            if (this.textMatchers.isEmpty()) {
+                return true;
+            }
+            for (Matcher<RowRef> matcher : this.textMatchers) {
+                if (matcher.matches(this.rowRef)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * MatcherEditor that hands the match bitmap to the {@link FilterList}.
+     */
+    private class BitmapMatcherEditor extends AbstractMatcherEditor<T> {
+
+        void update(Object[] rows, BitSet matches, List<ColumnFilter> filters, int change) {
+            if (matches == null) {
+                fireMatchAll();
+                return;
+            }
+
+            BitmapMatcher matcher = new BitmapMatcher(rows, matches, filters);
+            if (change == CHANGE_CONSTRAINED) {
+                fireConstrained(matcher);
+            } else if (change == CHANGE_RELAXED) {
+                fireRelaxed(matcher);
+            } else {
+                fireChanged(matcher);
+            }
+            // the FilterList is updated synchronously, later calls are
+            // caused by list changes that are not covered by the snapshot
+            matcher.disableBitmap();
+        }
+    }
+
+    /**
+     * {@link Matcher} that answers by the match bitmap while the
+     * {@link FilterList} re-filters. The {@link FilterList} tests the elements
+     * in the order of the base list, so the index of an element is typically
+     * found by scanning forward from the last one. Elements that are not
+     * contained in the snapshot, and all elements tested after the re-filter,
+     * are evaluated directly.
+     */
+    private class BitmapMatcher implements Matcher<T> {
+
+        private static final int SCAN_WINDOW = 64;
+
+        private final Object[] rows;
+        private final BitSet matches;
+        private final List<ColumnFilter> filters;
+
+        private boolean useBitmap = true;
+        private int cursor;
+        private Map<Object, Integer> rowIndexes;
+        private List<RowMatcher> rowMatchers;
+
+        BitmapMatcher(Object[] rows, BitSet matches, List<ColumnFilter> filters) {
+            this.rows = rows;
+            this.matches = matches;
+            this.filters = filters;
+        }
+
+        /**
+         * Evaluates all further elements directly. Synchronized like
+         * {@link #matches(Object)}, so the filter threads see the change.
+         */
+        synchronized void disableBitmap() {
+            this.useBitmap = false;
+        }
+
+        @Override
+        public synchronized boolean matches(T item) {
+            if (this.useBitmap) {
+                int index = indexOf(item);
+                if (index >= 0) {
+                    return this.matches.get(index);
+                }
+            }
+
+            if (this.rowMatchers == null) {
+                this.rowMatchers = new ArrayList<RowMatcher>();
+                for (ColumnFilter filter : this.filters) {
+                    this.rowMatchers.add(filter.createRowMatcher(null));
+                }
+            }
+            for (RowMatcher rowMatcher : this.rowMatchers) {
+                if (!rowMatcher.matches(-1, item)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int indexOf(T item) {
+            int end = Math.min(this.rows.length, this.cursor + SCAN_WINDOW);
+            for (int i = this.cursor; i < end; i++) {
+                if (this.rows[i] == item) {
+                    this.cursor = i + 1;
+                    return i;
+                }
+            }
+
+            if (this.rowIndexes == null) {
+                this.rowIndexes = new IdentityHashMap<Object, Integer>(this.rows.length);
+                for (int i = this.rows.length - 1; i >= 0; i--) {
+                    this.rowIndexes.put(this.rows[i], Integer.valueOf(i));
+                }
+            }
+            Integer index = this.rowIndexes.get(item);
+            if (index != null) {
+                this.cursor = index.intValue() + 1;
+                return index.intValue();
+            }
+            return -1;
+        }
+    }
+}
@@ -29,6 +29,7 @@
 import org.eclipse.nebula.widgets.nattable.data.IRowIdAccessor;
 import org.eclipse.nebula.widgets.nattable.hideshow.IRowHideShowCommandLayer;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.MultiRowHideCommandHandler;
+import org.eclipse.nebula.widgets.nattable.hideshow.command.MultiRowIndexHideCommandHandler;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.MultiRowShowCommandHandler;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.RowHideCommandHandler;
 import org.eclipse.nebula.widgets.nattable.hideshow.command.ShowAllRowsCommandHandler;
@@ -213,6 +214,7 @@ protected void registerCommandHandlers() {
         registerCommandHandler(new MultiRowHideCommandHandler(this));
         registerCommandHandler(new ShowAllRowsCommandHandler(this));
         registerCommandHandler(new MultiRowShowCommandHandler(this));
+        registerCommandHandler(new MultiRowIndexHideCommandHandler(this));
     }
 
     /**
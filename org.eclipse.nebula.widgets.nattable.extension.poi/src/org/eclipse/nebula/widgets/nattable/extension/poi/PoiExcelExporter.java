@@ -16,10 +16,14 @@
 import java.io.OutputStream;
 import java.text.NumberFormat;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -67,6 +71,23 @@ public abstract class PoiExcelExporter implements ILayerExporter {
 
     private Map<ExcelCellStyleAttributes, CellStyle> xlCellStyles;
 
+    /**
+     * The Excel cell styles per {@link IConfigRegistry} and label combination.
+     * The style of a cell only depends on its labels and the registry of its
+     * table, so the style attributes need to be resolved only once per label
+     * combination of a table instead of once per cell. Multiple tables that
+     * are exported together have their own registries, so the same labels can
+     * result in different styles. Date values are not cached here, as their
+     * data format is resolved per cell.
+     */
+    private Map<IConfigRegistry, Map<List<String>, CellStyle>> xlLabelCellStyles;
+
+    /**
+     * The Excel fonts per font color, name and height, so cell styles that
+     * only differ in the background color share the same font.
+     */
+    private Map<List<Object>, Font> xlFonts;
+
     protected Workbook xlWorkbook;
     protected int sheetNumber;
     protected Sheet xlSheet;
@@ -104,6 +125,8 @@ public OutputStream getOutputStream(Shell shell) {
     @Override
     public void exportBegin(OutputStream outputStream) throws IOException {
         this.xlCellStyles = new HashMap<ExcelCellStyleAttributes, CellStyle>();
+        this.xlLabelCellStyles = new IdentityHashMap<IConfigRegistry, Map<List<String>, CellStyle>>();
+        this.xlFonts = new HashMap<List<Object>, Font>();
         this.xlWorkbook = createWorkbook();
         // the hidden column positions are determined by inspection so
         // it needs to be cleared at the beginning
@@ -112,9 +135,15 @@ public void exportBegin(OutputStream outputStream) throws IOException {
 
     @Override
     public void exportEnd(OutputStream outputStream) throws IOException {
-        this.xlWorkbook.write(outputStream);
+        try {
+            this.xlWorkbook.write(outputStream);
+        } finally {
+            disposeWorkbook(this.xlWorkbook);
+        }
 
         this.xlCellStyles = null;
+        this.xlLabelCellStyles = null;
+        this.xlFonts = null;
         this.xlWorkbook = null;
         this.sheetNumber = 0;
         this.xlSheet = null;
@@ -196,31 +225,28 @@ public void exportCell(
             return;
         }
 
-        CellStyleProxy cellStyle = new CellStyleProxy(
-                configRegistry,
-                DisplayMode.NORMAL,
-                cell.getConfigLabels().getLabels());
-        Color fg = cellStyle.getAttributeValue(CellStyleAttributes.FOREGROUND_COLOR);
-        Color bg = cellStyle.getAttributeValue(CellStyleAttributes.BACKGROUND_COLOR);
-        org.eclipse.swt.graphics.Font font = cellStyle.getAttributeValue(CellStyleAttributes.FONT);
-        FontData fontData = font.getFontData()[0];
-        String dataFormat = null;
-        if (exportDisplayValue instanceof Calendar
-                || exportDisplayValue instanceof Date) {
-            dataFormat = getDataFormatString(cell, configRegistry);
+        boolean dateValue = exportDisplayValue instanceof Calendar
+                || exportDisplayValue instanceof Date;
+        List<String> configLabels = cell.getConfigLabels().getLabels();
+
+        // the data format of date values is resolved per cell, all other
+        // styles are cached per label combination
+        Map<List<String>, CellStyle> labelCellStyles = null;
+        CellStyle xlCellStyle = null;
+        if (!dateValue) {
+            labelCellStyles = this.xlLabelCellStyles.get(configRegistry);
+            if (labelCellStyles == null) {
+                labelCellStyles = new HashMap<List<String>, CellStyle>();
+                this.xlLabelCellStyles.put(configRegistry, labelCellStyles);
+            }
+            xlCellStyle = labelCellStyles.get(configLabels);
+        }
+        if (xlCellStyle == null) {
+            xlCellStyle = getExcelCellStyle(cell, configRegistry, dateValue);
+            if (labelCellStyles != null) {
+                labelCellStyles.put(new ArrayList<String>(configLabels), xlCellStyle);
+            }
         }
-
-        int hAlign = HorizontalAlignmentEnum.getSWTStyle(cellStyle);
-        int vAlign = VerticalAlignmentEnum.getSWTStyle(cellStyle);
-
-        ICellPainter cellPainter = configRegistry.getConfigAttribute(
-                CellConfigAttributes.CELL_PAINTER,
-                DisplayMode.NORMAL,
-                cell.getConfigLabels().getLabels());
-        boolean vertical = this.applyVerticalTextConfiguration ? isVertical(cellPainter) : false;
-        boolean wrap = this.applyTextWrapping ? wrapText(cellPainter) : false;
-
-        CellStyle xlCellStyle = getExcelCellStyle(fg, bg, fontData, dataFormat, hAlign, vAlign, vertical, wrap, this.applyCellBorders);
         xlCell.setCellStyle(xlCellStyle);
 
         int columnSpan = cell.getColumnSpan();
@@ -323,13 +349,41 @@ private boolean wrapText(ICellPainter cellPainter) {
         return false;
     }
 
+    private CellStyle getExcelCellStyle(ILayerCell cell, IConfigRegistry configRegistry, boolean dateValue) {
+        CellStyleProxy cellStyle = new CellStyleProxy(
+                configRegistry,
+                DisplayMode.NORMAL,
+                cell.getConfigLabels().getLabels());
+        Color fg = cellStyle.getAttributeValue(CellStyleAttributes.FOREGROUND_COLOR);
+        Color bg = cellStyle.getAttributeValue(CellStyleAttributes.BACKGROUND_COLOR);
+        org.eclipse.swt.graphics.Font font = cellStyle.getAttributeValue(CellStyleAttributes.FONT);
+        FontData fontData = font.getFontData()[0];
+        String dataFormat = null;
+        if (dateValue) {
+            dataFormat = getDataFormatString(cell, configRegistry);
+        }
+
+        int hAlign = HorizontalAlignmentEnum.getSWTStyle(cellStyle);
+        int vAlign = VerticalAlignmentEnum.getSWTStyle(cellStyle);
+
+        ICellPainter cellPainter = configRegistry.getConfigAttribute(
+                CellConfigAttributes.CELL_PAINTER,
+                DisplayMode.NORMAL,
+                cell.getConfigLabels().getLabels());
+        boolean vertical = this.applyVerticalTextConfiguration ? isVertical(cellPainter) : false;
+        boolean wrap = this.applyTextWrapping ? wrapText(cellPainter) : false;
+
+        return getExcelCellStyle(fg, bg, fontData, dataFormat, hAlign, vAlign, vertical, wrap, this.applyCellBorders);
+    }
+
     private CellStyle getExcelCellStyle(
             Color fg, Color bg, FontData fontData,
             String dataFormat, int hAlign, int vAlign,
             boolean vertical, boolean wrap, boolean border) {
 
-        CellStyle xlCellStyle = this.xlCellStyles.get(
-                new ExcelCellStyleAttributes(fg, bg, fontData, dataFormat, hAlign, vAlign, vertical, wrap, border));
+        ExcelCellStyleAttributes attributes =
+                new ExcelCellStyleAttributes(fg, bg, fontData, dataFormat, hAlign, vAlign, vertical, wrap, border);
+        CellStyle xlCellStyle = this.xlCellStyles.get(attributes);
 
         if (xlCellStyle == null) {
             xlCellStyle = this.xlWorkbook.createCellStyle();
@@ -340,10 +394,15 @@ private CellStyle getExcelCellStyle(
                 xlCellStyle.setFillPattern(CellStyle.SOLID_FOREGROUND);
             }
 
-            Font xlFont = this.xlWorkbook.createFont();
-            setFontColor(xlFont, fg);
-            xlFont.setFontName(fontData.getName());
-            xlFont.setFontHeightInPoints((short) fontData.getHeight());
+            List<Object> fontKey = Arrays.<Object> asList(fg, fontData.getName(), fontData.getHeight());
+            Font xlFont = this.xlFonts.get(fontKey);
+            if (xlFont == null) {
+                xlFont = this.xlWorkbook.createFont();
+                setFontColor(xlFont, fg);
+                xlFont.setFontName(fontData.getName());
+                xlFont.setFontHeightInPoints((short) fontData.getHeight());
+                this.xlFonts.put(fontKey, xlFont);
+            }
             xlCellStyle.setFont(xlFont);
 
             if (vertical)
@@ -387,8 +446,7 @@ private CellStyle getExcelCellStyle(
                 xlCellStyle.setDataFormat(createHelper.createDataFormat().getFormat(dataFormat));
             }
 
-            this.xlCellStyles.put(
-                    new ExcelCellStyleAttributes(fg, bg, fontData, dataFormat, hAlign, vAlign, vertical, wrap, border), xlCellStyle);
+            this.xlCellStyles.put(attributes, xlCellStyle);
         }
         return xlCellStyle;
     }
@@ -535,6 +593,20 @@ public void setApplyCellBorders(boolean apply) {
 
     protected abstract Workbook createWorkbook();
 
+    /**
+     * Releases the resources of the given workbook after it was written to
+     * the output stream. Workbook implementations that stream rows to
+     * temporary files while exporting, need to delete those files here. The
+     * default implementation does nothing, as the workbook is kept in memory.
+     *
+     * @param workbook
+     *            The workbook that was written.
+     * @since 1.6
+     */
+    protected void disposeWorkbook(Workbook workbook) {
+        // in-memory workbooks are released by the garbage collector
+    }
+
     protected abstract void setFillForegroundColor(CellStyle xlCellStyle, Color swtColor);
 
     protected abstract void setFontColor(Font xlFont, Color swtColor);
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Original authors and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Original authors and others - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.nattable.test.performance;
+
+import org.eclipse.nebula.widgets.nattable.grid.data.DummyBodyDataProvider;
+import org.eclipse.nebula.widgets.nattable.layer.DataLayer;
+import org.eclipse.nebula.widgets.nattable.selection.ISelectionModel;
+import org.eclipse.nebula.widgets.nattable.selection.RangeSelectionModel;
+import org.eclipse.nebula.widgets.nattable.selection.SelectionLayer;
+import org.eclipse.nebula.widgets.nattable.selection.SelectionModel;
+import org.eclipse.swt.graphics.Rectangle;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Compares the {@link SelectionModel} with the {@link RangeSelectionModel} for
+ * a fragmented selection of 10.000 disjoint rows, like it is created by
+ * selecting every second row via CTRL + click.
+ */
+public class SelectionModelPerformanceTest {
+
+    private static final int COLUMN_COUNT = 20;
+    private static final int ROW_COUNT = 20000;
+    private static final int SELECTION_COUNT = 10000;
+
+    // number of columns and rows that are checked per simulated repaint
+    private static final int VISIBLE_COLUMNS = 20;
+    private static final int VISIBLE_ROWS = 50;
+    private static final int REPAINTS = 20;
+
+    private SelectionLayer selectionLayer;
+
+    @Before
+    public void setup() {
+        this.selectionLayer = new SelectionLayer(new DataLayer(new DummyBodyDataProvider(COLUMN_COUNT, ROW_COUNT)), false);
+    }
+
+    @Test
+    public void compareDisjointRowSelections() {
+        SelectionModel listModel = new SelectionModel(this.selectionLayer);
+        RangeSelectionModel rangeModel = new RangeSelectionModel(this.selectionLayer);
+
+        long listAdd = addDisjointRowSelections(listModel);
+        long rangeAdd = addDisjointRowSelections(rangeModel);
+
+        long listLookup = checkVisibleCells(listModel);
+        long rangeLookup = checkVisibleCells(rangeModel);
+
+        long listRows = System.nanoTime();
+        int listRowCount = listModel.getSelectedRowCount();
+        listRows = System.nanoTime() - listRows;
+        long rangeRows = System.nanoTime();
+        int rangeRowCount = rangeModel.getSelectedRowCount();
+        rangeRows = System.nanoTime() - rangeRows;
+
+        long listClear = clearHalf(listModel);
+        long rangeClear = clearHalf(rangeModel);
+
+        System.out.println("SelectionModel:      add = " + toMillis(listAdd)
+                + " ms, " + REPAINTS + " repaints = " + toMillis(listLookup)
+                + " ms, selected rows = " + toMillis(listRows)
+                + " ms, clear = " + toMillis(listClear) + " ms");
+        System.out.println("RangeSelectionModel: add = " + toMillis(rangeAdd)
+                + " ms, " + REPAINTS + " repaints = " + toMillis(rangeLookup)
+                + " ms, selected rows = " + toMillis(rangeRows)
+                + " ms, clear = " + toMillis(rangeClear) + " ms");
+
+        Assert.assertEquals(SELECTION_COUNT, listRowCount);
+        Assert.assertEquals(SELECTION_COUNT, rangeRowCount);
+        Assert.assertEquals(listModel.getSelectedRowCount(), rangeModel.getSelectedRowCount());
+        Assert.assertTrue("Expected the RangeSelectionModel to be faster on repaint but took "
+                + toMillis(rangeLookup) + " ms compared to " + toMillis(listLookup) + " ms",
+                rangeLookup < listLookup);
+    }
+
+    private long addDisjointRowSelections(ISelectionModel model) {
+        long start = System.nanoTime();
+        for (int i = 0; i < SELECTION_COUNT; i++) {
+            model.addSelection(new Rectangle(0, i * 2, COLUMN_COUNT, 1));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long checkVisibleCells(ISelectionModel model) {
+        long start = System.nanoTime();
+        int selected = 0;
+        for (int repaint = 0; repaint < REPAINTS; repaint++) {
+            // scroll through the table
+            int firstRow = repaint * (ROW_COUNT / REPAINTS);
+            for (int row = firstRow; row < firstRow + VISIBLE_ROWS; row++) {
+                for (int column = 0; column < VISIBLE_COLUMNS; column++) {
+                    if (model.isCellPositionSelected(column, row)) {
+                        selected++;
+                    }
+                }
+            }
+        }
+        Assert.assertEquals(REPAINTS * VISIBLE_ROWS * VISIBLE_COLUMNS / 2, selected);
+        return System.nanoTime() - start;
+    }
+
+    private long clearHalf(ISelectionModel model) {
+        long start = System.nanoTime();
+        for (int i = 0; i < SELECTION_COUNT; i += 2) {
+            model.clearSelection(new Rectangle(0, i * 2, COLUMN_COUNT, 1));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1000000;
+    }
+}